@@ -1,10 +1,15 @@
 package de.spl12.ai_client.application;
 
 
+import de.spl12.ai_client.utils.AiUser;
 import de.spl12.ai_client.utils.ConstantsManager;
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
 
 /**
  * Main class for the AI client application.
+ *
+ * <p>Optional arguments: the server host, the number of search threads per decision and the
+ * parallel search mode ({@code ROOT} or {@code TREE}).
  */
 public class AiClient {
     public static void main(String[] args) {
@@ -12,6 +17,12 @@ public class AiClient {
             ConstantsManager.HOST = args[0];
             System.out.println(ConstantsManager.HOST);
         }
+        if (args.length > 1) {
+            AiUser.getInstance().setSearchParallelism(Math.max(1, Integer.parseInt(args[1])));
+        }
+        if (args.length > 2) {
+            AiUser.getInstance().setSearchMode(ParallelMonteCarloTreeSearch.Mode.valueOf(args[2]));
+        }
         StartScreen.launchGui(args);
     }
 }
\ No newline at end of file
@@ -2,15 +2,20 @@ package de.spl12.ai_client.application;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 import java.util.logging.Logger;
 import de.spl12.ai_client.utils.ConstantsManager;
+import de.spl12.domain.GameState;
 import de.spl12.domain.messages.AbstractPackage;
 import de.spl12.domain.messages.CreateSessionPackage;
 import de.spl12.domain.messages.JoinSessionPackage;
 import de.spl12.domain.messages.LeaveSessionPackage;
+import de.spl12.domain.messages.GameStateReplica;
 import de.spl12.domain.messages.PlayerActionPackage;
-import de.spl12.domain.messages.PackageDecoder;
-import de.spl12.domain.messages.PackageEncoder;
+import de.spl12.domain.messages.ResyncRequestPackage;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.messages.BinaryPackageDecoder;
+import de.spl12.domain.messages.BinaryPackageEncoder;
 import jakarta.websocket.ClientEndpoint;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.OnMessage;
@@ -36,13 +41,13 @@ import jakarta.websocket.CloseReason;
  *
  * <p>It uses Jakarta WebSocket API with custom encoders and decoders for game message packages.
  *
- * @see PackageDecoder
- * @see PackageEncoder
+ * @see BinaryPackageDecoder
+ * @see BinaryPackageEncoder
  * @see AbstractPackage
  * @see GameController
  * @author ennauman
  */
-@ClientEndpoint(decoders = PackageDecoder.class, encoders = PackageEncoder.class)
+@ClientEndpoint(decoders = BinaryPackageDecoder.class, encoders = BinaryPackageEncoder.class)
 public class GameClientEndpoint {
 
   /** Logger instance for logging WebSocket client activity. */
@@ -51,6 +56,9 @@ public class GameClientEndpoint {
   /** The WebSocket session used to send and receive messages. */
   private final Session session;
 
+  /** The game state of the server, updated by its deltas. */
+  private final GameStateReplica replica = new GameStateReplica();
+
   /**
    * Constructs a new {@code GameClientEndpoint} and connects it to the WebSocket game server.
    *
@@ -100,7 +108,7 @@ public class GameClientEndpoint {
    * <ul>
    *   <li>Session creation and join responses
    *   <li>Session exit notifications
-   *   <li>Player action/game state updates
+   *   <li>Player action/game state updates and their deltas
    * </ul>
    *
    * @param msgPackage the received message package
@@ -150,8 +158,29 @@ public class GameClientEndpoint {
       LOGGER.info("Received leave session package — game was canceled");
 
     } else if (msgPackage instanceof PlayerActionPackage msg) {
+      this.replica.reset(msg);
       GameController.getInstance().updateGameState(msg.getGameState());
       LOGGER.info("Received updated game state");
+
+    } else if (msgPackage instanceof StateDeltaPackage msg) {
+      this.applyDelta(msg);
+    }
+  }
+
+  /**
+   * Applies a delta of the server to the replica and passes the new state to the {@link
+   * GameController}. If an update was missed, the full state is requested instead.
+   *
+   * @param msg the delta package
+   */
+  private void applyDelta(StateDeltaPackage msg) {
+    Optional<GameState> gameState = this.replica.apply(msg);
+    if (gameState.isPresent()) {
+      GameController.getInstance().updateGameState(gameState.get());
+    } else if (this.replica.shouldRequestResync()) {
+      LOGGER.info("Missed the update before " + msg.getSequence() + ", requesting a resync");
+      this.sendMessage(
+          new ResyncRequestPackage(GameController.getInstance().getPlayer(), msg.getSessionId()));
     }
   }
 
@@ -3,25 +3,18 @@ package de.spl12.ai_client.application;
 import de.spl12.ai_client.utils.AiUser;
 import de.spl12.domain.AbstractPlayer;
 import de.spl12.domain.AiPlayer;
-import de.spl12.domain.ChatMessage;
-import de.spl12.domain.Exceptions.DepletedResourceException;
 import de.spl12.domain.GameState;
 import de.spl12.domain.HumanPlayer;
-import de.spl12.domain.Noble;
-import de.spl12.domain.StoneType;
+import de.spl12.domain.messages.ChatPackage;
 import de.spl12.domain.messages.JoinSessionPackage;
 import de.spl12.domain.messages.LeaveSessionPackage;
-import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.messages.MovePackage;
 import de.spl12.domain.moves.AbstractMove;
-import de.spl12.domain.moves.BuyMove;
-import de.spl12.domain.moves.ReserveMove;
-import de.spl12.domain.moves.TakeMove;
+import de.spl12.domain.moves.TurnTransaction;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 
 
@@ -42,13 +35,13 @@ public class GameController {
   private static GameController INSTANCE;
   private GameState gameState;
   private AiPlayer player;
+  private ForkJoinPool searchPool;
   private final GameClientEndpoint gameClientEndpoint;
   private LobbyController lobbyController;
   private JoinController joinController;
   private int sessionId;
   private Thread t;
   private boolean inSession;
-  private boolean gameOver = false;
 
   private GameController() {
     this.gameClientEndpoint = new GameClientEndpoint();
@@ -67,12 +60,23 @@ public class GameController {
    * <p>
    * This method is used to request joining a session. If no response is received from the server
    * within 10 seconds, it is treated as a failed attempt.
+   * <p>
+   * The AI player created here decides all moves of the session, so its search settings, its
+   * search pool and the tables it keeps between turns are not lost with the copies of the player
+   * sent by the server.
    *
    * @param sessionId the ID of the session to join
    */
   public void joinGameSession(int sessionId) {
-    AiPlayer aiPlayer = new AiPlayer(-1, AiUser.getInstance().getDifficulty());
-    JoinSessionPackage joinSessionPackage = new JoinSessionPackage(aiPlayer, sessionId,
+    AiUser user = AiUser.getInstance();
+    this.shutdownSearchPool();
+    this.player = new AiPlayer(-1, user.getDifficulty());
+    this.player.setSearchMode(user.getSearchMode());
+    if (user.getSearchParallelism() > 1) {
+      this.searchPool = new ForkJoinPool(user.getSearchParallelism());
+      this.player.setSearchPool(this.searchPool);
+    }
+    JoinSessionPackage joinSessionPackage = new JoinSessionPackage(this.player, sessionId,
         JoinSessionPackage.JoinStatus.REQUESTED);
     this.gameClientEndpoint.sendMessage(joinSessionPackage);
     t = new Thread(() -> {
@@ -89,15 +93,17 @@ public class GameController {
   /**
    * Handles a successful join to a game session.
    * <p>
-   * This method is called when the server approves the join request. It sets the AI player and
-   * session ID, and notifies the UI controller.
+   * This method is called when the server approves the join request. It takes the seat and the name
+   * assigned by the server over to the AI player, sets the session ID, and notifies the UI
+   * controller.
    *
-   * @param player    the AI player that successfully joined
+   * @param player    the AI player that successfully joined, as sent by the server
    * @param sessionId the session ID that was joined
    */
   public void joinSuccessful(AbstractPlayer player, int sessionId) {
     t.interrupt();
-    this.player = (AiPlayer) player;
+    this.player.setSessionPlayerNumber(player.getSessionPlayerNumber());
+    this.player.setName(player.getName());
     this.sessionId = sessionId;
     this.joinController.handleJoinSuccessful();
     this.inSession = true;
@@ -114,6 +120,7 @@ public class GameController {
    */
   public void joinUnsuccessful(String errorMsg) {
     t.interrupt();
+    this.shutdownSearchPool();
     this.joinController.handleJoinUnsuccessful(errorMsg);
     LOGGER.info("Join Unsuccessful");
   }
@@ -132,11 +139,6 @@ public class GameController {
     if (this.greetBackIn == Integer.MIN_VALUE) {
       initializeReplyQueue();
     }
-    Optional<AbstractPlayer> winner = this.checkWin();
-    if (winner.isEmpty()) {
-      this.gameOver = false;
-    }
-
     if (this.newGame && this.gameState.getTurnNumber() == 0) {
       this.turnNumber = 0;
       this.newGame = false;
@@ -145,12 +147,12 @@ public class GameController {
       this.newGame = true;
     }
 
-    // as the session player number can change due to someone with a lower number leaving we get our player through the distinct name
+    // as the session player number can change due to someone with a lower number leaving we get our seat through the distinct name
     for (AbstractPlayer p : this.gameState.getPlayers()) {
       // within AI players the names are distinct
       if (p instanceof AiPlayer aiPlayer) {
         if (aiPlayer.getName().equals(this.getPlayer().getName())) {
-          this.player = aiPlayer;
+          this.player.setSessionPlayerNumber(aiPlayer.getSessionPlayerNumber());
         }
       }
     }
@@ -166,10 +168,9 @@ public class GameController {
     if (this.gameState.isRunning()) {
       if (this.lobbyController != null) {
         this.lobbyController.updateUI();
-        winner = this.checkWin();
+        Optional<AbstractPlayer> winner = this.checkWin();
         if (winner.isPresent()) {
           LOGGER.info("Winner is " + winner.get().getName());
-          this.gameOver = true;
           this.newGame = true;
           this.turnNumber = 0;
           return;
@@ -182,64 +183,9 @@ public class GameController {
       try {
         Thread.sleep((2000));
         AbstractMove move = this.player.decideMove(this.gameState);
-
-        if (move instanceof TakeMove takeMove) {
-          Map<StoneType, Integer> tokens = takeMove.getTokens();
-          for (Map.Entry<StoneType, Integer> entry : tokens.entrySet()) {
-            StoneType stoneType = entry.getKey();
-            int count = entry.getValue();
-            for (int i = 0; i < count; i++) {
-              this.player.takeStone(stoneType);
-              this.gameState.takeStone(stoneType);
-              commitAction();
-              sleepRandomAmountOfTime();
-            }
-          }
-        } else if (move instanceof ReserveMove reserveMove) {
-          this.player.reserveCard(reserveMove.getCard());
-          this.gameState.replaceCard(reserveMove.getCard());
-          if (reserveMove.gotGoldCoin()) {
-            this.player.takeStone(StoneType.GOLD);
-            gameState.takeStone(StoneType.GOLD);
-          }
-          commitAction();
-          sleepRandomAmountOfTime();
-        } else if (move instanceof BuyMove buyMove) {
-          this.gameState.performPayment(buyMove.getTokens());
-          this.player.buyCard(buyMove.getCard());
-          this.gameState.replaceCard(buyMove.getCard());
-          commitAction();
-          sleepRandomAmountOfTime();
-        }
-
-        // Return tokens if more than 10
-        for (StoneType stoneToReturn : move.getTokensToReturn()) {
-          this.player.returnStone(stoneToReturn);
-          this.gameState.returnStone(stoneToReturn);
-          commitAction();
-          sleepRandomAmountOfTime();
-        }
-
-        // check nobles
-        List<Noble> obtainable = new ArrayList<>();
-        for (Noble noble : this.gameState.getNobleDeck()) {
-          if (this.player.checkNobleVisit(noble)) {
-            obtainable.add(noble);
-          }
-        }
-        if (!obtainable.isEmpty()) {
-          Noble noble = obtainable.getFirst();
-          gameState.removeNoble(noble);
-          this.player.obtainNoble(noble);
-          commitAction();
-          sleepRandomAmountOfTime();
-        }
-        sleepRandomAmountOfTime();
-        gameState.nextTurn();
-        this.commitAction();
-      } catch (DepletedResourceException e) {
-        LOGGER.info(
-            "Something went very wrong! DepletedResourceException in AI Client: " + e.getMessage());
+        // the server validates and applies the whole turn, including returned tokens, the noble
+        // visit and the turn change
+        this.submitMove(move);
       } catch (Exception e) {
         LOGGER.info("Exception in AI Client: " + e.getMessage());
       }
@@ -247,21 +193,6 @@ public class GameController {
   }
 
 
-  /**
-   * Simulates "thinking" time between 250 and 750 milliseconds.
-   * <p>
-   * This method is used to simulate a delay in the AI player's actions, making it appear more
-   * human-like in its decision-making process.
-   */
-  private void sleepRandomAmountOfTime() {
-    double sleepTime = Math.random() * 500 + 250;
-    try {
-      Thread.sleep((long) sleepTime);
-    } catch (InterruptedException e) {
-      LOGGER.info("InterruptedException in AI Client: " + e.getMessage());
-    }
-  }
-
   /**
    * Sends a greeting reply to the chat.
    * <p>
@@ -277,10 +208,7 @@ public class GameController {
       } catch (InterruptedException e) {
         throw new RuntimeException(e);
       }
-      ChatMessage message = new ChatMessage(this.player.getName(),
-          replies[(int) (Math.random() * replies.length)]);
-      this.gameState.getChat().writeMessage(message);
-      this.commitAction();
+      this.sendChatMessage(replies[(int) (Math.random() * replies.length)]);
     }
     this.greetBackIn--;
   }
@@ -316,6 +244,17 @@ public class GameController {
       this.gameClientEndpoint.sendMessage(leaveSessionPackage);
       this.inSession = false;
     }
+    this.shutdownSearchPool();
+  }
+
+  /**
+   * Shuts down the search pool of the AI player, if it has one. A running search still finishes.
+   */
+  private void shutdownSearchPool() {
+    if (this.searchPool != null) {
+      this.searchPool.shutdown();
+      this.searchPool = null;
+    }
   }
 
   /**
@@ -355,27 +294,31 @@ public class GameController {
   }
 
   /**
-   * Sends the player's action to the server.
-   * <p>
-   * This method is called after a player performs an action (e.g., taking stones, reserving cards,
-   * etc.). It creates a {@link PlayerActionPackage} and sends it to the server to update the game
-   * state.
+   * Sends a chat message to the server, which appends it to its own game state under the name of
+   * the player and sends it back to all players. Unlike the full state, the message cannot replace
+   * a turn that was applied in the meantime.
+   *
+   * @param text the text of the message
    */
-  public void commitAction() {
-    // we need this check because the ai client can make multiple move in one turn
-    // even after the partial turn finished the game
-    Optional<AbstractPlayer> winner = this.checkWin();
-    if (!this.gameOver && winner.isPresent()) {
-      this.gameOver = true;
-      PlayerActionPackage playerActionPackage = new PlayerActionPackage(this.player, this.sessionId,
-          this.gameState);
-      this.gameClientEndpoint.sendMessage(playerActionPackage);
-    }
-    if (!this.gameOver) {
-      PlayerActionPackage playerActionPackage = new PlayerActionPackage(this.player, this.sessionId,
-          this.gameState);
-      this.gameClientEndpoint.sendMessage(playerActionPackage);
-    }
+  private void sendChatMessage(String text) {
+    this.gameClientEndpoint.sendMessage(
+        new ChatPackage(this.sessionId, this.player.getSessionPlayerNumber(), text));
+  }
+
+  /**
+   * Submits a complete turn to the server as the steps of one {@link TurnTransaction}, which the
+   * server validates against its own game state and broadcasts. The local game state stays
+   * unchanged until then.
+   *
+   * @param move the move decided by the AI
+   */
+  private void submitMove(AbstractMove move) {
+    LOGGER.info("Submitting " + move);
+    this.gameClientEndpoint.sendMessage(
+        new MovePackage(
+            this.sessionId,
+            this.player.getSessionPlayerNumber(),
+            TurnTransaction.of(move).getSteps()));
   }
 
   public boolean isMyTurn() {
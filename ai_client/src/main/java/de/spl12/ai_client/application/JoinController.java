@@ -41,7 +41,7 @@ public class JoinController extends Controller {
   @FXML
   public void initialize() {
     difficultySlider.setMin(0);
-    difficultySlider.setMax(2);
+    difficultySlider.setMax(3);
     difficultySlider.setMajorTickUnit(1);
     difficultySlider.setMinorTickCount(0);
     difficultySlider.setSnapToTicks(true);
@@ -114,8 +114,10 @@ public class JoinController extends Controller {
       return AiDifficulty.EASY;
     } else if (sliderValue == 1) {
       return AiDifficulty.MEDIUM;
-    } else {
+    } else if (sliderValue == 2) {
       return AiDifficulty.HARD;
+    } else {
+      return AiDifficulty.EXPERT;
     }
   }
 }
@@ -1,6 +1,7 @@
 package de.spl12.ai_client.utils;
 
 import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
 
 /**
  * Singleton class that stores information about the current AI user.
@@ -20,10 +21,14 @@ public class AiUser {
     private String name;
     private String lobbyCode;
     private AiDifficulty difficulty;
+    private int searchParallelism;
+    private ParallelMonteCarloTreeSearch.Mode searchMode;
 
     /** Private constructor to prevent external instantiation. */
     private AiUser() {
         this.difficulty = AiDifficulty.MEDIUM;
+        this.searchParallelism = Runtime.getRuntime().availableProcessors();
+        this.searchMode = ParallelMonteCarloTreeSearch.Mode.ROOT;
     }
 
     /** Inner static helper class for thread-safe lazy initialization. */
@@ -93,4 +98,40 @@ public class AiUser {
     public void setDifficulty(AiDifficulty difficulty) {
         this.difficulty = difficulty;
     }
+
+    /**
+     * Gets the number of threads the search based difficulties use per decision.
+     *
+     * @return the search parallelism
+     */
+    public int getSearchParallelism() {
+        return searchParallelism;
+    }
+
+    /**
+     * Sets the number of threads the search based difficulties use per decision.
+     *
+     * @param searchParallelism the number of threads, at least 1
+     */
+    public void setSearchParallelism(int searchParallelism) {
+        this.searchParallelism = searchParallelism;
+    }
+
+    /**
+     * Gets how the search threads share their work.
+     *
+     * @return the {@link ParallelMonteCarloTreeSearch.Mode}
+     */
+    public ParallelMonteCarloTreeSearch.Mode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Sets how the search threads share their work.
+     *
+     * @param searchMode the {@link ParallelMonteCarloTreeSearch.Mode} to use
+     */
+    public void setSearchMode(ParallelMonteCarloTreeSearch.Mode searchMode) {
+        this.searchMode = searchMode;
+    }
 }
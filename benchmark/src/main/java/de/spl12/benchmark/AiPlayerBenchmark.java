@@ -0,0 +1,72 @@
+package de.spl12.benchmark;
+
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.AiPlayer;
+import de.spl12.domain.GameState;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.moves.AbstractMove;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks one decision of the {@link AiPlayer} per difficulty and game phase. The EXPERT
+ * difficulty searches a fixed number of iterations instead of its interactive time budget, so that
+ * the result measures the speed of the search rather than the clock.
+ *
+ * @author luott
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AiPlayerBenchmark {
+
+  private static final SearchBudget EXPERT_BUDGET = SearchBudget.ofIterations(1_000);
+
+  @Param({"EASY", "MEDIUM", "HARD", "EXPERT"})
+  private AiDifficulty difficulty;
+
+  @Param({"EARLY", "MID", "LATE"})
+  private GamePhase phase;
+
+  private GameState gameState;
+  private AiPlayer player;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.gameState = this.phase.createGameState();
+    int seat = this.gameState.getPlayersTurn();
+    // seeded like the players of the phase, so every fork decides the same moves
+    this.player = new AiPlayer(seat, this.difficulty, GamePhase.SEED + seat);
+    this.player.setName("AI " + seat);
+    // the decisions only read the game state, the player takes over the position of its seat
+    AiPlayer original = (AiPlayer) this.gameState.getPlayers().get(seat);
+    this.player.getStoneInventory().putAll(original.getStoneInventory());
+    this.player.getOwnedCards().addAll(original.getOwnedCards());
+    this.player.getReservedCards().addAll(original.getReservedCards());
+    this.player.getNobles().addAll(original.getNobles());
+    this.player.recalculateTotals();
+    this.gameState.getPlayers().set(seat, this.player);
+  }
+
+  @Benchmark
+  public AbstractMove decideMove() {
+    if (this.difficulty == AiDifficulty.EXPERT) {
+      return this.player.decideMoveExpert(this.gameState, EXPERT_BUDGET);
+    }
+    return this.player.decideMove(this.gameState);
+  }
+}
@@ -0,0 +1,31 @@
+package de.spl12.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar. Accepts the usual JMH command line options, e.g. a regular
+ * expression selecting the benchmarks, and always adds the GC profiler so that every result
+ * reports the allocation rate ({@code gc.alloc.rate.norm} is the number of bytes allocated per
+ * operation).
+ *
+ * <p>Usage: {@code java -jar benchmark/target/benchmarks.jar [jmh options] [benchmark regex]}
+ *
+ * @author luott
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+    Options options =
+        new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,62 @@
+package de.spl12.benchmark;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.AiPlayer;
+import de.spl12.domain.GameState;
+import java.util.ArrayList;
+
+/**
+ * Stages of a game used as benchmark fixtures. A fixture is created by letting four HARD {@link
+ * AiPlayer}s play until the leading player has at least the prestige of the phase, so that the
+ * table, the token pool and the hands of the players look like in a real game. The game and the
+ * players are seeded, so every fork of a benchmark measures the same position.
+ *
+ * @author luott
+ */
+public enum GamePhase {
+  EARLY(0),
+  MID(6),
+  LATE(12);
+
+  private static final int PLAYERS = 4;
+  private static final int MAX_MOVES = 400;
+  /** The seed of the deal and of the players, also used by the benchmarks for their players. */
+  static final long SEED = 12;
+
+  private final int leaderPrestige;
+
+  GamePhase(int leaderPrestige) {
+    this.leaderPrestige = leaderPrestige;
+  }
+
+  /**
+   * Creates a new game state of this phase with four AI players.
+   *
+   * @return the game state, with the next player to move on turn
+   */
+  public GameState createGameState() {
+    GameState gameState = new GameState(SEED);
+    ArrayList<AbstractPlayer> players = new ArrayList<>();
+    for (int i = 0; i < PLAYERS; i++) {
+      AiPlayer player = new AiPlayer(i, AiDifficulty.HARD, SEED + i);
+      player.setName("AI " + i);
+      players.add(player);
+    }
+    gameState.setPlayers(players);
+
+    for (int moves = 0; moves < MAX_MOVES && this.leader(gameState) < this.leaderPrestige; moves++) {
+      AiPlayer player = (AiPlayer) players.get(gameState.getPlayersTurn());
+      gameState.apply(player.decideMove(gameState));
+    }
+    return gameState;
+  }
+
+  private int leader(GameState gameState) {
+    int prestige = 0;
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      prestige = Math.max(prestige, player.getPrestige());
+    }
+    return prestige;
+  }
+}
@@ -0,0 +1,78 @@
+package de.spl12.benchmark;
+
+import de.spl12.domain.GameState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks setting up a game, creating a {@link GameState} and resetting a finished one, and
+ * taking snapshots of a running game with {@link GameState#copy(boolean)} compared to a round trip
+ * through Java serialization.
+ *
+ * @author luott
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+  private GameState lateGame;
+  private GameState midGame;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.lateGame = GamePhase.LATE.createGameState();
+    this.midGame = GamePhase.MID.createGameState();
+  }
+
+  @Benchmark
+  public GameState construct() {
+    return new GameState();
+  }
+
+  @Benchmark
+  public GameState reset() {
+    this.lateGame.reset();
+    return this.lateGame;
+  }
+
+  @Benchmark
+  public GameState copy() {
+    return this.midGame.copy();
+  }
+
+  @Benchmark
+  public GameState copyWithoutChat() {
+    return this.midGame.copy(false);
+  }
+
+  @Benchmark
+  public Object serializationRoundTrip() throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(this.midGame);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return in.readObject();
+    }
+  }
+}
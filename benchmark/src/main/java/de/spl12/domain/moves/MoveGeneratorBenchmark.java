@@ -0,0 +1,127 @@
+package de.spl12.domain.moves;
+
+import de.spl12.benchmark.GamePhase;
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.GameState;
+import de.spl12.domain.StoneType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks the move generation of the {@link MoveGenerator} and the payment calculations it is
+ * built on, for the current player of an early, mid and late game. Lives in the package of the
+ * generator to reach {@link MoveGenerator#getTokensUsedToBuy(Card, Map, AbstractPlayer)}.
+ *
+ * @author luott
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGeneratorBenchmark {
+
+  @Param({"EARLY", "MID", "LATE"})
+  private GamePhase phase;
+
+  private GameState gameState;
+  private AbstractPlayer player;
+  private Map<StoneType, Integer> playerTokens;
+  private List<Card> cards;
+  private long[] packedCosts;
+  private long packedBonuses;
+  private long packedTokens;
+  private int gold;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.gameState = this.phase.createGameState();
+    this.player = this.gameState.getPlayers().get(this.gameState.getPlayersTurn());
+    this.playerTokens = this.player.getStoneInventory();
+    this.cards = new ArrayList<>();
+    for (List<Card> deck :
+        List.of(
+            this.gameState.getFirstCardDeck(),
+            this.gameState.getSecondCardDeck(),
+            this.gameState.getThirdCardDeck())) {
+      for (Card card : deck) {
+        if (card != null) {
+          this.cards.add(card);
+        }
+      }
+    }
+    this.cards.addAll(this.player.getReservedCards());
+    this.packedCosts = new long[this.cards.size()];
+    for (int i = 0; i < this.packedCosts.length; i++) {
+      this.packedCosts[i] = AffordabilityKernel.cardCost(this.cards.get(i).getId());
+    }
+    this.packedBonuses = AffordabilityKernel.packBonuses(this.player);
+    this.packedTokens = AffordabilityKernel.pack(this.playerTokens);
+    this.gold = this.playerTokens.get(StoneType.GOLD);
+  }
+
+  @Benchmark
+  public List<AbstractMove> generateAllPossibleMoves() {
+    return MoveGenerator.generateAllPossibleMoves(this.gameState);
+  }
+
+  /** Calculates the tokens used to buy every visible and reserved card. */
+  @Benchmark
+  public void getTokensUsedToBuy(Blackhole blackhole) {
+    for (Card card : this.cards) {
+      blackhole.consume(MoveGenerator.getTokensUsedToBuy(card, this.playerTokens, this.player));
+    }
+  }
+
+  /** Calculates the payment for every visible and reserved card. */
+  @Benchmark
+  public void getPaymentForCard(Blackhole blackhole) {
+    for (Card card : this.cards) {
+      blackhole.consume(this.player.getPaymentForCard(card));
+    }
+  }
+
+  /** Checks every visible and reserved card with the packed {@link AffordabilityKernel}. */
+  @Benchmark
+  public int affordableMask() {
+    return AffordabilityKernel.affordableMask(
+        this.packedCosts,
+        this.packedCosts.length,
+        this.packedBonuses,
+        this.packedTokens,
+        this.gold,
+        null);
+  }
+
+  /** The color by color reference of {@link #affordableMask()}. */
+  @Benchmark
+  public int affordableMaskScalar() {
+    int mask = 0;
+    for (int i = 0; i < this.packedCosts.length; i++) {
+      int missing =
+          AffordabilityKernel.shortfallScalar(
+              this.packedCosts[i], this.packedBonuses, this.packedTokens);
+      if (missing <= this.gold) {
+        mask |= 1 << i;
+      }
+    }
+    return mask;
+  }
+}
@@ -2,15 +2,20 @@ package de.spl12.client.application;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Optional;
 import java.util.logging.Logger;
 import de.spl12.client.utils.ConstantsManager;
+import de.spl12.domain.GameState;
 import de.spl12.domain.messages.AbstractPackage;
 import de.spl12.domain.messages.CreateSessionPackage;
 import de.spl12.domain.messages.JoinSessionPackage;
 import de.spl12.domain.messages.LeaveSessionPackage;
+import de.spl12.domain.messages.GameStateReplica;
 import de.spl12.domain.messages.PlayerActionPackage;
-import de.spl12.domain.messages.PackageDecoder;
-import de.spl12.domain.messages.PackageEncoder;
+import de.spl12.domain.messages.ResyncRequestPackage;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.messages.BinaryPackageDecoder;
+import de.spl12.domain.messages.BinaryPackageEncoder;
 import jakarta.websocket.ClientEndpoint;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.OnMessage;
@@ -31,7 +36,7 @@ import jakarta.websocket.CloseReason;
  *
  * @author ennauman
  */
-@ClientEndpoint(decoders = PackageDecoder.class, encoders = PackageEncoder.class)
+@ClientEndpoint(decoders = BinaryPackageDecoder.class, encoders = BinaryPackageEncoder.class)
 public class GameClientEndpoint {
 
   /** Logger instance for logging client events and errors. */
@@ -40,6 +45,9 @@ public class GameClientEndpoint {
   /** The WebSocket session representing the connection to the server. */
   private final Session session;
 
+  /** The game state of the server, updated by its deltas. */
+  private final GameStateReplica replica = new GameStateReplica();
+
   /**
    * Initializes and connects the WebSocket client to the game server. Throws a {@link
    * RuntimeException} if the connection fails.
@@ -130,7 +138,28 @@ public class GameClientEndpoint {
       GameController.getInstance().handleLeave(msg);
       LOGGER.info("Somebody left");
     } else if (msgPackage instanceof PlayerActionPackage msg) {
+      this.replica.reset(msg);
       GameController.getInstance().updateGameState(msg.getGameState());
+    } else if (msgPackage instanceof StateDeltaPackage msg) {
+      this.applyDelta(msg);
+    }
+  }
+
+  /**
+   * Applies a delta of the server to the replica and passes the new state together with the steps
+   * of the turn to the {@link GameController}. If an update was missed, the full state is requested
+   * instead.
+   *
+   * @param msg the delta package
+   */
+  private void applyDelta(StateDeltaPackage msg) {
+    Optional<GameState> gameState = this.replica.apply(msg);
+    if (gameState.isPresent()) {
+      GameController.getInstance().updateGameState(gameState.get(), msg.getSteps());
+    } else if (this.replica.shouldRequestResync()) {
+      LOGGER.info("Missed the update before " + msg.getSequence() + ", requesting a resync");
+      this.sendMessage(
+          new ResyncRequestPackage(GameController.getInstance().getPlayer(), msg.getSessionId()));
     }
   }
 
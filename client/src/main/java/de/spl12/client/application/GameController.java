@@ -14,15 +14,19 @@ import de.spl12.domain.User;
 import de.spl12.domain.Noble;
 import de.spl12.domain.Card;
 import de.spl12.domain.StoneType;
+import de.spl12.domain.messages.ChatPackage;
 import de.spl12.domain.messages.CreateSessionPackage;
 import de.spl12.domain.messages.GameOverPackage;
 import de.spl12.domain.messages.JoinSessionPackage;
+import de.spl12.domain.messages.MovePackage;
 import de.spl12.domain.messages.PlayerActionPackage;
 import de.spl12.domain.messages.LeaveSessionPackage;
 import de.spl12.domain.moves.AbstractMove;
 import de.spl12.domain.moves.BuyMove;
 import de.spl12.domain.moves.ReserveMove;
 import de.spl12.domain.moves.TakeMove;
+import de.spl12.domain.moves.TurnStep;
+import de.spl12.domain.moves.TurnTransaction;
 
 import java.util.ArrayList;
 import java.util.Map;
@@ -44,6 +48,10 @@ public class GameController {
 
   private static GameController INSTANCE;
   private GameState gameState;
+
+  /** The last state received from the server, without the steps of the pending turn. */
+  private GameState confirmedState;
+
   private HumanPlayer player;
   private GameClientEndpoint gameClientEndpoint;
   private GameScreenController gameScreenController;
@@ -52,6 +60,7 @@ public class GameController {
   private HomeScreenController homeScreenController;
   private int sessionId;
   private AbstractMove currentMove = null;
+  private final TurnTransaction turn = new TurnTransaction();
   private boolean selectedNoble = false;
   private Thread t;
   private boolean inSession;
@@ -71,7 +80,10 @@ public class GameController {
 
   public void resetGameState() {
     this.gameState.reset();
-    this.commitAction();
+    // only the host resets the game on the server, the other players get the new game from there
+    if (this.player.getSessionPlayerNumber() == 0) {
+      this.commitAction();
+    }
   }
 
   /**
@@ -161,9 +173,46 @@ public class GameController {
     this.commitAction();
   }
 
+  /**
+   * Updates the game state after a turn of a player and animates the steps of the turn if another
+   * player made it.
+   *
+   * @param gameState the new state of the server
+   * @param steps the steps of the turn that led to the new state
+   */
+  public void updateGameState(GameState gameState, List<TurnStep> steps) {
+    int mover = this.confirmedState == null ? -1 : this.confirmedState.getPlayersTurn();
+    this.updateGameState(gameState);
+    if (this.gameScreenController != null
+        && !steps.isEmpty()
+        && mover != this.player.getSessionPlayerNumber()) {
+      this.gameScreenController.animateTurn(steps);
+    }
+  }
+
+  /**
+   * Updates the game state to a new state of the server. While the steps of the own turn are not
+   * sent yet, the server only sends chat messages, which are added to the local state instead.
+   *
+   * @param gameState the new state of the server
+   */
   public void updateGameState(GameState gameState) {
     boolean wasRunning = this.gameState != null && this.gameState.isRunning();
-    this.gameState = gameState;
+    this.confirmedState = gameState;
+    if (!this.turn.isEmpty()
+        && gameState.isRunning()
+        && gameState.getPlayersTurn() == this.gameState.getPlayersTurn()
+        && gameState.getTurnNumber() == this.gameState.getTurnNumber()) {
+      List<ChatMessage> received = gameState.getChat().getMessageList();
+      for (int i = this.gameState.getChat().getMessageList().size(); i < received.size(); i++) {
+        this.gameState.getChat().writeMessage(received.get(i));
+      }
+    } else {
+      this.turn.clear();
+      this.currentMove = null;
+      this.selectedNoble = false;
+      this.gameState = gameState.copy();
+    }
     // as the session player number can change due to someone with a lower number leaving we get our
     // player through the distinct name
     for (AbstractPlayer p : this.gameState.getPlayers()) {
@@ -200,29 +249,55 @@ public class GameController {
     if (this.multiplayerLobbyScreenController != null) {
       this.multiplayerLobbyScreenController.updateUI();
     }
-    if (this.isMyTurn()) {
-      if (this.checkMoveComplete()) {
-        if (this.currentMove != null && this.currentMove.getRequiredReturn() > 0) {
-          LOGGER.info("Please return " + this.currentMove.getRequiredReturn() + " stone");
-          Platform.runLater(
-              () -> {
-                this.gameScreenController.alert_return_gems(this.currentMove.getRequiredReturn());
-              });
-        } else if (this.checkIfNobleToSelect()) {
-          LOGGER.info("Please select a noble");
-          Platform.runLater(
-              () -> {
-                this.gameScreenController.alert_select_noble(
-                    this.player.getNobleSelection(this.gameState.getNobleDeck()));
-              });
-        } else {
-          this.currentMove = null;
-          this.selectedNoble = false;
-          this.gameState.nextTurn();
-          this.commitAction();
-        }
-      }
+  }
+
+  /**
+   * Continues the turn after a step of the player: asks for stones to return or a noble to select
+   * if needed, otherwise sends the complete turn to the server.
+   */
+  private void continueTurn() {
+    if (this.gameScreenController != null) {
+      this.gameScreenController.updateUI();
+    }
+    if (!this.checkMoveComplete()) {
+      return;
+    }
+    if (this.currentMove.getRequiredReturn() > 0) {
+      int requiredReturn = this.currentMove.getRequiredReturn();
+      LOGGER.info("Please return " + requiredReturn + " stone");
+      Platform.runLater(
+          () -> {
+            this.gameScreenController.alert_return_gems(requiredReturn);
+          });
+    } else if (this.checkIfNobleToSelect()) {
+      LOGGER.info("Please select a noble");
+      Platform.runLater(
+          () -> {
+            this.gameScreenController.alert_select_noble(
+                this.player.getNobleSelection(this.gameState.getNobleDeck()));
+          });
+    } else {
+      this.commitTurn();
+    }
+  }
+
+  /**
+   * Sends all steps of the completed turn to the server in one {@link MovePackage}. The server
+   * answers with the new state, or with the previous state if it rejects the turn.
+   */
+  private void commitTurn() {
+    if (this.gameScreenController != null) {
+      this.gameScreenController.set_disable_game_buttons(true);
+      this.gameScreenController.close_alert();
     }
+    this.gameClientEndpoint.sendMessage(
+        new MovePackage(
+            this.sessionId, this.player.getSessionPlayerNumber(), this.turn.getSteps()));
+    LOGGER.info("Sent turn of " + this.turn.getSteps().size() + " steps");
+    this.turn.clear();
+    this.currentMove = null;
+    this.selectedNoble = false;
+    this.gameState.nextTurn();
   }
 
   /**
@@ -243,6 +318,7 @@ public class GameController {
     if (obtainable.size() == 1) {
       this.player.obtainNoble(obtainable.getFirst());
       this.gameState.removeNoble(obtainable.getFirst());
+      this.turn.add(TurnStep.claimNoble(obtainable.getFirst()));
     }
     return obtainable.size() >= 2;
   }
@@ -314,8 +390,8 @@ public class GameController {
    * {@link PlayerActionPackage} and transmits it using the provided game client endpoint. The
    * server is expected to handle the message and update the game state accordingly.
    *
-   * <p>The method does not return any value and assumes that the action has already been validated
-   * before invoking this method.
+   * <p>The server only accepts the state of the host when it starts or resets the game; turns are
+   * sent as a {@link MovePackage} and chat messages as a {@link ChatPackage}.
    */
   public void commitAction() {
     if (this.gameScreenController != null) {
@@ -342,14 +418,14 @@ public class GameController {
   }
 
   /**
-   * Sends a chat message to the server.
+   * Sends a chat message to the server, which appends it to its own game state and sends it back
+   * to all players, so it never replaces a turn of another player or the steps of a pending turn.
    *
-   * @param text
+   * @param text the text of the message
    */
   public void sendChatMessage(String text) {
-    ChatMessage message = new ChatMessage(this.player.getUser().getUsername(), text);
-    this.gameState.getChat().writeMessage(message);
-    this.commitAction();
+    this.gameClientEndpoint.sendMessage(
+        new ChatPackage(this.sessionId, this.player.getSessionPlayerNumber(), text));
   }
 
   /**
@@ -412,8 +488,9 @@ public class GameController {
     this.player.takeStone(stoneType);
     ((TakeMove) this.currentMove).incrementStoneType(stoneType);
     this.currentMove.setRequiredReturn(Math.max(this.player.getTotalStones() - 10, 0));
+    this.turn.add(TurnStep.take(stoneType));
     LOGGER.info("Took Stone: " + this.player.getStoneInventory().toString());
-    this.commitAction();
+    this.continueTurn();
   }
 
   /**
@@ -428,11 +505,12 @@ public class GameController {
     if (!this.isMyTurn()) {
       throw new NotYourTurnException();
     }
-    if (this.checkMoveComplete()) {
+    if (this.checkMoveComplete() && this.currentMove.getRequiredReturn() > 0) {
       this.player.returnStone(stoneType);
       this.gameState.returnStone(stoneType);
       this.currentMove.setRequiredReturn(Math.max(this.player.getTotalStones() - 10, 0));
-      this.commitAction();
+      this.turn.add(TurnStep.returnStone(stoneType));
+      this.continueTurn();
     }
   }
 
@@ -463,7 +541,8 @@ public class GameController {
     this.player.obtainNoble(noble);
     this.gameState.removeNoble(noble);
     this.selectedNoble = true;
-    this.commitAction();
+    this.turn.add(TurnStep.claimNoble(noble));
+    this.continueTurn();
   }
 
   /**
@@ -491,7 +570,8 @@ public class GameController {
       this.gameState.replaceCard(card);
       this.gameState.performPayment(payment);
       this.currentMove = new BuyMove(payment, card);
-      this.commitAction();
+      this.turn.add(TurnStep.buy(card));
+      this.continueTurn();
     }
   }
 
@@ -524,7 +604,8 @@ public class GameController {
       if (this.player.buyReservedCard(card)) {
         this.gameState.performPayment(payment);
         this.currentMove = new BuyMove(payment, card);
-        this.commitAction();
+        this.turn.add(TurnStep.buy(card));
+        this.continueTurn();
       }
     }
   }
@@ -562,7 +643,8 @@ public class GameController {
       }
       this.currentMove =
           new ReserveMove(card, gotGoldCoin, Math.max(this.player.getTotalStones() - 10, 0));
-      this.commitAction();
+      this.turn.add(TurnStep.reserve(card));
+      this.continueTurn();
     } else {
       throw new ActionNotPossibleException("You cant have more than 3 reserved cards.");
     }
@@ -13,6 +13,7 @@ import de.spl12.domain.Exceptions.IllegalMoveCombinationException;
 import de.spl12.domain.Exceptions.DepletedResourceException;
 import de.spl12.domain.Exceptions.ActionNotPossibleException;
 import de.spl12.domain.Exceptions.CantAffordItemException;
+import de.spl12.domain.moves.TurnStep;
 import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
@@ -23,6 +24,7 @@ import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javafx.animation.PauseTransition;
+import javafx.animation.ScaleTransition;
 import javafx.animation.TranslateTransition;
 import javafx.application.Platform;
 import javafx.event.Event;
@@ -1257,6 +1259,41 @@ public class GameScreenController extends Controller {
     }
   }
 
+  /**
+   * Animates the turn of another player by pulsing the pouch of every stone taken or returned, one
+   * after another in the order the player performed the steps.
+   *
+   * @param steps the steps of the turn sent by the server
+   */
+  public void animateTurn(List<TurnStep> steps) {
+    Platform.runLater(
+        () -> {
+          Duration delay = Duration.ZERO;
+          for (TurnStep step : steps) {
+            if (step.getKind() != TurnStep.Kind.TAKE && step.getKind() != TurnStep.Kind.RETURN) {
+              continue;
+            }
+            Button pouch =
+                switch (step.getStoneType()) {
+                  case RED -> red_pouch;
+                  case BLUE -> blue_pouch;
+                  case GREEN -> green_pouch;
+                  case BLACK -> black_pouch;
+                  case WHITE -> white_pouch;
+                  case GOLD -> coin_pouch;
+                };
+            ScaleTransition st = new ScaleTransition(Duration.seconds(0.2), pouch);
+            st.setToX(1.2);
+            st.setToY(1.2);
+            st.setAutoReverse(true);
+            st.setCycleCount(2);
+            st.setDelay(delay);
+            st.play();
+            delay = delay.add(Duration.seconds(0.2));
+          }
+        });
+  }
+
   @FXML
   public void settings(Event event) {
     soundManager.playClickSound();
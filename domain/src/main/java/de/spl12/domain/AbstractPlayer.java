@@ -1,7 +1,14 @@
 package de.spl12.domain;
 
 import de.spl12.domain.Exceptions.DepletedResourceException;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +19,11 @@ import java.util.HashMap;
  * AbstractPlayer implements the shared functionality of human or artificial players in a game
  * lobby, like some basic transactions with domain objects.
  *
+ * <p>The bonus per stone type, the prestige and the total number of stones are kept as cached
+ * counters that are updated by the transactions of this class, so reading them is O(1). Code that
+ * modifies the inventory or the card and noble lists directly has to call {@link
+ * #recalculateTotals()} afterwards.
+ *
  * @author leon.kuersch
  */
 public abstract class AbstractPlayer implements Serializable {
@@ -24,6 +36,9 @@ public abstract class AbstractPlayer implements Serializable {
   private List<Noble> nobles;
   private final int MAX_STONES = 10;
   private final int MAX_RESERVED_CARDS = 3;
+  private transient int[] bonuses;
+  private transient int prestige;
+  private transient int totalStones;
 
   /**
    * Constructs an AbstractPlayer with a specific session player number. Initializes the player's
@@ -37,6 +52,74 @@ public abstract class AbstractPlayer implements Serializable {
     this.reservedCards = new ArrayList<>();
     this.ownedCards = new ArrayList<>();
     this.nobles = new ArrayList<>();
+    this.bonuses = new int[StoneType.values().length];
+  }
+
+  /**
+   * Creates a deep copy of another player for {@link #copy()}. The inventory and the card lists are
+   * copied, the immutable cards and nobles themselves are shared.
+   *
+   * @param other the player to copy
+   */
+  protected AbstractPlayer(AbstractPlayer other) {
+    this.sessionPlayerNumber = other.sessionPlayerNumber;
+    this.name = other.name;
+    this.stoneInventory = new HashMap<>(other.stoneInventory);
+    this.reservedCards = new ArrayList<>(other.reservedCards);
+    this.ownedCards = new ArrayList<>(other.ownedCards);
+    this.nobles = new ArrayList<>(other.nobles);
+    this.bonuses = other.bonuses.clone();
+    this.prestige = other.prestige;
+    this.totalStones = other.totalStones;
+  }
+
+  /**
+   * Creates a deep copy of the player that can be modified independently, without serialization.
+   *
+   * @return the copy
+   */
+  public abstract AbstractPlayer copy();
+
+  /**
+   * Restores the cached counters after deserialization.
+   *
+   * @param in the stream to read the player from
+   */
+  @Serial
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.recalculateTotals();
+  }
+
+  /**
+   * Recalculates the cached bonus, prestige and stone counters from the inventory and the owned
+   * cards and nobles. Needed after modifying them directly through their getters.
+   */
+  public void recalculateTotals() {
+    this.bonuses = new int[StoneType.values().length];
+    this.prestige = 0;
+    this.totalStones = 0;
+    for (Card card : this.ownedCards) {
+      this.bonuses[card.getBonus().ordinal()]++;
+      this.prestige += card.getPrestigePoints();
+    }
+    for (Noble noble : this.nobles) {
+      this.prestige += noble.getPrestigePoints();
+    }
+    for (int count : this.stoneInventory.values()) {
+      this.totalStones += count;
+    }
+  }
+
+  /**
+   * Adds an owned card and updates the cached bonus and prestige.
+   *
+   * @param card the card the player now owns
+   */
+  private void addOwnedCard(Card card) {
+    this.ownedCards.add(card);
+    this.bonuses[card.getBonus().ordinal()]++;
+    this.prestige += card.getPrestigePoints();
   }
 
   /**
@@ -51,7 +134,7 @@ public abstract class AbstractPlayer implements Serializable {
     Map<StoneType, Integer> payment = this.getPaymentForCard(card);
     if (this.canAffordCard(card)) {
       this.spendStones(payment);
-      this.getOwnedCards().add(card);
+      this.addOwnedCard(card);
       return true;
     }
     return false;
@@ -128,8 +211,7 @@ public abstract class AbstractPlayer implements Serializable {
    */
   private void spendStones(Map<StoneType, Integer> cost) {
     for (StoneType stoneType : cost.keySet()) {
-      this.getStoneInventory()
-          .put(stoneType, this.getStoneInventory().get(stoneType) - cost.get(stoneType));
+      this.addStone(stoneType, -cost.get(stoneType));
     }
   }
 
@@ -204,6 +286,7 @@ public abstract class AbstractPlayer implements Serializable {
       return false;
     }
     this.getNobles().add(noble);
+    this.prestige += noble.getPrestigePoints();
     return true;
   }
 
@@ -229,7 +312,7 @@ public abstract class AbstractPlayer implements Serializable {
    * @param stoneType the type of stone to be added to the player's inventory
    */
   public void takeStone(StoneType stoneType) {
-    this.getStoneInventory().put(stoneType, this.getStoneInventory().get(stoneType) + 1);
+    this.addStone(stoneType, 1);
   }
 
   /**
@@ -245,7 +328,79 @@ public abstract class AbstractPlayer implements Serializable {
     if (this.getStoneInventory().get(stoneType) <= 0) {
       throw new DepletedResourceException("No Stone to return");
     }
-    this.getStoneInventory().put(stoneType, this.getStoneInventory().get(stoneType) - 1);
+    this.addStone(stoneType, -1);
+  }
+
+  /**
+   * Applies the player side of a move: taken, spent and returned stones as well as reserved and
+   * bought cards. Called by {@link GameState#apply(AbstractMove)}, which also updates the board and
+   * assigns the visiting noble.
+   *
+   * @param record the undo record of the move; the position of a bought reserved card is stored in
+   *     it
+   */
+  void applyMove(UndoRecord record) {
+    AbstractMove move = record.move;
+    if (move instanceof TakeMove takeMove) {
+      this.addStones(takeMove.getTokens(), 1);
+    } else if (move instanceof ReserveMove reserveMove) {
+      this.reservedCards.add(reserveMove.getCard());
+      if (reserveMove.gotGoldCoin()) {
+        this.addStone(StoneType.GOLD, 1);
+      }
+    } else if (move instanceof BuyMove buyMove) {
+      this.addStones(buyMove.getTokens(), -1);
+      record.reservedIndex = this.reservedCards.indexOf(buyMove.getCard());
+      if (record.reservedIndex >= 0) {
+        this.reservedCards.remove(record.reservedIndex);
+      }
+      this.addOwnedCard(buyMove.getCard());
+    }
+    for (StoneType stoneType : move.getTokensToReturn()) {
+      this.addStone(stoneType, -1);
+    }
+  }
+
+  /**
+   * Reverts everything {@link #applyMove(UndoRecord)} and the noble visit changed on this player.
+   *
+   * @param record the undo record returned by {@link GameState#apply(AbstractMove)}
+   */
+  void undoMove(UndoRecord record) {
+    AbstractMove move = record.move;
+    if (record.noble != null) {
+      this.prestige -= this.nobles.removeLast().getPrestigePoints();
+    }
+    for (StoneType stoneType : move.getTokensToReturn()) {
+      this.addStone(stoneType, 1);
+    }
+    if (move instanceof TakeMove takeMove) {
+      this.addStones(takeMove.getTokens(), -1);
+    } else if (move instanceof ReserveMove reserveMove) {
+      this.reservedCards.removeLast();
+      if (reserveMove.gotGoldCoin()) {
+        this.addStone(StoneType.GOLD, -1);
+      }
+    } else if (move instanceof BuyMove buyMove) {
+      Card card = this.ownedCards.removeLast();
+      this.bonuses[card.getBonus().ordinal()]--;
+      this.prestige -= card.getPrestigePoints();
+      if (record.reservedIndex >= 0) {
+        this.reservedCards.add(record.reservedIndex, buyMove.getCard());
+      }
+      this.addStones(buyMove.getTokens(), 1);
+    }
+  }
+
+  private void addStone(StoneType stoneType, int amount) {
+    this.stoneInventory.put(stoneType, this.stoneInventory.get(stoneType) + amount);
+    this.totalStones += amount;
+  }
+
+  private void addStones(Map<StoneType, Integer> stones, int sign) {
+    for (Map.Entry<StoneType, Integer> entry : stones.entrySet()) {
+      this.addStone(entry.getKey(), sign * entry.getValue());
+    }
   }
 
   /**
@@ -254,22 +409,16 @@ public abstract class AbstractPlayer implements Serializable {
    * @return the total count of all stones in the player's stone inventory
    */
   public int getTotalStones() {
-    int sum = 0;
-    for (StoneType type : this.getStoneInventory().keySet()) {
-      sum += this.getStoneInventory().get(type);
-    }
-    return sum;
+    return this.totalStones;
   }
 
+  /**
+   * Returns the prestige of the player from owned cards and nobles.
+   *
+   * @return the prestige points of the player
+   */
   public int getPrestige() {
-    int totalPrestige = 0;
-    for (Card card : this.getOwnedCards()) {
-      totalPrestige += card.getPrestigePoints();
-    }
-    for (Noble noble : this.getNobles()) {
-      totalPrestige += noble.getPrestigePoints();
-    }
-    return totalPrestige;
+    return this.prestige;
   }
 
   /**
@@ -289,14 +438,14 @@ public abstract class AbstractPlayer implements Serializable {
             StoneType.GOLD, 0));
   }
 
+  /**
+   * Returns the number of owned cards granting a bonus of the given stone type.
+   *
+   * @param stoneType the stone type
+   * @return the bonus for that stone type
+   */
   public int getBonusForType(StoneType stoneType) {
-    int bonus = 0;
-    for (Card card : this.getOwnedCards()) {
-      if (card.getBonus() == stoneType) {
-        bonus++;
-      }
-    }
-    return bonus;
+    return this.bonuses[stoneType.ordinal()];
   }
 
   public int getSessionPlayerNumber() {
@@ -9,6 +9,7 @@ package de.spl12.domain;
  *   <li>{@link #EASY} – Basic and predictable logic
  *   <li>{@link #MEDIUM} – Moderate difficulty with some strategic thinking
  *   <li>{@link #HARD} – Optimized and competitive AI behavior
+ *   <li>{@link #EXPERT} – Monte Carlo Tree Search within a time budget per turn
  * </ul>
  *
  * <p>Used throughout the game to select the appropriate AI logic.
@@ -18,7 +19,8 @@ package de.spl12.domain;
 public enum AiDifficulty {
   EASY("Easy"),
   MEDIUM("Medium"),
-  HARD("Hard");
+  HARD("Hard"),
+  EXPERT("Expert");
 
   private final String name;
 
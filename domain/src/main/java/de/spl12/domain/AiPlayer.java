@@ -2,25 +2,37 @@ package de.spl12.domain;
 
 import static de.spl12.domain.moves.MoveCalculationHelper.calculateBestBuyMovesSorted;
 import static de.spl12.domain.moves.MoveCalculationHelper.calculateBestTakeMove;
-import static de.spl12.domain.moves.MoveCalculationHelper.calculateGoodSecondDeckCards;
-import static de.spl12.domain.moves.MoveCalculationHelper.calculateImportantStonesTotalSum;
-import static de.spl12.domain.moves.MoveCalculationHelper.calculateReserveToBuyLevel2WithGold;
-import static de.spl12.domain.moves.MoveCalculationHelper.calculateReserveToBuyLevel3WithGold;
-import static de.spl12.domain.moves.MoveCalculationHelper.findBlockableHighPointCard;
+import static de.spl12.domain.moves.MoveGenerator.collect;
+import static de.spl12.domain.moves.MoveGenerator.findFirst;
 import static de.spl12.domain.moves.MoveGenerator.generateAllPossibleMoves;
 import static de.spl12.domain.moves.MoveGenerator.generateBuyMoves;
-import static de.spl12.domain.moves.MoveGenerator.generateReserveMoves;
 import static de.spl12.domain.moves.MoveGenerator.generateTakeMoves;
 
+import de.spl12.domain.ai.AlphaBetaSearch;
+import de.spl12.domain.ai.EndgameSolver;
+import de.spl12.domain.ai.MonteCarloTreeSearch;
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
+import de.spl12.domain.ai.PlayoutPolicy;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.ai.TranspositionTable;
 import de.spl12.domain.moves.AbstractMove;
 import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.HeuristicWeights;
+import de.spl12.domain.moves.MoveCategory;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.PositionAnalysis;
 import de.spl12.domain.moves.ReserveMove;
-import de.spl12.domain.moves.TakeMove;
 import java.io.Serial;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
 
 /**
  * Represents an AI-controlled player in the Splendor game.
@@ -33,24 +45,108 @@ import java.util.concurrent.ThreadLocalRandom;
  *       and selects optimized take moves
  *   <li><b>HARD</b>: Evaluates move scores dynamically, blocks opponents, and plays aggressively
  *       toward high-value targets
+ *   <li><b>EXPERT</b>: Runs a {@link MonteCarloTreeSearch} with heuristic playouts, limited by
+ *       {@link #EXPERT_BUDGET} per turn, optionally on several threads (see {@link
+ *       #setSearchParallelism(int)})
  * </ul>
  *
+ * <p>Independent of the difficulty, {@link #decideMoveAlphaBeta(GameState, SearchBudget)} decides
+ * with a deterministic {@link AlphaBetaSearch} of predictable latency, e.g. for tournaments.
+ *
+ * <p>Near the end of the game the decisions of HARD, EXPERT and the alpha-beta search are checked
+ * by an exact {@link EndgameSolver}, which finds forced wins and blocks forced losses.
+ *
  * <p>The AI evaluates game state, player inventory, and card characteristics to determine the best
  * action based on its difficulty.
  *
+ * <p>Every AI player draws its random decisions from its own random source, so players of parallel
+ * games never contend on a shared generator. A player created with a seed makes the same decisions
+ * in the same positions; for EXPERT this holds for sequential searches limited by iterations.
+ *
  * @author lmelodia
  */
 public class AiPlayer extends AbstractPlayer {
 
   @Serial private static final long serialVersionUID = 447468553448933070L;
 
+  private static final Set<MoveCategory> RESERVE = EnumSet.of(MoveCategory.RESERVE);
+
+  /** Thinking time and iteration cap of the EXPERT difficulty per turn. */
+  public static final SearchBudget EXPERT_BUDGET = SearchBudget.of(1500, 200_000);
+
+  /**
+   * Node budget of the endgame solver per turn. Limited by nodes only, so that the decisions stay
+   * reproducible.
+   */
+  public static final SearchBudget ENDGAME_BUDGET = SearchBudget.ofIterations(25_000);
+
+  /** Prestige of any player from which on HARD and stronger decisions are checked by the solver. */
+  public static final int ENDGAME_PRESTIGE = 10;
+
   private final AiDifficulty difficulty;
   private User fakeUser;
+  private int searchParallelism = 1;
+  private ParallelMonteCarloTreeSearch.Mode searchMode = ParallelMonteCarloTreeSearch.Mode.ROOT;
+  private HeuristicWeights weights = HeuristicWeights.DEFAULT;
+  private transient ForkJoinPool searchPool;
+  private transient boolean sharedSearchPool;
+  private transient TranspositionTable searchTable;
+  private transient EndgameSolver endgameSolver;
+  private transient SplittableRandom random;
 
   public AiPlayer(int sessionPlayerNumber, AiDifficulty difficulty) {
+    this(sessionPlayerNumber, difficulty, ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates an AI player whose random decisions are reproducible.
+   *
+   * @param sessionPlayerNumber the number of the player in the session
+   * @param difficulty the difficulty
+   * @param seed the seed of the random source of the player
+   */
+  public AiPlayer(int sessionPlayerNumber, AiDifficulty difficulty, long seed) {
     super(sessionPlayerNumber);
     this.difficulty = difficulty;
     this.fakeUser = null;
+    this.random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Copies the settings and the position of another AI player. The copy gets its own search pool
+   * and continues with a split of the random source of the original.
+   */
+  private AiPlayer(AiPlayer other) {
+    super(other);
+    this.difficulty = other.difficulty;
+    this.copySettings(other);
+    this.random = other.random().split();
+  }
+
+  @Override
+  public AiPlayer copy() {
+    return new AiPlayer(this);
+  }
+
+  /**
+   * Creates a player on the same seat with the same settings for a new game: name, fake user,
+   * search parallelism and mode and the heuristic weights are kept, the position is empty.
+   *
+   * @param seed the seed of the random source of the new player
+   * @return the new player
+   */
+  public AiPlayer forNewGame(long seed) {
+    AiPlayer player = new AiPlayer(this.getSessionPlayerNumber(), this.difficulty, seed);
+    player.name = this.name;
+    player.copySettings(this);
+    return player;
+  }
+
+  private void copySettings(AiPlayer other) {
+    this.fakeUser = other.fakeUser;
+    this.searchParallelism = other.searchParallelism;
+    this.searchMode = other.searchMode;
+    this.weights = other.weights;
   }
 
   public AiDifficulty getDifficulty() {
@@ -83,18 +179,153 @@ public class AiPlayer extends AbstractPlayer {
     return switch (this.difficulty) {
       case EASY -> decideMoveEasy(gameState);
       case MEDIUM -> decideMoveMedium(gameState);
-      case HARD -> decideMoveHard(gameState);
+      case HARD -> decideWithEndgame(gameState, () -> decideMoveHard(gameState));
+      case EXPERT -> decideMoveExpert(gameState, EXPERT_BUDGET);
     };
   }
 
+  /**
+   * EXPERT difficulty: searches the move with Monte Carlo Tree Search within the given budget.
+   *
+   * @param gameState the current game state
+   * @param budget the time or iteration budget of the search
+   * @return the best move found
+   */
+  public AbstractMove decideMoveExpert(GameState gameState, SearchBudget budget) {
+    return decideWithEndgame(gameState, () -> this.searchExpert(gameState, budget));
+  }
+
+  private AbstractMove searchExpert(GameState gameState, SearchBudget budget) {
+    Random searchRandom = new Random(this.random().nextLong());
+    if (this.searchParallelism <= 1) {
+      return new MonteCarloTreeSearch(budget, PlayoutPolicy.HEURISTIC, searchRandom)
+          .search(gameState);
+    }
+    if (this.searchPool == null || this.searchPool.getParallelism() != this.searchParallelism) {
+      if (this.searchPool != null && !this.sharedSearchPool) {
+        this.searchPool.shutdown();
+      }
+      this.searchPool = new ForkJoinPool(this.searchParallelism);
+      this.sharedSearchPool = false;
+    }
+    return new ParallelMonteCarloTreeSearch(
+            budget, PlayoutPolicy.HEURISTIC, this.searchMode, this.searchPool, searchRandom)
+        .search(gameState);
+  }
+
+  /**
+   * Searches the move with an iterative-deepening {@link AlphaBetaSearch} within the given budget,
+   * a deterministic alternative to {@link #decideMoveExpert(GameState, SearchBudget)} with a hard
+   * time limit. The transposition table of the search is kept from turn to turn.
+   *
+   * @param gameState the current game state
+   * @param budget the time or node budget of the search
+   * @return the best move of the deepest iteration completed within the budget
+   */
+  public AbstractMove decideMoveAlphaBeta(GameState gameState, SearchBudget budget) {
+    if (this.searchTable == null) {
+      this.searchTable = new TranspositionTable(AlphaBetaSearch.DEFAULT_TABLE_BITS);
+    }
+    return decideWithEndgame(
+        gameState, () -> new AlphaBetaSearch(budget, this.searchTable).search(gameState));
+  }
+
+  /**
+   * Checks a decision with the {@link EndgameSolver} once a player has {@link #ENDGAME_PRESTIGE}:
+   * a forced win is played right away, and a decided move that lets the opponents force a win is
+   * replaced by one that does not, if there is one. Otherwise the decided move is played.
+   *
+   * @param gameState the current game state
+   * @param decision the regular decision of the difficulty
+   * @return the move to play
+   */
+  private AbstractMove decideWithEndgame(GameState gameState, Supplier<AbstractMove> decision) {
+    CompactGameState state = CompactGameState.of(gameState);
+    if (!EndgameSolver.isEndgame(state, ENDGAME_PRESTIGE)) {
+      return decision.get();
+    }
+    if (this.endgameSolver == null) {
+      this.endgameSolver = new EndgameSolver(ENDGAME_BUDGET);
+    }
+    int result = this.endgameSolver.solve(state);
+    if (result == EndgameSolver.WIN) {
+      return PackedMove.decode(this.endgameSolver.getBestMove(), state);
+    }
+    AbstractMove move = decision.get();
+    if (result != EndgameSolver.LOSS
+        && this.endgameSolver.getValue(PackedMove.encode(move, state)) == EndgameSolver.LOSS) {
+      return PackedMove.decode(this.endgameSolver.getBestMove(), state);
+    }
+    return move;
+  }
+
+  /**
+   * Sets the number of threads the EXPERT difficulty searches with. With one thread the search
+   * runs on the calling thread, otherwise on a fork-join pool of that size.
+   *
+   * @param searchParallelism the number of threads, at least 1
+   */
+  public void setSearchParallelism(int searchParallelism) {
+    if (searchParallelism < 1) {
+      throw new IllegalArgumentException("Parallelism has to be at least 1");
+    }
+    this.searchParallelism = searchParallelism;
+  }
+
+  public int getSearchParallelism() {
+    return this.searchParallelism;
+  }
+
+  /**
+   * Lets the EXPERT difficulty search on a pool of the caller instead of a pool of its own, and
+   * sets the search parallelism to that of the pool. The caller shuts the pool down once the player
+   * no longer searches; the player never does.
+   *
+   * @param searchPool the pool to search on
+   */
+  public void setSearchPool(ForkJoinPool searchPool) {
+    this.searchPool = searchPool;
+    this.sharedSearchPool = true;
+    this.searchParallelism = searchPool.getParallelism();
+  }
+
+  public void setSearchMode(ParallelMonteCarloTreeSearch.Mode searchMode) {
+    this.searchMode = searchMode;
+  }
+
+  public ParallelMonteCarloTreeSearch.Mode getSearchMode() {
+    return this.searchMode;
+  }
+
+  /**
+   * Sets the weights of the take move scoring of MEDIUM and HARD and of the blocking of HARD.
+   *
+   * @param weights the weights, {@link HeuristicWeights#DEFAULT} unless tuned
+   */
+  public void setWeights(HeuristicWeights weights) {
+    this.weights = weights;
+  }
+
+  public HeuristicWeights getWeights() {
+    return this.weights;
+  }
+
   /** EASY difficulty: returns a random BuyMove if available, otherwise a random legal move. */
   public AbstractMove decideMoveEasy(GameState gameState) {
     List<AbstractMove> buyMoves = generateBuyMoves(gameState);
     if (!buyMoves.isEmpty()) {
-      return buyMoves.get(ThreadLocalRandom.current().nextInt(buyMoves.size()));
+      return buyMoves.get(this.random().nextInt(buyMoves.size()));
     }
     List<AbstractMove> allMoves = generateAllPossibleMoves(gameState);
-    return allMoves.get(ThreadLocalRandom.current().nextInt(allMoves.size()));
+    return allMoves.get(this.random().nextInt(allMoves.size()));
+  }
+
+  /** Returns the random source of the player, a new unseeded one after deserialization. */
+  private SplittableRandom random() {
+    if (this.random == null) {
+      this.random = new SplittableRandom();
+    }
+    return this.random;
   }
 
   /**
@@ -102,8 +333,7 @@ public class AiPlayer extends AbstractPlayer {
    * take.
    */
   private AbstractMove decideMoveMedium(GameState gameState) {
-    Map<StoneType, Integer>[] stats = calculateImportantStonesTotalSum(gameState);
-    Map<StoneType, Integer> totalSum = stats[0];
+    PositionAnalysis analysis = PositionAnalysis.of(gameState);
 
     List<AbstractMove> buyMoves = generateBuyMoves(gameState);
     List<BuyMove> reserved =
@@ -113,14 +343,14 @@ public class AiPlayer extends AbstractPlayer {
             .filter(b -> getReservedCards().contains(b.getCard()))
             .toList();
 
-    List<BuyMove> reservedSorted = calculateBestBuyMovesSorted(reserved, totalSum, getPrestige());
+    List<BuyMove> reservedSorted = calculateBestBuyMovesSorted(reserved, analysis);
     for (BuyMove move : reservedSorted) {
       if (gameState.getThirdCardDeck().contains(move.getCard())) {
         return move;
       }
     }
 
-    List<BuyMove> allSorted = calculateBestBuyMovesSorted(buyMoves, totalSum, getPrestige());
+    List<BuyMove> allSorted = calculateBestBuyMovesSorted(buyMoves, analysis);
     for (BuyMove move : allSorted) {
       if (gameState.getThirdCardDeck().contains(move.getCard())) {
         return move;
@@ -131,31 +361,24 @@ public class AiPlayer extends AbstractPlayer {
       return buyMoves.getFirst();
     }
 
-    for (AbstractMove move : generateReserveMoves(gameState)) {
-      if (calculateReserveToBuyLevel3WithGold(gameState, this)) {
-        return move;
+    if (analysis.isReserveLevel3Worthwhile()) {
+      Optional<AbstractMove> reserve = findFirst(gameState, RESERVE, move -> true);
+      if (reserve.isPresent()) {
+        return reserve.get();
       }
     }
 
     List<AbstractMove> takeMoves = generateTakeMoves(gameState);
     if (!takeMoves.isEmpty()) {
-      return calculateBestTakeMove(
-          takeMoves,
-          totalSum,
-          getStoneInventory(),
-          this,
-          gameState.getPlayers(),
-          gameState.getStonePool());
+      return calculateBestTakeMove(takeMoves, analysis, this.weights);
     }
 
-    return generateAllPossibleMoves(gameState).getFirst();
+    return findFirst(gameState, MoveCategory.ALL, move -> true).orElseThrow();
   }
 
   /** HARD difficulty: uses score-based evaluation, opponent blocking, and reservation strategy. */
   public AbstractMove decideMoveHard(GameState gameState) {
-    Map<StoneType, Integer>[] stats = calculateImportantStonesTotalSum(gameState);
-    Map<StoneType, Integer> totalSum = stats[0];
-    Map<StoneType, Integer> frequency = stats[1];
+    PositionAnalysis analysis = PositionAnalysis.of(gameState);
 
     List<BuyMove> buyMoves = new ArrayList<>();
     for (AbstractMove move : generateBuyMoves(gameState)) {
@@ -168,73 +391,52 @@ public class AiPlayer extends AbstractPlayer {
         buyMoves.stream().filter(b -> getReservedCards().contains(b.getCard())).toList();
 
     if (!reserved.isEmpty()) {
-      return calculateBestBuyMovesSorted(reserved, totalSum, getPrestige()).getFirst();
+      return calculateBestBuyMovesSorted(reserved, analysis).getFirst();
     }
 
     if (!buyMoves.isEmpty()) {
-      return calculateBestBuyMovesSorted(buyMoves, totalSum, getPrestige()).get(0);
+      return calculateBestBuyMovesSorted(buyMoves, analysis).get(0);
     }
 
-    boolean danger =
-        gameState.getPlayers().stream().anyMatch(p -> p != this && p.getPrestige() >= 10);
-    if (danger) {
-      Card block = findBlockableHighPointCard(gameState);
+    if (analysis.getMaxOpponentPrestige() >= this.weights.getBlockPrestige()) {
+      Card block = analysis.getThreatCard();
       if (block != null) {
-        for (AbstractMove move : generateReserveMoves(gameState)) {
-          if (move instanceof ReserveMove reserveMove && block.equals(reserveMove.getCard())) {
-            return reserveMove;
-          }
+        Optional<AbstractMove> blockMove =
+            findFirst(gameState, RESERVE, move -> block.equals(((ReserveMove) move).getCard()));
+        if (blockMove.isPresent()) {
+          return blockMove.get();
         }
       }
     }
 
-    List<Card> goodLevel2 = calculateGoodSecondDeckCards(gameState, totalSum, frequency);
-    for (AbstractMove move : generateReserveMoves(gameState)) {
-      if (!(move instanceof ReserveMove reserveMove)) continue;
-      Card card = reserveMove.getCard();
-      if (card == null) continue;
-
-      if (calculateReserveToBuyLevel3WithGold(gameState, this)
-          && gameState.getThirdCardDeck().contains(card)) {
-        return reserveMove;
-      }
-
-      if (calculateReserveToBuyLevel2WithGold(gameState, this, new ArrayList<>(goodLevel2))
-          && gameState.getSecondCardDeck().contains(card)) {
-        return reserveMove;
+    boolean level3 = analysis.isReserveLevel3Worthwhile();
+    boolean level2 = analysis.isReserveLevel2Worthwhile();
+    if (level3 || level2) {
+      Optional<AbstractMove> reserve =
+          findFirst(
+              gameState,
+              RESERVE,
+              move -> {
+                Card card = ((ReserveMove) move).getCard();
+                return level3 && gameState.getThirdCardDeck().contains(card)
+                    || level2 && gameState.getSecondCardDeck().contains(card);
+              });
+      if (reserve.isPresent()) {
+        return reserve.get();
       }
     }
 
-    List<AbstractMove> takeThree =
-        generateTakeMoves(gameState).stream()
-            .filter(
-                m ->
-                    m instanceof TakeMove takeMove
-                        && takeMove.getTokens().values().stream().mapToInt(Integer::intValue).sum()
-                            == 3)
-            .toList();
+    List<AbstractMove> takeThree = collect(gameState, EnumSet.of(MoveCategory.TAKE_THREE));
 
     if (!takeThree.isEmpty()) {
-      return calculateBestTakeMove(
-          takeThree,
-          totalSum,
-          getStoneInventory(),
-          this,
-          gameState.getPlayers(),
-          gameState.getStonePool());
-    }
-
-    List<AbstractMove> allTakeMoves = generateTakeMoves(gameState);
-    if (!allTakeMoves.isEmpty()) {
-      return calculateBestTakeMove(
-          allTakeMoves,
-          totalSum,
-          getStoneInventory(),
-          this,
-          gameState.getPlayers(),
-          gameState.getStonePool());
-    }
-
-    return generateAllPossibleMoves(gameState).getFirst();
+      return calculateBestTakeMove(takeThree, analysis, this.weights);
+    }
+
+    List<AbstractMove> takeTwo = collect(gameState, EnumSet.of(MoveCategory.TAKE_TWO));
+    if (!takeTwo.isEmpty()) {
+      return calculateBestTakeMove(takeTwo, analysis, this.weights);
+    }
+
+    return findFirst(gameState, MoveCategory.ALL, move -> true).orElseThrow();
   }
 }
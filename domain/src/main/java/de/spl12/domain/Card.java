@@ -1,25 +1,39 @@
 package de.spl12.domain;
 
+import java.io.ObjectStreamException;
+import java.io.Serial;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents a Card in the game state. Simply stores the corresponding values.
  *
+ * <p>Cards of the {@link CardCatalog} carry a stable id and are shared between all game states;
+ * cards created through the public constructors have the id {@code -1}.
+ *
  * @author leon.kuersch
  */
 public class Card implements Serializable {
+  @Serial private static final long serialVersionUID = -2619440851706733047L;
+  private final int id;
   private final Map<StoneType, Integer> cost;
+  private final int[] costVector;
+  private final int totalCost;
   private final int prestigePoints;
   private final StoneType bonus;
   private final int stage;
 
   public Card(Map<StoneType, Integer> cost, StoneType bonus, int prestigePoints, int stage) {
+    this.id = -1;
     this.cost = cost;
     this.bonus = bonus;
     this.prestigePoints = prestigePoints;
     this.stage = stage;
+    this.costVector = toCostVector(cost);
+    this.totalCost = sum(this.costVector);
   }
 
   /**
@@ -32,22 +46,100 @@ public class Card implements Serializable {
    * @param stage the stage of the card in the game.
    */
   public Card(String propsString, int stage) {
+    this(-1, propsString, stage);
+  }
+
+  /**
+   * Constructs a catalog card with the given id, see {@link CardCatalog}.
+   *
+   * @param id the catalog id of the card
+   * @param propsString the properties of the card, see {@link #Card(String, int)}
+   * @param stage the stage of the card in the game.
+   */
+  Card(int id, String propsString, int stage) {
     String[] props = propsString.split(",");
+    this.id = id;
     this.prestigePoints = Integer.parseInt(props[0]);
     this.bonus = StoneType.valueOf(props[1].toUpperCase());
-    this.cost = new HashMap<>();
     this.stage = stage;
 
+    Map<StoneType, Integer> parsedCost = new HashMap<>();
     for (int i = 2; i < props.length; i++) {
       String[] stoneCost = props[i].split("=");
-      this.cost.put(StoneType.valueOf(stoneCost[0].toUpperCase()), Integer.parseInt(stoneCost[1]));
+      parsedCost.put(StoneType.valueOf(stoneCost[0].toUpperCase()), Integer.parseInt(stoneCost[1]));
+    }
+    this.cost = id >= 0 ? Collections.unmodifiableMap(new EnumMap<>(parsedCost)) : parsedCost;
+    this.costVector = toCostVector(parsedCost);
+    this.totalCost = sum(this.costVector);
+  }
+
+  private static int[] toCostVector(Map<StoneType, Integer> cost) {
+    int[] vector = new int[StoneType.values().length];
+    for (Map.Entry<StoneType, Integer> entry : cost.entrySet()) {
+      vector[entry.getKey().ordinal()] = entry.getValue();
+    }
+    return vector;
+  }
+
+  private static int sum(int[] vector) {
+    int sum = 0;
+    for (int value : vector) {
+      sum += value;
+    }
+    return sum;
+  }
+
+  /**
+   * Replaces a deserialized catalog card with its canonical instance, so that card identity
+   * survives the transfer between server and clients.
+   *
+   * @return the canonical catalog card, or this card if it is not part of the catalog
+   */
+  @Serial
+  private Object readResolve() throws ObjectStreamException {
+    if (this.id >= 0 && this.id < CardCatalog.CARD_COUNT) {
+      return CardCatalog.getCard(this.id);
     }
+    return this;
+  }
+
+  /**
+   * Returns the catalog id of this card.
+   *
+   * @return the id, or {@code -1} if the card is not part of the {@link CardCatalog}
+   */
+  public int getId() {
+    return id;
   }
 
   public Map<StoneType, Integer> getCost() {
     return cost;
   }
 
+  /**
+   * Returns the cost of this card for a single stone type without a map lookup.
+   *
+   * @param stoneType the stone type
+   * @return the number of stones of that type the card costs
+   */
+  public int getCostOf(StoneType stoneType) {
+    return this.costVector[stoneType.ordinal()];
+  }
+
+  /**
+   * Returns the cost of this card for a single stone type, indexed by {@link StoneType#ordinal()}.
+   *
+   * @param ordinal the ordinal of the stone type
+   * @return the number of stones of that type the card costs
+   */
+  public int getCostOf(int ordinal) {
+    return this.costVector[ordinal];
+  }
+
+  public int getTotalCost() {
+    return totalCost;
+  }
+
   public int getPrestigePoints() {
     return prestigePoints;
   }
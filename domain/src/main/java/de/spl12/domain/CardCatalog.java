@@ -0,0 +1,203 @@
+package de.spl12.domain;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Static, immutable catalog of all development cards and nobles of the game.
+ *
+ * <p>Every card and noble is built exactly once when the class is loaded and receives a dense,
+ * stable id (cards {@code 0..89}, nobles {@code 0..9}). Game states only ever hold these canonical
+ * instances, so setting up or resetting a game does not parse any strings, and the ids can be used
+ * as a cheap identity by the AI and the network layer. Deserialized cards and nobles are resolved
+ * back to the canonical instances, see {@link Card#getId()} and {@link Noble#getId()}.
+ *
+ * @author luott
+ */
+public final class CardCatalog {
+
+  private static final String[] CARDS_LEVEL_1 =
+      new String[] {
+        "0,black,green=1,red=3,black=1",
+        "0,black,green=2,red=1",
+        "0,black,green=3",
+        "0,black,white=1,blue=1,green=1,red=1",
+        "0,black,white=1,blue=2,green=1,red=1",
+        "0,black,white=2,blue=2,red=1",
+        "0,black,white=2,green=2",
+        "0,blue,blue=1,green=3,red=1",
+        "0,blue,green=2,black=2",
+        "0,blue,white=1,black=2",
+        "0,blue,white=1,green=1,red=1,black=1",
+        "0,blue,white=1,green=1,red=2,black=1",
+        "0,blue,white=1,green=2,red=2",
+        "0,green,blue=1,red=2,black=2",
+        "0,green,blue=2,red=2",
+        "0,green,red=3",
+        "0,green,white=1,blue=1,red=1,black=1",
+        "0,green,white=1,blue=1,red=1,black=2",
+        "0,green,white=1,blue=3,green=1",
+        "0,green,white=2,blue=1",
+        "0,red,blue=2,green=1",
+        "0,red,white=1,blue=1,green=1,black=1",
+        "0,red,white=1,red=1,black=3",
+        "0,red,white=2,blue=1,green=1,black=1",
+        "0,red,white=2,green=1,black=2",
+        "0,red,white=2,red=2",
+        "0,red,white=3",
+        "0,white,blue=1,green=1,red=1,black=1",
+        "0,white,blue=1,green=2,red=1,black=1",
+        "0,white,blue=2,black=2",
+        "0,white,blue=2,green=2,black=1",
+        "0,white,blue=3",
+        "0,white,red=2,black=1",
+        "0,white,white=3,blue=1,black=1",
+        "1,black,blue=4",
+        "1,blue,black=3",
+        "1,blue,red=4",
+        "1,green,black=4",
+        "1,red,white=4",
+        "1,white,green=4"
+      };
+
+  private static final String[] CARDS_LEVEL_2 =
+      new String[] {
+        "1,black,white=3,blue=2,green=2",
+        "1,black,white=3,green=3,black=2",
+        "1,blue,blue=2,green=2,red=3",
+        "1,blue,blue=3,green=3,black=3",
+        "1,green,white=2,blue=3,black=2",
+        "1,green,white=3,green=2,red=3",
+        "1,red,blue=3,red=2,black=3",
+        "1,red,white=2,red=2,black=3",
+        "1,white,green=3,red=2,black=2",
+        "1,white,white=2,blue=3,red=3",
+        "2,black,blue=1,green=4,red=2",
+        "2,black,green=5,red=3",
+        "2,black,white=5",
+        "2,blue,blue=5",
+        "2,blue,white=2,red=1,black=4",
+        "2,blue,white=5,blue=3",
+        "2,green,blue=5,green=3",
+        "2,green,green=5",
+        "2,green,white=4,blue=2,black=1",
+        "2,red,black=5",
+        "2,red,white=1,blue=4,green=2",
+        "2,red,white=3,black=5",
+        "2,white,green=1,red=4,black=2",
+        "2,white,red=5,black=3",
+        "2,white,red=5",
+        "3,black,black=6",
+        "3,blue,blue=6",
+        "3,green,green=6",
+        "3,red,red=6",
+        "3,white,white=6"
+      };
+
+  private static final String[] CARDS_LEVEL_3 =
+      new String[] {
+        "3,black,white=3,blue=3,green=5,red=3",
+        "3,blue,white=3,green=3,red=3,black=5",
+        "3,green,white=5,blue=3,red=3,black=3",
+        "3,red,white=3,blue=5,green=3,black=3",
+        "3,white,blue=3,green=3,red=5,black=3",
+        "4,black,green=3,red=6,black=3",
+        "4,black,red=7",
+        "4,blue,white=6,blue=3,black=3",
+        "4,blue,white=7",
+        "4,green,blue=7",
+        "4,green,white=3,blue=6,green=3",
+        "4,red,blue=3,green=6,red=3",
+        "4,red,green=7",
+        "4,white,black=7",
+        "4,white,white=3,black=7",
+        "4,white,white=3,red=3,black=6",
+        "5,black,red=7,black=3",
+        "5,blue,white=7,blue=3",
+        "5,green,blue=7,green=3",
+        "5,red,green=7,red=3"
+      };
+
+  private static final String[] NOBLES =
+      new String[] {
+        "3,black=3,blue=3,white=3",
+        "3,black=3,red=3,green=3",
+        "3,black=3,red=3,white=3",
+        "3,black=4,red=4",
+        "3,black=4,white=4",
+        "3,blue=4,green=4",
+        "3,blue=4,white=4",
+        "3,green=3,blue=3,red=3",
+        "3,green=3,blue=3,white=3",
+        "3,red=4,green=4"
+      };
+
+  public static final int CARD_COUNT =
+      CARDS_LEVEL_1.length + CARDS_LEVEL_2.length + CARDS_LEVEL_3.length;
+  public static final int NOBLE_COUNT = NOBLES.length;
+
+  private static final Card[] CARDS = new Card[CARD_COUNT];
+  private static final Noble[] NOBLE_TILES = new Noble[NOBLE_COUNT];
+  private static final List<List<Card>> CARDS_BY_LEVEL = new ArrayList<>();
+  private static final List<Noble> NOBLE_LIST;
+
+  static {
+    int id = 0;
+    String[][] levels = {CARDS_LEVEL_1, CARDS_LEVEL_2, CARDS_LEVEL_3};
+    for (int level = 1; level <= levels.length; level++) {
+      List<Card> levelCards = new ArrayList<>();
+      for (String cardProps : levels[level - 1]) {
+        Card card = new Card(id, cardProps, level);
+        CARDS[id++] = card;
+        levelCards.add(card);
+      }
+      CARDS_BY_LEVEL.add(Collections.unmodifiableList(levelCards));
+    }
+    for (int i = 0; i < NOBLE_COUNT; i++) {
+      NOBLE_TILES[i] = new Noble(i, NOBLES[i]);
+    }
+    NOBLE_LIST = List.of(NOBLE_TILES);
+  }
+
+  private CardCatalog() {}
+
+  /**
+   * Returns the canonical card with the given id.
+   *
+   * @param id the card id, between {@code 0} and {@link #CARD_COUNT} (exclusive)
+   * @return the card
+   */
+  public static Card getCard(int id) {
+    return CARDS[id];
+  }
+
+  /**
+   * Returns the canonical noble with the given id.
+   *
+   * @param id the noble id, between {@code 0} and {@link #NOBLE_COUNT} (exclusive)
+   * @return the noble
+   */
+  public static Noble getNoble(int id) {
+    return NOBLE_TILES[id];
+  }
+
+  /**
+   * Returns all cards of one level in catalog order.
+   *
+   * @param level the level (stage) of the cards, 1 to 3
+   * @return an unmodifiable list of the cards of that level
+   */
+  public static List<Card> getCardsOfLevel(int level) {
+    return CARDS_BY_LEVEL.get(level - 1);
+  }
+
+  /**
+   * Returns all nobles in catalog order.
+   *
+   * @return an unmodifiable list of all nobles
+   */
+  public static List<Noble> getNobles() {
+    return NOBLE_LIST;
+  }
+}
@@ -16,6 +16,17 @@ public class Chat implements Serializable {
     this.messageList = new ArrayList<>();
   }
 
+  /**
+   * Creates a copy of the chat with its own message list. The immutable messages are shared.
+   *
+   * @return the copy
+   */
+  public Chat copy() {
+    Chat copy = new Chat();
+    copy.messageList.addAll(this.messageList);
+    return copy;
+  }
+
   public void writeMessage(ChatMessage message) {
     this.messageList.add(message);
   }
@@ -0,0 +1,804 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.PackedMove;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, array-backed companion representation of a {@link GameState}.
+ *
+ * <p>All counters are stored in flat {@code int} arrays indexed by {@link StoneType#ordinal()},
+ * cards and nobles are referred to by their {@link CardCatalog} ids and every player is described
+ * by a fixed block of packed counters (tokens, bonuses, prestige, reserved, owned cards and
+ * nobles). Reading or updating the state therefore never boxes integers or walks through maps,
+ * which makes this representation suitable for move generation, AI search and simulations.
+ *
+ * <p>Moves are played and taken back in place with {@link #play(int)} and {@link #unplay(int,
+ * long)}, using the packed move codes of {@link PackedMove}.
+ *
+ * <p>A 64-bit Zobrist hash of the position is kept up to date by every change, see {@link
+ * #getHash()}. It covers the stone pool, the visible cards and stack positions, the nobles, the
+ * inventories, reserved and owned cards of the players and the player to move, but not the turn
+ * number, so the same position reached through different move orders has the same hash.
+ *
+ * <p>The representation covers everything that influences the rules: the stone pool, the visible
+ * cards, the order of the remaining card stacks, the nobles on the table, the player inventories
+ * and the turn. Chat, session and user data stay in the {@link GameState} and are left untouched
+ * by {@link #applyTo(GameState)}.
+ *
+ * @author luott
+ */
+public class CompactGameState {
+
+  public static final int MAX_PLAYERS = 4;
+  public static final int COLORS = 5;
+  public static final int STONE_TYPES = 6;
+  public static final int GOLD = StoneType.GOLD.ordinal();
+  public static final int LEVELS = 3;
+  public static final int SLOTS_PER_LEVEL = 4;
+  public static final int VISIBLE_SLOTS = LEVELS * SLOTS_PER_LEVEL;
+  public static final int NOBLE_SLOTS = 5;
+  public static final int MAX_RESERVED = 3;
+  public static final int EMPTY = -1;
+  public static final int WINNING_PRESTIGE = 15;
+
+  private static final StoneType[] STONE_TYPE_VALUES = StoneType.values();
+
+  private static final long UNDO_SLOT_MASK = 0xF;
+  private static final long UNDO_DRAWN = 1 << 4;
+  private static final int UNDO_RESERVED_SHIFT = 5;
+  private static final int UNDO_NOBLE_SHIFT = 7;
+  private static final int UNDO_PAYMENT_SHIFT = 10;
+
+  private static final int[] CARD_COST = new int[CardCatalog.CARD_COUNT * COLORS];
+  private static final int[] CARD_BONUS = new int[CardCatalog.CARD_COUNT];
+  private static final int[] CARD_POINTS = new int[CardCatalog.CARD_COUNT];
+  private static final int[] CARD_LEVEL = new int[CardCatalog.CARD_COUNT];
+  private static final int[] NOBLE_REQUIREMENTS = new int[CardCatalog.NOBLE_COUNT * COLORS];
+  private static final int[] NOBLE_POINTS = new int[CardCatalog.NOBLE_COUNT];
+
+  static {
+    for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+      Card card = CardCatalog.getCard(id);
+      for (int color = 0; color < COLORS; color++) {
+        CARD_COST[id * COLORS + color] = card.getCostOf(color);
+      }
+      CARD_BONUS[id] = card.getBonus().ordinal();
+      CARD_POINTS[id] = card.getPrestigePoints();
+      CARD_LEVEL[id] = card.getStage();
+    }
+    for (int id = 0; id < CardCatalog.NOBLE_COUNT; id++) {
+      Noble noble = CardCatalog.getNoble(id);
+      for (int color = 0; color < COLORS; color++) {
+        NOBLE_REQUIREMENTS[id * COLORS + color] = noble.getRequirementOf(color);
+      }
+      NOBLE_POINTS[id] = noble.getPrestigePoints();
+    }
+  }
+
+  private int playerCount;
+  private int playersTurn;
+  private int startingPlayer;
+  private int turnNumber;
+  private long hash;
+
+  private final int[] pool = new int[STONE_TYPES];
+  private final int[] visible = new int[VISIBLE_SLOTS];
+  private final int[] stackCards = new int[CardCatalog.CARD_COUNT];
+  private final int[] stackBase = new int[LEVELS];
+  private final int[] stackPos = new int[LEVELS];
+  private final int[] stackEnd = new int[LEVELS];
+  private int nobleSlotCount;
+  private final int[] nobleDeck = new int[NOBLE_SLOTS];
+
+  private final int[] tokens = new int[MAX_PLAYERS * STONE_TYPES];
+  private final int[] tokenTotal = new int[MAX_PLAYERS];
+  private final int[] bonuses = new int[MAX_PLAYERS * COLORS];
+  private final int[] prestige = new int[MAX_PLAYERS];
+  private final int[] reserved = new int[MAX_PLAYERS * MAX_RESERVED];
+  private final int[] reservedCount = new int[MAX_PLAYERS];
+  private final int[] owned = new int[MAX_PLAYERS * CardCatalog.CARD_COUNT];
+  private final int[] ownedCount = new int[MAX_PLAYERS];
+  private final int[] ownedNobles = new int[MAX_PLAYERS * CardCatalog.NOBLE_COUNT];
+  private final int[] ownedNobleCount = new int[MAX_PLAYERS];
+
+  private CompactGameState() {}
+
+  /**
+   * Creates the compact representation of the given game state. All cards and nobles of the state
+   * have to be part of the {@link CardCatalog}.
+   *
+   * @param gameState the game state to convert
+   * @return a new compact state holding the same game situation
+   * @throws IllegalArgumentException if the state holds a card or noble outside the catalog
+   */
+  public static CompactGameState of(GameState gameState) {
+    if (gameState.getPlayers().size() > MAX_PLAYERS) {
+      throw new IllegalArgumentException("At most " + MAX_PLAYERS + " players are supported");
+    }
+    CompactGameState compact = new CompactGameState();
+    compact.readFrom(gameState);
+    return compact;
+  }
+
+  /**
+   * Creates an independent copy of this state.
+   *
+   * @return the copy
+   */
+  public CompactGameState copy() {
+    CompactGameState copy = new CompactGameState();
+    copy.copyFrom(this);
+    return copy;
+  }
+
+  /**
+   * Overwrites this state with the contents of another compact state without allocating.
+   *
+   * @param other the state to copy from
+   */
+  public void copyFrom(CompactGameState other) {
+    this.playerCount = other.playerCount;
+    this.playersTurn = other.playersTurn;
+    this.startingPlayer = other.startingPlayer;
+    this.turnNumber = other.turnNumber;
+    this.hash = other.hash;
+    this.nobleSlotCount = other.nobleSlotCount;
+    System.arraycopy(other.pool, 0, this.pool, 0, this.pool.length);
+    System.arraycopy(other.visible, 0, this.visible, 0, this.visible.length);
+    System.arraycopy(other.stackCards, 0, this.stackCards, 0, this.stackCards.length);
+    System.arraycopy(other.stackBase, 0, this.stackBase, 0, LEVELS);
+    System.arraycopy(other.stackPos, 0, this.stackPos, 0, LEVELS);
+    System.arraycopy(other.stackEnd, 0, this.stackEnd, 0, LEVELS);
+    System.arraycopy(other.nobleDeck, 0, this.nobleDeck, 0, NOBLE_SLOTS);
+    System.arraycopy(other.tokens, 0, this.tokens, 0, this.tokens.length);
+    System.arraycopy(other.tokenTotal, 0, this.tokenTotal, 0, MAX_PLAYERS);
+    System.arraycopy(other.bonuses, 0, this.bonuses, 0, this.bonuses.length);
+    System.arraycopy(other.prestige, 0, this.prestige, 0, MAX_PLAYERS);
+    System.arraycopy(other.reserved, 0, this.reserved, 0, this.reserved.length);
+    System.arraycopy(other.reservedCount, 0, this.reservedCount, 0, MAX_PLAYERS);
+    System.arraycopy(other.owned, 0, this.owned, 0, this.owned.length);
+    System.arraycopy(other.ownedCount, 0, this.ownedCount, 0, MAX_PLAYERS);
+    System.arraycopy(other.ownedNobles, 0, this.ownedNobles, 0, this.ownedNobles.length);
+    System.arraycopy(other.ownedNobleCount, 0, this.ownedNobleCount, 0, MAX_PLAYERS);
+  }
+
+  /**
+   * Reads the rule relevant parts of the given game state into this compact state.
+   *
+   * @param gameState the game state to read
+   */
+  private void readFrom(GameState gameState) {
+    List<AbstractPlayer> players = gameState.getPlayers();
+    this.playerCount = players.size();
+    this.playersTurn = gameState.getPlayersTurn();
+    this.startingPlayer = gameState.getStartingPlayer();
+    this.turnNumber = gameState.getTurnNumber();
+
+    for (StoneType type : STONE_TYPE_VALUES) {
+      this.pool[type.ordinal()] = gameState.getStonePool().getOrDefault(type, 0);
+    }
+
+    List<List<Card>> decks = decksOf(gameState);
+    List<List<Card>> stacks = stacksOf(gameState);
+    int base = 0;
+    for (int level = 0; level < LEVELS; level++) {
+      List<Card> deck = decks.get(level);
+      for (int i = 0; i < SLOTS_PER_LEVEL; i++) {
+        Card card = i < deck.size() ? deck.get(i) : null;
+        this.visible[level * SLOTS_PER_LEVEL + i] = this.cardId(card);
+      }
+      List<Card> stack = stacks.get(level);
+      this.stackBase[level] = base;
+      this.stackPos[level] = base;
+      for (Card card : stack) {
+        this.stackCards[base++] = this.cardId(card);
+      }
+      this.stackEnd[level] = base;
+    }
+
+    List<Noble> nobleList = gameState.getNobleDeck();
+    this.nobleSlotCount = Math.min(nobleList.size(), NOBLE_SLOTS);
+    for (int i = 0; i < NOBLE_SLOTS; i++) {
+      this.nobleDeck[i] = i < this.nobleSlotCount ? this.nobleId(nobleList.get(i)) : EMPTY;
+    }
+
+    for (int p = 0; p < MAX_PLAYERS; p++) {
+      this.clearPlayer(p);
+      if (p < this.playerCount) {
+        this.readPlayer(p, players.get(p));
+      }
+    }
+    this.hash = this.computeHash();
+  }
+
+  /**
+   * Calculates the Zobrist hash of the position from scratch.
+   *
+   * @return the hash
+   */
+  long computeHash() {
+    long h = ZobristKeys.turn(this.playersTurn);
+    for (int type = 0; type < STONE_TYPES; type++) {
+      h ^= ZobristKeys.pool(type, this.pool[type]);
+    }
+    for (int card : this.visible) {
+      if (card != EMPTY) {
+        h ^= ZobristKeys.visibleCard(card);
+      }
+    }
+    for (int level = 0; level < LEVELS; level++) {
+      h ^= ZobristKeys.stackSize(level, this.getStackSize(level));
+    }
+    for (int slot = 0; slot < this.nobleSlotCount; slot++) {
+      if (this.nobleDeck[slot] != EMPTY) {
+        h ^= ZobristKeys.nobleOnTable(this.nobleDeck[slot]);
+      }
+    }
+    for (int p = 0; p < this.playerCount; p++) {
+      for (int type = 0; type < STONE_TYPES; type++) {
+        h ^= ZobristKeys.tokens(p, type, this.tokens[p * STONE_TYPES + type]);
+      }
+      for (int i = 0; i < this.reservedCount[p]; i++) {
+        h ^= ZobristKeys.reservedCard(p, this.getReservedCard(p, i));
+      }
+      for (int i = 0; i < this.ownedCount[p]; i++) {
+        h ^= ZobristKeys.ownedCard(p, this.getOwnedCard(p, i));
+      }
+      for (int i = 0; i < this.ownedNobleCount[p]; i++) {
+        h ^= ZobristKeys.ownedNoble(p, this.getOwnedNoble(p, i));
+      }
+    }
+    return h;
+  }
+
+  private void clearPlayer(int p) {
+    for (int t = 0; t < STONE_TYPES; t++) {
+      this.tokens[p * STONE_TYPES + t] = 0;
+    }
+    for (int c = 0; c < COLORS; c++) {
+      this.bonuses[p * COLORS + c] = 0;
+    }
+    this.tokenTotal[p] = 0;
+    this.prestige[p] = 0;
+    this.reservedCount[p] = 0;
+    this.ownedCount[p] = 0;
+    this.ownedNobleCount[p] = 0;
+  }
+
+  private void readPlayer(int p, AbstractPlayer player) {
+    Map<StoneType, Integer> inventory = player.getStoneInventory();
+    for (StoneType type : STONE_TYPE_VALUES) {
+      int count = inventory.getOrDefault(type, 0);
+      this.tokens[p * STONE_TYPES + type.ordinal()] = count;
+      this.tokenTotal[p] += count;
+    }
+    for (Card card : player.getReservedCards()) {
+      this.reserved[p * MAX_RESERVED + this.reservedCount[p]++] = this.cardId(card);
+    }
+    int cardCount = CardCatalog.CARD_COUNT;
+    for (Card card : player.getOwnedCards()) {
+      int id = this.cardId(card);
+      this.owned[p * cardCount + this.ownedCount[p]++] = id;
+      this.bonuses[p * COLORS + CARD_BONUS[id]]++;
+      this.prestige[p] += CARD_POINTS[id];
+    }
+    int nobleCount = CardCatalog.NOBLE_COUNT;
+    for (Noble noble : player.getNobles()) {
+      int id = this.nobleId(noble);
+      this.ownedNobles[p * nobleCount + this.ownedNobleCount[p]++] = id;
+      this.prestige[p] += NOBLE_POINTS[id];
+    }
+  }
+
+  /**
+   * Writes this compact state back into the given game state. The game state has to contain the
+   * same number of players; their identities, the chat and the running flag are kept, everything
+   * else is replaced.
+   *
+   * @param gameState the game state to overwrite
+   */
+  public void applyTo(GameState gameState) {
+    List<AbstractPlayer> players = gameState.getPlayers();
+    if (players.size() != this.playerCount) {
+      throw new IllegalArgumentException("Player count does not match the compact state");
+    }
+    gameState.setPlayersTurn(this.playersTurn);
+    gameState.setStartingPlayer(this.startingPlayer);
+    gameState.setTurnNumber(this.turnNumber);
+
+    for (StoneType type : STONE_TYPE_VALUES) {
+      gameState.getStonePool().put(type, this.pool[type.ordinal()]);
+    }
+
+    List<List<Card>> decks = new ArrayList<>();
+    List<List<Card>> stacks = new ArrayList<>();
+    for (int level = 0; level < LEVELS; level++) {
+      List<Card> deck = new ArrayList<>();
+      for (int i = 0; i < SLOTS_PER_LEVEL; i++) {
+        deck.add(this.card(this.visible[level * SLOTS_PER_LEVEL + i]));
+      }
+      decks.add(deck);
+      List<Card> stack = new ArrayList<>();
+      for (int i = this.stackPos[level]; i < this.stackEnd[level]; i++) {
+        stack.add(this.card(this.stackCards[i]));
+      }
+      stacks.add(stack);
+    }
+    gameState.setFirstCardDeck(decks.get(0));
+    gameState.setSecondCardDeck(decks.get(1));
+    gameState.setThirdCardDeck(decks.get(2));
+    gameState.setFirstCardStack(stacks.get(0));
+    gameState.setSecondCardStack(stacks.get(1));
+    gameState.setThirdCardStack(stacks.get(2));
+
+    List<Noble> nobleList = new ArrayList<>();
+    for (int i = 0; i < this.nobleSlotCount; i++) {
+      nobleList.add(this.noble(this.nobleDeck[i]));
+    }
+    gameState.setNobleDeck(nobleList);
+
+    int cardCount = CardCatalog.CARD_COUNT;
+    int nobleCount = CardCatalog.NOBLE_COUNT;
+    for (int p = 0; p < this.playerCount; p++) {
+      AbstractPlayer player = players.get(p);
+      for (StoneType type : STONE_TYPE_VALUES) {
+        player.getStoneInventory().put(type, this.tokens[p * STONE_TYPES + type.ordinal()]);
+      }
+      player.getReservedCards().clear();
+      for (int i = 0; i < this.reservedCount[p]; i++) {
+        player.getReservedCards().add(this.card(this.reserved[p * MAX_RESERVED + i]));
+      }
+      player.getOwnedCards().clear();
+      for (int i = 0; i < this.ownedCount[p]; i++) {
+        player.getOwnedCards().add(this.card(this.owned[p * cardCount + i]));
+      }
+      player.getNobles().clear();
+      for (int i = 0; i < this.ownedNobleCount[p]; i++) {
+        player.getNobles().add(this.noble(this.ownedNobles[p * nobleCount + i]));
+      }
+      player.recalculateTotals();
+    }
+  }
+
+  /**
+   * Plays a packed move (see {@link PackedMove}) of the current player in place, including the
+   * payment, returned tokens, the noble visit and the turn change. Like {@link
+   * GameState#apply(de.spl12.domain.moves.AbstractMove)} the first noble on the table the player
+   * qualifies for visits. The move has to be legal, no rule checks are performed.
+   *
+   * @param move the packed move
+   * @return the undo information to pass to {@link #unplay(int, long)}
+   */
+  public long play(int move) {
+    int p = this.playersTurn;
+    long undo = 0;
+    switch (PackedMove.type(move)) {
+      case PackedMove.TAKE -> {
+        for (int color = 0; color < COLORS; color++) {
+          this.transfer(p, color, PackedMove.takeCount(move, color));
+        }
+      }
+      case PackedMove.RESERVE -> {
+        int card = PackedMove.card(move);
+        undo = this.removeVisible(card);
+        this.reserved[p * MAX_RESERVED + this.reservedCount[p]++] = card;
+        this.hash ^= ZobristKeys.reservedCard(p, card);
+        if (PackedMove.takesGold(move)) {
+          this.transfer(p, GOLD, 1);
+        }
+      }
+      default -> {
+        int card = PackedMove.card(move);
+        int gold = 0;
+        for (int color = 0; color < COLORS; color++) {
+          int cost = CARD_COST[card * COLORS + color];
+          int net = Math.max(0, cost - this.bonuses[p * COLORS + color]);
+          int paid = Math.min(net, this.tokens[p * STONE_TYPES + color]);
+          gold += net - paid;
+          this.transfer(p, color, -paid);
+          undo |= (long) paid << (UNDO_PAYMENT_SHIFT + 3 * color);
+        }
+        this.transfer(p, GOLD, -gold);
+        undo |= (long) gold << (UNDO_PAYMENT_SHIFT + 3 * GOLD);
+        if (PackedMove.fromReserved(move)) {
+          undo |= (long) (this.removeReserved(p, card) + 1) << UNDO_RESERVED_SHIFT;
+          this.hash ^= ZobristKeys.reservedCard(p, card);
+        } else {
+          undo |= this.removeVisible(card);
+        }
+        this.owned[p * CardCatalog.CARD_COUNT + this.ownedCount[p]++] = card;
+        this.bonuses[p * COLORS + CARD_BONUS[card]]++;
+        this.prestige[p] += CARD_POINTS[card];
+        this.hash ^= ZobristKeys.ownedCard(p, card);
+      }
+    }
+    if (PackedMove.hasReturns(move)) {
+      for (int type = 0; type < STONE_TYPES; type++) {
+        this.transfer(p, type, -PackedMove.returnCount(move, type));
+      }
+    }
+
+    int nobleSlot = this.findVisitingNoble(p);
+    if (nobleSlot >= 0) {
+      int noble = this.nobleDeck[nobleSlot];
+      this.nobleDeck[nobleSlot] = EMPTY;
+      this.ownedNobles[p * CardCatalog.NOBLE_COUNT + this.ownedNobleCount[p]++] = noble;
+      this.prestige[p] += NOBLE_POINTS[noble];
+      this.hash ^= ZobristKeys.nobleOnTable(noble) ^ ZobristKeys.ownedNoble(p, noble);
+      undo |= (long) (nobleSlot + 1) << UNDO_NOBLE_SHIFT;
+    }
+
+    this.hash ^= ZobristKeys.turn(p);
+    this.playersTurn = (this.playersTurn + 1) % this.playerCount;
+    this.hash ^= ZobristKeys.turn(this.playersTurn);
+    if (this.playersTurn == this.startingPlayer) {
+      this.turnNumber++;
+    }
+    return undo;
+  }
+
+  /**
+   * Reverts a move played with {@link #play(int)}. Moves have to be unplayed in the reverse order
+   * in which they were played.
+   *
+   * @param move the packed move
+   * @param undo the undo information returned by {@link #play(int)}
+   */
+  public void unplay(int move, long undo) {
+    if (this.playersTurn == this.startingPlayer) {
+      this.turnNumber--;
+    }
+    this.hash ^= ZobristKeys.turn(this.playersTurn);
+    this.playersTurn = (this.playersTurn + this.playerCount - 1) % this.playerCount;
+    this.hash ^= ZobristKeys.turn(this.playersTurn);
+    int p = this.playersTurn;
+
+    int nobleSlot = (int) (undo >>> UNDO_NOBLE_SHIFT & 0x7) - 1;
+    if (nobleSlot >= 0) {
+      int noble = this.ownedNobles[p * CardCatalog.NOBLE_COUNT + --this.ownedNobleCount[p]];
+      this.nobleDeck[nobleSlot] = noble;
+      this.prestige[p] -= NOBLE_POINTS[noble];
+      this.hash ^= ZobristKeys.nobleOnTable(noble) ^ ZobristKeys.ownedNoble(p, noble);
+    }
+
+    if (PackedMove.hasReturns(move)) {
+      for (int type = 0; type < STONE_TYPES; type++) {
+        this.transfer(p, type, PackedMove.returnCount(move, type));
+      }
+    }
+
+    switch (PackedMove.type(move)) {
+      case PackedMove.TAKE -> {
+        for (int color = 0; color < COLORS; color++) {
+          this.transfer(p, color, -PackedMove.takeCount(move, color));
+        }
+      }
+      case PackedMove.RESERVE -> {
+        int card = PackedMove.card(move);
+        this.reservedCount[p]--;
+        this.hash ^= ZobristKeys.reservedCard(p, card);
+        this.restoreVisible(card, undo);
+        if (PackedMove.takesGold(move)) {
+          this.transfer(p, GOLD, -1);
+        }
+      }
+      default -> {
+        int card = PackedMove.card(move);
+        this.ownedCount[p]--;
+        this.bonuses[p * COLORS + CARD_BONUS[card]]--;
+        this.prestige[p] -= CARD_POINTS[card];
+        this.hash ^= ZobristKeys.ownedCard(p, card);
+        int reservedIndex = (int) (undo >>> UNDO_RESERVED_SHIFT & 0x3) - 1;
+        if (reservedIndex >= 0) {
+          this.insertReserved(p, reservedIndex, card);
+          this.hash ^= ZobristKeys.reservedCard(p, card);
+        } else {
+          this.restoreVisible(card, undo);
+        }
+        for (int type = 0; type < STONE_TYPES; type++) {
+          this.transfer(p, type, (int) (undo >>> (UNDO_PAYMENT_SHIFT + 3 * type) & 0x7));
+        }
+      }
+    }
+  }
+
+  /**
+   * Moves tokens of one type from the pool to a player, or back for a negative amount, and
+   * updates the token total and the hash.
+   */
+  private void transfer(int p, int type, int amount) {
+    if (amount == 0) {
+      return;
+    }
+    int index = p * STONE_TYPES + type;
+    this.hash ^=
+        ZobristKeys.pool(type, this.pool[type]) ^ ZobristKeys.tokens(p, type, this.tokens[index]);
+    this.pool[type] -= amount;
+    this.tokens[index] += amount;
+    this.tokenTotal[p] += amount;
+    this.hash ^=
+        ZobristKeys.pool(type, this.pool[type]) ^ ZobristKeys.tokens(p, type, this.tokens[index]);
+  }
+
+  /**
+   * Removes a visible card and refills its slot from the matching stack.
+   *
+   * @return the undo bits describing the slot and whether a replacement was drawn
+   * @throws IllegalArgumentException if the card is not visible, e.g. a blind reserve from the
+   *     stack, which packed moves do not support
+   */
+  private long removeVisible(int card) {
+    int level = CARD_LEVEL[card] - 1;
+    int slot = level * SLOTS_PER_LEVEL;
+    int end = slot + SLOTS_PER_LEVEL;
+    while (slot < end && this.visible[slot] != card) {
+      slot++;
+    }
+    if (slot == end) {
+      throw new IllegalArgumentException("Card " + card + " is not visible");
+    }
+    long undo = slot;
+    this.hash ^= ZobristKeys.visibleCard(card);
+    if (this.stackPos[level] < this.stackEnd[level]) {
+      int drawn = this.stackCards[this.stackPos[level]];
+      this.visible[slot] = drawn;
+      this.hash ^=
+          ZobristKeys.visibleCard(drawn) ^ ZobristKeys.stackSize(level, this.getStackSize(level));
+      this.stackPos[level]++;
+      this.hash ^= ZobristKeys.stackSize(level, this.getStackSize(level));
+      undo |= UNDO_DRAWN;
+    } else {
+      this.visible[slot] = EMPTY;
+    }
+    return undo;
+  }
+
+  private void restoreVisible(int card, long undo) {
+    int slot = (int) (undo & UNDO_SLOT_MASK);
+    if ((undo & UNDO_DRAWN) != 0) {
+      int level = CARD_LEVEL[card] - 1;
+      this.hash ^=
+          ZobristKeys.visibleCard(this.visible[slot])
+              ^ ZobristKeys.stackSize(level, this.getStackSize(level));
+      this.stackPos[level]--;
+      this.hash ^= ZobristKeys.stackSize(level, this.getStackSize(level));
+    }
+    this.visible[slot] = card;
+    this.hash ^= ZobristKeys.visibleCard(card);
+  }
+
+  private int removeReserved(int p, int card) {
+    int base = p * MAX_RESERVED;
+    int index = 0;
+    while (this.reserved[base + index] != card) {
+      index++;
+    }
+    for (int i = index; i < this.reservedCount[p] - 1; i++) {
+      this.reserved[base + i] = this.reserved[base + i + 1];
+    }
+    this.reservedCount[p]--;
+    return index;
+  }
+
+  private void insertReserved(int p, int index, int card) {
+    int base = p * MAX_RESERVED;
+    for (int i = this.reservedCount[p]; i > index; i--) {
+      this.reserved[base + i] = this.reserved[base + i - 1];
+    }
+    this.reserved[base + index] = card;
+    this.reservedCount[p]++;
+  }
+
+  private int findVisitingNoble(int p) {
+    for (int slot = 0; slot < this.nobleSlotCount; slot++) {
+      int noble = this.nobleDeck[slot];
+      if (noble == EMPTY) {
+        continue;
+      }
+      boolean visits = true;
+      for (int color = 0; color < COLORS && visits; color++) {
+        visits = this.bonuses[p * COLORS + color] >= NOBLE_REQUIREMENTS[noble * COLORS + color];
+      }
+      if (visits) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private int cardId(Card card) {
+    if (card == null) {
+      return EMPTY;
+    }
+    if (card.getId() < 0) {
+      throw new IllegalArgumentException("Card is not part of the catalog: " + card);
+    }
+    return card.getId();
+  }
+
+  private int nobleId(Noble noble) {
+    if (noble == null) {
+      return EMPTY;
+    }
+    if (noble.getId() < 0) {
+      throw new IllegalArgumentException("Noble is not part of the catalog");
+    }
+    return noble.getId();
+  }
+
+  private static List<List<Card>> decksOf(GameState gameState) {
+    return List.of(
+        gameState.getFirstCardDeck(), gameState.getSecondCardDeck(), gameState.getThirdCardDeck());
+  }
+
+  private static List<List<Card>> stacksOf(GameState gameState) {
+    return List.of(
+        gameState.getFirstCardStack(),
+        gameState.getSecondCardStack(),
+        gameState.getThirdCardStack());
+  }
+
+  /**
+   * Checks whether a player has reached the prestige needed to win, which ends the game.
+   *
+   * @return true if the game is over
+   */
+  public boolean isFinished() {
+    for (int p = 0; p < this.playerCount; p++) {
+      if (this.prestige[p] >= WINNING_PRESTIGE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the player with the most prestige. Ties are broken in favour of the player with fewer
+   * owned cards, then the lower player index.
+   *
+   * @return the index of the leading player
+   */
+  public int getLeader() {
+    int leader = 0;
+    for (int p = 1; p < this.playerCount; p++) {
+      if (this.prestige[p] > this.prestige[leader]
+          || this.prestige[p] == this.prestige[leader]
+              && this.ownedCount[p] < this.ownedCount[leader]) {
+        leader = p;
+      }
+    }
+    return leader;
+  }
+
+  public Card card(int id) {
+    return id == EMPTY ? null : CardCatalog.getCard(id);
+  }
+
+  public Noble noble(int id) {
+    return id == EMPTY ? null : CardCatalog.getNoble(id);
+  }
+
+  public int getCardCount() {
+    return CardCatalog.CARD_COUNT;
+  }
+
+  public int getNobleCount() {
+    return CardCatalog.NOBLE_COUNT;
+  }
+
+  public int getCardCost(int cardId, int color) {
+    return CARD_COST[cardId * COLORS + color];
+  }
+
+  public int getCardBonus(int cardId) {
+    return CARD_BONUS[cardId];
+  }
+
+  public int getCardPoints(int cardId) {
+    return CARD_POINTS[cardId];
+  }
+
+  public int getCardLevel(int cardId) {
+    return CARD_LEVEL[cardId];
+  }
+
+  public int getNobleRequirement(int nobleId, int color) {
+    return NOBLE_REQUIREMENTS[nobleId * COLORS + color];
+  }
+
+  public int getNoblePoints(int nobleId) {
+    return NOBLE_POINTS[nobleId];
+  }
+
+  public int getPlayerCount() {
+    return playerCount;
+  }
+
+  public int getPlayersTurn() {
+    return playersTurn;
+  }
+
+  public int getStartingPlayer() {
+    return startingPlayer;
+  }
+
+  public int getTurnNumber() {
+    return turnNumber;
+  }
+
+  /**
+   * Returns the Zobrist hash of the position, which is updated incrementally by {@link
+   * #play(int)} and {@link #unplay(int, long)}.
+   *
+   * @return the 64-bit hash
+   */
+  public long getHash() {
+    return this.hash;
+  }
+
+  public int getPool(int type) {
+    return this.pool[type];
+  }
+
+  public int getVisibleCard(int slot) {
+    return this.visible[slot];
+  }
+
+  public int getStackSize(int level) {
+    return this.stackEnd[level] - this.stackPos[level];
+  }
+
+  public int getStackCard(int level, int index) {
+    return this.stackCards[this.stackPos[level] + index];
+  }
+
+  public int getNobleSlotCount() {
+    return nobleSlotCount;
+  }
+
+  public int getNobleOnTable(int slot) {
+    return this.nobleDeck[slot];
+  }
+
+  public int getTokens(int player, int type) {
+    return this.tokens[player * STONE_TYPES + type];
+  }
+
+  public int getTokenTotal(int player) {
+    return this.tokenTotal[player];
+  }
+
+  public int getBonus(int player, int color) {
+    return this.bonuses[player * COLORS + color];
+  }
+
+  public int getPrestige(int player) {
+    return this.prestige[player];
+  }
+
+  public int getReservedCount(int player) {
+    return this.reservedCount[player];
+  }
+
+  public int getReservedCard(int player, int index) {
+    return this.reserved[player * MAX_RESERVED + index];
+  }
+
+  public int getOwnedCount(int player) {
+    return this.ownedCount[player];
+  }
+
+  public int getOwnedCard(int player, int index) {
+    return this.owned[player * CardCatalog.CARD_COUNT + index];
+  }
+
+  public int getOwnedNobleCount(int player) {
+    return this.ownedNobleCount[player];
+  }
+
+  public int getOwnedNoble(int player, int index) {
+    return this.ownedNobles[player * CardCatalog.NOBLE_COUNT + index];
+  }
+}
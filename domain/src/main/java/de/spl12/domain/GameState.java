@@ -1,6 +1,10 @@
 package de.spl12.domain;
 
 import de.spl12.domain.Exceptions.DepletedResourceException;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -9,6 +13,8 @@ import java.util.HashMap;
 import java.util.Optional;
 import java.util.List;
 import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Represents the current state of the game.
@@ -38,123 +44,35 @@ public class GameState implements Serializable {
   private Chat chat;
   private int turnNumber;
 
-  private final String[] cards_level1 =
-      new String[] {
-        "0,black,green=1,red=3,black=1",
-        "0,black,green=2,red=1",
-        "0,black,green=3",
-        "0,black,white=1,blue=1,green=1,red=1",
-        "0,black,white=1,blue=2,green=1,red=1",
-        "0,black,white=2,blue=2,red=1",
-        "0,black,white=2,green=2",
-        "0,blue,blue=1,green=3,red=1",
-        "0,blue,green=2,black=2",
-        "0,blue,white=1,black=2",
-        "0,blue,white=1,green=1,red=1,black=1",
-        "0,blue,white=1,green=1,red=2,black=1",
-        "0,blue,white=1,green=2,red=2",
-        "0,green,blue=1,red=2,black=2",
-        "0,green,blue=2,red=2",
-        "0,green,red=3",
-        "0,green,white=1,blue=1,red=1,black=1",
-        "0,green,white=1,blue=1,red=1,black=2",
-        "0,green,white=1,blue=3,green=1",
-        "0,green,white=2,blue=1",
-        "0,red,blue=2,green=1",
-        "0,red,white=1,blue=1,green=1,black=1",
-        "0,red,white=1,red=1,black=3",
-        "0,red,white=2,blue=1,green=1,black=1",
-        "0,red,white=2,green=1,black=2",
-        "0,red,white=2,red=2",
-        "0,red,white=3",
-        "0,white,blue=1,green=1,red=1,black=1",
-        "0,white,blue=1,green=2,red=1,black=1",
-        "0,white,blue=2,black=2",
-        "0,white,blue=2,green=2,black=1",
-        "0,white,blue=3",
-        "0,white,red=2,black=1",
-        "0,white,white=3,blue=1,black=1",
-        "1,black,blue=4",
-        "1,blue,black=3",
-        "1,blue,red=4",
-        "1,green,black=4",
-        "1,red,white=4",
-        "1,white,green=4"
-      };
-
-  private final String[] cards_level2 =
-      new String[] {
-        "1,black,white=3,blue=2,green=2",
-        "1,black,white=3,green=3,black=2",
-        "1,blue,blue=2,green=2,red=3",
-        "1,blue,blue=3,green=3,black=3",
-        "1,green,white=2,blue=3,black=2",
-        "1,green,white=3,green=2,red=3",
-        "1,red,blue=3,red=2,black=3",
-        "1,red,white=2,red=2,black=3",
-        "1,white,green=3,red=2,black=2",
-        "1,white,white=2,blue=3,red=3",
-        "2,black,blue=1,green=4,red=2",
-        "2,black,green=5,red=3",
-        "2,black,white=5",
-        "2,blue,blue=5",
-        "2,blue,white=2,red=1,black=4",
-        "2,blue,white=5,blue=3",
-        "2,green,blue=5,green=3",
-        "2,green,green=5",
-        "2,green,white=4,blue=2,black=1",
-        "2,red,black=5",
-        "2,red,white=1,blue=4,green=2",
-        "2,red,white=3,black=5",
-        "2,white,green=1,red=4,black=2",
-        "2,white,red=5,black=3",
-        "2,white,red=5",
-        "3,black,black=6",
-        "3,blue,blue=6",
-        "3,green,green=6",
-        "3,red,red=6",
-        "3,white,white=6"
-      };
-
-  private final String[] cards_level3 =
-      new String[] {
-        "3,black,white=3,blue=3,green=5,red=3",
-        "3,blue,white=3,green=3,red=3,black=5",
-        "3,green,white=5,blue=3,red=3,black=3",
-        "3,red,white=3,blue=5,green=3,black=3",
-        "3,white,blue=3,green=3,red=5,black=3",
-        "4,black,green=3,red=6,black=3",
-        "4,black,red=7",
-        "4,blue,white=6,blue=3,black=3",
-        "4,blue,white=7",
-        "4,green,blue=7",
-        "4,green,white=3,blue=6,green=3",
-        "4,red,blue=3,green=6,red=3",
-        "4,red,green=7",
-        "4,white,black=7",
-        "4,white,white=3,black=7",
-        "4,white,white=3,red=3,black=6",
-        "5,black,red=7,black=3",
-        "5,blue,white=7,blue=3",
-        "5,green,blue=7,green=3",
-        "5,red,green=7,red=3"
-      };
-
-  private final String[] nobles =
-      new String[] {
-        "3,black=3,blue=3,white=3",
-        "3,black=3,red=3,green=3",
-        "3,black=3,red=3,white=3",
-        "3,black=4,red=4",
-        "3,black=4,white=4",
-        "3,blue=4,green=4",
-        "3,blue=4,white=4",
-        "3,green=3,blue=3,red=3",
-        "3,green=3,blue=3,white=3",
-        "3,red=4,green=4"
-      };
+  private long seed;
+  private transient SplittableRandom random;
 
+  /** Creates a game with a random seed, see {@link #getSeed()}. */
   public GameState() {
+    this(ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Creates a game whose cards and nobles are shuffled by a random source of the given seed. The
+   * same seed always gives the same setup, and the same sequence of setups for the games started
+   * by {@link #reset()}.
+   *
+   * @param seed the seed of the shuffling
+   */
+  public GameState(long seed) {
+    this(seed, true);
+  }
+
+  /**
+   * Creates a game with the given seed, with or without its setup.
+   *
+   * @param seed the seed of the shuffling
+   * @param deal whether to fill the stone pool and to shuffle and place the cards and nobles, or to
+   *     leave all of them empty
+   */
+  private GameState(long seed, boolean deal) {
+    this.seed = seed;
+    this.random = new SplittableRandom(seed);
     this.isRunning = false;
     this.playersTurn = 0;
     this.turnNumber = 0;
@@ -167,37 +85,98 @@ public class GameState implements Serializable {
     this.thirdCardDeck = new ArrayList<>();
     this.thirdCardStack = new ArrayList<>();
     this.nobleDeck = new ArrayList<>();
-    this.stonePool = this.createStonePool();
-    this.shuffleAndPlaceCards();
-    this.shuffleAndPlaceNobles();
+    if (deal) {
+      this.stonePool = this.createStonePool();
+      this.shuffleAndPlaceCards();
+      this.shuffleAndPlaceNobles();
+    } else {
+      this.stonePool = new HashMap<>();
+    }
+  }
+
+  /**
+   * Creates a game with the given seed but without players, cards, nobles or stones, for a decoder
+   * that sets all of them afterwards. Unlike {@link #GameState(long)}, nothing is shuffled.
+   *
+   * @param seed the seed of the game
+   * @return the empty game
+   */
+  public static GameState empty(long seed) {
+    return new GameState(seed, false);
+  }
+
+  /**
+   * Creates a deep copy of another game state, see {@link #copy(boolean)}.
+   *
+   * @param other the game state to copy
+   * @param includeChat whether to copy the chat or to start with an empty one
+   */
+  private GameState(GameState other, boolean includeChat) {
+    this.isRunning = other.isRunning;
+    this.playersTurn = other.playersTurn;
+    this.startingPlayer = other.startingPlayer;
+    this.turnNumber = other.turnNumber;
+    this.chat = includeChat ? other.chat.copy() : new Chat();
+    this.players = new ArrayList<>(other.players.size());
+    for (AbstractPlayer player : other.players) {
+      this.players.add(player.copy());
+    }
+    this.firstCardDeck = new ArrayList<>(other.firstCardDeck);
+    this.firstCardStack = new ArrayList<>(other.firstCardStack);
+    this.secondCardDeck = new ArrayList<>(other.secondCardDeck);
+    this.secondCardStack = new ArrayList<>(other.secondCardStack);
+    this.thirdCardDeck = new ArrayList<>(other.thirdCardDeck);
+    this.thirdCardStack = new ArrayList<>(other.thirdCardStack);
+    this.nobleDeck = new ArrayList<>(other.nobleDeck);
+    this.stonePool = new HashMap<>(other.stonePool);
+    this.seed = other.seed;
+    this.random = other.random().split();
+  }
+
+  /**
+   * Creates a deep copy of the game state including the chat.
+   *
+   * @return the copy
+   * @see #copy(boolean)
+   */
+  public GameState copy() {
+    return this.copy(true);
+  }
+
+  /**
+   * Creates a deep copy of the game state without serialization. Players, card lists, the stone
+   * pool and the chat are copied, so the copy can be modified independently of the original. The
+   * immutable cards, nobles, users and chat messages are shared. The copy continues with a split of
+   * the random source of the original.
+   *
+   * @param includeChat whether to copy the chat; snapshots for the AI or for predictions do not
+   *     need it and get an empty chat instead
+   * @return the copy
+   */
+  public GameState copy(boolean includeChat) {
+    return new GameState(this, includeChat);
   }
 
   /**
    * Shuffles and prepares the card stacks for each level in the game and places a specific number
    * of cards in the corresponding decks for gameplay.
    *
-   * <p>The method performs the following steps: 1. Constructs card stacks for levels 1, 2, and 3
-   * using the respective card property lists (cards_level1, cards_level2, cards_level3) and assigns
-   * each card the appropriate stage. 2. Shuffles each stack to ensure randomness. 3. Removes a
-   * predefined number of cards (four) from the top of each stack and places them into the
-   * corresponding decks (firstCardDeck, secondCardDeck, thirdCardDeck) to initialize the gameplay
-   * setup.
+   * <p>The method performs the following steps: 1. Fills the card stacks for levels 1, 2, and 3
+   * with the shared cards of the {@link CardCatalog}. 2. Shuffles each stack with the random
+   * source of the game.
+   * 3. Removes a predefined number of cards (four) from the top of each stack and places them into
+   * the corresponding decks (firstCardDeck, secondCardDeck, thirdCardDeck) to initialize the
+   * gameplay setup.
    */
   private void shuffleAndPlaceCards() {
-    for (String cardProps : this.cards_level1) {
-      this.firstCardStack.add(new Card(cardProps, 1));
-    }
-    Collections.shuffle(this.firstCardStack);
+    this.firstCardStack.addAll(CardCatalog.getCardsOfLevel(1));
+    Collections.shuffle(this.firstCardStack, this.random());
 
-    for (String cardProps : this.cards_level2) {
-      this.secondCardStack.add(new Card(cardProps, 2));
-    }
-    Collections.shuffle(this.secondCardStack);
+    this.secondCardStack.addAll(CardCatalog.getCardsOfLevel(2));
+    Collections.shuffle(this.secondCardStack, this.random());
 
-    for (String cardProps : this.cards_level3) {
-      this.thirdCardStack.add(new Card(cardProps, 3));
-    }
-    Collections.shuffle(this.thirdCardStack);
+    this.thirdCardStack.addAll(CardCatalog.getCardsOfLevel(3));
+    Collections.shuffle(this.thirdCardStack, this.random());
 
     for (int i = 0; i < 4; i++) {
       this.firstCardDeck.add(this.firstCardStack.removeFirst());
@@ -209,25 +188,42 @@ public class GameState implements Serializable {
   /**
    * Shuffles the list of nobles and places the first five into the noble deck.
    *
-   * <p>The method processes nobles as follows: 1. Iterates through the list of noble properties and
-   * creates a list of Noble objects. 2. Randomly shuffles the list of Noble objects to ensure
-   * randomness. 3. Takes the first five Noble objects from the shuffled list and adds them to the
-   * noble deck.
+   * <p>The method processes nobles as follows: 1. Copies the nobles of the {@link CardCatalog}
+   * into a new list. 2. Shuffles the list with the random source of the game. 3. Takes
+   * the first five Noble objects from the shuffled list and adds them to the noble deck.
    *
    * <p>This setup is crucial for initializing the game with a randomized subset of nobles to
    * provide a unique game experience for each game session.
    */
   private void shuffleAndPlaceNobles() {
-    List<Noble> noblesToShuffle = new ArrayList<>();
-    for (String nobleProps : this.nobles) {
-      noblesToShuffle.add(new Noble(nobleProps));
-    }
-    Collections.shuffle(noblesToShuffle);
+    List<Noble> noblesToShuffle = new ArrayList<>(CardCatalog.getNobles());
+    Collections.shuffle(noblesToShuffle, this.random());
     for (int i = 0; i < 5; i++) {
       this.nobleDeck.add(noblesToShuffle.removeFirst());
     }
   }
 
+  /**
+   * Returns the random source of the game. A deserialized copy continues with a source derived
+   * from the seed, as the position in the original sequence is not transferred.
+   */
+  private SplittableRandom random() {
+    if (this.random == null) {
+      this.random = new SplittableRandom(this.seed);
+    }
+    return this.random;
+  }
+
+  /**
+   * Returns the seed the game was created with. A game created with this seed has the same setup,
+   * which allows to replay it.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
   public void removeNoble(Noble noble) {
     this.nobleDeck.set(this.getNobleDeck().indexOf(noble), null);
   }
@@ -251,6 +247,31 @@ public class GameState implements Serializable {
     return newStonePool;
   }
 
+  /**
+   * Adapts the setup of a game that has not started yet to the number of its players, following
+   * the rules: with two players there are 4 stones of every color and 3 nobles, with three players
+   * 5 stones and 4 nobles. The setup dealt on creation is the one for four players, 7 stones of
+   * every color and 5 nobles; gold is always 5. Surplus nobles are removed from the end of the
+   * deck, so the adapted setup only depends on the seed.
+   *
+   * @throws IllegalStateException if the game has less than 2 or more than 4 players
+   */
+  public void adaptSetupToPlayers() {
+    int players = this.players.size();
+    if (players < 2 || players > 4) {
+      throw new IllegalStateException("A game needs 2 to 4 players, got " + players);
+    }
+    int stones = players == 4 ? 7 : players + 2;
+    for (StoneType type : StoneType.values()) {
+      if (type != StoneType.GOLD) {
+        this.stonePool.put(type, stones);
+      }
+    }
+    while (this.nobleDeck.size() > players + 1) {
+      this.nobleDeck.removeLast();
+    }
+  }
+
   /**
    * Reduces the quantity of a specified type of stone from the stone pool by 1. If no stones of the
    * specified type are available, an exception is thrown.
@@ -271,18 +292,190 @@ public class GameState implements Serializable {
    *
    * <p>This method increments the current player's turn index, cycling back to the first player
    * after reaching the last player. Specifically, it calculates the next turn by incrementing the
-   * `playersTurn` value and taking the modulus with 4 (assuming a 4-player game).
+   * `playersTurn` value and taking the modulus with the number of players (4 while no players have
+   * joined yet).
    *
    * <p>Additionally, it checks if the turn index has returned to the starting player. If so, the
    * turn number is incremented to reflect the progression to the next round.
    */
   public void nextTurn() {
-    this.playersTurn = (this.playersTurn + 1) % 4;
+    int playerCount = this.players.isEmpty() ? 4 : this.players.size();
+    this.playersTurn = (this.playersTurn + 1) % playerCount;
     if (this.playersTurn - this.startingPlayer == 0) {
       this.turnNumber++;
     }
   }
 
+  /**
+   * Applies a complete turn of the current player in place: the move itself including gold and
+   * returned tokens, the noble visit and {@link #nextTurn()}. The returned record can be passed to
+   * {@link #undo(UndoRecord)} to restore the exact previous state, which lets the AI explore moves
+   * without copying the game state.
+   *
+   * <p>The move is expected to be legal for the current player, e.g. generated by the {@link
+   * de.spl12.domain.moves.MoveGenerator}; no rule checks are performed here. If the move names a
+   * visiting noble that the player qualifies for, that noble visits, otherwise the first noble on
+   * the table the player qualifies for.
+   *
+   * @param move the move of the current player
+   * @return the record needed to undo the move
+   * @throws IllegalArgumentException if the reserved card is neither on the table nor on top of its
+   *     stack, or the bought card is neither on the table nor reserved by the player
+   */
+  public UndoRecord apply(AbstractMove move) {
+    AbstractPlayer player = this.players.get(this.playersTurn);
+    UndoRecord record = new UndoRecord(move, this.playersTurn, this.playersTurn, this.turnNumber);
+
+    if (move instanceof TakeMove takeMove) {
+      this.addToPool(takeMove.getTokens(), -1);
+    } else if (move instanceof ReserveMove reserveMove) {
+      this.takeFromTable(reserveMove.getCard(), record);
+      if (record.deckLevel == 0) {
+        throw new IllegalArgumentException(
+            "Card is not on the table or its stack: " + reserveMove.getCard());
+      }
+      if (reserveMove.gotGoldCoin()) {
+        this.stonePool.put(StoneType.GOLD, this.stonePool.get(StoneType.GOLD) - 1);
+      }
+    } else if (move instanceof BuyMove buyMove) {
+      this.takeFromTable(buyMove.getCard(), record);
+      if (record.deckLevel == 0 && !player.getReservedCards().contains(buyMove.getCard())) {
+        throw new IllegalArgumentException("Card can not be bought: " + buyMove.getCard());
+      }
+      this.addToPool(buyMove.getTokens(), 1);
+    }
+    for (StoneType stoneType : move.getTokensToReturn()) {
+      this.returnStone(stoneType);
+    }
+    player.applyMove(record);
+
+    record.nobleSlot = this.findVisitingNoble(player, move.getVisitingNoble());
+    if (record.nobleSlot >= 0) {
+      record.noble = this.nobleDeck.get(record.nobleSlot);
+      this.nobleDeck.set(record.nobleSlot, null);
+      player.obtainNoble(record.noble);
+    }
+
+    this.nextTurn();
+    return record;
+  }
+
+  /**
+   * Reverts a move applied with {@link #apply(AbstractMove)}. Records have to be undone in the
+   * reverse order of application.
+   *
+   * @param record the record returned by {@link #apply(AbstractMove)}
+   */
+  public void undo(UndoRecord record) {
+    this.playersTurn = record.previousPlayersTurn;
+    this.turnNumber = record.previousTurnNumber;
+    AbstractPlayer player = this.players.get(record.playerIndex);
+    AbstractMove move = record.move;
+
+    player.undoMove(record);
+    if (record.noble != null) {
+      this.nobleDeck.set(record.nobleSlot, record.noble);
+    }
+    for (StoneType stoneType : move.getTokensToReturn()) {
+      this.stonePool.put(stoneType, this.stonePool.get(stoneType) - 1);
+    }
+
+    if (move instanceof TakeMove takeMove) {
+      this.addToPool(takeMove.getTokens(), 1);
+    } else if (move instanceof ReserveMove reserveMove) {
+      if (reserveMove.gotGoldCoin()) {
+        this.stonePool.put(StoneType.GOLD, this.stonePool.get(StoneType.GOLD) + 1);
+      }
+      this.putBackOnTable(reserveMove.getCard(), record);
+    } else if (move instanceof BuyMove buyMove) {
+      this.addToPool(buyMove.getTokens(), -1);
+      this.putBackOnTable(buyMove.getCard(), record);
+    }
+  }
+
+  /**
+   * Removes a card from its deck on the table, refills the position from the matching stack and
+   * stores the position in the record. A card on top of its stack, which is reserved blindly, is
+   * removed from the stack without a deck position. Leaves the record untouched if the card is
+   * neither on the table nor on top of a stack.
+   */
+  private void takeFromTable(Card card, UndoRecord record) {
+    int level = card.getStage();
+    List<Card> deck = this.getCardDeck(level);
+    int slot = deck == null ? -1 : deck.indexOf(card);
+    if (slot < 0) {
+      List<Card> stack = this.getCardStack(level);
+      if (record.move instanceof ReserveMove
+          && stack != null
+          && !stack.isEmpty()
+          && stack.getFirst() == card) {
+        stack.removeFirst();
+        record.deckLevel = level;
+      }
+      return;
+    }
+    List<Card> stack = this.getCardStack(level);
+    record.deckLevel = level;
+    record.deckSlot = slot;
+    record.replacementDrawn = !stack.isEmpty();
+    deck.set(slot, record.replacementDrawn ? stack.removeFirst() : null);
+  }
+
+  private void putBackOnTable(Card card, UndoRecord record) {
+    if (record.deckLevel == 0) {
+      return;
+    }
+    if (record.deckSlot < 0) {
+      this.getCardStack(record.deckLevel).addFirst(card);
+      return;
+    }
+    List<Card> deck = this.getCardDeck(record.deckLevel);
+    if (record.replacementDrawn) {
+      this.getCardStack(record.deckLevel).addFirst(deck.get(record.deckSlot));
+    }
+    deck.set(record.deckSlot, card);
+  }
+
+  private int findVisitingNoble(AbstractPlayer player, Noble preferred) {
+    if (preferred != null) {
+      int slot = this.nobleDeck.indexOf(preferred);
+      if (slot >= 0 && player.checkNobleVisit(preferred)) {
+        return slot;
+      }
+    }
+    for (int slot = 0; slot < this.nobleDeck.size(); slot++) {
+      if (player.checkNobleVisit(this.nobleDeck.get(slot))) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  private void addToPool(Map<StoneType, Integer> stones, int sign) {
+    for (Map.Entry<StoneType, Integer> entry : stones.entrySet()) {
+      StoneType stoneType = entry.getKey();
+      this.stonePool.put(stoneType, this.stonePool.get(stoneType) + sign * entry.getValue());
+    }
+  }
+
+  private List<Card> getCardDeck(int level) {
+    return switch (level) {
+      case 1 -> this.firstCardDeck;
+      case 2 -> this.secondCardDeck;
+      case 3 -> this.thirdCardDeck;
+      default -> null;
+    };
+  }
+
+  private List<Card> getCardStack(int level) {
+    return switch (level) {
+      case 1 -> this.firstCardStack;
+      case 2 -> this.secondCardStack;
+      case 3 -> this.thirdCardStack;
+      default -> null;
+    };
+  }
+
   /**
    * Calculates and returns the total number of stones present in the stone pool. Iterates through
    * all stone types in the stone pool and sums up their respective quantities.
@@ -472,6 +665,10 @@ public class GameState implements Serializable {
     return this.isRunning;
   }
 
+  public void setRunning(boolean isRunning) {
+    this.isRunning = isRunning;
+  }
+
   public void startGame() {
     this.isRunning = true;
     HumanPlayer youngest = (HumanPlayer) this.players.getFirst();
@@ -494,7 +691,27 @@ public class GameState implements Serializable {
     return turnNumber;
   }
 
+  public void setTurnNumber(int turnNumber) {
+    this.turnNumber = turnNumber;
+  }
+
+  public int getStartingPlayer() {
+    return startingPlayer;
+  }
+
+  public void setStartingPlayer(int startingPlayer) {
+    this.startingPlayer = startingPlayer;
+  }
+
+  /**
+   * Starts a new game with the same players. The new game gets a new seed drawn from the seed of
+   * the current one, so every game of a session is dealt differently, also if the state was
+   * decoded or copied on a client before. AI players keep their settings, see {@link
+   * AiPlayer#forNewGame(long)}.
+   */
   public void reset() {
+    this.seed = new SplittableRandom(this.seed).nextLong();
+    this.random = new SplittableRandom(this.seed);
     this.isRunning = false;
     this.playersTurn = this.startingPlayer;
     this.turnNumber = 0;
@@ -506,11 +723,7 @@ public class GameState implements Serializable {
             new HumanPlayer(humanPlayer.getSessionPlayerNumber(), humanPlayer.getUser());
         newPlayers.add(newHumanPlayer);
       } else if (player instanceof AiPlayer aiPlayer) {
-        AiPlayer newAiPlayer =
-            new AiPlayer(aiPlayer.getSessionPlayerNumber(), aiPlayer.getDifficulty());
-        newAiPlayer.setFakeUser(aiPlayer.getFakeUser());
-        newAiPlayer.setName(aiPlayer.getName());
-        newPlayers.add(newAiPlayer);
+        newPlayers.add(aiPlayer.forNewGame(this.random().nextLong()));
       }
     }
     this.players = newPlayers;
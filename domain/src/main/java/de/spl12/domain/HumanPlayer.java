@@ -22,6 +22,16 @@ public class HumanPlayer extends AbstractPlayer {
     this.name = user.getUsername();
   }
 
+  private HumanPlayer(HumanPlayer other) {
+    super(other);
+    this.user = other.user;
+  }
+
+  @Override
+  public HumanPlayer copy() {
+    return new HumanPlayer(this);
+  }
+
   public User getUser() {
     return user;
   }
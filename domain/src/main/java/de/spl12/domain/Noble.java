@@ -1,16 +1,26 @@
 package de.spl12.domain;
 
+import java.io.ObjectStreamException;
+import java.io.Serial;
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Represents a Noble in the game state. Simply stores the corresponding values.
  *
+ * <p>Nobles of the {@link CardCatalog} carry a stable id and are shared between all game states;
+ * nobles created through the public constructors have the id {@code -1}.
+ *
  * @author leon.kuersch
  */
 public class Noble implements Serializable {
+  @Serial private static final long serialVersionUID = 6169547317012849731L;
+  private final int id;
   private final Map<StoneType, Integer> requirements;
+  private final int[] requirementVector;
   private final int prestigePoints;
   private String propsString;
 
@@ -21,7 +31,9 @@ public class Noble implements Serializable {
    * @param prestigePoints the number of prestige points associated with this noble.
    */
   public Noble(Map<StoneType, Integer> cost, int prestigePoints) {
+    this.id = -1;
     this.requirements = cost;
+    this.requirementVector = toRequirementVector(cost);
     this.prestigePoints = prestigePoints;
   }
 
@@ -34,22 +46,80 @@ public class Noble implements Serializable {
    *     stone types with their respective quantities.
    */
   public Noble(String propsString) {
+    this(-1, propsString);
+  }
+
+  /**
+   * Constructs a catalog noble with the given id, see {@link CardCatalog}.
+   *
+   * @param id the catalog id of the noble
+   * @param propsString the properties of the noble, see {@link #Noble(String)}
+   */
+  Noble(int id, String propsString) {
+    this.id = id;
     this.propsString = propsString;
     String[] props = propsString.split(",");
     this.prestigePoints = Integer.parseInt(props[0]);
-    this.requirements = new HashMap<>();
+    Map<StoneType, Integer> parsedRequirements = new HashMap<>();
 
     for (int i = 1; i < props.length; i++) {
       String[] stoneCost = props[i].split("=");
-      this.requirements.put(
+      parsedRequirements.put(
           StoneType.valueOf(stoneCost[0].toUpperCase()), Integer.parseInt(stoneCost[1]));
     }
+    this.requirements =
+        id >= 0
+            ? Collections.unmodifiableMap(new EnumMap<>(parsedRequirements))
+            : parsedRequirements;
+    this.requirementVector = toRequirementVector(parsedRequirements);
+  }
+
+  private static int[] toRequirementVector(Map<StoneType, Integer> requirements) {
+    int[] vector = new int[StoneType.values().length];
+    for (Map.Entry<StoneType, Integer> entry : requirements.entrySet()) {
+      vector[entry.getKey().ordinal()] = entry.getValue();
+    }
+    return vector;
+  }
+
+  /**
+   * Replaces a deserialized catalog noble with its canonical instance, so that noble identity
+   * survives the transfer between server and clients.
+   *
+   * @return the canonical catalog noble, or this noble if it is not part of the catalog
+   */
+  @Serial
+  private Object readResolve() throws ObjectStreamException {
+    if (this.id >= 0 && this.id < CardCatalog.NOBLE_COUNT) {
+      return CardCatalog.getNoble(this.id);
+    }
+    return this;
+  }
+
+  /**
+   * Returns the catalog id of this noble.
+   *
+   * @return the id, or {@code -1} if the noble is not part of the {@link CardCatalog}
+   */
+  public int getId() {
+    return id;
   }
 
   public Map<StoneType, Integer> getRequirements() {
     return requirements;
   }
 
+  /**
+   * Returns the number of bonuses of a single stone type this noble requires, indexed by {@link
+   * StoneType#ordinal()}.
+   *
+   * @param ordinal the ordinal of the stone type
+   * @return the required number of bonuses of that type
+   */
+  public int getRequirementOf(int ordinal) {
+    return this.requirementVector[ordinal];
+  }
+
   public int getPrestigePoints() {
     return prestigePoints;
   }
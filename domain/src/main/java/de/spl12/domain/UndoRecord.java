@@ -0,0 +1,56 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+
+/**
+ * Records everything {@link GameState#apply(AbstractMove)} changed that cannot be derived from the
+ * move itself, so that {@link GameState#undo(UndoRecord)} can restore the previous state exactly.
+ *
+ * <p>Records have to be undone in the reverse order in which the moves were applied.
+ *
+ * @author luott
+ */
+public final class UndoRecord {
+
+  final AbstractMove move;
+  final int playerIndex;
+  final int previousPlayersTurn;
+  final int previousTurnNumber;
+
+  /** The card deck (1 to 3) the reserved or bought card was taken from, 0 if none. */
+  int deckLevel;
+
+  /** The position of the card within its deck, -1 if it was reserved from the top of the stack. */
+  int deckSlot = -1;
+
+  /** Whether the emptied deck position was refilled from the card stack. */
+  boolean replacementDrawn;
+
+  /** The position of a bought card within the reserved cards of the player, -1 if none. */
+  int reservedIndex = -1;
+
+  /** The noble that visited the player after the move, or null. */
+  Noble noble;
+
+  /** The position of the visiting noble within the noble deck. */
+  int nobleSlot = -1;
+
+  UndoRecord(AbstractMove move, int playerIndex, int previousPlayersTurn, int previousTurnNumber) {
+    this.move = move;
+    this.playerIndex = playerIndex;
+    this.previousPlayersTurn = previousPlayersTurn;
+    this.previousTurnNumber = previousTurnNumber;
+  }
+
+  public AbstractMove getMove() {
+    return move;
+  }
+
+  public int getPlayerIndex() {
+    return playerIndex;
+  }
+
+  public Noble getNoble() {
+    return noble;
+  }
+}
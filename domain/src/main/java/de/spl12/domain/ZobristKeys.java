@@ -0,0 +1,89 @@
+package de.spl12.domain;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random 64-bit keys for the Zobrist hash of a {@link CompactGameState}.
+ *
+ * <p>Every feature of a position (a token count, the location of a card or noble, the player to
+ * move) has its own key and the hash of a position is the XOR of the keys of all its features. The
+ * keys are drawn from a fixed seed, so hashes are equal between runs and between threads.
+ *
+ * @author luott
+ */
+final class ZobristKeys {
+
+  /** Token counts are hashed up to this bound, which is above any reachable count. */
+  static final int COUNT_LIMIT = 16;
+
+  /** Card locations: visible on the table, reserved by a player or owned by a player. */
+  static final int VISIBLE = 0;
+
+  private static final int PLAYERS = CompactGameState.MAX_PLAYERS;
+  private static final int STONE_TYPES = CompactGameState.STONE_TYPES;
+  private static final int CARDS = CardCatalog.CARD_COUNT;
+  private static final int NOBLES = CardCatalog.NOBLE_COUNT;
+
+  private static final long[] POOL;
+  private static final long[] TOKENS;
+  private static final long[] CARD_LOCATIONS;
+  private static final long[] STACK_SIZES;
+  private static final long[] NOBLE_LOCATIONS;
+  private static final long[] TURN;
+
+  static {
+    SplittableRandom random = new SplittableRandom(0x5B1E_4D0B_2A5EL);
+    POOL = keys(random, STONE_TYPES * COUNT_LIMIT);
+    TOKENS = keys(random, PLAYERS * STONE_TYPES * COUNT_LIMIT);
+    CARD_LOCATIONS = keys(random, (1 + 2 * PLAYERS) * CARDS);
+    STACK_SIZES = keys(random, CompactGameState.LEVELS * (CARDS + 1));
+    NOBLE_LOCATIONS = keys(random, (1 + PLAYERS) * NOBLES);
+    TURN = keys(random, PLAYERS);
+  }
+
+  private ZobristKeys() {}
+
+  private static long[] keys(SplittableRandom random, int count) {
+    long[] keys = new long[count];
+    for (int i = 0; i < count; i++) {
+      keys[i] = random.nextLong();
+    }
+    return keys;
+  }
+
+  static long pool(int type, int count) {
+    return POOL[type * COUNT_LIMIT + count];
+  }
+
+  static long tokens(int player, int type, int count) {
+    return TOKENS[(player * STONE_TYPES + type) * COUNT_LIMIT + count];
+  }
+
+  static long visibleCard(int card) {
+    return CARD_LOCATIONS[VISIBLE * CARDS + card];
+  }
+
+  static long reservedCard(int player, int card) {
+    return CARD_LOCATIONS[(1 + player) * CARDS + card];
+  }
+
+  static long ownedCard(int player, int card) {
+    return CARD_LOCATIONS[(1 + PLAYERS + player) * CARDS + card];
+  }
+
+  static long stackSize(int level, int size) {
+    return STACK_SIZES[level * (CARDS + 1) + size];
+  }
+
+  static long nobleOnTable(int noble) {
+    return NOBLE_LOCATIONS[noble];
+  }
+
+  static long ownedNoble(int player, int noble) {
+    return NOBLE_LOCATIONS[(1 + player) * NOBLES + noble];
+  }
+
+  static long turn(int player) {
+    return TURN[player];
+  }
+}
@@ -0,0 +1,351 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.GameState;
+import de.spl12.domain.UndoRecord;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.PositionAnalysis;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Deterministic depth-limited search for the current player of a game, as an alternative to the
+ * sampling of {@link MonteCarloTreeSearch}.
+ *
+ * <p>With two players this is a plain minimax search with alpha-beta pruning. With three or four
+ * players it is a paranoid search: all opponents are assumed to play together against the
+ * searching player, which turns the game into a two-sided one and keeps alpha-beta pruning
+ * effective (unlike a max-n search, which can hardly prune). Successors are generated by the
+ * {@link MoveGenerator} and applied and undone on a private copy of the game state. Leaves are
+ * rated by {@link PositionAnalysis#evaluateRelative(int)}, the heuristics of the HARD difficulty;
+ * a finished game is a win or a loss, the earlier the better. Wins and losses are stored in the
+ * {@link TranspositionTable} by their distance from the stored position, so a result can be reused
+ * at any ply of this or a later search.
+ *
+ * <p>Next to the game state the search keeps a {@link CompactGameState} in step with every move,
+ * which provides the hash of a position and the packed codes of its moves without converting the
+ * game state at every node.
+ *
+ * <p>The search deepens iteratively, one move of one player per level. Moves are tried in the
+ * order of the best move stored in the {@link TranspositionTable}, the two killer moves of the
+ * level, bought cards and the history of cut-offs. The {@link SearchBudget} is a hard limit on
+ * time and on searched nodes: when it runs out, the search returns the best move of the deepest
+ * completed iteration.
+ *
+ * <p>An instance holds scratch state and must not be used by several threads at the same time.
+ *
+ * @author luott
+ */
+public class AlphaBetaSearch {
+
+  public static final int DEFAULT_MAX_DEPTH = 12;
+  public static final int DEFAULT_TABLE_BITS = 18;
+
+  /** Value of a won game, reduced by the number of moves until the win. */
+  public static final double WIN = 10_000;
+
+  private static final int MAX_PLY = TranspositionTable.MAX_DEPTH;
+  private static final int HISTORY_BITS = 14;
+  private static final long ROOT_KEY = 0x9E37_79B9_7F4A_7C15L;
+
+  private static final int TABLE_MOVE_ORDER = 3_000_000;
+  private static final int KILLER_ORDER = 2_000_000;
+  private static final int BUY_ORDER = 1_000_000;
+
+  private final SearchBudget budget;
+  private final TranspositionTable table;
+  private final int[][] killers = new int[MAX_PLY + 1][2];
+  private final int[] history = new int[1 << HISTORY_BITS];
+  private int maxDepth = DEFAULT_MAX_DEPTH;
+
+  private CompactGameState compact;
+  private int root;
+  private long start;
+  private long nodes;
+  private AbstractMove iterationBest;
+  private int lastDepth;
+  private long lastNodes;
+  private double lastValue;
+
+  /**
+   * Creates a search with the given budget and a transposition table of its own.
+   *
+   * @param budget the time and node budget of every search
+   */
+  public AlphaBetaSearch(SearchBudget budget) {
+    this(budget, new TranspositionTable(DEFAULT_TABLE_BITS));
+  }
+
+  /**
+   * Creates a search with the given budget using an existing transposition table, e.g. to keep
+   * results from one turn to the next.
+   *
+   * @param budget the time and node budget of every search
+   * @param table the transposition table
+   */
+  public AlphaBetaSearch(SearchBudget budget, TranspositionTable table) {
+    this.budget = budget;
+    this.table = table;
+  }
+
+  /**
+   * Searches the best move for the current player of the game state.
+   *
+   * @param gameState the game state, it is not modified
+   * @return the best move of the deepest completed iteration
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  public AbstractMove search(GameState gameState) {
+    this.start = System.nanoTime();
+    this.nodes = 0;
+    this.lastDepth = 0;
+    this.lastValue = 0;
+    GameState state = gameState.copy(false);
+    this.compact = CompactGameState.of(state);
+    this.root = state.getPlayersTurn();
+    List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(state);
+    if (moves.isEmpty()) {
+      throw new IllegalStateException("No legal move for player " + this.root);
+    }
+    for (int[] killer : this.killers) {
+      Arrays.fill(killer, -1);
+    }
+    Arrays.fill(this.history, 0);
+
+    AbstractMove best = moves.getFirst();
+    if (moves.size() > 1) {
+      for (int depth = 1; depth <= this.maxDepth; depth++) {
+        try {
+          this.iterationBest = null;
+          double value =
+              this.search(state, depth, 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+          best = this.iterationBest;
+          this.lastDepth = depth;
+          this.lastValue = value;
+          if (Math.abs(value) >= WIN - MAX_PLY) {
+            break;
+          }
+        } catch (BudgetExhausted e) {
+          break;
+        }
+      }
+    }
+    this.lastNodes = this.nodes;
+    return best;
+  }
+
+  /**
+   * Searches a position to the given depth. Values are always from the view of the searching
+   * player: it maximizes, its opponents minimize.
+   */
+  private double search(GameState state, int depth, int ply, double alpha, double beta) {
+    if (this.budget.isExhausted(this.start, ++this.nodes)) {
+      throw BudgetExhausted.INSTANCE;
+    }
+    double terminal = this.terminalValue(state, ply);
+    if (!Double.isNaN(terminal)) {
+      return terminal;
+    }
+    if (depth == 0) {
+      return PositionAnalysis.of(state).evaluateRelative(this.root);
+    }
+    List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(state);
+    if (moves.isEmpty()) {
+      return PositionAnalysis.of(state).evaluateRelative(this.root);
+    }
+
+    long key = this.compact.getHash() ^ ROOT_KEY * (this.root + 1);
+    int tableMove = -1;
+    long entry = this.table.probe(key);
+    if (entry != TranspositionTable.MISSING) {
+      tableMove = TranspositionTable.move(entry);
+      if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+        double value = fromTable(TranspositionTable.value(entry), ply);
+        switch (TranspositionTable.bound(entry)) {
+          case TranspositionTable.EXACT -> {
+            return value;
+          }
+          case TranspositionTable.LOWER -> alpha = Math.max(alpha, value);
+          default -> beta = Math.min(beta, value);
+        }
+        if (alpha >= beta) {
+          return value;
+        }
+      }
+    }
+
+    int[] codes = new int[moves.size()];
+    int[] order = this.orderMoves(moves, codes, tableMove, ply);
+    boolean maximizing = state.getPlayersTurn() == this.root;
+    double alphaStart = alpha;
+    double betaStart = beta;
+    double best = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    int bestIndex = order[0];
+    for (int i : order) {
+      UndoRecord record = state.apply(moves.get(i));
+      long undo = this.compact.play(codes[i]);
+      double value = this.search(state, depth - 1, ply + 1, alpha, beta);
+      this.compact.unplay(codes[i], undo);
+      state.undo(record);
+      if (maximizing ? value > best : value < best) {
+        best = value;
+        bestIndex = i;
+        if (ply == 0) {
+          this.iterationBest = moves.get(i);
+        }
+      }
+      if (maximizing) {
+        alpha = Math.max(alpha, value);
+      } else {
+        beta = Math.min(beta, value);
+      }
+      if (alpha >= beta) {
+        this.recordCutoff(codes[i], depth, ply);
+        break;
+      }
+    }
+
+    int bound =
+        best <= alphaStart
+            ? TranspositionTable.UPPER
+            : best >= betaStart ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+    this.table.store(key, codes[bestIndex], depth, bound, (float) toTable(best, ply));
+    return best;
+  }
+
+  /** Converts a value of a position at the given ply into its distance-based table value. */
+  private static double toTable(double value, int ply) {
+    if (value >= WIN - MAX_PLY) {
+      return value + ply;
+    }
+    return value <= MAX_PLY - WIN ? value - ply : value;
+  }
+
+  /** Converts a table value back into the value of the position at the given ply. */
+  private static double fromTable(double value, int ply) {
+    if (value >= WIN - MAX_PLY) {
+      return value - ply;
+    }
+    return value <= MAX_PLY - WIN ? value + ply : value;
+  }
+
+  /**
+   * Returns the value of a finished game, or NaN if the game goes on. The game ends as soon as a
+   * player reaches the winning prestige; the player with the most prestige wins, ties go to the
+   * player with fewer cards.
+   */
+  private double terminalValue(GameState state, int ply) {
+    List<AbstractPlayer> players = state.getPlayers();
+    int leader = -1;
+    boolean finished = false;
+    for (int p = 0; p < players.size(); p++) {
+      AbstractPlayer player = players.get(p);
+      finished |= player.getPrestige() >= CompactGameState.WINNING_PRESTIGE;
+      if (leader == -1
+          || player.getPrestige() > players.get(leader).getPrestige()
+          || player.getPrestige() == players.get(leader).getPrestige()
+              && player.getOwnedCards().size() < players.get(leader).getOwnedCards().size()) {
+        leader = p;
+      }
+    }
+    if (!finished) {
+      return Double.NaN;
+    }
+    return leader == this.root ? WIN - ply : ply - WIN;
+  }
+
+  /** Encodes the moves and returns their indices in the order they should be searched. */
+  private int[] orderMoves(List<AbstractMove> moves, int[] codes, int tableMove, int ply) {
+    long[] keyed = new long[moves.size()];
+    for (int i = 0; i < codes.length; i++) {
+      AbstractMove move = moves.get(i);
+      codes[i] = PackedMove.encode(move, this.compact);
+      int score;
+      if (codes[i] == tableMove) {
+        score = TABLE_MOVE_ORDER;
+      } else if (codes[i] == this.killers[ply][0] || codes[i] == this.killers[ply][1]) {
+        score = KILLER_ORDER;
+      } else {
+        score = this.history[historyIndex(codes[i])];
+        if (move instanceof BuyMove buyMove) {
+          score += BUY_ORDER + buyMove.getCard().getPrestigePoints();
+        }
+      }
+      // descending score, ascending index for equal scores
+      keyed[i] = (long) -score << 32 | i;
+    }
+    Arrays.sort(keyed);
+    int[] order = new int[keyed.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = (int) keyed[i];
+    }
+    return order;
+  }
+
+  private void recordCutoff(int code, int depth, int ply) {
+    if (this.killers[ply][0] != code) {
+      this.killers[ply][1] = this.killers[ply][0];
+      this.killers[ply][0] = code;
+    }
+    int index = historyIndex(code);
+    this.history[index] = Math.min(this.history[index] + depth * depth, BUY_ORDER - 1);
+  }
+
+  private static int historyIndex(int code) {
+    return code * 0x9E37_79B1 >>> Integer.SIZE - HISTORY_BITS;
+  }
+
+  /**
+   * Sets the deepest iteration of a search. Iterative deepening stops earlier when the budget runs
+   * out or a forced win or loss was found.
+   *
+   * @param maxDepth the depth in moves, between 1 and {@link TranspositionTable#MAX_DEPTH}
+   */
+  public void setMaxDepth(int maxDepth) {
+    if (maxDepth < 1 || maxDepth > MAX_PLY) {
+      throw new IllegalArgumentException("Depth has to be between 1 and " + MAX_PLY);
+    }
+    this.maxDepth = maxDepth;
+  }
+
+  public int getMaxDepth() {
+    return this.maxDepth;
+  }
+
+  public SearchBudget getBudget() {
+    return this.budget;
+  }
+
+  /**
+   * Returns the depth of the deepest completed iteration of the last search, 0 if the search
+   * returned before the first iteration was completed.
+   *
+   * @return the depth in moves
+   */
+  public int getLastDepth() {
+    return this.lastDepth;
+  }
+
+  /**
+   * Returns the number of nodes visited in the last search, for logging and tests.
+   *
+   * @return the node count
+   */
+  public long getLastNodes() {
+    return this.lastNodes;
+  }
+
+  /**
+   * Returns the value of the deepest completed iteration of the last search, from the view of the
+   * searching player; at least {@code WIN - depth} for a forced win.
+   *
+   * @return the value
+   */
+  public double getLastValue() {
+    return this.lastValue;
+  }
+}
@@ -0,0 +1,21 @@
+package de.spl12.domain.ai;
+
+import java.io.Serial;
+
+/**
+ * Unwinds a depth-first search when its {@link SearchBudget} is used up. The search catches it at
+ * the root and falls back to its last complete result. The exception carries no state, so the one
+ * {@link #INSTANCE} is shared without stack trace.
+ *
+ * @author luott
+ */
+final class BudgetExhausted extends RuntimeException {
+
+  @Serial private static final long serialVersionUID = -3390127745861230284L;
+
+  static final BudgetExhausted INSTANCE = new BudgetExhausted();
+
+  private BudgetExhausted() {
+    super(null, null, false, false);
+  }
+}
@@ -0,0 +1,339 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.moves.MoveBuffer;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.PackedMoveGenerator;
+import java.util.Arrays;
+
+/**
+ * Exact solver for the end of a game: searches all moves of all players up to a short horizon for
+ * a forced win of the current player, or for the moves that let an opponent force a win.
+ *
+ * <p>The game ends as soon as a player reaches {@link CompactGameState#WINNING_PRESTIGE}, the
+ * leader then wins. The solver treats all opponents as one side (paranoid), so a position has one
+ * of three values for the searching player: {@link #WIN} if it can finish the game in the lead
+ * whatever the opponents do, {@link #LOSS} if the opponents can make one of them win whatever it
+ * does, and {@link #UNKNOWN} if the horizon is reached before. As a proven result holds for every
+ * longer horizon, it is stored in the {@link TranspositionTable} independently of the depth.
+ *
+ * <p>Besides alpha-beta pruning on the three values, a line is cut off as {@link #UNKNOWN} as soon
+ * as no player can reach the winning prestige with the turns left before the horizon, at most
+ * {@link #MAX_TURN_GAIN} prestige per turn. Buying moves are tried first, the most valuable card
+ * first. The horizon is deepened iteratively within the {@link SearchBudget}, so the first win
+ * found is the fastest one.
+ *
+ * <p>An instance holds scratch state and must not be used by several threads at the same time.
+ *
+ * @author luott
+ */
+public class EndgameSolver {
+
+  public static final int WIN = 1;
+  public static final int UNKNOWN = 0;
+  public static final int LOSS = -1;
+
+  /** The most prestige a player can gain in one turn: a level-3 card and a noble. */
+  public static final int MAX_TURN_GAIN = 8;
+
+  /** Default prestige from which on a player is within reach of the finish. */
+  public static final int DEFAULT_THRESHOLD = CompactGameState.WINNING_PRESTIGE - MAX_TURN_GAIN;
+
+  public static final int DEFAULT_HORIZON = 8;
+
+  private static final int TABLE_BITS = 16;
+  private static final long ROOT_KEY = 0xC2B2_AE3D_27D4_EB4FL;
+
+  private final SearchBudget budget;
+  private final TranspositionTable table;
+  private final PackedMoveGenerator generator = new PackedMoveGenerator();
+  private final MoveBuffer[] buffers;
+  private int horizon = DEFAULT_HORIZON;
+
+  private int root;
+  private long start;
+  private long nodes;
+  private int[] rootMoves = new int[0];
+  private int[] rootValues = new int[0];
+  private int lastDepth;
+  private long lastNodes;
+
+  /**
+   * Creates a solver with the given budget and a transposition table of its own.
+   *
+   * @param budget the time and node budget of every solve
+   */
+  public EndgameSolver(SearchBudget budget) {
+    this(budget, new TranspositionTable(TABLE_BITS));
+  }
+
+  /**
+   * Creates a solver with the given budget using an existing transposition table.
+   *
+   * @param budget the time and node budget of every solve
+   * @param table the transposition table
+   */
+  public EndgameSolver(SearchBudget budget, TranspositionTable table) {
+    this.budget = budget;
+    this.table = table;
+    this.buffers = new MoveBuffer[TranspositionTable.MAX_DEPTH + 1];
+    for (int ply = 0; ply < this.buffers.length; ply++) {
+      this.buffers[ply] = new MoveBuffer();
+    }
+  }
+
+  /**
+   * Checks whether a position is worth solving: some player has at least the given prestige.
+   *
+   * @param state the state
+   * @param threshold the prestige from which on a player is within reach of the finish
+   * @return true if the solver should be asked
+   */
+  public static boolean isEndgame(CompactGameState state, int threshold) {
+    for (int p = 0; p < state.getPlayerCount(); p++) {
+      if (state.getPrestige(p) >= threshold) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Solves the position for its current player. Afterwards {@link #getValue(int)} tells the value
+   * of every legal move.
+   *
+   * @param state the state, it is not modified
+   * @return {@link #WIN}, {@link #LOSS} or {@link #UNKNOWN} for the best move of the deepest
+   *     completed horizon
+   */
+  public int solve(CompactGameState state) {
+    this.start = System.nanoTime();
+    this.nodes = 0;
+    this.lastDepth = 0;
+    CompactGameState scratch = state.copy();
+    this.root = scratch.getPlayersTurn();
+    this.generator.generateAllPossibleMoves(scratch, this.buffers[0]);
+    this.rootMoves = this.buffers[0].toArray();
+    this.rootValues = new int[this.rootMoves.length];
+    if (this.rootMoves.length == 0) {
+      this.lastNodes = 0;
+      return UNKNOWN;
+    }
+    this.order(this.rootMoves, -1);
+
+    int result = UNKNOWN;
+    int[] values = new int[this.rootMoves.length];
+    try {
+      for (int depth = 1; depth <= this.horizon; depth++) {
+        result = LOSS;
+        for (int i = 0; i < this.rootMoves.length; i++) {
+          long undo = scratch.play(this.rootMoves[i]);
+          values[i] = this.search(scratch, depth - 1, 1, LOSS, WIN);
+          scratch.unplay(this.rootMoves[i], undo);
+          result = Math.max(result, values[i]);
+          if (result == WIN) {
+            // the remaining moves keep their values of the last horizon
+            System.arraycopy(this.rootValues, i + 1, values, i + 1, values.length - i - 1);
+            break;
+          }
+        }
+        System.arraycopy(values, 0, this.rootValues, 0, values.length);
+        this.lastDepth = depth;
+        if (result != UNKNOWN) {
+          break;
+        }
+      }
+    } catch (BudgetExhausted e) {
+      result = this.lastDepth == 0 ? UNKNOWN : this.bestValue();
+    }
+    this.lastNodes = this.nodes;
+    return result;
+  }
+
+  /** Searches a position; the result is exact if it lies strictly between alpha and beta. */
+  private int search(CompactGameState state, int depth, int ply, int alpha, int beta) {
+    if (this.budget.isExhausted(this.start, ++this.nodes)) {
+      throw BudgetExhausted.INSTANCE;
+    }
+    if (state.isFinished()) {
+      return state.getLeader() == this.root ? WIN : LOSS;
+    }
+    if (depth == 0 || this.isBeyondReach(state, depth)) {
+      return UNKNOWN;
+    }
+
+    long key = state.getHash() ^ ROOT_KEY * (this.root + 1);
+    long entry = this.table.probe(key);
+    int tableMove = -1;
+    if (entry != TranspositionTable.MISSING) {
+      tableMove = TranspositionTable.move(entry);
+      int value = (int) TranspositionTable.value(entry);
+      int bound = TranspositionTable.bound(entry);
+      boolean proven =
+          value == WIN && bound != TranspositionTable.UPPER
+              || value == LOSS && bound != TranspositionTable.LOWER;
+      if (proven || TranspositionTable.depth(entry) >= depth) {
+        if (proven || bound == TranspositionTable.EXACT) {
+          return value;
+        } else if (bound == TranspositionTable.LOWER) {
+          alpha = Math.max(alpha, value);
+        } else {
+          beta = Math.min(beta, value);
+        }
+        if (alpha >= beta) {
+          return value;
+        }
+      }
+    }
+
+    MoveBuffer buffer = this.buffers[ply];
+    if (this.generator.generateAllPossibleMoves(state, buffer) == 0) {
+      return UNKNOWN;
+    }
+    int[] moves = buffer.toArray();
+    this.order(moves, tableMove);
+    boolean maximizing = state.getPlayersTurn() == this.root;
+    int alphaStart = alpha;
+    int betaStart = beta;
+    int best = maximizing ? LOSS - 1 : WIN + 1;
+    int bestMove = moves[0];
+    for (int move : moves) {
+      long undo = state.play(move);
+      int value = this.search(state, depth - 1, ply + 1, alpha, beta);
+      state.unplay(move, undo);
+      if (maximizing ? value > best : value < best) {
+        best = value;
+        bestMove = move;
+      }
+      if (maximizing) {
+        alpha = Math.max(alpha, value);
+      } else {
+        beta = Math.min(beta, value);
+      }
+      if (alpha >= beta) {
+        break;
+      }
+    }
+
+    int bound =
+        best <= alphaStart
+            ? TranspositionTable.UPPER
+            : best >= betaStart ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+    this.table.store(key, bestMove, depth, bound, best);
+    return best;
+  }
+
+  /**
+   * Checks whether no player can reach the winning prestige within the next {@code depth} moves,
+   * gaining at most {@link #MAX_TURN_GAIN} per turn.
+   */
+  private boolean isBeyondReach(CompactGameState state, int depth) {
+    int players = state.getPlayerCount();
+    for (int p = 0; p < players; p++) {
+      int offset = Math.floorMod(p - state.getPlayersTurn(), players);
+      int turns = offset < depth ? (depth - offset - 1) / players + 1 : 0;
+      if (state.getPrestige(p) + turns * MAX_TURN_GAIN >= CompactGameState.WINNING_PRESTIGE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sorts moves: the table move first, then buying moves by the prestige of the card, then all
+   * other moves in generation order.
+   */
+  private void order(int[] moves, int tableMove) {
+    long[] keyed = new long[moves.length];
+    for (int i = 0; i < moves.length; i++) {
+      int move = moves[i];
+      int score = 0;
+      if (move == tableMove) {
+        score = Integer.MAX_VALUE;
+      } else if (PackedMove.type(move) == PackedMove.BUY) {
+        score = 1 + CardCatalog.getCard(PackedMove.card(move)).getPrestigePoints();
+      }
+      keyed[i] = (long) -score << 32 | i;
+    }
+    Arrays.sort(keyed);
+    int[] copy = moves.clone();
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = copy[(int) keyed[i]];
+    }
+  }
+
+  private int bestValue() {
+    int best = LOSS;
+    for (int value : this.rootValues) {
+      best = Math.max(best, value);
+    }
+    return best;
+  }
+
+  /**
+   * Returns a move of the last solve with the best value: a winning move if there is one,
+   * otherwise one that does not lose if there is one.
+   *
+   * @return the packed move, or -1 if the last position had no legal move
+   */
+  public int getBestMove() {
+    int best = -1;
+    for (int i = 0; i < this.rootMoves.length; i++) {
+      if (best == -1 || this.rootValues[i] > this.rootValues[best]) {
+        best = i;
+      }
+    }
+    return best == -1 ? -1 : this.rootMoves[best];
+  }
+
+  /**
+   * Returns the value of a move of the last solved position at the deepest completed horizon.
+   *
+   * @param move the packed move
+   * @return {@link #WIN}, {@link #LOSS} or {@link #UNKNOWN}, also for moves that were not legal
+   */
+  public int getValue(int move) {
+    for (int i = 0; i < this.rootMoves.length; i++) {
+      if (this.rootMoves[i] == move) {
+        return this.rootValues[i];
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * Sets the number of moves, of all players together, the solver looks ahead at most.
+   *
+   * @param horizon the horizon, between 1 and {@link TranspositionTable#MAX_DEPTH}
+   */
+  public void setHorizon(int horizon) {
+    if (horizon < 1 || horizon > TranspositionTable.MAX_DEPTH) {
+      throw new IllegalArgumentException(
+          "Horizon has to be between 1 and " + TranspositionTable.MAX_DEPTH);
+    }
+    this.horizon = horizon;
+  }
+
+  public int getHorizon() {
+    return this.horizon;
+  }
+
+  /**
+   * Returns the deepest horizon the last solve completed, 0 if the budget ran out before the first.
+   *
+   * @return the horizon in moves
+   */
+  public int getLastDepth() {
+    return this.lastDepth;
+  }
+
+  /**
+   * Returns the number of nodes visited in the last solve, for logging and tests.
+   *
+   * @return the node count
+   */
+  public long getLastNodes() {
+    return this.lastNodes;
+  }
+}
@@ -0,0 +1,353 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.GameState;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.MoveBuffer;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.PackedMoveGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monte Carlo Tree Search (UCT) for the current player of a game.
+ *
+ * <p>The search works on a {@link CompactGameState} and the packed moves of the {@link
+ * PackedMoveGenerator}, which generates the same legal moves as the {@link
+ * de.spl12.domain.moves.MoveGenerator}. Every iteration selects a path through the tree with the
+ * UCB1 formula, expands one new move, finishes the game with a playout of the configured {@link
+ * PlayoutPolicy} and propagates the result back. As the game has more than two players, every
+ * node keeps the reward of the player who made the move leading to it (max-n backup).
+ *
+ * <p>A finished game gives a reward of 1 to the winner. Playouts that are cut off after {@link
+ * #DEFAULT_PLAYOUT_LIMIT} moves, or that end in a position without legal moves, share the reward
+ * between the players in proportion to their prestige and bonuses.
+ *
+ * <p>An instance holds scratch state and must not be used by several threads at the same time.
+ *
+ * @author luott
+ */
+public class MonteCarloTreeSearch {
+
+  public static final double DEFAULT_EXPLORATION = Math.sqrt(2);
+  public static final int DEFAULT_PLAYOUT_LIMIT = 200;
+
+  private static final double BONUS_WEIGHT = 0.25;
+
+  private final SearchBudget budget;
+  private final PlayoutPolicy policy;
+  private final Random random;
+  private final PackedMoveGenerator generator = new PackedMoveGenerator();
+  private final MoveBuffer buffer = new MoveBuffer();
+  private double exploration = DEFAULT_EXPLORATION;
+  private int playoutLimit = DEFAULT_PLAYOUT_LIMIT;
+  private long lastIterations;
+
+  /**
+   * Creates a search with the given budget and playout policy.
+   *
+   * @param budget the time or iteration budget of every search
+   * @param policy the policy used for playouts
+   */
+  public MonteCarloTreeSearch(SearchBudget budget, PlayoutPolicy policy) {
+    this(budget, policy, new Random());
+  }
+
+  /**
+   * Creates a search with the given budget, playout policy and random source.
+   *
+   * @param budget the time or iteration budget of every search
+   * @param policy the policy used for playouts
+   * @param random the random source for expansion and playouts
+   */
+  public MonteCarloTreeSearch(SearchBudget budget, PlayoutPolicy policy, Random random) {
+    this.budget = budget;
+    this.policy = policy;
+    this.random = random;
+  }
+
+  /**
+   * Searches the best move for the current player of the game state.
+   *
+   * @param gameState the game state, it is not modified
+   * @return the best move found within the budget
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  public AbstractMove search(GameState gameState) {
+    CompactGameState state = CompactGameState.of(gameState);
+    return PackedMove.decode(this.search(state), state);
+  }
+
+  /**
+   * Searches the best move for the current player of the compact state.
+   *
+   * @param state the state, it is not modified
+   * @return the best packed move found within the budget
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  public int search(CompactGameState state) {
+    long start = System.nanoTime();
+    this.lastIterations = 0;
+    int[] moves = this.legalMoves(state);
+    int forced = forcedMove(state, moves);
+    if (forced != -1) {
+      return forced;
+    }
+    AtomicLong iterations = new AtomicLong();
+    Node root = this.grow(state, moves, start, iterations);
+    this.lastIterations = iterations.get();
+    return root.children.isEmpty() ? moves[0] : root.mostVisited().move;
+  }
+
+  /**
+   * Generates the legal moves of the current player.
+   *
+   * @param state the state
+   * @return the packed moves
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  int[] legalMoves(CompactGameState state) {
+    int[] moves = this.generateMoves(state);
+    if (moves.length == 0) {
+      throw new IllegalStateException("No legal move for player " + state.getPlayersTurn());
+    }
+    return moves;
+  }
+
+  int[] generateMoves(CompactGameState state) {
+    this.generator.generateAllPossibleMoves(state, this.buffer);
+    return this.buffer.toArray();
+  }
+
+  /**
+   * Returns the move to play without searching: the only legal move, or a move that ends the game
+   * with the current player in the lead. Playouts hardly tell such a move apart from one that
+   * wins a round later.
+   *
+   * @param state the state, it is not modified
+   * @param moves the legal moves of the current player
+   * @return the move to play, or -1 if the position has to be searched
+   */
+  static int forcedMove(CompactGameState state, int[] moves) {
+    if (moves.length == 1) {
+      return moves[0];
+    }
+    CompactGameState scratch = state.copy();
+    int player = scratch.getPlayersTurn();
+    for (int move : moves) {
+      long undo = scratch.play(move);
+      boolean won = scratch.isFinished() && scratch.getLeader() == player;
+      scratch.unplay(move, undo);
+      if (won) {
+        return move;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Builds a search tree until the budget is used up. The iteration counter may be shared between
+   * several trees that are grown at the same time, so the budget covers all of them together.
+   *
+   * @param state the state at the root, it is not modified
+   * @param moves the legal moves at the root, see {@link #legalMoves(CompactGameState)}
+   * @param start the {@link System#nanoTime()} at the start of the search
+   * @param iterations the counter of finished iterations
+   * @return the root of the tree
+   */
+  Node grow(CompactGameState state, int[] moves, long start, AtomicLong iterations) {
+    Node root = new Node(null, 0, -1);
+    root.untried = moves.clone();
+    root.untriedCount = moves.length;
+
+    CompactGameState scratch = state.copy();
+    double[] rewards = new double[state.getPlayerCount()];
+    while (!this.budget.isExhausted(start, iterations.get())) {
+      scratch.copyFrom(state);
+      Node node = root;
+
+      while (node.isFullyExpanded() && !node.children.isEmpty()) {
+        node = node.select(this.exploration);
+        scratch.play(node.move);
+      }
+
+      if (!scratch.isFinished()) {
+        if (node.untried == null) {
+          node.expand(scratch, this.generator, this.buffer);
+        }
+        if (node.untriedCount > 0) {
+          node = node.addChild(scratch.getPlayersTurn(), this.random);
+          scratch.play(node.move);
+        }
+      }
+
+      this.playout(scratch, rewards);
+      for (; node != null; node = node.parent) {
+        node.visits++;
+        if (node.player >= 0) {
+          node.reward += rewards[node.player];
+        }
+      }
+      iterations.incrementAndGet();
+    }
+    return root;
+  }
+
+  /**
+   * Plays the state to the end or up to the playout limit and stores the reward of every player.
+   */
+  void playout(CompactGameState state, double[] rewards) {
+    for (int i = 0; i < this.playoutLimit && !state.isFinished(); i++) {
+      if (this.generator.generateAllPossibleMoves(state, this.buffer) == 0) {
+        break;
+      }
+      state.play(this.policy.choose(state, this.buffer, this.random));
+    }
+    evaluate(state, rewards);
+  }
+
+  /**
+   * Calculates the reward of every player in a state. A finished game gives 1 to the winner and 0
+   * to everyone else, an unfinished one shares 1 by prestige and bonuses.
+   *
+   * @param state the state to evaluate
+   * @param rewards receives the reward per player
+   */
+  static void evaluate(CompactGameState state, double[] rewards) {
+    int players = state.getPlayerCount();
+    if (state.isFinished()) {
+      int winner = state.getLeader();
+      for (int p = 0; p < players; p++) {
+        rewards[p] = p == winner ? 1 : 0;
+      }
+      return;
+    }
+    double total = 0;
+    for (int p = 0; p < players; p++) {
+      rewards[p] = state.getPrestige(p) + BONUS_WEIGHT * state.getOwnedCount(p);
+      total += rewards[p];
+    }
+    for (int p = 0; p < players; p++) {
+      rewards[p] = total == 0 ? 1.0 / players : rewards[p] / total;
+    }
+  }
+
+  public void setExploration(double exploration) {
+    this.exploration = exploration;
+  }
+
+  public void setPlayoutLimit(int playoutLimit) {
+    this.playoutLimit = playoutLimit;
+  }
+
+  public SearchBudget getBudget() {
+    return this.budget;
+  }
+
+  public PlayoutPolicy getPolicy() {
+    return this.policy;
+  }
+
+  /**
+   * Returns the number of iterations the last search did, for logging and tests.
+   *
+   * @return the iteration count
+   */
+  public long getLastIterations() {
+    return this.lastIterations;
+  }
+
+  Random getRandom() {
+    return this.random;
+  }
+
+  double getExploration() {
+    return this.exploration;
+  }
+
+  int getPlayoutLimit() {
+    return this.playoutLimit;
+  }
+
+  /** A node of the search tree, reached by playing {@link #move} as {@link #player}. */
+  static final class Node {
+
+    private final Node parent;
+    private final int move;
+    private final int player;
+    private final List<Node> children = new ArrayList<>();
+    private int[] untried;
+    private int untriedCount;
+    private int visits;
+    private double reward;
+
+    private Node(Node parent, int move, int player) {
+      this.parent = parent;
+      this.move = move;
+      this.player = player;
+    }
+
+    private boolean isFullyExpanded() {
+      return this.untried != null && this.untriedCount == 0;
+    }
+
+    private void expand(CompactGameState state, PackedMoveGenerator generator, MoveBuffer buffer) {
+      generator.generateAllPossibleMoves(state, buffer);
+      this.untried = buffer.toArray();
+      this.untriedCount = this.untried.length;
+    }
+
+    private Node addChild(int player, Random random) {
+      int index = random.nextInt(this.untriedCount);
+      int move = this.untried[index];
+      this.untried[index] = this.untried[--this.untriedCount];
+      Node child = new Node(this, move, player);
+      this.children.add(child);
+      return child;
+    }
+
+    private Node select(double exploration) {
+      double logVisits = Math.log(this.visits);
+      Node best = null;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      for (Node child : this.children) {
+        double value =
+            child.reward / child.visits + exploration * Math.sqrt(logVisits / child.visits);
+        if (value > bestValue) {
+          best = child;
+          bestValue = value;
+        }
+      }
+      return best;
+    }
+
+    List<Node> getChildren() {
+      return this.children;
+    }
+
+    int getMove() {
+      return this.move;
+    }
+
+    int getVisits() {
+      return this.visits;
+    }
+
+    double getReward() {
+      return this.reward;
+    }
+
+    private Node mostVisited() {
+      Node best = this.children.getFirst();
+      for (Node child : this.children) {
+        if (child.visits > best.visits
+            || child.visits == best.visits && child.reward > best.reward) {
+          best = child;
+        }
+      }
+      return best;
+    }
+  }
+}
@@ -0,0 +1,381 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.GameState;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.PackedMove;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link MonteCarloTreeSearch} on several threads of a {@link ForkJoinPool}.
+ *
+ * <ul>
+ *   <li>{@link Mode#ROOT} – every thread grows an independent tree, the visit counts of the root
+ *       moves are summed up at the end. Needs no synchronization during the search.
+ *   <li>{@link Mode#TREE} – all threads grow one shared tree. A thread passing through a node adds
+ *       a virtual loss to it until its playout is backed up, so that the other threads spread out
+ *       over different moves.
+ * </ul>
+ *
+ * <p>The {@link SearchBudget} covers all threads together: a time budget is the latency of one
+ * decision, an iteration budget is the total number of playouts.
+ *
+ * <p>An instance must not run several searches at the same time. Searches that create their own
+ * pool have to be {@link #close() closed} when they are no longer needed.
+ *
+ * @author luott
+ */
+public class ParallelMonteCarloTreeSearch implements AutoCloseable {
+
+  /** The way the threads share the work of one search. */
+  public enum Mode {
+    ROOT,
+    TREE
+  }
+
+  public static final int DEFAULT_VIRTUAL_LOSS = 3;
+
+  private final Mode mode;
+  private final ForkJoinPool pool;
+  private final boolean ownsPool;
+  private final MonteCarloTreeSearch[] workers;
+  private int virtualLoss = DEFAULT_VIRTUAL_LOSS;
+  private long lastIterations;
+
+  /**
+   * Creates a parallel search with its own pool of the given parallelism.
+   *
+   * @param budget the time or iteration budget of every search, shared by all threads
+   * @param policy the policy used for playouts
+   * @param mode how the threads share the work
+   * @param parallelism the number of threads
+   */
+  public ParallelMonteCarloTreeSearch(
+      SearchBudget budget, PlayoutPolicy policy, Mode mode, int parallelism) {
+    this(budget, policy, mode, new ForkJoinPool(parallelism), true, new Random());
+  }
+
+  /**
+   * Creates a parallel search running on an existing pool, using all of its threads. The pool is
+   * not shut down by {@link #close()}.
+   *
+   * @param budget the time or iteration budget of every search, shared by all threads
+   * @param policy the policy used for playouts
+   * @param mode how the threads share the work
+   * @param pool the pool to run on
+   * @param random the random source the random sources of the threads are derived from
+   */
+  public ParallelMonteCarloTreeSearch(
+      SearchBudget budget, PlayoutPolicy policy, Mode mode, ForkJoinPool pool, Random random) {
+    this(budget, policy, mode, pool, false, random);
+  }
+
+  private ParallelMonteCarloTreeSearch(
+      SearchBudget budget,
+      PlayoutPolicy policy,
+      Mode mode,
+      ForkJoinPool pool,
+      boolean ownsPool,
+      Random random) {
+    this.mode = mode;
+    this.pool = pool;
+    this.ownsPool = ownsPool;
+    this.workers = new MonteCarloTreeSearch[pool.getParallelism()];
+    for (int i = 0; i < this.workers.length; i++) {
+      this.workers[i] = new MonteCarloTreeSearch(budget, policy, new Random(random.nextLong()));
+    }
+  }
+
+  /**
+   * Searches the best move for the current player of the game state.
+   *
+   * @param gameState the game state, it is not modified
+   * @return the best move found within the budget
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  public AbstractMove search(GameState gameState) {
+    CompactGameState state = CompactGameState.of(gameState);
+    return PackedMove.decode(this.search(state), state);
+  }
+
+  /**
+   * Searches the best move for the current player of the compact state.
+   *
+   * @param state the state, it is not modified
+   * @return the best packed move found within the budget
+   * @throws IllegalStateException if the current player has no legal move
+   */
+  public int search(CompactGameState state) {
+    long start = System.nanoTime();
+    this.lastIterations = 0;
+    int[] moves = this.workers[0].legalMoves(state);
+    int forced = MonteCarloTreeSearch.forcedMove(state, moves);
+    if (forced != -1) {
+      return forced;
+    }
+    AtomicLong iterations = new AtomicLong();
+    int best =
+        this.mode == Mode.ROOT
+            ? this.searchRoot(state, moves, start, iterations)
+            : this.searchTree(state, moves, start, iterations);
+    this.lastIterations = iterations.get();
+    return best;
+  }
+
+  private int searchRoot(CompactGameState state, int[] moves, long start, AtomicLong iterations) {
+    List<Callable<MonteCarloTreeSearch.Node>> tasks = new ArrayList<>();
+    for (MonteCarloTreeSearch worker : this.workers) {
+      tasks.add(() -> worker.grow(state, moves, start, iterations));
+    }
+
+    Map<Integer, Integer> index = new HashMap<>();
+    for (int i = 0; i < moves.length; i++) {
+      index.put(moves[i], i);
+    }
+    long[] visits = new long[moves.length];
+    double[] rewards = new double[moves.length];
+    for (MonteCarloTreeSearch.Node root : this.invokeAll(tasks)) {
+      for (MonteCarloTreeSearch.Node child : root.getChildren()) {
+        int i = index.get(child.getMove());
+        visits[i] += child.getVisits();
+        rewards[i] += child.getReward();
+      }
+    }
+
+    int best = 0;
+    for (int i = 1; i < moves.length; i++) {
+      if (visits[i] > visits[best] || visits[i] == visits[best] && rewards[i] > rewards[best]) {
+        best = i;
+      }
+    }
+    return moves[best];
+  }
+
+  private int searchTree(CompactGameState state, int[] moves, long start, AtomicLong iterations) {
+    SharedNode root = new SharedNode(null, -1, 0, -1);
+    root.untried = moves.clone();
+    root.untriedCount = moves.length;
+
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (MonteCarloTreeSearch worker : this.workers) {
+      tasks.add(
+          () -> {
+            this.growShared(worker, root, state, start, iterations);
+            return null;
+          });
+    }
+    this.invokeAll(tasks);
+    return root.mostVisited();
+  }
+
+  /** Runs iterations on the shared tree until the budget is used up. */
+  private void growShared(
+      MonteCarloTreeSearch worker,
+      SharedNode root,
+      CompactGameState state,
+      long start,
+      AtomicLong iterations) {
+    SearchBudget budget = worker.getBudget();
+    double exploration = worker.getExploration();
+    CompactGameState scratch = state.copy();
+    double[] rewards = new double[state.getPlayerCount()];
+    while (!budget.isExhausted(start, iterations.get())) {
+      scratch.copyFrom(state);
+      SharedNode node = root;
+      while (!scratch.isFinished()) {
+        SharedNode child = node.expand(scratch, worker, this.virtualLoss);
+        if (child != null) {
+          scratch.play(child.move);
+          node = child;
+          break;
+        }
+        child = node.select(exploration, this.virtualLoss);
+        if (child == null) {
+          break;
+        }
+        scratch.play(child.move);
+        node = child;
+      }
+
+      worker.playout(scratch, rewards);
+      for (; node.parent != null; node = node.parent) {
+        node.parent.backup(node.index, rewards[node.player], this.virtualLoss);
+      }
+      iterations.incrementAndGet();
+    }
+  }
+
+  private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+    List<T> results = new ArrayList<>();
+    try {
+      for (Future<T> future : this.pool.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Search thread failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Search was interrupted", e);
+    }
+    return results;
+  }
+
+  public void setExploration(double exploration) {
+    for (MonteCarloTreeSearch worker : this.workers) {
+      worker.setExploration(exploration);
+    }
+  }
+
+  public void setPlayoutLimit(int playoutLimit) {
+    for (MonteCarloTreeSearch worker : this.workers) {
+      worker.setPlayoutLimit(playoutLimit);
+    }
+  }
+
+  /**
+   * Sets the number of lost visits a thread adds to a node of the shared tree while its playout is
+   * running. Only used in {@link Mode#TREE}.
+   *
+   * @param virtualLoss the virtual loss, at least 0
+   */
+  public void setVirtualLoss(int virtualLoss) {
+    this.virtualLoss = virtualLoss;
+  }
+
+  public Mode getMode() {
+    return this.mode;
+  }
+
+  public int getParallelism() {
+    return this.workers.length;
+  }
+
+  /**
+   * Returns the number of iterations of all threads in the last search, for logging and tests.
+   *
+   * @return the iteration count
+   */
+  public long getLastIterations() {
+    return this.lastIterations;
+  }
+
+  @Override
+  public void close() {
+    if (this.ownsPool) {
+      this.pool.shutdown();
+    }
+  }
+
+  /**
+   * A node of the shared tree. The statistics of the children are stored in the parent and guarded
+   * by its monitor, so selecting a child only needs the lock of one node.
+   */
+  private static final class SharedNode {
+
+    private final SharedNode parent;
+    private final int index;
+    private final int move;
+    private final int player;
+    private final List<SharedNode> children = new ArrayList<>();
+    private int[] untried;
+    private int untriedCount;
+    private int visits;
+    private int[] childVisits = new int[8];
+    private double[] childRewards = new double[8];
+
+    private SharedNode(SharedNode parent, int index, int move, int player) {
+      this.parent = parent;
+      this.index = index;
+      this.move = move;
+      this.player = player;
+    }
+
+    /**
+     * Adds a child for one of the untried moves, with the virtual loss already applied.
+     *
+     * @return the new child, or null if every move has been tried
+     */
+    private synchronized SharedNode expand(
+        CompactGameState state, MonteCarloTreeSearch worker, int virtualLoss) {
+      if (this.untried == null) {
+        this.untried = worker.generateMoves(state);
+        this.untriedCount = this.untried.length;
+      }
+      if (this.untriedCount == 0) {
+        return null;
+      }
+      int pick = worker.getRandom().nextInt(this.untriedCount);
+      int childMove = this.untried[pick];
+      this.untried[pick] = this.untried[--this.untriedCount];
+
+      int childIndex = this.children.size();
+      if (childIndex == this.childVisits.length) {
+        this.childVisits = Arrays.copyOf(this.childVisits, childIndex * 2);
+        this.childRewards = Arrays.copyOf(this.childRewards, childIndex * 2);
+      }
+      SharedNode child = new SharedNode(this, childIndex, childMove, state.getPlayersTurn());
+      this.children.add(child);
+      this.childVisits[childIndex] = virtualLoss;
+      return child;
+    }
+
+    /**
+     * Selects the child with the best UCB1 value and applies the virtual loss to it.
+     *
+     * @return the selected child, or null if the node has no children
+     */
+    private synchronized SharedNode select(double exploration, int virtualLoss) {
+      double logVisits = Math.log(Math.max(1, this.visits));
+      int best = -1;
+      double bestValue = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < this.children.size(); i++) {
+        int n = this.childVisits[i];
+        double value =
+            n == 0
+                ? Double.POSITIVE_INFINITY
+                : this.childRewards[i] / n + exploration * Math.sqrt(logVisits / n);
+        if (value > bestValue) {
+          best = i;
+          bestValue = value;
+        }
+      }
+      if (best == -1) {
+        return null;
+      }
+      this.childVisits[best] += virtualLoss;
+      return this.children.get(best);
+    }
+
+    /** Replaces the virtual loss of a child by the real result of a playout. */
+    private synchronized void backup(int child, double reward, int virtualLoss) {
+      this.visits++;
+      this.childVisits[child] += 1 - virtualLoss;
+      this.childRewards[child] += reward;
+    }
+
+    private synchronized int mostVisited() {
+      if (this.children.isEmpty()) {
+        return this.untried[0];
+      }
+      int best = 0;
+      for (int i = 1; i < this.children.size(); i++) {
+        if (this.childVisits[i] > this.childVisits[best]
+            || this.childVisits[i] == this.childVisits[best]
+                && this.childRewards[i] > this.childRewards[best]) {
+          best = i;
+        }
+      }
+      return this.children.get(best).move;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.moves.MoveBuffer;
+import de.spl12.domain.moves.PackedMove;
+import java.util.Random;
+
+/**
+ * Strategy for choosing moves during the random playouts of the {@link MonteCarloTreeSearch}.
+ *
+ * <ul>
+ *   <li>{@link #RANDOM} – picks a uniformly random legal move
+ *   <li>{@link #HEURISTIC} – buys the card with the most prestige if possible, otherwise prefers
+ *       taking tokens without having to return any, and falls back to a random move
+ * </ul>
+ *
+ * @author luott
+ */
+public enum PlayoutPolicy {
+  RANDOM {
+    @Override
+    public int choose(CompactGameState state, MoveBuffer moves, Random random) {
+      return moves.get(random.nextInt(moves.size()));
+    }
+  },
+  HEURISTIC {
+    @Override
+    public int choose(CompactGameState state, MoveBuffer moves, Random random) {
+      int bestBuy = -1;
+      int bestPoints = -1;
+      int takes = 0;
+      for (int i = 0; i < moves.size(); i++) {
+        int move = moves.get(i);
+        if (PackedMove.type(move) == PackedMove.BUY) {
+          int points = state.getCardPoints(PackedMove.card(move));
+          // ties are broken randomly so that playouts stay diverse
+          if (points > bestPoints || points == bestPoints && random.nextBoolean()) {
+            bestBuy = move;
+            bestPoints = points;
+          }
+        } else if (PackedMove.type(move) == PackedMove.TAKE && !PackedMove.hasReturns(move)) {
+          takes++;
+        }
+      }
+      if (bestBuy != -1) {
+        return bestBuy;
+      }
+      if (takes > 0) {
+        int pick = random.nextInt(takes);
+        for (int i = 0; i < moves.size(); i++) {
+          int move = moves.get(i);
+          if (PackedMove.type(move) == PackedMove.TAKE
+              && !PackedMove.hasReturns(move)
+              && pick-- == 0) {
+            return move;
+          }
+        }
+      }
+      return moves.get(random.nextInt(moves.size()));
+    }
+  };
+
+  /**
+   * Chooses the next move of a playout.
+   *
+   * @param state the current state of the playout
+   * @param moves the legal moves of the current player, never empty
+   * @param random the random source of the search
+   * @return the chosen packed move
+   */
+  public abstract int choose(CompactGameState state, MoveBuffer moves, Random random);
+}
@@ -0,0 +1,87 @@
+package de.spl12.domain.ai;
+
+/**
+ * Limits how long a search may run, by wall-clock time, by number of iterations or by both. The
+ * search stops as soon as one of the set limits is reached.
+ *
+ * @author luott
+ */
+public final class SearchBudget {
+
+  private static final long UNLIMITED = Long.MAX_VALUE;
+
+  private final long maxNanos;
+  private final long maxIterations;
+
+  private SearchBudget(long maxNanos, long maxIterations) {
+    if (maxNanos <= 0 || maxIterations <= 0) {
+      throw new IllegalArgumentException("A search budget has to be positive");
+    }
+    this.maxNanos = maxNanos;
+    this.maxIterations = maxIterations;
+  }
+
+  /**
+   * Creates a budget limited by wall-clock time only.
+   *
+   * @param millis the time the search may take in milliseconds
+   * @return the budget
+   */
+  public static SearchBudget ofMillis(long millis) {
+    return new SearchBudget(millis * 1_000_000L, UNLIMITED);
+  }
+
+  /**
+   * Creates a budget limited by the number of iterations only.
+   *
+   * @param iterations the number of search iterations
+   * @return the budget
+   */
+  public static SearchBudget ofIterations(long iterations) {
+    return new SearchBudget(UNLIMITED, iterations);
+  }
+
+  /**
+   * Creates a budget limited by time and by the number of iterations, whichever is hit first.
+   *
+   * @param millis the time the search may take in milliseconds
+   * @param iterations the number of search iterations
+   * @return the budget
+   */
+  public static SearchBudget of(long millis, long iterations) {
+    return new SearchBudget(millis * 1_000_000L, iterations);
+  }
+
+  /**
+   * Checks whether the search has to stop.
+   *
+   * @param startNanos the {@link System#nanoTime()} at the start of the search
+   * @param iterations the number of iterations done so far
+   * @return true if the budget is used up
+   */
+  public boolean isExhausted(long startNanos, long iterations) {
+    return iterations >= this.maxIterations
+        || this.maxNanos != UNLIMITED && System.nanoTime() - startNanos >= this.maxNanos;
+  }
+
+  public boolean isTimeLimited() {
+    return this.maxNanos != UNLIMITED;
+  }
+
+  public long getMaxMillis() {
+    return this.maxNanos == UNLIMITED ? UNLIMITED : this.maxNanos / 1_000_000L;
+  }
+
+  public long getMaxIterations() {
+    return this.maxIterations;
+  }
+
+  @Override
+  public String toString() {
+    return "SearchBudget[millis="
+        + (this.isTimeLimited() ? this.getMaxMillis() : "unlimited")
+        + ", iterations="
+        + (this.maxIterations == UNLIMITED ? "unlimited" : this.maxIterations)
+        + "]";
+  }
+}
@@ -0,0 +1,139 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.CompactGameState;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, lock-free transposition table for search results, keyed by the Zobrist hash of a
+ * {@link CompactGameState}.
+ *
+ * <p>Every entry consists of two {@code long} words: the packed data and the hash XOR the data. A
+ * reader accepts an entry only if both words fit together, so an entry that is overwritten by
+ * another thread at the same time is seen as missing instead of corrupt. This allows all threads of
+ * a search to share one table without any locking.
+ *
+ * <p>Layout of the packed data (bit 0 is the least significant bit):
+ *
+ * <ul>
+ *   <li>bits 0-23: the best packed move found in the position
+ *   <li>bits 24-29: the search depth of the result
+ *   <li>bits 30-31: the kind of bound, {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+ *   <li>bits 32-63: the value as {@code float} bits
+ * </ul>
+ *
+ * <p>An entry is replaced by results of other positions and by results of the same position that
+ * were searched at least as deep.
+ *
+ * @author luott
+ */
+public final class TranspositionTable {
+
+  public static final int EXACT = 0;
+  public static final int LOWER = 1;
+  public static final int UPPER = 2;
+
+  /** Returned by {@link #probe(long)} if the table holds no entry for a hash. */
+  public static final long MISSING = -1L;
+
+  public static final int MAX_DEPTH = 63;
+
+  private static final int MOVE_MASK = 0xFFFFFF;
+  private static final int DEPTH_SHIFT = 24;
+  private static final int BOUND_SHIFT = 30;
+  private static final int VALUE_SHIFT = 32;
+
+  private final AtomicLongArray words;
+  private final int mask;
+
+  /**
+   * Creates a table with {@code 2^bits} entries of 16 bytes each.
+   *
+   * @param bits the base 2 logarithm of the number of entries, between 1 and 28
+   */
+  public TranspositionTable(int bits) {
+    if (bits < 1 || bits > 28) {
+      throw new IllegalArgumentException("Table size has to be between 2^1 and 2^28 entries");
+    }
+    this.words = new AtomicLongArray(2 << bits);
+    this.mask = (1 << bits) - 1;
+  }
+
+  /**
+   * Stores a search result.
+   *
+   * @param hash the hash of the position
+   * @param move the best packed move of the position
+   * @param depth the search depth, clamped to {@link #MAX_DEPTH}
+   * @param bound whether the value is {@link #EXACT} or a {@link #LOWER} or {@link #UPPER} bound
+   * @param value the value of the position
+   */
+  public void store(long hash, int move, int depth, int bound, float value) {
+    if (bound < EXACT || bound > UPPER) {
+      throw new IllegalArgumentException("Unknown bound: " + bound);
+    }
+    int index = this.index(hash);
+    long oldData = this.words.getOpaque(index + 1);
+    long oldKey = this.words.getOpaque(index) ^ oldData;
+    if (oldKey == hash && oldData != 0 && depth(oldData) > depth) {
+      return;
+    }
+    long data = pack(move, Math.min(Math.max(depth, 0), MAX_DEPTH), bound, value);
+    this.words.setOpaque(index, hash ^ data);
+    this.words.setOpaque(index + 1, data);
+  }
+
+  /**
+   * Looks up the result stored for a position.
+   *
+   * @param hash the hash of the position
+   * @return the packed entry, decode it with {@link #move(long)}, {@link #depth(long)}, {@link
+   *     #bound(long)} and {@link #value(long)}; or {@link #MISSING}
+   */
+  public long probe(long hash) {
+    int index = this.index(hash);
+    long data = this.words.getOpaque(index + 1);
+    long key = this.words.getOpaque(index);
+    return data != 0 && (key ^ data) == hash ? data : MISSING;
+  }
+
+  /** Removes all entries. Must not be called while other threads use the table. */
+  public void clear() {
+    for (int i = 0; i < this.words.length(); i++) {
+      this.words.setPlain(i, 0);
+    }
+  }
+
+  public int capacity() {
+    return this.mask + 1;
+  }
+
+  private int index(long hash) {
+    return ((int) (hash ^ hash >>> 32) & this.mask) << 1;
+  }
+
+  private static long pack(int move, int depth, int bound, float value) {
+    long data =
+        (move & MOVE_MASK)
+            | (long) depth << DEPTH_SHIFT
+            | (long) bound << BOUND_SHIFT
+            | (long) Float.floatToRawIntBits(value) << VALUE_SHIFT;
+    // an all zero word marks an empty slot; this only changes the sign of a zero value
+    return data == 0 ? (long) Float.floatToRawIntBits(-0f) << VALUE_SHIFT : data;
+  }
+
+  public static int move(long entry) {
+    return (int) entry & MOVE_MASK;
+  }
+
+  public static int depth(long entry) {
+    return (int) (entry >>> DEPTH_SHIFT) & 0x3F;
+  }
+
+  public static int bound(long entry) {
+    return (int) (entry >>> BOUND_SHIFT) & 0x3;
+  }
+
+  public static float value(long entry) {
+    return Float.intBitsToFloat((int) (entry >>> VALUE_SHIFT));
+  }
+}
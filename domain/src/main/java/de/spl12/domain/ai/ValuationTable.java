@@ -0,0 +1,261 @@
+package de.spl12.domain.ai;
+
+import de.spl12.domain.Card;
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.Noble;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Values of the catalog cards and nobles learned from self-play, see {@link
+ * de.spl12.domain.simulation.ValuationBuilder}.
+ *
+ * <p>For every card, noble and game phase the table holds how much more often than average a player
+ * who buys the card (or is visited by the noble) in that phase wins the game, as a win-rate delta
+ * between -1 and 1, and for cards the average number of own turns from the moment the card is on
+ * the table until it is bought. The phase is the prestige of the player at that moment, see {@link
+ * #phaseOf(int)}. Values are stored in flat arrays indexed by catalog id and phase, so a lookup is
+ * a single array access.
+ *
+ * <p>The binary format is a header of the magic number, the format version and the numbers of
+ * cards, nobles and phases, followed by the card win-rate deltas, the card turns-to-afford, the
+ * noble win-rate deltas and the sample counts of all three, each as big-endian floats or ints in
+ * the order of id and phase. The default table is read once from the resource {@value
+ * #RESOURCE}; without it, all values are neutral.
+ *
+ * @author luott
+ */
+public final class ValuationTable {
+
+  public static final int MAGIC = 0x53504C56; // "SPLV"
+  public static final int VERSION = 1;
+  public static final String RESOURCE = "valuation.bin";
+
+  /** Phases by the prestige of the player, with the same bounds as the buying heuristics. */
+  public static final int EARLY = 0;
+
+  public static final int MID = 1;
+  public static final int LATE = 2;
+  public static final int PHASES = 3;
+
+  private static final int MID_PRESTIGE = 5;
+  private static final int LATE_PRESTIGE = 10;
+
+  private static final Logger LOGGER = Logger.getLogger(ValuationTable.class.getName());
+
+  private final float[] cardWinDelta;
+  private final float[] cardTurns;
+  private final float[] nobleWinDelta;
+  private final int[] cardSamples;
+  private final int[] nobleSamples;
+
+  /**
+   * Creates a table from flat arrays indexed by {@code id * PHASES + phase}.
+   *
+   * @param cardWinDelta the win-rate delta per card and phase
+   * @param cardTurns the average turns-to-afford per card and phase
+   * @param nobleWinDelta the win-rate delta per noble and phase
+   * @param cardSamples the number of purchases per card and phase
+   * @param nobleSamples the number of visits per noble and phase
+   */
+  public ValuationTable(
+      float[] cardWinDelta,
+      float[] cardTurns,
+      float[] nobleWinDelta,
+      int[] cardSamples,
+      int[] nobleSamples) {
+    int cards = CardCatalog.CARD_COUNT * PHASES;
+    int nobles = CardCatalog.NOBLE_COUNT * PHASES;
+    if (cardWinDelta.length != cards
+        || cardTurns.length != cards
+        || cardSamples.length != cards
+        || nobleWinDelta.length != nobles
+        || nobleSamples.length != nobles) {
+      throw new IllegalArgumentException("Table does not match the card catalog");
+    }
+    this.cardWinDelta = cardWinDelta;
+    this.cardTurns = cardTurns;
+    this.nobleWinDelta = nobleWinDelta;
+    this.cardSamples = cardSamples;
+    this.nobleSamples = nobleSamples;
+  }
+
+  /**
+   * Creates a table with neutral values and no samples.
+   *
+   * @return the table
+   */
+  public static ValuationTable neutral() {
+    int cards = CardCatalog.CARD_COUNT * PHASES;
+    int nobles = CardCatalog.NOBLE_COUNT * PHASES;
+    return new ValuationTable(
+        new float[cards], new float[cards], new float[nobles], new int[cards], new int[nobles]);
+  }
+
+  /**
+   * Returns the table shipped with the AI, read from {@value #RESOURCE} on first use.
+   *
+   * @return the table, neutral if the resource is missing or unreadable
+   */
+  public static ValuationTable getDefault() {
+    return DefaultHolder.TABLE;
+  }
+
+  private static final class DefaultHolder {
+    private static final ValuationTable TABLE = load();
+
+    private static ValuationTable load() {
+      try (InputStream in = ValuationTable.class.getResourceAsStream(RESOURCE)) {
+        if (in == null) {
+          LOGGER.info("No valuation table found, using neutral values");
+          return neutral();
+        }
+        return read(new BufferedInputStream(in));
+      } catch (IOException e) {
+        LOGGER.log(Level.WARNING, "Could not read valuation table, using neutral values", e);
+        return neutral();
+      }
+    }
+  }
+
+  /**
+   * Returns the phase of the game for a player.
+   *
+   * @param prestige the prestige of the player
+   * @return {@link #EARLY}, {@link #MID} or {@link #LATE}
+   */
+  public static int phaseOf(int prestige) {
+    return prestige < MID_PRESTIGE ? EARLY : prestige < LATE_PRESTIGE ? MID : LATE;
+  }
+
+  /**
+   * Returns the win-rate delta of buying a card.
+   *
+   * @param card the card
+   * @param phase the phase of the buyer
+   * @return the delta, 0 for cards that are not in the catalog
+   */
+  public float getCardValue(Card card, int phase) {
+    return card.getId() < 0 ? 0 : this.cardWinDelta[card.getId() * PHASES + phase];
+  }
+
+  /**
+   * Returns the win-rate delta of buying the catalog card with the given id.
+   *
+   * @param cardId the catalog id
+   * @param phase the phase of the buyer
+   * @return the delta
+   */
+  public float getCardValue(int cardId, int phase) {
+    return this.cardWinDelta[cardId * PHASES + phase];
+  }
+
+  /**
+   * Returns the average number of own turns a player needed to buy a card after it was revealed.
+   *
+   * @param cardId the catalog id
+   * @param phase the phase of the buyer
+   * @return the turns, 0 without samples
+   */
+  public float getTurnsToAfford(int cardId, int phase) {
+    return this.cardTurns[cardId * PHASES + phase];
+  }
+
+  /**
+   * Returns the win-rate delta of being visited by a noble.
+   *
+   * @param noble the noble
+   * @param phase the phase of the visited player before the visit
+   * @return the delta, 0 for nobles that are not in the catalog
+   */
+  public float getNobleValue(Noble noble, int phase) {
+    return noble.getId() < 0 ? 0 : this.nobleWinDelta[noble.getId() * PHASES + phase];
+  }
+
+  public int getCardSamples(int cardId, int phase) {
+    return this.cardSamples[cardId * PHASES + phase];
+  }
+
+  public int getNobleSamples(int nobleId, int phase) {
+    return this.nobleSamples[nobleId * PHASES + phase];
+  }
+
+  /**
+   * Writes the table in the binary format described above.
+   *
+   * @param out the stream, it is not closed
+   * @throws IOException if writing fails
+   */
+  public void write(OutputStream out) throws IOException {
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeShort(VERSION);
+    data.writeShort(CardCatalog.CARD_COUNT);
+    data.writeShort(CardCatalog.NOBLE_COUNT);
+    data.writeShort(PHASES);
+    for (float value : this.cardWinDelta) {
+      data.writeFloat(value);
+    }
+    for (float value : this.cardTurns) {
+      data.writeFloat(value);
+    }
+    for (float value : this.nobleWinDelta) {
+      data.writeFloat(value);
+    }
+    for (int value : this.cardSamples) {
+      data.writeInt(value);
+    }
+    for (int value : this.nobleSamples) {
+      data.writeInt(value);
+    }
+    data.flush();
+  }
+
+  /**
+   * Reads a table in the binary format described above.
+   *
+   * @param in the stream, it is not closed
+   * @return the table
+   * @throws IOException if reading fails or the table does not match this version and catalog
+   */
+  public static ValuationTable read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(in);
+    if (data.readInt() != MAGIC) {
+      throw new IOException("Not a valuation table");
+    }
+    int version = data.readUnsignedShort();
+    if (version != VERSION) {
+      throw new IOException("Unsupported valuation table version " + version);
+    }
+    if (data.readUnsignedShort() != CardCatalog.CARD_COUNT
+        || data.readUnsignedShort() != CardCatalog.NOBLE_COUNT
+        || data.readUnsignedShort() != PHASES) {
+      throw new IOException("Valuation table does not match the card catalog");
+    }
+    ValuationTable table = neutral();
+    readFloats(data, table.cardWinDelta);
+    readFloats(data, table.cardTurns);
+    readFloats(data, table.nobleWinDelta);
+    readInts(data, table.cardSamples);
+    readInts(data, table.nobleSamples);
+    return table;
+  }
+
+  private static void readFloats(DataInputStream data, float[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = data.readFloat();
+    }
+  }
+
+  private static void readInts(DataInputStream data, int[] values) throws IOException {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = data.readInt();
+    }
+  }
+}
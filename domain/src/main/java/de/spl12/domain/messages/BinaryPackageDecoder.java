@@ -0,0 +1,58 @@
+package de.spl12.domain.messages;
+
+import jakarta.websocket.DecodeException;
+import jakarta.websocket.Decoder;
+import jakarta.websocket.EndpointConfig;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decoder of the WebSocket endpoints that converts binary messages in the format of {@link
+ * PackageCodec} back into {@link AbstractPackage} objects. Implements {@link Decoder.Binary} for
+ * decoding binary messages.
+ *
+ * @see BinaryPackageEncoder
+ * @author luott
+ */
+public class BinaryPackageDecoder implements Decoder.Binary<AbstractPackage> {
+
+  /**
+   * Decodes a binary message into an {@link AbstractPackage} object.
+   *
+   * @param bytes the message
+   * @return the decoded {@link AbstractPackage} object
+   * @throws DecodeException if the message is not a valid package
+   */
+  @Override
+  public AbstractPackage decode(ByteBuffer bytes) throws DecodeException {
+    ByteBuffer message = bytes.duplicate();
+    try {
+      return PackageCodec.decode(bytes);
+    } catch (IOException e) {
+      throw new DecodeException(message, "Error when trying to decode the package", e);
+    }
+  }
+
+  /**
+   * Determines whether the given message can be decoded.
+   *
+   * @param bytes the message
+   * @return true if the message starts with the supported format version
+   */
+  @Override
+  public boolean willDecode(ByteBuffer bytes) {
+    return bytes != null
+        && bytes.hasRemaining()
+        && bytes.get(bytes.position()) == PackageCodec.VERSION;
+  }
+
+  @Override
+  public void init(EndpointConfig endpointConfig) {
+    // Custom initialization logic
+  }
+
+  @Override
+  public void destroy() {
+    // Close resources
+  }
+}
@@ -0,0 +1,47 @@
+package de.spl12.domain.messages;
+
+import jakarta.websocket.EncodeException;
+import jakarta.websocket.Encoder;
+import jakarta.websocket.EndpointConfig;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder of the WebSocket endpoints that converts {@link AbstractPackage} objects into binary
+ * messages in the compact format of {@link PackageCodec}. It replaces the Java serialization and
+ * Base64 text messages of {@link PackageEncoder}. Implements {@link Encoder.Binary} for encoding
+ * binary messages.
+ *
+ * @see BinaryPackageDecoder
+ * @author luott
+ */
+public class BinaryPackageEncoder implements Encoder.Binary<AbstractPackage> {
+
+  /**
+   * Encodes an {@link AbstractPackage} object into a binary message.
+   *
+   * @param abstractPackage the object to encode
+   * @return the encoded bytes
+   * @throws EncodeException if the package is null or of an unsupported type
+   */
+  @Override
+  public ByteBuffer encode(AbstractPackage abstractPackage) throws EncodeException {
+    if (abstractPackage == null) {
+      throw new EncodeException(null, "Cannot encode a missing package");
+    }
+    try {
+      return PackageCodec.encode(abstractPackage);
+    } catch (IllegalArgumentException e) {
+      throw new EncodeException(abstractPackage, "Error when trying to encode the package", e);
+    }
+  }
+
+  @Override
+  public void init(EndpointConfig endpointConfig) {
+    // Custom initialization logic
+  }
+
+  @Override
+  public void destroy() {
+    // Close resources
+  }
+}
@@ -0,0 +1,42 @@
+package de.spl12.domain.messages;
+
+/**
+ * A chat message written by a player. Unlike a {@link PlayerActionPackage} it carries only the
+ * text, which the server appends to the chat of its own game state under the name of the player on
+ * the seat and broadcasts as a {@link StateDeltaPackage}, so a message never overwrites a move
+ * applied in the meantime.
+ *
+ * @author luott
+ */
+public class ChatPackage extends AbstractPackage {
+
+  private static final long serialVersionUID = -2716630587043551093L;
+  private final int SESSIONID;
+  private final int seat;
+  private final String text;
+
+  /**
+   * Constructs a new {@code ChatPackage}.
+   *
+   * @param sessionId the ID of the game session
+   * @param seat the session player number of the writing player
+   * @param text the text of the message
+   */
+  public ChatPackage(int sessionId, int seat, String text) {
+    this.SESSIONID = sessionId;
+    this.seat = seat;
+    this.text = text;
+  }
+
+  public int getSessionId() {
+    return this.SESSIONID;
+  }
+
+  public int getSeat() {
+    return this.seat;
+  }
+
+  public String getText() {
+    return this.text;
+  }
+}
@@ -0,0 +1,72 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.GameState;
+import java.util.Optional;
+
+/**
+ * Copy of the authoritative game state of the server on a client, kept up to date with the {@link
+ * StateDeltaPackage}s of the server.
+ *
+ * <p>The replica keeps its own state and hands out copies, since the deltas are relative to the
+ * last state of the server and the game controllers modify the states they get before sending
+ * them. A delta that does not continue the sequence number of the replica, or does not fit its
+ * state, puts the replica out of sync until the next full snapshot.
+ *
+ * @author luott
+ */
+public final class GameStateReplica {
+
+  private GameState gameState;
+  private int sequence = -1;
+  private boolean resyncRequested;
+
+  /**
+   * Replaces the state by a full snapshot of the server.
+   *
+   * @param snapshot the package with the full state and its sequence number
+   */
+  public void reset(PlayerActionPackage snapshot) {
+    this.gameState = snapshot.getGameState().copy();
+    this.sequence = snapshot.getSequence();
+    this.resyncRequested = false;
+  }
+
+  /**
+   * Applies an update of the server.
+   *
+   * @param update the delta to the last state
+   * @return a copy of the updated state, or empty if the replica is out of sync
+   */
+  public Optional<GameState> apply(StateDeltaPackage update) {
+    if (this.gameState == null || update.getSequence() != this.sequence + 1) {
+      this.gameState = null;
+      return Optional.empty();
+    }
+    try {
+      update.getDelta().applyTo(this.gameState);
+    } catch (IllegalStateException e) {
+      this.gameState = null;
+      return Optional.empty();
+    }
+    this.sequence = update.getSequence();
+    return Optional.of(this.gameState.copy());
+  }
+
+  /**
+   * Returns whether a resync should be requested, once after the replica got out of sync until the
+   * next snapshot.
+   *
+   * @return true if the caller should send a {@link ResyncRequestPackage}
+   */
+  public boolean shouldRequestResync() {
+    if (this.gameState != null || this.resyncRequested) {
+      return false;
+    }
+    this.resyncRequested = true;
+    return true;
+  }
+
+  public int getSequence() {
+    return this.sequence;
+  }
+}
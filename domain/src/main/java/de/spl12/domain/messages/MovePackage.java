@@ -0,0 +1,49 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.moves.TurnStep;
+import de.spl12.domain.moves.TurnTransaction;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A complete turn submitted by a player. Unlike a {@link PlayerActionPackage} it carries only the
+ * steps of the turn collected in a {@link TurnTransaction}, which the server turns into a move,
+ * validates against its own game state, applies and broadcasts as a {@link StateDeltaPackage}
+ * together with the steps. A rejected move is answered with the full state to the submitting
+ * player.
+ *
+ * @author luott
+ */
+public class MovePackage extends AbstractPackage {
+
+  private static final long serialVersionUID = 6650187239214507714L;
+  private final int SESSIONID;
+  private final int seat;
+  private final ArrayList<TurnStep> steps;
+
+  /**
+   * Constructs a new {@code MovePackage}.
+   *
+   * @param sessionId the ID of the game session
+   * @param seat the session player number of the player whose turn it is
+   * @param steps the steps of the turn including returned tokens and the preferred visiting noble
+   */
+  public MovePackage(int sessionId, int seat, List<TurnStep> steps) {
+    this.SESSIONID = sessionId;
+    this.seat = seat;
+    this.steps = new ArrayList<>(steps);
+  }
+
+  public int getSessionId() {
+    return this.SESSIONID;
+  }
+
+  public int getSeat() {
+    return this.seat;
+  }
+
+  public List<TurnStep> getSteps() {
+    return Collections.unmodifiableList(this.steps);
+  }
+}
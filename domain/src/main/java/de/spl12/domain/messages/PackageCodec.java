@@ -0,0 +1,622 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.AiPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.Chat;
+import de.spl12.domain.ChatMessage;
+import de.spl12.domain.GameState;
+import de.spl12.domain.HumanPlayer;
+import de.spl12.domain.Noble;
+import de.spl12.domain.StoneType;
+import de.spl12.domain.User;
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
+import de.spl12.domain.moves.HeuristicWeights;
+import de.spl12.domain.moves.TurnStep;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written binary format of all {@link AbstractPackage}s, used by {@link BinaryPackageEncoder}
+ * and {@link BinaryPackageDecoder} instead of Java serialization.
+ *
+ * <p>A package starts with the format {@link #VERSION} and a type tag, followed by the fields of
+ * the package in a fixed order. Cards and nobles of the {@link CardCatalog} are written as their
+ * catalog id, so a full game state takes a few hundred bytes; cards that are not in the catalog are
+ * written with all their properties. Counts, lengths and ids are varints, see {@link WireWriter}.
+ * Stone maps are written as one varint per {@link StoneType}, the count plus one or 0 for a missing
+ * type. Optional values start with 0 for null.
+ *
+ * <p>Decoding only creates the known domain types and bounds every length, so unlike an {@code
+ * ObjectInputStream} it cannot be made to instantiate arbitrary classes.
+ *
+ * @author luott
+ */
+public final class PackageCodec {
+
+  public static final int VERSION = 4;
+
+  private static final int CREATE_SESSION = 1;
+  private static final int JOIN_SESSION = 2;
+  private static final int LEAVE_SESSION = 3;
+  private static final int PLAYER_ACTION = 4;
+  private static final int GAME_OVER = 5;
+  private static final int STATE_DELTA = 6;
+  private static final int RESYNC_REQUEST = 7;
+  private static final int MOVE = 8;
+  private static final int CHAT = 9;
+
+  private static final int NULL = 0;
+  private static final int INLINE = 1;
+  private static final int CATALOG = 2;
+
+  private static final int HUMAN = 1;
+  private static final int AI = 2;
+
+  /** Reference to a player of the game state of the same package, offset by the player index. */
+  private static final int STATE_PLAYER = 3;
+
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+  private static final AiDifficulty[] DIFFICULTIES = AiDifficulty.values();
+  private static final ParallelMonteCarloTreeSearch.Mode[] SEARCH_MODES =
+      ParallelMonteCarloTreeSearch.Mode.values();
+  private static final JoinSessionPackage.JoinStatus[] JOIN_STATUSES =
+      JoinSessionPackage.JoinStatus.values();
+  private static final TurnStep.Kind[] STEP_KINDS = TurnStep.Kind.values();
+
+  private PackageCodec() {}
+
+  /**
+   * Encodes a package.
+   *
+   * @param abstractPackage the package
+   * @return the encoded bytes, a read-only buffer
+   * @throws IllegalArgumentException if the package type is not supported
+   */
+  public static ByteBuffer encode(AbstractPackage abstractPackage) {
+    WireWriter out = new WireWriter();
+    out.writeByte(VERSION);
+    switch (abstractPackage) {
+      case CreateSessionPackage create -> {
+        out.writeByte(CREATE_SESSION);
+        out.writeSignedVarint(create.getCreatedSessionId());
+        out.writeString(create.getServerIP());
+        out.writeBoolean(create.isMultiplayer());
+      }
+      case JoinSessionPackage join -> {
+        out.writeByte(JOIN_SESSION);
+        writePlayer(out, join.getPlayer(), null);
+        out.writeSignedVarint(join.getSessionId());
+        out.writeString(join.getServerIP());
+        out.writeVarint(join.getJoinStatus() == null ? 0 : join.getJoinStatus().ordinal() + 1);
+      }
+      case LeaveSessionPackage leave -> {
+        out.writeByte(LEAVE_SESSION);
+        writePlayer(out, leave.getPlayer(), null);
+        out.writeSignedVarint(leave.getSessionId());
+      }
+      case PlayerActionPackage action -> {
+        out.writeByte(PLAYER_ACTION);
+        writeGameState(out, action.getGameState());
+        writePlayer(out, action.getPlayer(), action.getGameState());
+        out.writeSignedVarint(action.getSessionId());
+        out.writeSignedVarint(action.getSequence());
+      }
+      case GameOverPackage gameOver -> {
+        out.writeByte(GAME_OVER);
+        writePlayer(out, gameOver.getPlayer(), null);
+        out.writeSignedVarint(gameOver.getSessionId());
+      }
+      case StateDeltaPackage update -> {
+        out.writeByte(STATE_DELTA);
+        out.writeSignedVarint(update.getSessionId());
+        out.writeVarint(update.getSequence());
+        writeDelta(out, update.getDelta());
+        writeSteps(out, update.getSteps());
+      }
+      case ResyncRequestPackage resync -> {
+        out.writeByte(RESYNC_REQUEST);
+        writePlayer(out, resync.getPlayer(), null);
+        out.writeSignedVarint(resync.getSessionId());
+      }
+      case MovePackage submit -> {
+        out.writeByte(MOVE);
+        out.writeSignedVarint(submit.getSessionId());
+        out.writeVarint(submit.getSeat());
+        writeSteps(out, submit.getSteps());
+      }
+      case ChatPackage chat -> {
+        out.writeByte(CHAT);
+        out.writeSignedVarint(chat.getSessionId());
+        out.writeVarint(chat.getSeat());
+        out.writeString(chat.getText());
+      }
+      default ->
+          throw new IllegalArgumentException(
+              "Unsupported package type " + abstractPackage.getClass().getName());
+    }
+    return out.toByteBuffer();
+  }
+
+  /**
+   * Decodes a package.
+   *
+   * @param bytes the encoded bytes; the buffer is consumed
+   * @return the package
+   * @throws IOException if the bytes are not a complete package of this version
+   */
+  public static AbstractPackage decode(ByteBuffer bytes) throws IOException {
+    WireReader in = new WireReader(bytes);
+    int version = in.readByte();
+    if (version != VERSION) {
+      throw new IOException("Unsupported wire format version " + version);
+    }
+    int type = in.readByte();
+    AbstractPackage result =
+        switch (type) {
+          case CREATE_SESSION -> {
+            int sessionId = in.readSignedVarint();
+            String serverIp = in.readString();
+            CreateSessionPackage create = new CreateSessionPackage(in.readBoolean());
+            create.setCreatedSessionId(sessionId);
+            create.setServerIP(serverIp);
+            yield create;
+          }
+          case JOIN_SESSION -> {
+            AbstractPlayer player = readPlayer(in, null);
+            int sessionId = in.readSignedVarint();
+            String serverIp = in.readString();
+            int status = in.readVarint();
+            JoinSessionPackage join =
+                new JoinSessionPackage(
+                    player, sessionId, status == 0 ? null : element(JOIN_STATUSES, status - 1));
+            join.setServerIP(serverIp);
+            yield join;
+          }
+          case LEAVE_SESSION ->
+              new LeaveSessionPackage(readPlayer(in, null), in.readSignedVarint());
+          case PLAYER_ACTION -> {
+            GameState gameState = readGameState(in);
+            AbstractPlayer player = readPlayer(in, gameState);
+            PlayerActionPackage action =
+                new PlayerActionPackage(player, in.readSignedVarint(), gameState);
+            action.setSequence(in.readSignedVarint());
+            yield action;
+          }
+          case GAME_OVER -> new GameOverPackage(readPlayer(in, null), in.readSignedVarint());
+          case STATE_DELTA -> {
+            int sessionId = in.readSignedVarint();
+            int sequence = in.readVarint();
+            StateDelta delta = readDelta(in);
+            yield new StateDeltaPackage(sessionId, sequence, delta, readSteps(in));
+          }
+          case RESYNC_REQUEST ->
+              new ResyncRequestPackage(readPlayer(in, null), in.readSignedVarint());
+          case MOVE -> new MovePackage(in.readSignedVarint(), in.readVarint(), readSteps(in));
+          case CHAT -> new ChatPackage(in.readSignedVarint(), in.readVarint(), in.readString());
+          default -> throw new IOException("Unknown package type " + type);
+        };
+    if (in.hasRemaining()) {
+      throw new IOException("Unexpected bytes after package");
+    }
+    return result;
+  }
+
+  private static void writeGameState(WireWriter out, GameState gameState) {
+    if (gameState == null) {
+      out.writeBoolean(false);
+      return;
+    }
+    out.writeBoolean(true);
+    out.writeSignedVarlong(gameState.getSeed());
+    out.writeBoolean(gameState.isRunning());
+    out.writeSignedVarint(gameState.getPlayersTurn());
+    out.writeSignedVarint(gameState.getStartingPlayer());
+    out.writeVarint(gameState.getTurnNumber());
+    out.writeVarint(gameState.getPlayers().size());
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      writePlayer(out, player, null);
+    }
+    writeCards(out, gameState.getFirstCardDeck());
+    writeCards(out, gameState.getFirstCardStack());
+    writeCards(out, gameState.getSecondCardDeck());
+    writeCards(out, gameState.getSecondCardStack());
+    writeCards(out, gameState.getThirdCardDeck());
+    writeCards(out, gameState.getThirdCardStack());
+    writeNobles(out, gameState.getNobleDeck());
+    writeStones(out, gameState.getStonePool());
+    List<ChatMessage> messages =
+        gameState.getChat() == null ? List.of() : gameState.getChat().getMessageList();
+    out.writeVarint(messages.size());
+    for (ChatMessage message : messages) {
+      out.writeString(message.getUsername());
+      out.writeString(message.getMessage());
+    }
+  }
+
+  private static GameState readGameState(WireReader in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    GameState gameState = GameState.empty(in.readSignedVarlong());
+    gameState.setRunning(in.readBoolean());
+    gameState.setPlayersTurn(in.readSignedVarint());
+    gameState.setStartingPlayer(in.readSignedVarint());
+    gameState.setTurnNumber(in.readVarint());
+    int players = in.readLength();
+    List<AbstractPlayer> playerList = new ArrayList<>(players);
+    for (int i = 0; i < players; i++) {
+      playerList.add(readPlayer(in, null));
+    }
+    gameState.setPlayers(playerList);
+    gameState.setFirstCardDeck(readCards(in));
+    gameState.setFirstCardStack(readCards(in));
+    gameState.setSecondCardDeck(readCards(in));
+    gameState.setSecondCardStack(readCards(in));
+    gameState.setThirdCardDeck(readCards(in));
+    gameState.setThirdCardStack(readCards(in));
+    gameState.setNobleDeck(readNobles(in));
+    gameState.setStonePool(readStones(in));
+    int messages = in.readLength();
+    Chat chat = gameState.getChat();
+    for (int i = 0; i < messages; i++) {
+      chat.writeMessage(new ChatMessage(in.readString(), in.readString()));
+    }
+    return gameState;
+  }
+
+  private static void writeDelta(WireWriter out, StateDelta delta) {
+    out.writeVarint(delta.getPlayerCount());
+    out.writeBoolean(delta.isRunning());
+    out.writeSignedVarint(delta.getPlayersTurn());
+    out.writeSignedVarint(delta.getStartingPlayer());
+    out.writeVarint(delta.getTurnNumber());
+    out.writeVarint(delta.getCardSplices().size());
+    for (StateDelta.Splice<Card> splice : delta.getCardSplices()) {
+      out.writeVarint(splice.list);
+      out.writeVarint(splice.start);
+      out.writeVarint(splice.removed);
+      writeCards(out, splice.inserted);
+    }
+    out.writeVarint(delta.getNobleSplices().size());
+    for (StateDelta.Splice<Noble> splice : delta.getNobleSplices()) {
+      out.writeVarint(splice.list);
+      out.writeVarint(splice.start);
+      out.writeVarint(splice.removed);
+      writeNobles(out, splice.inserted);
+    }
+    out.writeVarint(delta.getStones().size());
+    for (Map.Entry<Integer, EnumMap<StoneType, Integer>> entry : delta.getStones().entrySet()) {
+      out.writeVarint(entry.getKey());
+      writeStones(out, entry.getValue());
+    }
+    out.writeVarint(delta.getChatMessages().size());
+    for (ChatMessage message : delta.getChatMessages()) {
+      out.writeString(message.getUsername());
+      out.writeString(message.getMessage());
+    }
+  }
+
+  /** Reads a delta; list and player indices are checked against the player count. */
+  private static StateDelta readDelta(WireReader in) throws IOException {
+    int players = in.readLength();
+    StateDelta delta =
+        new StateDelta(
+            players, in.readBoolean(), in.readSignedVarint(), in.readSignedVarint(),
+            in.readVarint());
+    int cardLists = StateDelta.GAME_CARD_LISTS + StateDelta.PLAYER_CARD_LISTS * players;
+    int splices = in.readLength();
+    for (int i = 0; i < splices; i++) {
+      int list = readIndex(in, cardLists);
+      delta.getCardSplices()
+          .add(new StateDelta.Splice<>(list, in.readLength(), in.readLength(), readCards(in)));
+    }
+    splices = in.readLength();
+    for (int i = 0; i < splices; i++) {
+      int list = readIndex(in, 1 + players);
+      delta.getNobleSplices()
+          .add(new StateDelta.Splice<>(list, in.readLength(), in.readLength(), readNobles(in)));
+    }
+    int stones = in.readLength();
+    for (int i = 0; i < stones; i++) {
+      int target = readIndex(in, 1 + players);
+      EnumMap<StoneType, Integer> stoneMap = new EnumMap<>(StoneType.class);
+      readStonesInto(in, stoneMap);
+      delta.getStones().put(target, stoneMap);
+    }
+    int messages = in.readLength();
+    for (int i = 0; i < messages; i++) {
+      delta.getChatMessages().add(new ChatMessage(in.readString(), in.readString()));
+    }
+    return delta;
+  }
+
+  private static void writeSteps(WireWriter out, List<TurnStep> steps) {
+    out.writeVarint(steps.size());
+    for (TurnStep step : steps) {
+      out.writeVarint(step.getKind().ordinal());
+      switch (step.getKind()) {
+        case TAKE, RETURN -> out.writeVarint(step.getStoneType().ordinal());
+        case RESERVE, BUY -> writeCard(out, step.getCard());
+        case NOBLE -> writeNoble(out, step.getNoble());
+      }
+    }
+  }
+
+  private static List<TurnStep> readSteps(WireReader in) throws IOException {
+    int size = in.readLength();
+    List<TurnStep> steps = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      TurnStep.Kind kind = element(STEP_KINDS, in.readVarint());
+      steps.add(
+          switch (kind) {
+            case TAKE -> TurnStep.take(element(STONE_TYPES, in.readVarint()));
+            case RETURN -> TurnStep.returnStone(element(STONE_TYPES, in.readVarint()));
+            case RESERVE -> TurnStep.reserve(readRequiredCard(in));
+            case BUY -> TurnStep.buy(readRequiredCard(in));
+            case NOBLE -> {
+              Noble noble = readNoble(in);
+              if (noble == null) {
+                throw new IOException("Noble step without noble");
+              }
+              yield TurnStep.claimNoble(noble);
+            }
+          });
+    }
+    return steps;
+  }
+
+  private static Card readRequiredCard(WireReader in) throws IOException {
+    Card card = readCard(in);
+    if (card == null) {
+      throw new IOException("Step without card");
+    }
+    return card;
+  }
+
+  private static int readIndex(WireReader in, int size) throws IOException {
+    int index = in.readVarint();
+    if (index >= size) {
+      throw new IOException("Index " + index + " out of " + size);
+    }
+    return index;
+  }
+
+  /**
+   * Writes a player; if it is one of the players of the given game state, only its index.
+   */
+  private static void writePlayer(WireWriter out, AbstractPlayer player, GameState gameState) {
+    if (player == null) {
+      out.writeVarint(NULL);
+      return;
+    }
+    if (gameState != null) {
+      List<AbstractPlayer> players = gameState.getPlayers();
+      for (int i = 0; i < players.size(); i++) {
+        if (players.get(i) == player) {
+          out.writeVarint(STATE_PLAYER + i);
+          return;
+        }
+      }
+    }
+    switch (player) {
+      case HumanPlayer human -> {
+        out.writeVarint(HUMAN);
+        writeUser(out, human.getUser());
+      }
+      case AiPlayer ai -> {
+        out.writeVarint(AI);
+        out.writeVarint(ai.getDifficulty().ordinal());
+        out.writeString(ai.getName());
+        writeUser(out, ai.getFakeUser());
+        out.writeVarint(ai.getSearchParallelism());
+        out.writeVarint(ai.getSearchMode().ordinal());
+        boolean tuned = !HeuristicWeights.DEFAULT.equals(ai.getWeights());
+        out.writeBoolean(tuned);
+        if (tuned) {
+          for (double weight : ai.getWeights().toArray()) {
+            out.writeDouble(weight);
+          }
+        }
+      }
+      default ->
+          throw new IllegalArgumentException(
+              "Unsupported player type " + player.getClass().getName());
+    }
+    out.writeSignedVarint(player.getSessionPlayerNumber());
+    writeStones(out, player.getStoneInventory());
+    writeCards(out, player.getOwnedCards());
+    writeCards(out, player.getReservedCards());
+    writeNobles(out, player.getNobles());
+  }
+
+  private static AbstractPlayer readPlayer(WireReader in, GameState gameState)
+      throws IOException {
+    int kind = in.readVarint();
+    AbstractPlayer player;
+    switch (kind) {
+      case NULL -> {
+        return null;
+      }
+      case HUMAN -> player = new HumanPlayer(0, readUser(in));
+      case AI -> {
+        AiPlayer ai = new AiPlayer(0, element(DIFFICULTIES, in.readVarint()));
+        ai.setName(in.readString());
+        ai.setFakeUser(readUser(in));
+        int parallelism = in.readVarint();
+        if (parallelism < 1) {
+          throw new IOException("Invalid search parallelism " + parallelism);
+        }
+        ai.setSearchParallelism(parallelism);
+        ai.setSearchMode(element(SEARCH_MODES, in.readVarint()));
+        if (in.readBoolean()) {
+          double[] weights = new double[HeuristicWeights.SIZE];
+          for (int i = 0; i < weights.length; i++) {
+            weights[i] = in.readDouble();
+          }
+          ai.setWeights(HeuristicWeights.of(weights));
+        }
+        player = ai;
+      }
+      default -> {
+        int index = kind - STATE_PLAYER;
+        if (gameState == null || index >= gameState.getPlayers().size()) {
+          throw new IOException("Unknown player reference " + kind);
+        }
+        return gameState.getPlayers().get(index);
+      }
+    }
+    player.setSessionPlayerNumber(in.readSignedVarint());
+    readStonesInto(in, player.getStoneInventory());
+    player.getOwnedCards().addAll(readCards(in));
+    player.getReservedCards().addAll(readCards(in));
+    player.getNobles().addAll(readNobles(in));
+    player.recalculateTotals();
+    return player;
+  }
+
+  private static void writeUser(WireWriter out, User user) {
+    out.writeBoolean(user != null);
+    if (user != null) {
+      out.writeSignedVarint(user.getId());
+      out.writeString(user.getUsername());
+      out.writeString(user.getPassword());
+      out.writeSignedVarint(user.getAge());
+    }
+  }
+
+  private static User readUser(WireReader in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    return new User(in.readSignedVarint(), in.readString(), in.readString(), in.readSignedVarint());
+  }
+
+  private static void writeStones(WireWriter out, Map<StoneType, Integer> stones) {
+    for (StoneType type : STONE_TYPES) {
+      Integer count = stones.get(type);
+      out.writeVarint(count == null ? 0 : count + 1);
+    }
+  }
+
+  private static Map<StoneType, Integer> readStones(WireReader in) throws IOException {
+    Map<StoneType, Integer> stones = new HashMap<>();
+    readStonesInto(in, stones);
+    return stones;
+  }
+
+  private static void readStonesInto(WireReader in, Map<StoneType, Integer> stones)
+      throws IOException {
+    stones.clear();
+    for (StoneType type : STONE_TYPES) {
+      int count = in.readVarint();
+      if (count > 0) {
+        stones.put(type, count - 1);
+      }
+    }
+  }
+
+  private static void writeCards(WireWriter out, List<Card> cards) {
+    out.writeVarint(cards.size());
+    for (Card card : cards) {
+      writeCard(out, card);
+    }
+  }
+
+  private static void writeCard(WireWriter out, Card card) {
+    if (card == null) {
+      out.writeVarint(NULL);
+    } else if (card.getId() >= 0) {
+      out.writeVarint(CATALOG + card.getId());
+    } else {
+      out.writeVarint(INLINE);
+      out.writeVarint(card.getStage());
+      out.writeVarint(card.getPrestigePoints());
+      out.writeVarint(card.getBonus().ordinal());
+      writeStones(out, card.getCost());
+    }
+  }
+
+  private static ArrayList<Card> readCards(WireReader in) throws IOException {
+    int size = in.readLength();
+    ArrayList<Card> cards = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      cards.add(readCard(in));
+    }
+    return cards;
+  }
+
+  private static Card readCard(WireReader in) throws IOException {
+    int tag = in.readVarint();
+    if (tag == NULL) {
+      return null;
+    } else if (tag == INLINE) {
+      int stage = in.readVarint();
+      int prestige = in.readVarint();
+      StoneType bonus = element(STONE_TYPES, in.readVarint());
+      Map<StoneType, Integer> cost = new EnumMap<>(StoneType.class);
+      readStonesInto(in, cost);
+      return new Card(cost, bonus, prestige, stage);
+    } else if (tag - CATALOG < CardCatalog.CARD_COUNT) {
+      return CardCatalog.getCard(tag - CATALOG);
+    }
+    throw new IOException("Unknown card id " + (tag - CATALOG));
+  }
+
+  private static void writeNobles(WireWriter out, List<Noble> nobles) {
+    out.writeVarint(nobles.size());
+    for (Noble noble : nobles) {
+      writeNoble(out, noble);
+    }
+  }
+
+  private static void writeNoble(WireWriter out, Noble noble) {
+    if (noble == null) {
+      out.writeVarint(NULL);
+    } else if (noble.getId() >= 0) {
+      out.writeVarint(CATALOG + noble.getId());
+    } else {
+      out.writeVarint(INLINE);
+      out.writeVarint(noble.getPrestigePoints());
+      writeStones(out, noble.getRequirements());
+    }
+  }
+
+  private static ArrayList<Noble> readNobles(WireReader in) throws IOException {
+    int size = in.readLength();
+    ArrayList<Noble> nobles = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      nobles.add(readNoble(in));
+    }
+    return nobles;
+  }
+
+  private static Noble readNoble(WireReader in) throws IOException {
+    int tag = in.readVarint();
+    if (tag == NULL) {
+      return null;
+    } else if (tag == INLINE) {
+      int prestige = in.readVarint();
+      Map<StoneType, Integer> requirements = new EnumMap<>(StoneType.class);
+      readStonesInto(in, requirements);
+      return new Noble(requirements, prestige);
+    } else if (tag - CATALOG < CardCatalog.NOBLE_COUNT) {
+      return CardCatalog.getNoble(tag - CATALOG);
+    }
+    throw new IOException("Unknown noble id " + (tag - CATALOG));
+  }
+
+  private static <T> T element(T[] values, int ordinal) throws IOException {
+    if (ordinal >= values.length) {
+      throw new IOException("Unknown constant " + ordinal);
+    }
+    return values[ordinal];
+  }
+}
@@ -7,6 +7,9 @@ import de.spl12.domain.GameState;
  * Message sent by a player to indicate an action taken in the game, typically resulting in an
  * updated {@link GameState}.
  *
+ * <p>The server sends it with the full state and its sequence number when a player joins, leaves
+ * the lobby or asks for a resync; all other updates are {@link StateDeltaPackage}s.
+ *
  * @author ennauman
  */
 public class PlayerActionPackage extends AbstractPackage {
@@ -15,6 +18,7 @@ public class PlayerActionPackage extends AbstractPackage {
   private final AbstractPlayer PLAYER;
   private final int SESSIONID;
   private final GameState GAMESTATE;
+  private int sequence = -1;
 
   /**
    * Constructs a new {@code PlayerActionPackage}.
@@ -40,4 +44,18 @@ public class PlayerActionPackage extends AbstractPackage {
   public GameState getGameState() {
     return this.GAMESTATE;
   }
+
+  /**
+   * Returns the sequence number of the state, which the following {@link StateDeltaPackage}s
+   * continue.
+   *
+   * @return the sequence number, -1 for packages sent by players
+   */
+  public int getSequence() {
+    return this.sequence;
+  }
+
+  public void setSequence(int sequence) {
+    this.sequence = sequence;
+  }
 }
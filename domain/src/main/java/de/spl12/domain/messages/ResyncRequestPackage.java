@@ -0,0 +1,30 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.AbstractPlayer;
+
+/**
+ * Request of a player for the full game state, sent when a {@link StateDeltaPackage} does not fit
+ * the state of the player. The server answers with a {@link PlayerActionPackage} to this player
+ * only.
+ *
+ * @author luott
+ */
+public class ResyncRequestPackage extends AbstractPackage {
+
+  private static final long serialVersionUID = -1472906118425031852L;
+  private final int SESSIONID;
+  private final AbstractPlayer player;
+
+  public ResyncRequestPackage(AbstractPlayer player, int sessionId) {
+    this.player = player;
+    this.SESSIONID = sessionId;
+  }
+
+  public int getSessionId() {
+    return this.SESSIONID;
+  }
+
+  public AbstractPlayer getPlayer() {
+    return this.player;
+  }
+}
@@ -0,0 +1,320 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.ChatMessage;
+import de.spl12.domain.GameState;
+import de.spl12.domain.Noble;
+import de.spl12.domain.StoneType;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Difference between two consecutive states of the same game, which the server sends in a {@link
+ * StateDeltaPackage} instead of the full state.
+ *
+ * <p>Every card and noble list is compared as a single splice: the elements between the common
+ * prefix and the common suffix of the old list are replaced by those of the new list. Buying a card
+ * is thus a replaced slot of a deck, a card removed from the top of its stack and a card added to
+ * the owned cards of the player, a few bytes each. Stone maps are sent in full if they changed, new
+ * chat messages are appended and the turn fields are always included.
+ *
+ * <p>A delta only describes changes of the same players. If players joined, left or changed seats,
+ * {@link #between(GameState, GameState)} returns null and a full snapshot has to be sent.
+ *
+ * @author luott
+ */
+public final class StateDelta implements Serializable {
+
+  @Serial private static final long serialVersionUID = 2193846104629120433L;
+
+  /** Card lists of the game state in the order of {@link #cardLists(GameState)}. */
+  static final int GAME_CARD_LISTS = 6;
+
+  /** Card lists of every player: the owned and the reserved cards. */
+  static final int PLAYER_CARD_LISTS = 2;
+
+  private final int playerCount;
+  private final boolean running;
+  private final int playersTurn;
+  private final int startingPlayer;
+  private final int turnNumber;
+  private final ArrayList<Splice<Card>> cardSplices = new ArrayList<>();
+  private final ArrayList<Splice<Noble>> nobleSplices = new ArrayList<>();
+
+  /** Changed stone maps by target: 0 is the stone pool, 1 + i the inventory of player i. */
+  private final LinkedHashMap<Integer, EnumMap<StoneType, Integer>> stones = new LinkedHashMap<>();
+
+  private final ArrayList<ChatMessage> chatMessages = new ArrayList<>();
+
+  StateDelta(
+      int playerCount, boolean running, int playersTurn, int startingPlayer, int turnNumber) {
+    this.playerCount = playerCount;
+    this.running = running;
+    this.playersTurn = playersTurn;
+    this.startingPlayer = startingPlayer;
+    this.turnNumber = turnNumber;
+  }
+
+  /**
+   * Computes the difference between two states of the same game.
+   *
+   * @param before the state the receiver has
+   * @param after the new state
+   * @return the delta, or null if the players differ and a full snapshot is needed
+   */
+  public static StateDelta between(GameState before, GameState after) {
+    List<ChatMessage> beforeMessages = before.getChat().getMessageList();
+    List<ChatMessage> afterMessages = after.getChat().getMessageList();
+    if (before.getSeed() != after.getSeed()
+        || afterMessages.size() < beforeMessages.size()
+        || !samePlayers(before.getPlayers(), after.getPlayers())) {
+      return null;
+    }
+    StateDelta delta =
+        new StateDelta(
+            after.getPlayers().size(),
+            after.isRunning(),
+            after.getPlayersTurn(),
+            after.getStartingPlayer(),
+            after.getTurnNumber());
+    List<List<Card>> beforeCards = cardLists(before);
+    List<List<Card>> afterCards = cardLists(after);
+    for (int i = 0; i < afterCards.size(); i++) {
+      addSplice(delta.cardSplices, i, beforeCards.get(i), afterCards.get(i));
+    }
+    List<List<Noble>> beforeNobles = nobleLists(before);
+    List<List<Noble>> afterNobles = nobleLists(after);
+    for (int i = 0; i < afterNobles.size(); i++) {
+      addSplice(delta.nobleSplices, i, beforeNobles.get(i), afterNobles.get(i));
+    }
+    List<Map<StoneType, Integer>> beforeStones = stoneMaps(before);
+    List<Map<StoneType, Integer>> afterStones = stoneMaps(after);
+    for (int i = 0; i < afterStones.size(); i++) {
+      if (!beforeStones.get(i).equals(afterStones.get(i))) {
+        delta.stones.put(i, new EnumMap<>(afterStones.get(i)));
+      }
+    }
+    delta.chatMessages.addAll(afterMessages.subList(beforeMessages.size(), afterMessages.size()));
+    return delta;
+  }
+
+  /**
+   * Creates the delta of a chat message appended to a game state, without comparing the state to
+   * a copy of the state before.
+   *
+   * @param gameState the state after the message was appended
+   * @param message the new message
+   * @return the delta with the message and the unchanged turn fields
+   */
+  public static StateDelta ofChatMessage(GameState gameState, ChatMessage message) {
+    StateDelta delta =
+        new StateDelta(
+            gameState.getPlayers().size(),
+            gameState.isRunning(),
+            gameState.getPlayersTurn(),
+            gameState.getStartingPlayer(),
+            gameState.getTurnNumber());
+    delta.chatMessages.add(message);
+    return delta;
+  }
+
+  /** Seats, types and names decide whether two player lists are the same players. */
+  private static boolean samePlayers(List<AbstractPlayer> before, List<AbstractPlayer> after) {
+    if (before.size() != after.size()) {
+      return false;
+    }
+    for (int i = 0; i < before.size(); i++) {
+      AbstractPlayer a = before.get(i);
+      AbstractPlayer b = after.get(i);
+      if (a.getClass() != b.getClass()
+          || a.getSessionPlayerNumber() != b.getSessionPlayerNumber()
+          || !Objects.equals(a.getName(), b.getName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static <T> void addSplice(List<Splice<T>> splices, int list, List<T> before,
+      List<T> after) {
+    int prefix = 0;
+    int limit = Math.min(before.size(), after.size());
+    while (prefix < limit && Objects.equals(before.get(prefix), after.get(prefix))) {
+      prefix++;
+    }
+    if (prefix == before.size() && prefix == after.size()) {
+      return;
+    }
+    int suffix = 0;
+    while (suffix < limit - prefix
+        && Objects.equals(
+            before.get(before.size() - 1 - suffix), after.get(after.size() - 1 - suffix))) {
+      suffix++;
+    }
+    splices.add(
+        new Splice<>(
+            list,
+            prefix,
+            before.size() - prefix - suffix,
+            new ArrayList<>(after.subList(prefix, after.size() - suffix))));
+  }
+
+  /**
+   * Applies the delta to the state it was computed from.
+   *
+   * @param gameState the state of the receiver, modified in place
+   * @throws IllegalStateException if the delta does not fit the state
+   */
+  public void applyTo(GameState gameState) {
+    if (gameState.getPlayers().size() != this.playerCount) {
+      throw new IllegalStateException(
+          "Delta for " + this.playerCount + " players, game has " + gameState.getPlayers().size());
+    }
+    List<List<Card>> cards = cardLists(gameState);
+    for (Splice<Card> splice : this.cardSplices) {
+      splice.applyTo(cards.get(splice.list));
+    }
+    List<List<Noble>> nobles = nobleLists(gameState);
+    for (Splice<Noble> splice : this.nobleSplices) {
+      splice.applyTo(nobles.get(splice.list));
+    }
+    List<Map<StoneType, Integer>> stoneMaps = stoneMaps(gameState);
+    for (Map.Entry<Integer, EnumMap<StoneType, Integer>> entry : this.stones.entrySet()) {
+      Map<StoneType, Integer> target = stoneMaps.get(entry.getKey());
+      target.clear();
+      target.putAll(entry.getValue());
+    }
+    for (ChatMessage message : this.chatMessages) {
+      gameState.getChat().writeMessage(message);
+    }
+    gameState.setRunning(this.running);
+    gameState.setPlayersTurn(this.playersTurn);
+    gameState.setStartingPlayer(this.startingPlayer);
+    gameState.setTurnNumber(this.turnNumber);
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      player.recalculateTotals();
+    }
+  }
+
+  /** Returns the decks and stacks of all levels, then the owned and reserved cards per player. */
+  private static List<List<Card>> cardLists(GameState gameState) {
+    List<List<Card>> lists = new ArrayList<>();
+    lists.add(gameState.getFirstCardDeck());
+    lists.add(gameState.getFirstCardStack());
+    lists.add(gameState.getSecondCardDeck());
+    lists.add(gameState.getSecondCardStack());
+    lists.add(gameState.getThirdCardDeck());
+    lists.add(gameState.getThirdCardStack());
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      lists.add(player.getOwnedCards());
+      lists.add(player.getReservedCards());
+    }
+    return lists;
+  }
+
+  /** Returns the noble deck, then the nobles per player. */
+  private static List<List<Noble>> nobleLists(GameState gameState) {
+    List<List<Noble>> lists = new ArrayList<>();
+    lists.add(gameState.getNobleDeck());
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      lists.add(player.getNobles());
+    }
+    return lists;
+  }
+
+  /** Returns the stone pool, then the inventory per player. */
+  private static List<Map<StoneType, Integer>> stoneMaps(GameState gameState) {
+    List<Map<StoneType, Integer>> maps = new ArrayList<>();
+    maps.add(gameState.getStonePool());
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      maps.add(player.getStoneInventory());
+    }
+    return maps;
+  }
+
+  /**
+   * Returns whether nothing but the turn fields may have changed.
+   *
+   * @return true if no list, stone map or chat changed
+   */
+  public boolean isEmpty() {
+    return this.cardSplices.isEmpty()
+        && this.nobleSplices.isEmpty()
+        && this.stones.isEmpty()
+        && this.chatMessages.isEmpty();
+  }
+
+  int getPlayerCount() {
+    return this.playerCount;
+  }
+
+  boolean isRunning() {
+    return this.running;
+  }
+
+  int getPlayersTurn() {
+    return this.playersTurn;
+  }
+
+  int getStartingPlayer() {
+    return this.startingPlayer;
+  }
+
+  int getTurnNumber() {
+    return this.turnNumber;
+  }
+
+  List<Splice<Card>> getCardSplices() {
+    return this.cardSplices;
+  }
+
+  List<Splice<Noble>> getNobleSplices() {
+    return this.nobleSplices;
+  }
+
+  Map<Integer, EnumMap<StoneType, Integer>> getStones() {
+    return this.stones;
+  }
+
+  List<ChatMessage> getChatMessages() {
+    return this.chatMessages;
+  }
+
+  /**
+   * Replacement of {@code removed} elements at {@code start} of one list by {@code inserted}.
+   *
+   * @param <T> the element type
+   */
+  static final class Splice<T> implements Serializable {
+
+    @Serial private static final long serialVersionUID = -6018457302986113573L;
+
+    final int list;
+    final int start;
+    final int removed;
+    final ArrayList<T> inserted;
+
+    Splice(int list, int start, int removed, ArrayList<T> inserted) {
+      this.list = list;
+      this.start = start;
+      this.removed = removed;
+      this.inserted = inserted;
+    }
+
+    private void applyTo(List<T> target) {
+      if (this.start + this.removed > target.size()) {
+        throw new IllegalStateException(
+            "Splice of " + this.removed + " at " + this.start + " in list of " + target.size());
+      }
+      target.subList(this.start, this.start + this.removed).clear();
+      target.addAll(this.start, this.inserted);
+    }
+  }
+}
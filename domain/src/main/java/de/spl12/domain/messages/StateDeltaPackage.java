@@ -0,0 +1,71 @@
+package de.spl12.domain.messages;
+
+import de.spl12.domain.moves.TurnStep;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Update of the game state sent by the server to every player of a session after an action. It
+ * carries only the {@link StateDelta} to the previous state and the sequence number of the new
+ * state. A receiver that missed a sequence number sends a {@link ResyncRequestPackage} and gets
+ * the full state in a {@link PlayerActionPackage}. An update caused by a {@link MovePackage} also
+ * carries the steps of the turn, so the receivers can animate them.
+ *
+ * @author luott
+ */
+public class StateDeltaPackage extends AbstractPackage {
+
+  private static final long serialVersionUID = 3871105593125484961L;
+  private final int SESSIONID;
+  private final int sequence;
+  private final StateDelta delta;
+  private final ArrayList<TurnStep> steps;
+
+  /**
+   * Constructs a new {@code StateDeltaPackage}.
+   *
+   * @param sessionId the ID of the game session
+   * @param sequence the sequence number of the state after the delta
+   * @param delta the changes to the state with the previous sequence number
+   */
+  public StateDeltaPackage(int sessionId, int sequence, StateDelta delta) {
+    this(sessionId, sequence, delta, List.of());
+  }
+
+  /**
+   * Constructs a new {@code StateDeltaPackage} for a turn.
+   *
+   * @param sessionId the ID of the game session
+   * @param sequence the sequence number of the state after the delta
+   * @param delta the changes to the state with the previous sequence number
+   * @param steps the steps of the turn that caused the changes
+   */
+  public StateDeltaPackage(int sessionId, int sequence, StateDelta delta, List<TurnStep> steps) {
+    this.SESSIONID = sessionId;
+    this.sequence = sequence;
+    this.delta = delta;
+    this.steps = new ArrayList<>(steps);
+  }
+
+  public int getSessionId() {
+    return this.SESSIONID;
+  }
+
+  public int getSequence() {
+    return this.sequence;
+  }
+
+  public StateDelta getDelta() {
+    return this.delta;
+  }
+
+  /**
+   * Returns the steps of the turn that caused the update.
+   *
+   * @return the steps, empty if the update was not caused by a turn
+   */
+  public List<TurnStep> getSteps() {
+    return Collections.unmodifiableList(this.steps);
+  }
+}
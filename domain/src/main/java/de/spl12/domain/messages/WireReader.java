@@ -0,0 +1,110 @@
+package de.spl12.domain.messages;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the primitive encodings of {@link WireWriter} from a buffer. Every read checks the
+ * remaining bytes, so truncated or malformed input ends in an {@link IOException} instead of
+ * unbounded allocations.
+ *
+ * @author luott
+ */
+final class WireReader {
+
+  /** Upper bound of every length read from the wire, far above anything a game needs. */
+  static final int MAX_LENGTH = 1 << 16;
+
+  private final ByteBuffer buffer;
+
+  WireReader(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  int readByte() throws IOException {
+    try {
+      return this.buffer.get() & 0xFF;
+    } catch (BufferUnderflowException e) {
+      throw new EOFException("Package ends unexpectedly");
+    }
+  }
+
+  boolean readBoolean() throws IOException {
+    int value = this.readByte();
+    if (value > 1) {
+      throw new IOException("Invalid boolean " + value);
+    }
+    return value == 1;
+  }
+
+  int readVarint() throws IOException {
+    long value = this.readVarint0(5);
+    if (value > Integer.MAX_VALUE) {
+      throw new IOException("Varint out of range");
+    }
+    return (int) value;
+  }
+
+  /** Reads a varint that is used as a length or count, at most {@link #MAX_LENGTH}. */
+  int readLength() throws IOException {
+    int length = this.readVarint();
+    if (length > MAX_LENGTH) {
+      throw new IOException("Length " + length + " exceeds " + MAX_LENGTH);
+    }
+    return length;
+  }
+
+  int readSignedVarint() throws IOException {
+    long zigzag = this.readVarint0(5);
+    if (zigzag > 0xFFFF_FFFFL) {
+      throw new IOException("Varint out of range");
+    }
+    int value = (int) zigzag;
+    return value >>> 1 ^ -(value & 1);
+  }
+
+  long readSignedVarlong() throws IOException {
+    long zigzag = this.readVarint0(10);
+    return zigzag >>> 1 ^ -(zigzag & 1);
+  }
+
+  private long readVarint0(int maxBytes) throws IOException {
+    long value = 0;
+    for (int i = 0; i < maxBytes; i++) {
+      int b = this.readByte();
+      value |= (long) (b & 0x7F) << 7 * i;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Varint too long");
+  }
+
+  double readDouble() throws IOException {
+    long bits = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+      bits |= (long) this.readByte() << shift;
+    }
+    return Double.longBitsToDouble(bits);
+  }
+
+  String readString() throws IOException {
+    int length = this.readLength();
+    if (length == 0) {
+      return null;
+    }
+    if (length - 1 > this.buffer.remaining()) {
+      throw new EOFException("Package ends unexpectedly");
+    }
+    byte[] utf8 = new byte[length - 1];
+    this.buffer.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  boolean hasRemaining() {
+    return this.buffer.hasRemaining();
+  }
+}
@@ -0,0 +1,111 @@
+package de.spl12.domain.messages;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with the primitive encodings of the binary wire format, see {@link
+ * PackageCodec}.
+ *
+ * <p>Non-negative integers are written as unsigned varints: seven bits per byte, least significant
+ * group first, the high bit set on all bytes but the last. Integers that may be negative are
+ * zigzag-encoded first, so that small magnitudes of both signs stay short.
+ *
+ * @author luott
+ */
+final class WireWriter {
+
+  private byte[] bytes;
+  private int size;
+
+  WireWriter() {
+    this(256);
+  }
+
+  WireWriter(int capacity) {
+    this.bytes = new byte[capacity];
+  }
+
+  private void ensure(int additional) {
+    if (this.size + additional > this.bytes.length) {
+      int capacity = Math.max(this.bytes.length * 2, this.size + additional);
+      this.bytes = Arrays.copyOf(this.bytes, capacity);
+    }
+  }
+
+  void writeByte(int value) {
+    this.ensure(1);
+    this.bytes[this.size++] = (byte) value;
+  }
+
+  void writeBoolean(boolean value) {
+    this.writeByte(value ? 1 : 0);
+  }
+
+  /** Writes a non-negative int in one to five bytes. */
+  void writeVarint(int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative varint " + value);
+    }
+    this.ensure(5);
+    while ((value & ~0x7F) != 0) {
+      this.bytes[this.size++] = (byte) (value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    this.bytes[this.size++] = (byte) value;
+  }
+
+  /** Writes any int, zigzag-encoded. */
+  void writeSignedVarint(int value) {
+    this.writeVarint0((value << 1 ^ value >> 31) & 0xFFFF_FFFFL);
+  }
+
+  /** Writes any long, zigzag-encoded, in one to ten bytes. */
+  void writeSignedVarlong(long value) {
+    this.writeVarint0(value << 1 ^ value >> 63);
+  }
+
+  private void writeVarint0(long value) {
+    this.ensure(10);
+    while ((value & ~0x7FL) != 0) {
+      this.bytes[this.size++] = (byte) (value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+    this.bytes[this.size++] = (byte) value;
+  }
+
+  void writeDouble(double value) {
+    long bits = Double.doubleToLongBits(value);
+    this.ensure(Long.BYTES);
+    for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+      this.bytes[this.size++] = (byte) (bits >>> shift);
+    }
+  }
+
+  /** Writes a string as its UTF-8 length plus one and its bytes; null as the single byte 0. */
+  void writeString(String value) {
+    if (value == null) {
+      this.writeVarint(0);
+      return;
+    }
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    this.writeVarint(utf8.length + 1);
+    this.ensure(utf8.length);
+    System.arraycopy(utf8, 0, this.bytes, this.size, utf8.length);
+    this.size += utf8.length;
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  byte[] toByteArray() {
+    return Arrays.copyOf(this.bytes, this.size);
+  }
+
+  /** Returns a read-only view of the written bytes, without copying them. */
+  ByteBuffer toByteBuffer() {
+    return ByteBuffer.wrap(this.bytes, 0, this.size).asReadOnlyBuffer();
+  }
+}
@@ -0,0 +1,228 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.StoneType;
+import java.util.Map;
+
+/**
+ * Checks which cards players can afford, for many cards at once.
+ *
+ * <p>Costs, bonuses and tokens of the five colors are packed into one {@code long} with one byte
+ * per color, indexed by {@link StoneType#ordinal()}. The gold a player has to add for a card is
+ * then calculated for all colors together with a few arithmetic operations on the packed words
+ * (SIMD within a register): a saturating subtraction of the bonuses from the cost, another one of
+ * the tokens from the rest, and a multiplication that sums up the five bytes. The scalar methods
+ * do the same color by color and serve as reference.
+ *
+ * <p>Every byte has to stay below 128, which holds for all bonuses and token counts of the game. As
+ * no card costs more than 7 of a color, the shortfall of all colors fits into the sum byte.
+ *
+ * @author luott
+ */
+public final class AffordabilityKernel {
+
+  private static final int COLORS = CompactGameState.COLORS;
+  private static final int LANE_BITS = 8;
+  private static final long HIGH_BITS = 0x0000_0080_8080_8080L;
+  private static final long LOW_BITS = 0x0000_0001_0101_0101L;
+  private static final int SUM_SHIFT = (COLORS - 1) * LANE_BITS;
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+
+  private static final long[] CARD_COSTS = new long[CardCatalog.CARD_COUNT];
+
+  static {
+    for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+      CARD_COSTS[id] = packCost(CardCatalog.getCard(id));
+    }
+  }
+
+  private AffordabilityKernel() {}
+
+  /**
+   * Returns the packed cost of a catalog card.
+   *
+   * @param cardId the catalog id of the card
+   * @return the cost per color
+   */
+  public static long cardCost(int cardId) {
+    return CARD_COSTS[cardId];
+  }
+
+  /**
+   * Returns the packed cost of a card, looked up for catalog cards and packed for other cards.
+   *
+   * @param card the card
+   * @return the cost per color
+   */
+  public static long cardCost(Card card) {
+    return card.getId() >= 0 ? CARD_COSTS[card.getId()] : packCost(card);
+  }
+
+  private static long packCost(Card card) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      packed |= (long) card.getCostOf(color) << color * LANE_BITS;
+    }
+    return packed;
+  }
+
+  /**
+   * Packs the color tokens of a stone map, e.g. the inventory of a player. Gold is ignored.
+   *
+   * @param stones the number of stones per type, missing types count as 0
+   * @return the packed colors
+   */
+  public static long pack(Map<StoneType, Integer> stones) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      Integer count = stones.get(STONE_TYPES[color]);
+      packed |= (long) (count == null ? 0 : count) << color * LANE_BITS;
+    }
+    return packed;
+  }
+
+  /**
+   * Packs the card bonuses of a player.
+   *
+   * @param player the player
+   * @return the packed bonuses
+   */
+  public static long packBonuses(AbstractPlayer player) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      packed |= (long) player.getBonusForType(STONE_TYPES[color]) << color * LANE_BITS;
+    }
+    return packed;
+  }
+
+  /**
+   * Packs the color tokens of a player of a compact state.
+   *
+   * @param state the state
+   * @param player the player index
+   * @return the packed tokens
+   */
+  public static long packTokens(CompactGameState state, int player) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      packed |= (long) state.getTokens(player, color) << color * LANE_BITS;
+    }
+    return packed;
+  }
+
+  /**
+   * Packs the card bonuses of a player of a compact state.
+   *
+   * @param state the state
+   * @param player the player index
+   * @return the packed bonuses
+   */
+  public static long packBonuses(CompactGameState state, int player) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      packed |= (long) state.getBonus(player, color) << color * LANE_BITS;
+    }
+    return packed;
+  }
+
+  /**
+   * Calculates the gold a player needs to buy a card: the sum over all colors of the cost that is
+   * neither covered by bonuses nor by tokens.
+   *
+   * @param cost the packed cost of the card
+   * @param bonuses the packed bonuses of the player
+   * @param tokens the packed color tokens of the player
+   * @return the gold shortfall, 0 if the tokens suffice
+   */
+  public static int shortfall(long cost, long bonuses, long tokens) {
+    long missing = subtractSaturated(subtractSaturated(cost, bonuses), tokens);
+    return (int) ((missing * LOW_BITS) >>> SUM_SHIFT) & 0xFF;
+  }
+
+  /**
+   * Color by color counterpart of {@link #shortfall(long, long, long)}.
+   *
+   * @param cost the packed cost of the card
+   * @param bonuses the packed bonuses of the player
+   * @param tokens the packed color tokens of the player
+   * @return the gold shortfall, 0 if the tokens suffice
+   */
+  public static int shortfallScalar(long cost, long bonuses, long tokens) {
+    int missing = 0;
+    for (int color = 0; color < COLORS; color++) {
+      int net = Math.max(0, lane(cost, color) - lane(bonuses, color));
+      missing += Math.max(0, net - lane(tokens, color));
+    }
+    return missing;
+  }
+
+  /**
+   * Checks a batch of cards against the wallet of one player.
+   *
+   * @param costs the packed costs of the cards, at most 32
+   * @param count the number of cards to check
+   * @param bonuses the packed bonuses of the player
+   * @param tokens the packed color tokens of the player
+   * @param gold the gold tokens of the player
+   * @param shortfalls receives the gold shortfall per card if not null
+   * @return a bitmask with bit {@code i} set if the player can afford card {@code i}
+   */
+  public static int affordableMask(
+      long[] costs, int count, long bonuses, long tokens, int gold, int[] shortfalls) {
+    int mask = 0;
+    for (int i = 0; i < count; i++) {
+      int missing = shortfall(costs[i], bonuses, tokens);
+      if (shortfalls != null) {
+        shortfalls[i] = missing;
+      }
+      if (missing <= gold) {
+        mask |= 1 << i;
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * Checks a batch of cards against the wallets of several players, e.g. to find the cards the
+   * opponents threaten to buy.
+   *
+   * @param costs the packed costs of the cards, at most 32
+   * @param count the number of cards to check
+   * @param bonuses the packed bonuses per player
+   * @param tokens the packed color tokens per player
+   * @param gold the gold tokens per player
+   * @param players the number of players to check
+   * @param masks receives the bitmask of affordable cards per player
+   */
+  public static void affordableMasks(
+      long[] costs,
+      int count,
+      long[] bonuses,
+      long[] tokens,
+      int[] gold,
+      int players,
+      int[] masks) {
+    for (int p = 0; p < players; p++) {
+      masks[p] = affordableMask(costs, count, bonuses[p], tokens[p], gold[p], null);
+    }
+  }
+
+  /**
+   * Subtracts every byte of {@code b} from the byte of {@code a}, with 0 instead of negative
+   * results. Setting the high bit of every byte of {@code a} first keeps a borrow from crossing
+   * into the next byte; the high bit of the difference then tells whether the byte was large
+   * enough.
+   */
+  private static long subtractSaturated(long a, long b) {
+    long difference = (a | HIGH_BITS) - b;
+    long notNegative = ((difference & HIGH_BITS) >>> (LANE_BITS - 1)) * 0xFF;
+    return difference & ~HIGH_BITS & notNegative;
+  }
+
+  private static int lane(long packed, int color) {
+    return (int) (packed >>> color * LANE_BITS) & 0xFF;
+  }
+}
@@ -0,0 +1,134 @@
+package de.spl12.domain.moves;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The tunable constants of the take move scoring of {@link MoveCalculationHelper} and of the HARD
+ * difficulty, as an immutable vector of weights.
+ *
+ * <p>The vector form lets a tuner perturb all weights at once, see {@link
+ * de.spl12.domain.simulation.WeightTuner}; {@link #DEFAULT} holds the hand-picked values.
+ *
+ * @author luott
+ */
+public final class HeuristicWeights implements Serializable {
+
+  @Serial private static final long serialVersionUID = -2817403862155094470L;
+
+  /** Penalty per token a take move forces the player to return. */
+  public static final int RETURN_PENALTY = 0;
+
+  /** Bonus per taken token for every token below 3 left in the pool. */
+  public static final int SCARCITY = 1;
+
+  /** Bonus per taken token, divided by the tokens of that color the player already has. */
+  public static final int URGENCY = 2;
+
+  /** Penalty per taken token for every token of that color the opponents hold. */
+  public static final int OPPONENT_PENALTY = 3;
+
+  /** Bonus per taken token the player still needs for its cheapest target card. */
+  public static final int TARGET_NEED = 4;
+
+  /** Prestige of an opponent from which on HARD reserves the card the opponent threatens to buy. */
+  public static final int BLOCK_PRESTIGE = 5;
+
+  public static final int SIZE = 6;
+
+  public static final List<String> NAMES =
+      List.of(
+          "returnPenalty",
+          "scarcity",
+          "urgency",
+          "opponentPenalty",
+          "targetNeed",
+          "blockPrestige");
+
+  public static final HeuristicWeights DEFAULT = new HeuristicWeights(1.5, 2.0, 1.2, 0.5, 3.5, 10);
+
+  private final double[] values;
+
+  private HeuristicWeights(double... values) {
+    this.values = values;
+  }
+
+  /**
+   * Creates weights from a vector in the order of {@link #NAMES}.
+   *
+   * @param values the weights
+   * @return the weights
+   */
+  public static HeuristicWeights of(double... values) {
+    if (values.length != SIZE) {
+      throw new IllegalArgumentException("Expected " + SIZE + " weights, got " + values.length);
+    }
+    return new HeuristicWeights(values.clone());
+  }
+
+  /**
+   * Returns one weight.
+   *
+   * @param index the index, e.g. {@link #RETURN_PENALTY}
+   * @return the weight
+   */
+  public double get(int index) {
+    return this.values[index];
+  }
+
+  /**
+   * Returns the weights as a vector in the order of {@link #NAMES}.
+   *
+   * @return a copy of the weights
+   */
+  public double[] toArray() {
+    return this.values.clone();
+  }
+
+  public double getReturnPenalty() {
+    return this.values[RETURN_PENALTY];
+  }
+
+  public double getScarcity() {
+    return this.values[SCARCITY];
+  }
+
+  public double getUrgency() {
+    return this.values[URGENCY];
+  }
+
+  public double getOpponentPenalty() {
+    return this.values[OPPONENT_PENALTY];
+  }
+
+  public double getTargetNeed() {
+    return this.values[TARGET_NEED];
+  }
+
+  public double getBlockPrestige() {
+    return this.values[BLOCK_PRESTIGE];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof HeuristicWeights other && Arrays.equals(this.values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.values);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < SIZE; i++) {
+      builder.append(i == 0 ? "" : ", ").append(NAMES.get(i)).append('=');
+      builder.append(String.format(Locale.ROOT, "%.3f", this.values[i]));
+    }
+    return builder.toString();
+  }
+}
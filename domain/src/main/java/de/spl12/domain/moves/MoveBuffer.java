@@ -0,0 +1,71 @@
+package de.spl12.domain.moves;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, growable buffer of packed moves (see {@link PackedMove}). A search keeps one buffer
+ * per ply and clears it instead of allocating new lists at every node.
+ *
+ * @author luott
+ */
+public final class MoveBuffer {
+
+  private int[] moves;
+  private int size;
+
+  public MoveBuffer() {
+    this(256);
+  }
+
+  public MoveBuffer(int capacity) {
+    this.moves = new int[Math.max(1, capacity)];
+  }
+
+  public void add(int move) {
+    if (this.size == this.moves.length) {
+      this.moves = Arrays.copyOf(this.moves, this.moves.length * 2);
+    }
+    this.moves[this.size++] = move;
+  }
+
+  public int get(int index) {
+    return this.moves[index];
+  }
+
+  public void set(int index, int move) {
+    this.moves[index] = move;
+  }
+
+  /**
+   * Swaps two moves, e.g. to bring the best move of a previous search to the front.
+   *
+   * @param first the index of the first move
+   * @param second the index of the second move
+   */
+  public void swap(int first, int second) {
+    int move = this.moves[first];
+    this.moves[first] = this.moves[second];
+    this.moves[second] = move;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public void clear() {
+    this.size = 0;
+  }
+
+  /**
+   * Returns a copy of the buffered moves.
+   *
+   * @return a new array holding exactly the buffered moves
+   */
+  public int[] toArray() {
+    return Arrays.copyOf(this.moves, this.size);
+  }
+}
@@ -11,6 +11,7 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -26,12 +27,24 @@ import java.util.stream.Collectors;
  *   <li>Finding high-value cards that opponents are likely to purchase soon
  * </ul>
  *
- * <p>Used by {@link de.spl12.domain.AiPlayer} to implement adaptive move decisions.
+ * <p>Used by {@link de.spl12.domain.AiPlayer} to implement adaptive move decisions. The scoring
+ * functions also accept a {@link PositionAnalysis}, which computes the features of a position once
+ * for all moves and decisions of a turn.
  *
  * @author lmelodia
  */
 public class MoveCalculationHelper {
 
+  /** Prestige from which a buyer is in the middle and in the late phase of the game. */
+  private static final int MID_PRESTIGE = 5;
+  private static final int LATE_PRESTIGE = 10;
+
+  /** Weight of the prestige of a bought card, by the phase of the buyer. */
+  private static final double[] BUY_POINT_WEIGHTS = {5, 10, 15};
+
+  /** Weight of the level-3 demand of the bonus of a bought card, by the phase of the buyer. */
+  private static final double[] BUY_BONUS_WEIGHTS = {3, 1, 1};
+
   /**
    * Computes the total required tokens and their frequency across all level-3 cards.
    *
@@ -202,20 +215,31 @@ public class MoveCalculationHelper {
    */
   public static List<BuyMove> calculateBestBuyMovesSorted(
       List<? extends AbstractMove> buyMoves, Map<StoneType, Integer> totalSum, int playerPoints) {
+    return sortBuyMoves(buyMoves, bonus -> totalSum.getOrDefault(bonus, 0), playerPoints);
+  }
 
-    double pointWeight;
-    double bonusWeight;
-
-    if (playerPoints < 5) {
-      pointWeight = 5;
-      bonusWeight = 3;
-    } else if (playerPoints < 10) {
-      pointWeight = 10;
-      bonusWeight = 1;
-    } else {
-      pointWeight = 15;
-      bonusWeight = 1;
-    }
+  /**
+   * Sorts BuyMoves of the current player based on prestige points and the level-3 demand of their
+   * bonus.
+   *
+   * @param buyMoves list of potential buy moves
+   * @param analysis the analysis of the position
+   * @return a sorted list of BuyMoves, from best to worst
+   */
+  public static List<BuyMove> calculateBestBuyMovesSorted(
+      List<? extends AbstractMove> buyMoves, PositionAnalysis analysis) {
+    return sortBuyMoves(
+        buyMoves, analysis::getDemand, analysis.getPrestige(analysis.getCurrentSeat()));
+  }
+
+  private static List<BuyMove> sortBuyMoves(
+      List<? extends AbstractMove> buyMoves,
+      ToIntFunction<StoneType> importance,
+      int playerPoints) {
+
+    int phase = playerPoints < MID_PRESTIGE ? 0 : playerPoints < LATE_PRESTIGE ? 1 : 2;
+    double pointWeight = BUY_POINT_WEIGHTS[phase];
+    double bonusWeight = BUY_BONUS_WEIGHTS[phase];
 
     List<ScoredBuyMove> scored = new ArrayList<>();
 
@@ -226,7 +250,7 @@ public class MoveCalculationHelper {
 
       int points = card.getPrestigePoints();
       StoneType bonus = card.getBonus();
-      int bonusImportance = totalSum.getOrDefault(bonus, 0);
+      int bonusImportance = importance.applyAsInt(bonus);
       double score = (points * pointWeight) + (bonusImportance * bonusWeight);
       scored.add(new ScoredBuyMove(buyMove, score));
     }
@@ -246,40 +270,14 @@ public class MoveCalculationHelper {
   }
 
   /**
-   * Identifies a high-prestige card that another player may soon purchase.
+   * Identifies a high-prestige card that another player may soon purchase. Callers that already
+   * have a {@link PositionAnalysis} use {@link PositionAnalysis#getThreatCard()} instead.
    *
    * @param gameState the current game state
    * @return a blockable high-point card or null if none found
    */
   public static Card findBlockableHighPointCard(GameState gameState) {
-    int myIndex = gameState.getPlayersTurn();
-    List<List<Card>> tableDecks =
-        List.of(
-            gameState.getFirstCardDeck(),
-            gameState.getSecondCardDeck(),
-            gameState.getThirdCardDeck());
-
-    for (int i = 0; i < gameState.getPlayers().size(); i++) {
-      if (i == myIndex) continue;
-      AbstractPlayer opponent = gameState.getPlayers().get(i);
-
-      Map<StoneType, Integer> discounts = new EnumMap<>(StoneType.class);
-      opponent.getOwnedCards().forEach(c -> discounts.merge(c.getBonus(), 1, Integer::sum));
-
-      Map<StoneType, Integer> tokens = opponent.getStoneInventory();
-
-      for (List<Card> deck : tableDecks) {
-        for (Card card : deck) {
-          if (card == null || card.getPrestigePoints() <= 3) continue;
-          Map<StoneType, Integer> used = MoveGenerator.getTokensUsedToBuy(card, tokens, discounts);
-          if (used != null) {
-            return card;
-          }
-        }
-      }
-    }
-
-    return null;
+    return PositionAnalysis.of(gameState).getThreatCard();
   }
 
   /**
@@ -295,9 +293,7 @@ public class MoveCalculationHelper {
       if (card == null) continue;
       for (Map.Entry<StoneType, Integer> entry : card.getCost().entrySet()) {
         int owned = player.getStoneInventory().getOrDefault(entry.getKey(), 0);
-        int bonus =
-            (int)
-                player.getOwnedCards().stream().filter(c -> c.getBonus() == entry.getKey()).count();
+        int bonus = player.getBonusForType(entry.getKey());
         int covered = owned + bonus;
         int remaining = Math.max(entry.getValue() - covered, 0);
         needs.merge(entry.getKey(), remaining, Integer::sum);
@@ -326,15 +322,6 @@ public class MoveCalculationHelper {
       List<AbstractPlayer> players,
       Map<StoneType, Integer> stonePool) {
 
-    TakeMove best = null;
-    double bestScore = Double.NEGATIVE_INFINITY;
-
-    final double returnPenaltyFactor = 1.5;
-    final double scarcityFactor = 2.0;
-    final double urgencyFactor = 1.2;
-    final double opponentPenaltyFactor = 0.5;
-    final double targetNeedWeight = 3.5;
-
     Map<StoneType, Integer> oppInventory = new EnumMap<>(StoneType.class);
     for (AbstractPlayer p : players) {
       for (Map.Entry<StoneType, Integer> e : p.getStoneInventory().entrySet()) {
@@ -344,6 +331,72 @@ public class MoveCalculationHelper {
 
     Map<StoneType, Integer> targetNeeds = calculateTargetStoneNeeds(player);
 
+    return selectTakeMove(
+        takeMoves,
+        type -> totalSum.getOrDefault(type, 0),
+        type -> inventory.getOrDefault(type, 0),
+        type -> oppInventory.getOrDefault(type, 0),
+        type -> targetNeeds.getOrDefault(type, 0),
+        type -> stonePool.getOrDefault(type, 0),
+        HeuristicWeights.DEFAULT);
+  }
+
+  /**
+   * Selects the most valuable TakeMove of the current player based on token demand, scarcity,
+   * urgency, and strategy.
+   *
+   * @param takeMoves all available take moves
+   * @param analysis the analysis of the position
+   * @return the best TakeMove or null if none are suitable
+   */
+  public static TakeMove calculateBestTakeMove(
+      List<AbstractMove> takeMoves, PositionAnalysis analysis) {
+    return calculateBestTakeMove(takeMoves, analysis, HeuristicWeights.DEFAULT);
+  }
+
+  /**
+   * Selects the most valuable TakeMove of the current player with the given weights.
+   *
+   * @param takeMoves all available take moves
+   * @param analysis the analysis of the position
+   * @param weights the weights of the scoring
+   * @return the best TakeMove or null if none are suitable
+   */
+  public static TakeMove calculateBestTakeMove(
+      List<AbstractMove> takeMoves, PositionAnalysis analysis, HeuristicWeights weights) {
+    int seat = analysis.getCurrentSeat();
+    return selectTakeMove(
+        takeMoves,
+        analysis::getDemand,
+        type -> analysis.getTokens(seat, type),
+        analysis::getTokenTotal,
+        analysis::getTargetNeed,
+        analysis::getPool,
+        weights);
+  }
+
+  /**
+   * Scores the take moves; {@code allTokens} counts the tokens of all players including the
+   * current one.
+   */
+  private static TakeMove selectTakeMove(
+      List<AbstractMove> takeMoves,
+      ToIntFunction<StoneType> importanceOf,
+      ToIntFunction<StoneType> inventory,
+      ToIntFunction<StoneType> allTokens,
+      ToIntFunction<StoneType> targetNeeds,
+      ToIntFunction<StoneType> stonePool,
+      HeuristicWeights weights) {
+
+    TakeMove best = null;
+    double bestScore = Double.NEGATIVE_INFINITY;
+
+    final double returnPenaltyFactor = weights.getReturnPenalty();
+    final double scarcityFactor = weights.getScarcity();
+    final double urgencyFactor = weights.getUrgency();
+    final double opponentPenaltyFactor = weights.getOpponentPenalty();
+    final double targetNeedWeight = weights.getTargetNeed();
+
     for (AbstractMove move : takeMoves) {
       if (!(move instanceof TakeMove takeMove)) continue;
       double score = 0;
@@ -352,11 +405,11 @@ public class MoveCalculationHelper {
         StoneType type = entry.getKey();
         int count = entry.getValue();
 
-        int importance = totalSum.getOrDefault(type, 0);
-        int current = inventory.getOrDefault(type, 0);
-        int poolLeft = stonePool.getOrDefault(type, 0);
-        int opponentCount = oppInventory.getOrDefault(type, 0) - current;
-        int targetNeed = targetNeeds.getOrDefault(type, 0);
+        int importance = importanceOf.applyAsInt(type);
+        int current = inventory.applyAsInt(type);
+        int poolLeft = stonePool.applyAsInt(type);
+        int opponentCount = allTokens.applyAsInt(type) - current;
+        int targetNeed = targetNeeds.applyAsInt(type);
 
         score += importance * count;
         score += urgencyFactor * count / (current + 1.0);
@@ -0,0 +1,29 @@
+package de.spl12.domain.moves;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The kinds of moves the {@link MoveGenerator} can enumerate, in the order it generates them.
+ *
+ * @author luott
+ */
+public enum MoveCategory {
+  /** Taking three tokens of different colors. */
+  TAKE_THREE,
+  /** Taking two tokens of one color. */
+  TAKE_TWO,
+  /** Reserving a visible card. */
+  RESERVE,
+  /** Buying a visible or reserved card. */
+  BUY;
+
+  /** All categories, unmodifiable as the set is shared by all callers. */
+  public static final Set<MoveCategory> ALL =
+      Collections.unmodifiableSet(EnumSet.allOf(MoveCategory.class));
+
+  /** Both kinds of take moves, unmodifiable as the set is shared by all callers. */
+  public static final Set<MoveCategory> TAKE =
+      Collections.unmodifiableSet(EnumSet.of(TAKE_THREE, TAKE_TWO));
+}
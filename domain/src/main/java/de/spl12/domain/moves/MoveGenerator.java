@@ -6,17 +6,32 @@ import de.spl12.domain.GameState;
 import de.spl12.domain.StoneType;
 import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * MoveGenerator is a utility class that generates possible moves for the current game state. It
  * provides methods to generate moves for taking stones, reserving cards, and buying cards.
  *
+ * <p>Besides the complete move lists, the moves can be enumerated lazily with {@link
+ * #forEachMove(GameState, Set, MoveVisitor)} or searched with {@link #findFirst(GameState, Set,
+ * Predicate)}, restricted to some {@link MoveCategory categories}. Both stop as soon as the wanted
+ * move is found.
+ *
  * @author luott
  */
 public class MoveGenerator {
 
+  private static final StoneType[] COLORS = {
+    StoneType.WHITE, StoneType.BLUE, StoneType.GREEN, StoneType.RED, StoneType.BLACK
+  };
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+  private static final int MAX_TOKENS = 10;
+
   /**
    * Calculates all possible legal moves for the current player based on the game state.
    *
@@ -24,13 +39,7 @@ public class MoveGenerator {
    * @return A list of all possible AbstractMove instances the current player can perform
    */
   public static ArrayList<AbstractMove> generateAllPossibleMoves(GameState gameState) {
-    ArrayList<AbstractMove> possibleMoves = new ArrayList<>();
-
-    possibleMoves.addAll(generateTakeMoves(gameState));
-    possibleMoves.addAll(generateReserveMoves(gameState));
-    possibleMoves.addAll(generateBuyMoves(gameState));
-
-    return possibleMoves;
+    return collect(gameState, MoveCategory.ALL);
   }
 
   /**
@@ -41,41 +50,9 @@ public class MoveGenerator {
    * @return A collection of legal BuyMove objects
    */
   public static ArrayList<AbstractMove> generateBuyMoves(GameState gameState) {
-    ArrayList<AbstractMove> moves = new ArrayList<>();
-    AbstractPlayer player = gameState.getPlayers().get(gameState.getPlayersTurn());
-    Map<StoneType, Integer> playerTokens = player.getStoneInventory();
-
-    Map<StoneType, Integer> discounts = new EnumMap<>(StoneType.class);
-    player.getOwnedCards().forEach(card -> {
-      StoneType bonus = card.getBonus();
-      discounts.put(bonus, discounts.getOrDefault(bonus, 0) + 1);
-    });
-
-    List<List<Card>> tableCards = List.of(gameState.getFirstCardDeck(),
-        gameState.getSecondCardDeck(), gameState.getThirdCardDeck());
-
-    for (List<Card> deck : tableCards) {
-      for (Card card : deck) {
-        if (card == null) {
-          continue;
-        }
-        Map<StoneType, Integer> tokensUsed = getTokensUsedToBuy(card, playerTokens, discounts);
-        if (tokensUsed != null) {
-          moves.add(new BuyMove(tokensUsed, card));
-        }
-      }
-    }
-
-    for (Card reserved : player.getReservedCards()) {
-      Map<StoneType, Integer> tokensUsed = getTokensUsedToBuy(reserved, playerTokens, discounts);
-      if (tokensUsed != null) {
-        moves.add(new BuyMove(tokensUsed, reserved));
-      }
-    }
-    return moves;
+    return collect(gameState, EnumSet.of(MoveCategory.BUY));
   }
 
-
   /**
    * Generates all legal ReserveMove instances for the current player, taking into account token
    * limits and gold availability.
@@ -84,63 +61,9 @@ public class MoveGenerator {
    * @return A collection of legal ReserveMove objects
    */
   public static ArrayList<AbstractMove> generateReserveMoves(GameState gameState) {
-    ArrayList<AbstractMove> moves = new ArrayList<>();
-    AbstractPlayer player = gameState.getPlayers().get(gameState.getPlayersTurn());
-
-    if (player.getReservedCards().size() >= 3) {
-      return moves;
-    }
-
-    Map<StoneType, Integer> playerTokens = player.getStoneInventory();
-    Map<StoneType, Integer> bank = gameState.getStonePool();
-
-    boolean takeGold = bank.getOrDefault(StoneType.GOLD, 0) > 0;
-    int totalTokens = player.getTotalStones();
-    int tokensTaken = takeGold ? 1 : 0;
-    int requiredReturn = Math.max(0, totalTokens + tokensTaken - 10);
-
-    List<List<Card>> allDecks = List.of(gameState.getFirstCardDeck(), gameState.getSecondCardDeck(),
-        gameState.getThirdCardDeck());
-
-    for (List<Card> deck : allDecks) {
-      for (Card card : deck) {
-        if (requiredReturn == 0) {
-          // No return needed – simple reserve move
-          moves.add(new ReserveMove(card, takeGold, 0));
-        } else {
-          // Prepare full inventory including taken gold (if applicable)
-          Map<StoneType, Integer> fullInventory = new EnumMap<>(StoneType.class);
-          for (StoneType type : StoneType.values()) {
-            int count = playerTokens.getOrDefault(type, 0);
-            if (takeGold && type == StoneType.GOLD) {
-              count += 1;
-            }
-            if (count > 0) {
-              fullInventory.put(type, count);
-            }
-          }
-
-          List<Map<StoneType, Integer>> returnCombinations = generateTokenReturnCombinations(
-              fullInventory, requiredReturn);
-          for (Map<StoneType, Integer> ret : returnCombinations) {
-            ReserveMove move = new ReserveMove(card, takeGold, requiredReturn);
-            ArrayList<StoneType> returnTokens = new ArrayList<>();
-            for (Map.Entry<StoneType, Integer> e : ret.entrySet()) {
-              for (int i = 0; i < e.getValue(); i++) {
-                returnTokens.add(e.getKey());
-              }
-            }
-            move.setTokensToReturn(returnTokens);
-            moves.add(move);
-          }
-        }
-      }
-    }
-
-    return moves;
+    return collect(gameState, EnumSet.of(MoveCategory.RESERVE));
   }
 
-
   /**
    * Generates all legal TakeMove instances for the current player, including both 3-different and
    * 2-same gem moves within token limits.
@@ -149,117 +72,233 @@ public class MoveGenerator {
    * @return A list of legal TakeMove objects
    */
   public static ArrayList<AbstractMove> generateTakeMoves(GameState gameState) {
+    return collect(gameState, MoveCategory.TAKE);
+  }
+
+  /**
+   * Collects all legal moves of the given categories.
+   *
+   * @param gameState The current game state
+   * @param categories The categories of moves to generate
+   * @return A list of the moves in generation order
+   */
+  public static ArrayList<AbstractMove> collect(
+      GameState gameState, Set<MoveCategory> categories) {
     ArrayList<AbstractMove> moves = new ArrayList<>();
-    AbstractPlayer player = gameState.getPlayers().get(gameState.getPlayersTurn());
-    Map<StoneType, Integer> bank = gameState.getStonePool();
-    Map<StoneType, Integer> playerTokens = player.getStoneInventory();
+    forEachMove(gameState, categories, moves::add);
+    return moves;
+  }
 
-    int totalTokens = player.getTotalStones();
+  /**
+   * Returns the first legal move of the given categories that matches the predicate. Moves are
+   * created one by one and the enumeration stops at the first match, so no move list and no
+   * further return combinations are built.
+   *
+   * @param gameState The current game state
+   * @param categories The categories of moves to search
+   * @param predicate The condition the move has to fulfill
+   * @return The first matching move in generation order, or an empty Optional
+   */
+  public static Optional<AbstractMove> findFirst(
+      GameState gameState, Set<MoveCategory> categories, Predicate<AbstractMove> predicate) {
+    AbstractMove[] found = new AbstractMove[1];
+    forEachMove(
+        gameState,
+        categories,
+        move -> {
+          if (predicate.test(move)) {
+            found[0] = move;
+            return false;
+          }
+          return true;
+        });
+    return Optional.ofNullable(found[0]);
+  }
 
-    // Filter colors with at least 1 in the bank (excluding GOLD)
-    List<StoneType> availableColors = bank.keySet().stream()
-        .filter(t -> t != StoneType.GOLD && bank.get(t) > 0).toList();
+  /**
+   * Enumerates the legal moves of the current player lazily: every move is created right before
+   * it is passed to the visitor, and the enumeration ends as soon as the visitor returns false.
+   * The categories are enumerated in the order of {@link MoveCategory}, colors in the order of
+   * {@link StoneType}, cards in table order followed by the reserved cards.
+   *
+   * @param gameState The current game state
+   * @param categories The categories of moves to enumerate
+   * @param visitor The visitor receiving the moves
+   * @return true if all moves were visited, false if the visitor stopped the enumeration
+   */
+  public static boolean forEachMove(
+      GameState gameState, Set<MoveCategory> categories, MoveVisitor visitor) {
+    AbstractPlayer player = gameState.getPlayers().get(gameState.getPlayersTurn());
+    return (!categories.contains(MoveCategory.TAKE_THREE)
+            || visitTakeThreeMoves(gameState, player, visitor))
+        && (!categories.contains(MoveCategory.TAKE_TWO)
+            || visitTakeTwoMoves(gameState, player, visitor))
+        && (!categories.contains(MoveCategory.RESERVE)
+            || visitReserveMoves(gameState, player, visitor))
+        && (!categories.contains(MoveCategory.BUY) || visitBuyMoves(gameState, player, visitor));
+  }
 
-    // Handle 3-different-color move
-    if (availableColors.size() >= 3) {
-      for (int i = 0; i < availableColors.size(); i++) {
-        for (int j = i + 1; j < availableColors.size(); j++) {
-          for (int k = j + 1; k < availableColors.size(); k++) {
-            Map<StoneType, Integer> gems = Map.of(availableColors.get(i), 1, availableColors.get(j),
-                1, availableColors.get(k), 1);
-            int tokensTaken = 3;
-            int requiredReturn = Math.max(0, (totalTokens + tokensTaken) - 10);
-            moves.addAll(createTakeMovesWithReturns(playerTokens, gems, requiredReturn));
+  private static boolean visitTakeThreeMoves(
+      GameState gameState, AbstractPlayer player, MoveVisitor visitor) {
+    Map<StoneType, Integer> bank = gameState.getStonePool();
+    List<StoneType> availableColors = new ArrayList<>(COLORS.length);
+    for (StoneType color : COLORS) {
+      if (bank.getOrDefault(color, 0) > 0) {
+        availableColors.add(color);
+      }
+    }
+    if (availableColors.size() < 3) {
+      return true;
+    }
+    for (int i = 0; i < availableColors.size(); i++) {
+      for (int j = i + 1; j < availableColors.size(); j++) {
+        for (int k = j + 1; k < availableColors.size(); k++) {
+          Map<StoneType, Integer> gems = Map.of(availableColors.get(i), 1, availableColors.get(j),
+              1, availableColors.get(k), 1);
+          if (!visitTakeMoves(player, gems, 3, visitor)) {
+            return false;
           }
         }
       }
     }
+    return true;
+  }
 
-    // Handle 2-of-same-color move
-    for (StoneType color : availableColors) {
-      if (bank.get(color) >= 4) {
-        Map<StoneType, Integer> gems = Map.of(color, 2);
-        int tokensTaken = 2;
-        int requiredReturn = Math.max(0, (totalTokens + tokensTaken) - 10);
-        moves.addAll(createTakeMovesWithReturns(playerTokens, gems, requiredReturn));
+  private static boolean visitTakeTwoMoves(
+      GameState gameState, AbstractPlayer player, MoveVisitor visitor) {
+    Map<StoneType, Integer> bank = gameState.getStonePool();
+    for (StoneType color : COLORS) {
+      if (bank.getOrDefault(color, 0) >= 4
+          && !visitTakeMoves(player, Map.of(color, 2), 2, visitor)) {
+        return false;
       }
     }
-    return moves;
+    return true;
   }
 
   /**
-   * Helper method. Creates TakeMove instances with the specified tokens and return requirements.
-   *
-   * @param currentInventory The player's current token inventory
-   * @param taken            The tokens taken in the move
-   * @param requiredReturn   The number of tokens that need to be returned
-   * @return A list of TakeMove instances with the specified tokens and return requirements
+   * Visits a take move, or one variant per combination of tokens to return if the player would
+   * exceed the token limit.
    */
-  private static List<AbstractMove> createTakeMovesWithReturns(
-      Map<StoneType, Integer> currentInventory, Map<StoneType, Integer> taken, int requiredReturn) {
-    List<AbstractMove> moves = new ArrayList<>();
-
+  private static boolean visitTakeMoves(
+      AbstractPlayer player, Map<StoneType, Integer> taken, int tokensTaken, MoveVisitor visitor) {
+    int requiredReturn = Math.max(0, player.getTotalStones() + tokensTaken - MAX_TOKENS);
     if (requiredReturn == 0) {
-      moves.add(new TakeMove(taken, 0));
-      return moves;
+      return visitor.visit(new TakeMove(taken, 0));
+    }
+    int[] inventory = inventoryOf(player);
+    for (Map.Entry<StoneType, Integer> entry : taken.entrySet()) {
+      inventory[entry.getKey().ordinal()] += entry.getValue();
     }
+    for (int returnBits : TokenReturnTable.lookup(inventory, requiredReturn)) {
+      TakeMove move = new TakeMove(taken, requiredReturn);
+      move.setTokensToReturn(toStoneTypes(returnBits, requiredReturn));
+      if (!visitor.visit(move)) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    // Combine currentInventory + taken to get the total inventory for return selection
-    Map<StoneType, Integer> fullInventory = new EnumMap<>(StoneType.class);
-    for (StoneType type : StoneType.values()) {
-      int count = currentInventory.getOrDefault(type, 0) + taken.getOrDefault(type, 0);
-      if (count > 0) {
-        fullInventory.put(type, count);
+  private static boolean visitReserveMoves(
+      GameState gameState, AbstractPlayer player, MoveVisitor visitor) {
+    if (player.getReservedCards().size() >= 3) {
+      return true;
+    }
+
+    boolean takeGold = gameState.getStonePool().getOrDefault(StoneType.GOLD, 0) > 0;
+    int tokensTaken = takeGold ? 1 : 0;
+    int requiredReturn = Math.max(0, player.getTotalStones() + tokensTaken - MAX_TOKENS);
+    int[] returnCombinations = {0};
+    if (requiredReturn > 0) {
+      // Full inventory including the taken gold (if applicable)
+      int[] inventory = inventoryOf(player);
+      inventory[StoneType.GOLD.ordinal()] += tokensTaken;
+      returnCombinations = TokenReturnTable.lookup(inventory, requiredReturn);
+    }
+
+    for (List<Card> deck : tableDecks(gameState)) {
+      for (Card card : deck) {
+        if (card == null) {
+          continue;
+        }
+        for (int returnBits : returnCombinations) {
+          ReserveMove move = new ReserveMove(card, takeGold, requiredReturn);
+          move.setTokensToReturn(toStoneTypes(returnBits, requiredReturn));
+          if (!visitor.visit(move)) {
+            return false;
+          }
+        }
       }
     }
+    return true;
+  }
 
-    List<Map<StoneType, Integer>> returnCombinations = generateTokenReturnCombinations(
-        fullInventory, requiredReturn);
+  private static boolean visitBuyMoves(
+      GameState gameState, AbstractPlayer player, MoveVisitor visitor) {
+    Map<StoneType, Integer> playerTokens = player.getStoneInventory();
+    long bonuses = AffordabilityKernel.packBonuses(player);
+    long tokens = AffordabilityKernel.pack(playerTokens);
+    int gold = playerTokens.getOrDefault(StoneType.GOLD, 0);
 
-    for (Map<StoneType, Integer> ret : returnCombinations) {
-      TakeMove move = new TakeMove(taken, requiredReturn);
-      ArrayList<StoneType> returnTokens = new ArrayList<>();
-      for (Map.Entry<StoneType, Integer> e : ret.entrySet()) {
-        for (int i = 0; i < e.getValue(); i++) {
-          returnTokens.add(e.getKey());
+    for (List<Card> deck : tableDecks(gameState)) {
+      for (Card card : deck) {
+        if (card != null
+            && canAfford(card, bonuses, tokens, gold)
+            && !visitor.visit(
+                new BuyMove(getTokensUsedToBuy(card, playerTokens, player), card))) {
+          return false;
         }
       }
-      move.setTokensToReturn(returnTokens);
-      moves.add(move);
     }
+    for (Card reserved : player.getReservedCards()) {
+      if (canAfford(reserved, bonuses, tokens, gold)
+          && !visitor.visit(
+              new BuyMove(getTokensUsedToBuy(reserved, playerTokens, player), reserved))) {
+        return false;
+      }
+    }
+    return true;
+  }
 
-    return moves;
+  /**
+   * Checks with the {@link AffordabilityKernel} whether a card is affordable, which is cheaper than
+   * calculating the tokens used to buy it.
+   */
+  private static boolean canAfford(Card card, long bonuses, long tokens, int gold) {
+    long cost = AffordabilityKernel.cardCost(card);
+    return AffordabilityKernel.shortfall(cost, bonuses, tokens) <= gold;
   }
 
-  private static List<Map<StoneType, Integer>> generateTokenReturnCombinations(
-      Map<StoneType, Integer> inventory, int count) {
-    List<Map<StoneType, Integer>> results = new ArrayList<>();
-    backtrackReturnCombinations(new ArrayList<>(inventory.keySet()), inventory, 0, count,
-        new EnumMap<>(StoneType.class), results);
-    return results;
+  private static List<List<Card>> tableDecks(GameState gameState) {
+    return List.of(gameState.getFirstCardDeck(), gameState.getSecondCardDeck(),
+        gameState.getThirdCardDeck());
   }
 
-  private static void backtrackReturnCombinations(List<StoneType> types,
-      Map<StoneType, Integer> inventory, int index, int tokensLeft, Map<StoneType, Integer> current,
-      List<Map<StoneType, Integer>> results) {
-    if (tokensLeft == 0) {
-      results.add(new EnumMap<>(current));
-      return;
-    }
-    if (index >= types.size()) {
-      return;
+  private static int[] inventoryOf(AbstractPlayer player) {
+    int[] inventory = new int[STONE_TYPES.length];
+    for (StoneType type : STONE_TYPES) {
+      inventory[type.ordinal()] = player.getStoneInventory().getOrDefault(type, 0);
     }
+    return inventory;
+  }
 
-    StoneType type = types.get(index);
-    int maxAvailable = Math.min(tokensLeft, inventory.get(type));
-    for (int i = 0; i <= maxAvailable; i++) {
-      if (i > 0) {
-        current.put(type, i);
-      } else {
-        current.remove(type);
+  /**
+   * Helper method. Turns a combination of the {@link TokenReturnTable} into the list of stone types
+   * to return.
+   *
+   * @param returnBits The packed return counts per stone type
+   * @param count      The number of tokens that are returned
+   * @return The stone types to return, one entry per token
+   */
+  private static ArrayList<StoneType> toStoneTypes(int returnBits, int count) {
+    ArrayList<StoneType> returnTokens = new ArrayList<>(count);
+    for (StoneType type : STONE_TYPES) {
+      for (int i = 0; i < ((returnBits >>> (2 * type.ordinal())) & 0x3); i++) {
+        returnTokens.add(type);
       }
-      backtrackReturnCombinations(types, inventory, index + 1, tokensLeft - i, current, results);
     }
+    return returnTokens;
   }
 
 
@@ -269,12 +308,12 @@ public class MoveGenerator {
    *
    * @param card         The card being considered for purchase
    * @param playerTokens The player's available tokens
-   * @param discounts    The player's token discounts from owned cards
+   * @param owner        The player whose card bonuses reduce the cost
    * @return A token map indicating the exact tokens used to purchase the card, or null if not
    * affordable
    */
   protected static Map<StoneType, Integer> getTokensUsedToBuy(Card card,
-      Map<StoneType, Integer> playerTokens, Map<StoneType, Integer> discounts) {
+      Map<StoneType, Integer> playerTokens, AbstractPlayer owner) {
     Map<StoneType, Integer> cost = card.getCost();
     Map<StoneType, Integer> tokensUsed = new EnumMap<>(StoneType.class);
     int totalGoldNeeded = 0;
@@ -285,7 +324,7 @@ public class MoveGenerator {
       }
 
       int price = cost.getOrDefault(type, 0);
-      int discount = discounts.getOrDefault(type, 0);
+      int discount = owner.getBonusForType(type);
       int netCost = Math.max(0, price - discount);
       int tokens = playerTokens.getOrDefault(type, 0);
 
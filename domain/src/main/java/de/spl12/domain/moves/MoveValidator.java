@@ -0,0 +1,186 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.Exceptions.ActionNotPossibleException;
+import de.spl12.domain.Exceptions.IllegalMoveCombinationException;
+import de.spl12.domain.Exceptions.NotYourTurnException;
+import de.spl12.domain.GameState;
+import de.spl12.domain.StoneType;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks complete turns submitted by players against the rules before they are applied with
+ * {@link GameState#apply(AbstractMove)}.
+ *
+ * <p>The action of a move is legal if the {@link MoveGenerator} generates the same action for the
+ * current player: the same tokens taken, the same card reserved with or without gold, or the same
+ * card bought with the same payment. Taking one token of each color when fewer than three colors
+ * are left and reserving the top card of a stack are also allowed, which the generator does not
+ * enumerate. The returned tokens have to bring the player back to exactly the token limit. A
+ * visiting noble does not need to be checked, {@link GameState#apply(AbstractMove)} only lets
+ * nobles visit that the player qualifies for.
+ *
+ * @author luott
+ */
+public final class MoveValidator {
+
+  private static final int MAX_TOKENS = 10;
+
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+
+  private MoveValidator() {}
+
+  /**
+   * Validates a complete turn.
+   *
+   * @param gameState the current game state
+   * @param seat the session player number of the player submitting the move
+   * @param move the move
+   * @throws NotYourTurnException if the game is not running or it is not the turn of the player
+   * @throws IllegalMoveCombinationException if the move breaks the rules
+   */
+  public static void validate(GameState gameState, int seat, AbstractMove move)
+      throws ActionNotPossibleException {
+    if (!gameState.isRunning() || gameState.getPlayersTurn() != seat) {
+      throw new NotYourTurnException();
+    }
+    AbstractPlayer player = gameState.getPlayers().get(seat);
+    int tokensTaken;
+    switch (move) {
+      case TakeMove takeMove -> {
+        tokensTaken = total(takeMove.getTokens());
+        if (!isTakeAllRemaining(gameState, takeMove)
+            && MoveGenerator.findFirst(gameState, MoveCategory.TAKE, m -> sameAction(m, move))
+                .isEmpty()) {
+          throw new IllegalMoveCombinationException("These stones can not be taken together");
+        }
+      }
+      case ReserveMove reserveMove -> {
+        tokensTaken = reserveMove.gotGoldCoin() ? 1 : 0;
+        if (!isBlindReserve(gameState, player, reserveMove)
+            && MoveGenerator.findFirst(
+                    gameState, EnumSet.of(MoveCategory.RESERVE), m -> sameAction(m, move))
+                .isEmpty()) {
+          throw new IllegalMoveCombinationException("This card can not be reserved");
+        }
+      }
+      case BuyMove buyMove -> {
+        tokensTaken = -total(buyMove.getTokens());
+        if (MoveGenerator.findFirst(
+                gameState, EnumSet.of(MoveCategory.BUY), m -> sameAction(m, move))
+            .isEmpty()) {
+          throw new IllegalMoveCombinationException("This card can not be bought like this");
+        }
+      }
+      default -> throw new IllegalMoveCombinationException("Unknown move " + move);
+    }
+    validateReturns(player, move, tokensTaken);
+  }
+
+  /**
+   * Returns whether the move takes one token of each remaining color while fewer than three colors
+   * are left.
+   */
+  private static boolean isTakeAllRemaining(GameState gameState, TakeMove move) {
+    int colors = 0;
+    for (StoneType type : STONE_TYPES) {
+      if (type == StoneType.GOLD) {
+        continue;
+      }
+      int available = gameState.getStonePool().getOrDefault(type, 0);
+      int taken = move.getTokens().getOrDefault(type, 0);
+      if (available > 0) {
+        colors++;
+      }
+      if (taken != (available > 0 ? 1 : 0)) {
+        return false;
+      }
+    }
+    return colors > 0 && colors < 3;
+  }
+
+  /**
+   * Returns whether the move reserves the top card of a stack, which the generator does not
+   * enumerate, with the gold coin if one is left.
+   */
+  private static boolean isBlindReserve(
+      GameState gameState, AbstractPlayer player, ReserveMove move) {
+    List<Card> stack =
+        switch (move.getCard().getStage()) {
+          case 1 -> gameState.getFirstCardStack();
+          case 2 -> gameState.getSecondCardStack();
+          case 3 -> gameState.getThirdCardStack();
+          default -> List.of();
+        };
+    boolean goldLeft = gameState.getStonePool().getOrDefault(StoneType.GOLD, 0) > 0;
+    return player.getReservedCards().size() < 3
+        && !stack.isEmpty()
+        && stack.getFirst() == move.getCard()
+        && move.gotGoldCoin() == goldLeft;
+  }
+
+  /** Compares everything but the returned tokens and the visiting noble. */
+  private static boolean sameAction(AbstractMove generated, AbstractMove submitted) {
+    return switch (submitted) {
+      case TakeMove take when generated instanceof TakeMove other ->
+          normalized(take.getTokens()).equals(normalized(other.getTokens()));
+      case ReserveMove reserve when generated instanceof ReserveMove other ->
+          reserve.getCard() == other.getCard() && reserve.gotGoldCoin() == other.gotGoldCoin();
+      case BuyMove buy when generated instanceof BuyMove other ->
+          buy.getCard() == other.getCard()
+              && normalized(buy.getTokens()).equals(normalized(other.getTokens()));
+      default -> false;
+    };
+  }
+
+  /**
+   * Checks that the player returns exactly the tokens above the limit and owns them after the move.
+   */
+  private static void validateReturns(AbstractPlayer player, AbstractMove move, int tokensTaken)
+      throws IllegalMoveCombinationException {
+    List<StoneType> returned = move.getTokensToReturn();
+    int required = Math.max(0, player.getTotalStones() + tokensTaken - MAX_TOKENS);
+    if (returned.size() != required) {
+      throw new IllegalMoveCombinationException(
+          "You have to return " + required + " stones, not " + returned.size());
+    }
+    if (required == 0) {
+      return;
+    }
+    Map<StoneType, Integer> inventory = new EnumMap<>(StoneType.class);
+    inventory.putAll(normalized(player.getStoneInventory()));
+    if (move instanceof TakeMove takeMove) {
+      takeMove.getTokens().forEach((type, count) -> inventory.merge(type, count, Integer::sum));
+    } else if (move instanceof ReserveMove reserveMove && reserveMove.gotGoldCoin()) {
+      inventory.merge(StoneType.GOLD, 1, Integer::sum);
+    }
+    for (StoneType type : returned) {
+      if (inventory.merge(type, -1, Integer::sum) < 0) {
+        throw new IllegalMoveCombinationException("You have no " + type + " stone to return");
+      }
+    }
+  }
+
+  private static Map<StoneType, Integer> normalized(Map<StoneType, Integer> stones) {
+    Map<StoneType, Integer> result = new EnumMap<>(StoneType.class);
+    stones.forEach(
+        (type, count) -> {
+          if (count != null && count != 0) {
+            result.put(type, count);
+          }
+        });
+    return result;
+  }
+
+  private static int total(Map<StoneType, Integer> stones) {
+    int total = 0;
+    for (int count : stones.values()) {
+      total += count;
+    }
+    return total;
+  }
+}
@@ -0,0 +1,19 @@
+package de.spl12.domain.moves;
+
+/**
+ * Receives the moves enumerated by {@link MoveGenerator#forEachMove(de.spl12.domain.GameState,
+ * java.util.Set, MoveVisitor)} one by one and decides whether the enumeration goes on.
+ *
+ * @author luott
+ */
+@FunctionalInterface
+public interface MoveVisitor {
+
+  /**
+   * Visits the next legal move.
+   *
+   * @param move the move, a new instance that the visitor may keep
+   * @return true to continue with the next move, false to stop the enumeration
+   */
+  boolean visit(AbstractMove move);
+}
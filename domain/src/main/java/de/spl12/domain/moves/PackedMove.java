@@ -0,0 +1,318 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.Card;
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.StoneType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Encodes moves as single {@code int} values for the {@link PackedMoveGenerator} and {@link
+ * CompactGameState#play(int)}, and converts them from and to the {@link AbstractMove} objects used
+ * by the rest of the application.
+ *
+ * <p>Layout of a packed move (bit 0 is the least significant bit):
+ *
+ * <ul>
+ *   <li>bits 0-1: the move type, {@link #TAKE}, {@link #RESERVE} or {@link #BUY}
+ *   <li>take moves, bits 2-11: the number of taken tokens per color, two bits per color
+ *   <li>reserve and buy moves, bits 2-8: the catalog id of the card
+ *   <li>reserve moves, bit 9: whether a gold token is taken; buy moves, bit 9: whether the card is
+ *       bought from the reserved cards
+ *   <li>bits 12-23: the number of returned tokens per stone type (gold included), two bits each
+ * </ul>
+ *
+ * <p>The payment of a buy move is not stored, it always follows the rule of {@link
+ * MoveGenerator#getTokensUsedToBuy}: colored tokens first, gold for the rest.
+ *
+ * @author luott
+ */
+public final class PackedMove {
+
+  public static final int TAKE = 0;
+  public static final int RESERVE = 1;
+  public static final int BUY = 2;
+
+  private static final int TYPE_MASK = 0x3;
+  private static final int TAKE_SHIFT = 2;
+  private static final int CARD_SHIFT = 2;
+  private static final int CARD_MASK = 0x7F;
+  private static final int FLAG_BIT = 1 << 9;
+  private static final int RETURN_SHIFT = 12;
+  private static final int RETURN_MASK = 0xFFF << RETURN_SHIFT;
+
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+
+  private PackedMove() {}
+
+  /**
+   * Creates a take move without returned tokens.
+   *
+   * @param counts the number of taken tokens per color, indexed by {@link StoneType#ordinal()}
+   * @return the packed move
+   */
+  public static int take(int[] counts) {
+    int move = TAKE;
+    for (int color = 0; color < CompactGameState.COLORS; color++) {
+      move |= counts[color] << (TAKE_SHIFT + 2 * color);
+    }
+    return move;
+  }
+
+  /**
+   * Creates a take move of one token each of three different colors.
+   *
+   * @param first the ordinal of the first color
+   * @param second the ordinal of the second color
+   * @param third the ordinal of the third color
+   * @return the packed move
+   */
+  public static int takeThree(int first, int second, int third) {
+    return TAKE
+        | 1 << (TAKE_SHIFT + 2 * first)
+        | 1 << (TAKE_SHIFT + 2 * second)
+        | 1 << (TAKE_SHIFT + 2 * third);
+  }
+
+  /**
+   * Creates a take move of two tokens of the same color.
+   *
+   * @param color the ordinal of the color
+   * @return the packed move
+   */
+  public static int takeTwo(int color) {
+    return TAKE | 2 << (TAKE_SHIFT + 2 * color);
+  }
+
+  public static int reserve(int cardId, boolean gold) {
+    return RESERVE | cardId << CARD_SHIFT | (gold ? FLAG_BIT : 0);
+  }
+
+  public static int buy(int cardId, boolean fromReserved) {
+    return BUY | cardId << CARD_SHIFT | (fromReserved ? FLAG_BIT : 0);
+  }
+
+  /**
+   * Adds returned tokens to a move.
+   *
+   * @param move the packed move without returns
+   * @param returnBits the returned tokens, see {@link #returnBits(int[])}
+   * @return the packed move including the returns
+   */
+  public static int withReturns(int move, int returnBits) {
+    return (move & ~RETURN_MASK) | returnBits << RETURN_SHIFT;
+  }
+
+  /**
+   * Packs the number of returned tokens per stone type into the format used by {@link
+   * #withReturns(int, int)}.
+   *
+   * @param counts the returned tokens per stone type, indexed by {@link StoneType#ordinal()}
+   * @return the packed returns
+   */
+  public static int returnBits(int[] counts) {
+    int bits = 0;
+    for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+      bits |= counts[type] << (2 * type);
+    }
+    return bits;
+  }
+
+  public static int type(int move) {
+    return move & TYPE_MASK;
+  }
+
+  public static int takeCount(int move, int color) {
+    return (move >>> (TAKE_SHIFT + 2 * color)) & 0x3;
+  }
+
+  public static int card(int move) {
+    return (move >>> CARD_SHIFT) & CARD_MASK;
+  }
+
+  public static boolean takesGold(int move) {
+    return type(move) == RESERVE && (move & FLAG_BIT) != 0;
+  }
+
+  public static boolean fromReserved(int move) {
+    return type(move) == BUY && (move & FLAG_BIT) != 0;
+  }
+
+  public static int returnCount(int move, int type) {
+    return (move >>> (RETURN_SHIFT + 2 * type)) & 0x3;
+  }
+
+  public static boolean hasReturns(int move) {
+    return (move & RETURN_MASK) != 0;
+  }
+
+  public static int returnTotal(int move) {
+    int total = 0;
+    for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+      total += returnCount(move, type);
+    }
+    return total;
+  }
+
+  /**
+   * Converts a packed move into the corresponding move object. The payment of buy moves is
+   * calculated for the current player of the given state, so the state must be the one the move
+   * was generated for.
+   *
+   * @param move the packed move
+   * @param state the state the move is played in
+   * @return the move object
+   */
+  public static AbstractMove decode(int move, CompactGameState state) {
+    AbstractMove decoded;
+    int requiredReturn = returnTotal(move);
+    switch (type(move)) {
+      case TAKE -> {
+        Map<StoneType, Integer> tokens = new EnumMap<>(StoneType.class);
+        for (int color = 0; color < CompactGameState.COLORS; color++) {
+          if (takeCount(move, color) > 0) {
+            tokens.put(STONE_TYPES[color], takeCount(move, color));
+          }
+        }
+        decoded = new TakeMove(tokens, requiredReturn);
+      }
+      case RESERVE -> decoded = new ReserveMove(state.card(card(move)), takesGold(move),
+          requiredReturn);
+      case BUY -> decoded = new BuyMove(payment(card(move), state), state.card(card(move)));
+      default -> throw new IllegalArgumentException("Unknown move type: " + type(move));
+    }
+    ArrayList<StoneType> returns = new ArrayList<>();
+    for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+      for (int i = 0; i < returnCount(move, type); i++) {
+        returns.add(STONE_TYPES[type]);
+      }
+    }
+    decoded.setTokensToReturn(returns);
+    return decoded;
+  }
+
+  /**
+   * Converts a move object into its packed form.
+   *
+   * @param move the move object
+   * @param state the state the move is played in, used to find out whether a card is bought from
+   *     the reserved cards of the current player
+   * @return the packed move
+   * @throws IllegalArgumentException if the move references a card outside the catalog, or reserves
+   *     a card that is not visible, i.e. blindly from the top of a stack
+   */
+  public static int encode(AbstractMove move, CompactGameState state) {
+    int packed;
+    if (move instanceof TakeMove takeMove) {
+      int[] counts = new int[CompactGameState.COLORS];
+      for (Map.Entry<StoneType, Integer> entry : takeMove.getTokens().entrySet()) {
+        if (entry.getKey() != StoneType.GOLD) {
+          counts[entry.getKey().ordinal()] = entry.getValue();
+        }
+      }
+      packed = take(counts);
+    } else if (move instanceof ReserveMove reserveMove) {
+      int cardId = cardId(reserveMove.getCard());
+      if (!isVisible(cardId, state)) {
+        throw new IllegalArgumentException("Blind reserves cannot be packed: " + move);
+      }
+      packed = reserve(cardId, reserveMove.gotGoldCoin());
+    } else if (move instanceof BuyMove buyMove) {
+      int cardId = cardId(buyMove.getCard());
+      boolean fromReserved = false;
+      int player = state.getPlayersTurn();
+      for (int i = 0; i < state.getReservedCount(player); i++) {
+        fromReserved |= state.getReservedCard(player, i) == cardId;
+      }
+      packed = buy(cardId, fromReserved);
+    } else {
+      throw new IllegalArgumentException("Unknown move: " + move);
+    }
+    int[] returns = new int[CompactGameState.STONE_TYPES];
+    for (StoneType type : move.getTokensToReturn()) {
+      returns[type.ordinal()]++;
+    }
+    return withReturns(packed, returnBits(returns));
+  }
+
+  private static boolean isVisible(int cardId, CompactGameState state) {
+    for (int slot = 0; slot < CompactGameState.VISIBLE_SLOTS; slot++) {
+      if (state.getVisibleCard(slot) == cardId) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int cardId(Card card) {
+    if (card == null || card.getId() < 0) {
+      throw new IllegalArgumentException("Card is not part of the catalog: " + card);
+    }
+    return card.getId();
+  }
+
+  /**
+   * Calculates the tokens the current player of the state pays for a card.
+   *
+   * @param cardId the catalog id of the card
+   * @param state the state
+   * @return the payment per stone type, only positive amounts are included
+   */
+  static Map<StoneType, Integer> payment(int cardId, CompactGameState state) {
+    Map<StoneType, Integer> payment = new EnumMap<>(StoneType.class);
+    int player = state.getPlayersTurn();
+    int gold = 0;
+    for (int color = 0; color < CompactGameState.COLORS; color++) {
+      int net = Math.max(0, state.getCardCost(cardId, color) - state.getBonus(player, color));
+      int paid = Math.min(net, state.getTokens(player, color));
+      if (paid > 0) {
+        payment.put(STONE_TYPES[color], paid);
+      }
+      gold += net - paid;
+    }
+    if (gold > 0) {
+      payment.put(StoneType.GOLD, gold);
+    }
+    return payment;
+  }
+
+  /**
+   * Returns a readable description of a packed move, for logging and debugging.
+   *
+   * @param move the packed move
+   * @return the description
+   */
+  public static String toString(int move) {
+    StringBuilder sb = new StringBuilder();
+    switch (type(move)) {
+      case TAKE -> {
+        sb.append("take");
+        for (int color = 0; color < CompactGameState.COLORS; color++) {
+          if (takeCount(move, color) > 0) {
+            sb.append(' ').append(takeCount(move, color)).append('x').append(STONE_TYPES[color]);
+          }
+        }
+      }
+      case RESERVE -> {
+        sb.append("reserve ").append(card(move));
+        sb.append(takesGold(move) ? " +gold" : "");
+      }
+      case BUY -> {
+        sb.append("buy ").append(card(move));
+        sb.append(fromReserved(move) ? " (reserved)" : "");
+      }
+      default -> sb.append("unknown");
+    }
+    if (hasReturns(move)) {
+      sb.append(" return");
+      for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+        if (returnCount(move, type) > 0) {
+          sb.append(' ').append(returnCount(move, type)).append('x').append(STONE_TYPES[type]);
+        }
+      }
+    }
+    return sb.toString();
+  }
+}
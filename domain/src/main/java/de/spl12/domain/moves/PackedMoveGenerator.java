@@ -0,0 +1,173 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.CompactGameState;
+
+/**
+ * Allocation-free counterpart of the {@link MoveGenerator}. Generates the same legal moves for the
+ * current player of a {@link CompactGameState}, but writes them as packed {@code int} codes (see
+ * {@link PackedMove}) into a reusable {@link MoveBuffer}. Use {@link PackedMove#decode(int,
+ * CompactGameState)} to turn a packed move back into a move object.
+ *
+ * <p>A generator holds scratch arrays and must not be shared between threads.
+ *
+ * @author luott
+ */
+public final class PackedMoveGenerator {
+
+  private static final int COLORS = CompactGameState.COLORS;
+  private static final int STONE_TYPES = CompactGameState.STONE_TYPES;
+  private static final int GOLD = CompactGameState.GOLD;
+  private static final int MAX_TOKENS = 10;
+
+  private final int[] inventory = new int[STONE_TYPES];
+
+  /**
+   * Clears the buffer and fills it with all legal moves of the current player.
+   *
+   * @param state the state to generate moves for
+   * @param buffer the buffer receiving the moves
+   * @return the number of generated moves
+   */
+  public int generateAllPossibleMoves(CompactGameState state, MoveBuffer buffer) {
+    buffer.clear();
+    this.generateTakeMoves(state, buffer);
+    this.generateReserveMoves(state, buffer);
+    this.generateBuyMoves(state, buffer);
+    return buffer.size();
+  }
+
+  /**
+   * Appends all legal take moves: three tokens of different colors if at least three colors are
+   * available, and two tokens of one color if at least four of them are in the pool.
+   *
+   * @param state the state to generate moves for
+   * @param buffer the buffer receiving the moves
+   */
+  public void generateTakeMoves(CompactGameState state, MoveBuffer buffer) {
+    int player = state.getPlayersTurn();
+    int available = 0;
+    for (int color = 0; color < COLORS; color++) {
+      if (state.getPool(color) > 0) {
+        available++;
+      }
+    }
+
+    if (available >= 3) {
+      for (int i = 0; i < COLORS; i++) {
+        if (state.getPool(i) == 0) {
+          continue;
+        }
+        for (int j = i + 1; j < COLORS; j++) {
+          if (state.getPool(j) == 0) {
+            continue;
+          }
+          for (int k = j + 1; k < COLORS; k++) {
+            if (state.getPool(k) == 0) {
+              continue;
+            }
+            int move = PackedMove.takeThree(i, j, k);
+            this.addWithReturns(state, player, move, 3, buffer);
+          }
+        }
+      }
+    }
+
+    for (int color = 0; color < COLORS; color++) {
+      if (state.getPool(color) >= 4) {
+        this.addWithReturns(state, player, PackedMove.takeTwo(color), 2, buffer);
+      }
+    }
+  }
+
+  /**
+   * Appends all legal reserve moves of visible cards, taking a gold token if one is left.
+   *
+   * @param state the state to generate moves for
+   * @param buffer the buffer receiving the moves
+   */
+  public void generateReserveMoves(CompactGameState state, MoveBuffer buffer) {
+    int player = state.getPlayersTurn();
+    if (state.getReservedCount(player) >= CompactGameState.MAX_RESERVED) {
+      return;
+    }
+    boolean gold = state.getPool(GOLD) > 0;
+    for (int slot = 0; slot < CompactGameState.VISIBLE_SLOTS; slot++) {
+      int card = state.getVisibleCard(slot);
+      if (card == CompactGameState.EMPTY) {
+        continue;
+      }
+      this.addWithReturns(state, player, PackedMove.reserve(card, gold), gold ? 1 : 0, buffer);
+    }
+  }
+
+  /**
+   * Appends all legal buy moves of visible and reserved cards the current player can afford.
+   *
+   * @param state the state to generate moves for
+   * @param buffer the buffer receiving the moves
+   */
+  public void generateBuyMoves(CompactGameState state, MoveBuffer buffer) {
+    int player = state.getPlayersTurn();
+    long bonuses = AffordabilityKernel.packBonuses(state, player);
+    long tokens = AffordabilityKernel.packTokens(state, player);
+    int gold = state.getTokens(player, GOLD);
+    for (int slot = 0; slot < CompactGameState.VISIBLE_SLOTS; slot++) {
+      int card = state.getVisibleCard(slot);
+      if (card != CompactGameState.EMPTY
+          && AffordabilityKernel.shortfall(AffordabilityKernel.cardCost(card), bonuses, tokens)
+              <= gold) {
+        buffer.add(PackedMove.buy(card, false));
+      }
+    }
+    for (int i = 0; i < state.getReservedCount(player); i++) {
+      int card = state.getReservedCard(player, i);
+      if (AffordabilityKernel.shortfall(AffordabilityKernel.cardCost(card), bonuses, tokens)
+          <= gold) {
+        buffer.add(PackedMove.buy(card, true));
+      }
+    }
+  }
+
+  /**
+   * Checks whether a player can pay for a card with tokens and gold after bonuses.
+   *
+   * @param state the state
+   * @param player the player index
+   * @param card the catalog id of the card
+   * @return true if the player can afford the card
+   */
+  public static boolean canAfford(CompactGameState state, int player, int card) {
+    int missing =
+        AffordabilityKernel.shortfall(
+            AffordabilityKernel.cardCost(card),
+            AffordabilityKernel.packBonuses(state, player),
+            AffordabilityKernel.packTokens(state, player));
+    return missing <= state.getTokens(player, GOLD);
+  }
+
+  /**
+   * Adds the move as is if the player stays within the token limit, otherwise one variant for
+   * every combination of tokens the player can return, looked up in the {@link TokenReturnTable}.
+   */
+  private void addWithReturns(
+      CompactGameState state, int player, int move, int tokensTaken, MoveBuffer buffer) {
+    int requiredReturn = state.getTokenTotal(player) + tokensTaken - MAX_TOKENS;
+    if (requiredReturn <= 0) {
+      buffer.add(move);
+      return;
+    }
+    for (int type = 0; type < STONE_TYPES; type++) {
+      this.inventory[type] = state.getTokens(player, type);
+    }
+    if (PackedMove.type(move) == PackedMove.TAKE) {
+      for (int color = 0; color < COLORS; color++) {
+        this.inventory[color] += PackedMove.takeCount(move, color);
+      }
+    } else if (PackedMove.takesGold(move)) {
+      this.inventory[GOLD]++;
+    }
+    for (int returnBits : TokenReturnTable.lookup(this.inventory, requiredReturn)) {
+      buffer.add(PackedMove.withReturns(move, returnBits));
+    }
+  }
+}
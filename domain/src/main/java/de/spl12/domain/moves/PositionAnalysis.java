@@ -0,0 +1,468 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.GameState;
+import de.spl12.domain.StoneType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The features of one position that the heuristics of {@link MoveCalculationHelper} are based on,
+ * computed once per position instead of once per scored move.
+ *
+ * <p>An analysis is taken from the point of view of the player whose turn it is and holds:
+ *
+ * <ul>
+ *   <li>the demand of the visible level-3 cards: the summed cost and the number of cards per color
+ *   <li>the tokens, card bonuses (discounts) and prestige of every player and the token totals
+ *   <li>the tokens the current player still needs for their reserved cards
+ *   <li>the level-2 and level-1 cards whose bonus serves the demand, and whether reserving a card
+ *       of level 3 or 2 with gold is worthwhile
+ *   <li>the first high-prestige card an opponent can buy right now
+ * </ul>
+ *
+ * <p>All vectors are indexed by {@link StoneType#ordinal()}. The card based features are only
+ * computed when asked for, so an analysis is cheap enough to rate the leaves of a search with
+ * {@link #evaluate(int)}. The analysis is a snapshot: it has to be created again after a move was
+ * applied to the game state, and must not be used after that.
+ *
+ * @author luott
+ */
+public final class PositionAnalysis {
+
+  private static final int COLORS = CompactGameState.COLORS;
+  private static final int STONE_TYPES = CompactGameState.STONE_TYPES;
+  private static final int GOLD = CompactGameState.GOLD;
+  private static final StoneType[] TYPES = StoneType.values();
+
+  /** Cards worth more prestige than this are threats if an opponent can buy them. */
+  private static final int THREAT_PRESTIGE = 3;
+
+  private static final int UNKNOWN = -1;
+
+  private static final double POINT_VALUE = 3.0;
+  private static final double BONUS_VALUE = 1.0;
+  private static final double DEMAND_VALUE = 2.0;
+  private static final double TOKEN_VALUE = 0.25;
+  private static final double GOLD_VALUE = 0.5;
+  private static final double NEED_PENALTY = 0.1;
+
+  private final GameState gameState;
+  private final int current;
+  private final AbstractPlayer player;
+
+  private final int[] demand = new int[COLORS];
+  private final int[] frequency = new int[COLORS];
+  private int demandTotal;
+  private final StoneType[] demandOrder;
+
+  private final int[][] tokens;
+  private final int[][] bonuses;
+  private final int[] prestige;
+  private final int[] tokenTotals = new int[STONE_TYPES];
+  private final int[] stonePool = new int[STONE_TYPES];
+  private final int[] targetNeeds = new int[COLORS];
+
+  private List<Card> goodSecondDeckCards;
+  private List<Card> goodFirstDeckCards;
+  private int reserveLevel3 = UNKNOWN;
+  private int reserveLevel2 = UNKNOWN;
+  private Card threatCard;
+  private boolean threatSearched;
+
+  private PositionAnalysis(GameState gameState) {
+    this.gameState = gameState;
+    this.current = gameState.getPlayersTurn();
+    List<AbstractPlayer> players = gameState.getPlayers();
+    this.player = this.current < players.size() ? players.get(this.current) : null;
+
+    for (Card card : gameState.getThirdCardDeck()) {
+      if (card == null) {
+        continue;
+      }
+      for (int color = 0; color < COLORS; color++) {
+        int cost = card.getCostOf(color);
+        if (cost > 0) {
+          this.demand[color] += cost;
+          this.frequency[color]++;
+        }
+      }
+    }
+    for (int cost : this.demand) {
+      this.demandTotal += cost;
+    }
+    this.demandOrder = this.sortByFrequency();
+
+    this.tokens = new int[players.size()][STONE_TYPES];
+    this.bonuses = new int[players.size()][COLORS];
+    this.prestige = new int[players.size()];
+    for (int p = 0; p < players.size(); p++) {
+      AbstractPlayer other = players.get(p);
+      Map<StoneType, Integer> inventory = other.getStoneInventory();
+      for (int type = 0; type < STONE_TYPES; type++) {
+        this.tokens[p][type] = inventory.getOrDefault(TYPES[type], 0);
+        this.tokenTotals[type] += this.tokens[p][type];
+      }
+      for (int color = 0; color < COLORS; color++) {
+        this.bonuses[p][color] = other.getBonusForType(TYPES[color]);
+      }
+      this.prestige[p] = other.getPrestige();
+    }
+    for (int type = 0; type < STONE_TYPES; type++) {
+      this.stonePool[type] = gameState.getStonePool().getOrDefault(TYPES[type], 0);
+    }
+
+    if (this.player != null) {
+      this.calculateTargetNeeds();
+    }
+  }
+
+  /**
+   * Analyzes a position for the player whose turn it is.
+   *
+   * @param gameState the game state, it is not modified
+   * @return the analysis
+   */
+  public static PositionAnalysis of(GameState gameState) {
+    return new PositionAnalysis(gameState);
+  }
+
+  /** Returns the colors demanded by level-3 cards, the most frequent first. */
+  private StoneType[] sortByFrequency() {
+    List<StoneType> order = new ArrayList<>();
+    for (int color = 0; color < COLORS; color++) {
+      if (this.frequency[color] > 0) {
+        order.add(TYPES[color]);
+      }
+    }
+    order.sort((a, b) -> Integer.compare(this.frequency[b.ordinal()], this.frequency[a.ordinal()]));
+    return order.toArray(new StoneType[0]);
+  }
+
+  /** See {@link MoveCalculationHelper#calculateGoodSecondDeckCards(GameState, Map, Map)}. */
+  private List<Card> findGoodSecondDeckCards() {
+    List<Card> goodCards = new ArrayList<>();
+    for (StoneType stone : this.demandOrder) {
+      for (Card card : this.gameState.getSecondCardDeck()) {
+        if (card != null && card.getBonus() == stone) {
+          goodCards.add(card);
+        }
+      }
+      if (!goodCards.isEmpty()) {
+        break;
+      }
+    }
+    return goodCards;
+  }
+
+  /** See {@link MoveCalculationHelper#calculateGoodFirstDeckCards}. */
+  private List<Card> findGoodFirstDeckCards() {
+    List<Card> goodCards = new ArrayList<>();
+    List<Card> goodSecond = this.getGoodSecondDeckCards();
+    if (!goodSecond.isEmpty()) {
+      StoneType bonus = goodSecond.getFirst().getBonus();
+      for (Card card : this.gameState.getFirstCardDeck()) {
+        if (card != null && card.getBonus() == bonus) {
+          goodCards.add(card);
+        }
+      }
+    }
+    for (StoneType stone : this.demandOrder) {
+      if (!goodCards.isEmpty()) {
+        break;
+      }
+      for (Card card : this.gameState.getFirstCardDeck()) {
+        if (card != null && card.getBonus() == stone) {
+          goodCards.add(card);
+        }
+      }
+    }
+    return goodCards;
+  }
+
+  /** Sums up the tokens still missing for the reserved cards of the current player. */
+  private void calculateTargetNeeds() {
+    int[] own = this.tokens[this.current];
+    int[] discounts = this.bonuses[this.current];
+    for (Card card : this.player.getReservedCards()) {
+      if (card == null) {
+        continue;
+      }
+      for (int color = 0; color < COLORS; color++) {
+        int cost = card.getCostOf(color);
+        if (cost > 0) {
+          this.targetNeeds[color] += Math.max(cost - own[color] - discounts[color], 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks whether the tokens of the current player cover the summed cost of the cards all but one
+   * token, so that a gold token from a reserve would close the gap.
+   */
+  private boolean isReserveWorthwhile(List<Card> cards) {
+    if (this.player == null) {
+      return false;
+    }
+    int[] own = this.tokens[this.current];
+    int totalCost = 0;
+    int totalOwned = 0;
+    for (Card card : cards) {
+      if (card == null) {
+        continue;
+      }
+      for (int color = 0; color < COLORS; color++) {
+        int cost = card.getCostOf(color);
+        if (cost > 0) {
+          totalCost += cost;
+          totalOwned += own[color];
+        }
+      }
+    }
+    return totalCost > totalOwned && totalOwned > totalCost - 2;
+  }
+
+  /**
+   * Finds the first table card worth more than {@link #THREAT_PRESTIGE} that an opponent can buy,
+   * checking all candidate cards against the wallet of every opponent in one batch.
+   */
+  private Card findThreatCard() {
+    List<Card> candidates = new ArrayList<>();
+    for (List<Card> deck :
+        List.of(
+            this.gameState.getFirstCardDeck(),
+            this.gameState.getSecondCardDeck(),
+            this.gameState.getThirdCardDeck())) {
+      for (Card card : deck) {
+        if (card != null && card.getPrestigePoints() > THREAT_PRESTIGE) {
+          candidates.add(card);
+        }
+      }
+    }
+    if (candidates.isEmpty()) {
+      return null;
+    }
+
+    long[] costs = new long[candidates.size()];
+    for (int i = 0; i < costs.length; i++) {
+      costs[i] = AffordabilityKernel.cardCost(candidates.get(i));
+    }
+    int players = this.prestige.length;
+    long[] packedBonuses = new long[players];
+    long[] packedTokens = new long[players];
+    int[] gold = new int[players];
+    for (int p = 0; p < players; p++) {
+      packedBonuses[p] = pack(this.bonuses[p]);
+      packedTokens[p] = pack(this.tokens[p]);
+      gold[p] = this.tokens[p][GOLD];
+    }
+    int[] masks = new int[players];
+    AffordabilityKernel.affordableMasks(
+        costs, costs.length, packedBonuses, packedTokens, gold, players, masks);
+    for (int p = 0; p < players; p++) {
+      if (p != this.current && masks[p] != 0) {
+        return candidates.get(Integer.numberOfTrailingZeros(masks[p]));
+      }
+    }
+    return null;
+  }
+
+  private static long pack(int[] colors) {
+    long packed = 0;
+    for (int color = 0; color < COLORS; color++) {
+      packed |= (long) colors[color] << color * Byte.SIZE;
+    }
+    return packed;
+  }
+
+  /**
+   * Rates the position of a player with the heuristics of the AI: prestige, card bonuses weighted
+   * by their share of the level-3 demand, tokens, and the tokens the player still lacks for their
+   * reserved cards. Higher is better; usable as the leaf evaluation of a search.
+   *
+   * @param seat the index of the player
+   * @return the heuristic value of the player's position
+   */
+  public double evaluate(int seat) {
+    double value = POINT_VALUE * this.prestige[seat];
+    for (int color = 0; color < COLORS; color++) {
+      double share = this.demandTotal == 0 ? 0 : (double) this.demand[color] / this.demandTotal;
+      value += this.bonuses[seat][color] * (BONUS_VALUE + DEMAND_VALUE * share);
+      value += TOKEN_VALUE * this.tokens[seat][color];
+    }
+    value += GOLD_VALUE * this.tokens[seat][GOLD];
+    if (seat == this.current) {
+      for (int need : this.targetNeeds) {
+        value -= NEED_PENALTY * need;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Returns the value of a player relative to the strongest opponent, see {@link #evaluate(int)}.
+   *
+   * @param seat the index of the player
+   * @return the difference of the values, positive if the player is ahead
+   */
+  public double evaluateRelative(int seat) {
+    double best = Double.NEGATIVE_INFINITY;
+    for (int p = 0; p < this.prestige.length; p++) {
+      if (p != seat) {
+        best = Math.max(best, this.evaluate(p));
+      }
+    }
+    double own = this.evaluate(seat);
+    return best == Double.NEGATIVE_INFINITY ? own : own - best;
+  }
+
+  public GameState getGameState() {
+    return this.gameState;
+  }
+
+  public int getCurrentSeat() {
+    return this.current;
+  }
+
+  public AbstractPlayer getPlayer() {
+    return this.player;
+  }
+
+  public int getPlayerCount() {
+    return this.prestige.length;
+  }
+
+  /**
+   * Returns the summed cost of a color over all visible level-3 cards.
+   *
+   * @param type the stone type
+   * @return the demand, 0 for gold
+   */
+  public int getDemand(StoneType type) {
+    return type.ordinal() < COLORS ? this.demand[type.ordinal()] : 0;
+  }
+
+  /**
+   * Returns the number of visible level-3 cards that cost a color.
+   *
+   * @param type the stone type
+   * @return the frequency, 0 for gold
+   */
+  public int getFrequency(StoneType type) {
+    return type.ordinal() < COLORS ? this.frequency[type.ordinal()] : 0;
+  }
+
+  public int getDemandTotal() {
+    return this.demandTotal;
+  }
+
+  public int getTokens(int seat, StoneType type) {
+    return this.tokens[seat][type.ordinal()];
+  }
+
+  public int getBonus(int seat, StoneType type) {
+    return type.ordinal() < COLORS ? this.bonuses[seat][type.ordinal()] : 0;
+  }
+
+  public int getPrestige(int seat) {
+    return this.prestige[seat];
+  }
+
+  /**
+   * Returns the highest prestige of the opponents of the current player.
+   *
+   * @return the prestige, 0 without opponents
+   */
+  public int getMaxOpponentPrestige() {
+    int max = 0;
+    for (int p = 0; p < this.prestige.length; p++) {
+      if (p != this.current) {
+        max = Math.max(max, this.prestige[p]);
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Returns the tokens of a type held by all players together.
+   *
+   * @param type the stone type
+   * @return the total
+   */
+  public int getTokenTotal(StoneType type) {
+    return this.tokenTotals[type.ordinal()];
+  }
+
+  public int getPool(StoneType type) {
+    return this.stonePool[type.ordinal()];
+  }
+
+  /**
+   * Returns the tokens of a type the current player still needs for their reserved cards, after
+   * tokens and bonuses.
+   *
+   * @param type the stone type
+   * @return the summed need over all reserved cards
+   */
+  public int getTargetNeed(StoneType type) {
+    return type.ordinal() < COLORS ? this.targetNeeds[type.ordinal()] : 0;
+  }
+
+  /**
+   * Returns the level-2 table cards with the bonus most frequently needed by level-3 cards.
+   *
+   * @return the cards, empty if there are none
+   */
+  public List<Card> getGoodSecondDeckCards() {
+    if (this.goodSecondDeckCards == null) {
+      this.goodSecondDeckCards = Collections.unmodifiableList(this.findGoodSecondDeckCards());
+    }
+    return this.goodSecondDeckCards;
+  }
+
+  /**
+   * Returns the level-1 table cards with the bonus of the good level-2 cards, or else with the
+   * bonus most frequently needed by level-3 cards.
+   *
+   * @return the cards, empty if there are none
+   */
+  public List<Card> getGoodFirstDeckCards() {
+    if (this.goodFirstDeckCards == null) {
+      this.goodFirstDeckCards = Collections.unmodifiableList(this.findGoodFirstDeckCards());
+    }
+    return this.goodFirstDeckCards;
+  }
+
+  public boolean isReserveLevel3Worthwhile() {
+    if (this.reserveLevel3 == UNKNOWN) {
+      this.reserveLevel3 = this.isReserveWorthwhile(this.gameState.getThirdCardDeck()) ? 1 : 0;
+    }
+    return this.reserveLevel3 == 1;
+  }
+
+  public boolean isReserveLevel2Worthwhile() {
+    if (this.reserveLevel2 == UNKNOWN) {
+      this.reserveLevel2 = this.isReserveWorthwhile(this.getGoodSecondDeckCards()) ? 1 : 0;
+    }
+    return this.reserveLevel2 == 1;
+  }
+
+  /**
+   * Returns the first card worth more than 3 prestige an opponent can buy right now, searching the
+   * opponents in seat order and the decks from level 1 to 3.
+   *
+   * @return the card, or null if there is none
+   */
+  public Card getThreatCard() {
+    if (!this.threatSearched) {
+      this.threatCard = this.findThreatCard();
+      this.threatSearched = true;
+    }
+    return this.threatCard;
+  }
+}
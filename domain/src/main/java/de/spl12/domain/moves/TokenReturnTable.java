@@ -0,0 +1,107 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.CompactGameState;
+import de.spl12.domain.StoneType;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lazily populated lookup table of all ways to return tokens when a player exceeds the token
+ * limit.
+ *
+ * <p>At most three tokens ever have to be returned, so only {@code min(count, 3)} of every stone
+ * type matters. The inventory is therefore reduced to a 12 bit shape (two bits per stone type) and
+ * combined with the number of tokens to return into the table key. Each entry holds the return
+ * combinations in the packed form of {@link PackedMove#returnBits(int[])}; it is computed on first
+ * use and shared between all threads afterwards.
+ *
+ * @author luott
+ */
+public final class TokenReturnTable {
+
+  public static final int MAX_RETURN = 3;
+
+  private static final int STONE_TYPES = CompactGameState.STONE_TYPES;
+  private static final int SHAPES = 1 << (2 * STONE_TYPES);
+  private static final AtomicReferenceArray<int[]> TABLE =
+      new AtomicReferenceArray<>(SHAPES * (MAX_RETURN + 1));
+
+  private TokenReturnTable() {}
+
+  /**
+   * Returns all combinations of {@code count} tokens that can be returned from the inventory.
+   *
+   * @param inventory the tokens of the player after the move, indexed by {@link
+   *     StoneType#ordinal()}
+   * @param count the number of tokens to return, at most {@link #MAX_RETURN}
+   * @return the packed return combinations; the array is shared and must not be modified
+   */
+  public static int[] lookup(int[] inventory, int count) {
+    return lookupShape(shape(inventory), count);
+  }
+
+  /**
+   * Returns all combinations of {@code count} tokens that can be returned from an inventory shape.
+   *
+   * @param shape the inventory shape, see {@link #shape(int[])}
+   * @param count the number of tokens to return, at most {@link #MAX_RETURN}
+   * @return the packed return combinations; the array is shared and must not be modified
+   */
+  public static int[] lookupShape(int shape, int count) {
+    if (count < 0 || count > MAX_RETURN) {
+      throw new IllegalArgumentException("Can not return " + count + " tokens");
+    }
+    int key = count * SHAPES + shape;
+    int[] combinations = TABLE.get(key);
+    if (combinations == null) {
+      combinations = build(shape, count);
+      TABLE.compareAndSet(key, null, combinations);
+    }
+    return combinations;
+  }
+
+  /**
+   * Reduces an inventory to the part that is relevant for returning tokens.
+   *
+   * @param inventory the tokens per stone type, indexed by {@link StoneType#ordinal()}
+   * @return the inventory shape, {@code min(tokens, 3)} per stone type in two bits each
+   */
+  public static int shape(int[] inventory) {
+    int shape = 0;
+    for (int type = 0; type < STONE_TYPES; type++) {
+      shape |= Math.min(inventory[type], MAX_RETURN) << (2 * type);
+    }
+    return shape;
+  }
+
+  private static int[] build(int shape, int count) {
+    int[] buffer = new int[64];
+    int size = enumerate(shape, 0, count, 0, buffer, 0);
+    int[] combinations = new int[size];
+    System.arraycopy(buffer, 0, combinations, 0, size);
+    return combinations;
+  }
+
+  private static int enumerate(
+      int shape, int type, int tokensLeft, int returnBits, int[] buffer, int size) {
+    if (tokensLeft == 0) {
+      buffer[size++] = returnBits;
+      return size;
+    }
+    if (type >= STONE_TYPES) {
+      return size;
+    }
+    int max = Math.min(tokensLeft, (shape >>> (2 * type)) & 0x3);
+    for (int returned = 0; returned <= max; returned++) {
+      size =
+          enumerate(
+              shape,
+              type + 1,
+              tokensLeft - returned,
+              returnBits | returned << (2 * type),
+              buffer,
+              size);
+    }
+    return size;
+  }
+}
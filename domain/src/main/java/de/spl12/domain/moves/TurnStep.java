@@ -0,0 +1,105 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.Card;
+import de.spl12.domain.Noble;
+import de.spl12.domain.StoneType;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A single step of a turn as the player performed it, e.g. one stone taken or one card bought.
+ * The steps of a turn are collected in a {@link TurnTransaction} and sent to the server at once;
+ * the server sends them on to all players as hints for animating the turn.
+ *
+ * @author luott
+ */
+public final class TurnStep implements Serializable {
+
+  private static final long serialVersionUID = -4417286532186036815L;
+
+  /** The kinds of steps. */
+  public enum Kind {
+    TAKE,
+    RETURN,
+    RESERVE,
+    BUY,
+    NOBLE
+  }
+
+  private final Kind kind;
+  private final StoneType stoneType;
+  private final Card card;
+  private final Noble noble;
+
+  private TurnStep(Kind kind, StoneType stoneType, Card card, Noble noble) {
+    this.kind = kind;
+    this.stoneType = stoneType;
+    this.card = card;
+    this.noble = noble;
+  }
+
+  public static TurnStep take(StoneType stoneType) {
+    return new TurnStep(Kind.TAKE, Objects.requireNonNull(stoneType), null, null);
+  }
+
+  public static TurnStep returnStone(StoneType stoneType) {
+    return new TurnStep(Kind.RETURN, Objects.requireNonNull(stoneType), null, null);
+  }
+
+  public static TurnStep reserve(Card card) {
+    return new TurnStep(Kind.RESERVE, null, Objects.requireNonNull(card), null);
+  }
+
+  public static TurnStep buy(Card card) {
+    return new TurnStep(Kind.BUY, null, Objects.requireNonNull(card), null);
+  }
+
+  public static TurnStep claimNoble(Noble noble) {
+    return new TurnStep(Kind.NOBLE, null, null, Objects.requireNonNull(noble));
+  }
+
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  /** Returns the stone taken or returned, null for other kinds. */
+  public StoneType getStoneType() {
+    return this.stoneType;
+  }
+
+  /** Returns the card reserved or bought, null for other kinds. */
+  public Card getCard() {
+    return this.card;
+  }
+
+  /** Returns the visiting noble, null for other kinds. */
+  public Noble getNoble() {
+    return this.noble;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof TurnStep other)) {
+      return false;
+    }
+    return this.kind == other.kind
+        && this.stoneType == other.stoneType
+        && Objects.equals(this.card, other.card)
+        && Objects.equals(this.noble, other.noble);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.kind, this.stoneType, this.card, this.noble);
+  }
+
+  @Override
+  public String toString() {
+    Object subject =
+        this.stoneType != null ? this.stoneType : this.card != null ? this.card : this.noble;
+    return this.kind + " " + subject;
+  }
+}
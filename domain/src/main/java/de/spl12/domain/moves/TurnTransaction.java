@@ -0,0 +1,157 @@
+package de.spl12.domain.moves;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.Exceptions.IllegalMoveCombinationException;
+import de.spl12.domain.GameState;
+import de.spl12.domain.Noble;
+import de.spl12.domain.StoneType;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the {@link TurnStep}s of the current turn of a player, so that the whole turn is sent
+ * to the server in one {@link de.spl12.domain.messages.MovePackage} when it is complete instead of
+ * one package per step.
+ *
+ * <p>The server turns the steps back into an {@link AbstractMove} with {@link
+ * #toMove(GameState)}. The payment for a bought card and the gold coin for a reservation follow
+ * from the game state before the turn, so the steps do not contain them.
+ *
+ * @author luott
+ */
+public final class TurnTransaction {
+
+  private static final StoneType[] STONE_TYPES = StoneType.values();
+
+  private final List<TurnStep> steps = new ArrayList<>();
+
+  /** Creates an empty transaction. */
+  public TurnTransaction() {}
+
+  /**
+   * Creates a transaction of steps performed before.
+   *
+   * @param steps the steps in the order they were performed
+   */
+  public TurnTransaction(List<TurnStep> steps) {
+    this.steps.addAll(steps);
+  }
+
+  /**
+   * Creates the steps of a complete move, e.g. of an AI player.
+   *
+   * @param move the move
+   * @return the transaction with the action, the returned tokens and the visiting noble
+   */
+  public static TurnTransaction of(AbstractMove move) {
+    TurnTransaction transaction = new TurnTransaction();
+    switch (move) {
+      case TakeMove takeMove -> {
+        for (StoneType type : STONE_TYPES) {
+          for (int i = 0; i < takeMove.getTokens().getOrDefault(type, 0); i++) {
+            transaction.add(TurnStep.take(type));
+          }
+        }
+      }
+      case ReserveMove reserveMove -> transaction.add(TurnStep.reserve(reserveMove.getCard()));
+      case BuyMove buyMove -> transaction.add(TurnStep.buy(buyMove.getCard()));
+      default ->
+          throw new IllegalArgumentException("Unsupported move type " + move.getClass().getName());
+    }
+    for (StoneType type : move.getTokensToReturn()) {
+      transaction.add(TurnStep.returnStone(type));
+    }
+    if (move.getVisitingNoble() != null) {
+      transaction.add(TurnStep.claimNoble(move.getVisitingNoble()));
+    }
+    return transaction;
+  }
+
+  /**
+   * Records a step of the turn.
+   *
+   * @param step the step
+   */
+  public void add(TurnStep step) {
+    this.steps.add(step);
+  }
+
+  /**
+   * Returns the steps recorded so far.
+   *
+   * @return an unmodifiable copy of the steps in the order they were performed
+   */
+  public List<TurnStep> getSteps() {
+    return List.copyOf(this.steps);
+  }
+
+  public boolean isEmpty() {
+    return this.steps.isEmpty();
+  }
+
+  /** Discards all steps, after the turn was sent or rejected. */
+  public void clear() {
+    this.steps.clear();
+  }
+
+  /**
+   * Builds the move of the steps for the current player of a game state. The move is not checked
+   * against the rules, see {@link MoveValidator}.
+   *
+   * @param gameState the game state before the turn
+   * @return the move including the returned tokens and the visiting noble
+   * @throws IllegalMoveCombinationException if the steps are not exactly one action, or claim more
+   *     than one noble
+   */
+  public AbstractMove toMove(GameState gameState) throws IllegalMoveCombinationException {
+    Map<StoneType, Integer> taken = new EnumMap<>(StoneType.class);
+    ArrayList<StoneType> returned = new ArrayList<>();
+    Card reserved = null;
+    Card bought = null;
+    Noble noble = null;
+    for (TurnStep step : this.steps) {
+      switch (step.getKind()) {
+        case TAKE -> taken.merge(step.getStoneType(), 1, Integer::sum);
+        case RETURN -> returned.add(step.getStoneType());
+        case RESERVE, BUY -> {
+          if (reserved != null || bought != null) {
+            throw new IllegalMoveCombinationException("Only one card per turn");
+          }
+          if (step.getKind() == TurnStep.Kind.RESERVE) {
+            reserved = step.getCard();
+          } else {
+            bought = step.getCard();
+          }
+        }
+        case NOBLE -> {
+          if (noble != null) {
+            throw new IllegalMoveCombinationException("Only one noble can visit per turn");
+          }
+          noble = step.getNoble();
+        }
+      }
+    }
+    int actions = (taken.isEmpty() ? 0 : 1) + (reserved != null ? 1 : 0) + (bought != null ? 1 : 0);
+    if (actions != 1) {
+      throw new IllegalMoveCombinationException(
+          "A turn takes stones, reserves a card or buys a card");
+    }
+    AbstractMove move;
+    if (!taken.isEmpty()) {
+      move = new TakeMove(taken, returned.size());
+    } else if (reserved != null) {
+      boolean gold = gameState.getStonePool().getOrDefault(StoneType.GOLD, 0) > 0;
+      move = new ReserveMove(reserved, gold, returned.size());
+    } else {
+      AbstractPlayer player = gameState.getPlayers().get(gameState.getPlayersTurn());
+      move = new BuyMove(player.getPaymentForCard(bought), bought);
+      move.setRequiredReturn(returned.size());
+    }
+    move.setTokensToReturn(returned);
+    move.setVisitingNoble(noble);
+    return move;
+  }
+}
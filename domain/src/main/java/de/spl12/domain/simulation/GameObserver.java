@@ -0,0 +1,38 @@
+package de.spl12.domain.simulation;
+
+import de.spl12.domain.GameState;
+import de.spl12.domain.UndoRecord;
+import de.spl12.domain.moves.AbstractMove;
+
+/**
+ * Follows one game of the {@link GameSimulator}, e.g. to collect statistics about the moves. An
+ * observer is called from the thread playing the game and must not modify the game state.
+ *
+ * @author luott
+ */
+public interface GameObserver {
+
+  /**
+   * Called before a move is applied.
+   *
+   * @param gameState the state before the move
+   * @param move the move the current player decided
+   */
+  default void beforeMove(GameState gameState, AbstractMove move) {}
+
+  /**
+   * Called after a move was applied.
+   *
+   * @param gameState the state after the move
+   * @param record the record of the move, e.g. with the noble that visited the player
+   */
+  default void afterMove(GameState gameState, UndoRecord record) {}
+
+  /**
+   * Called once the game is over.
+   *
+   * @param gameState the final state
+   * @param result the result of the game
+   */
+  default void gameFinished(GameState gameState, GameResult result) {}
+}
@@ -0,0 +1,65 @@
+package de.spl12.domain.simulation;
+
+/**
+ * Outcome of one simulated game.
+ *
+ * @author luott
+ */
+public final class GameResult {
+
+  private final long seed;
+  private final int winner;
+  private final int moves;
+  private final int rounds;
+  private final int[] prestige;
+
+  /**
+   * Creates a game result.
+   *
+   * @param seed the seed the game was played from
+   * @param winner the seat of the winner, or -1 if the game did not finish
+   * @param moves the number of moves played
+   * @param rounds the number of completed rounds
+   * @param prestige the final prestige per seat
+   */
+  public GameResult(long seed, int winner, int moves, int rounds, int[] prestige) {
+    this.seed = seed;
+    this.winner = winner;
+    this.moves = moves;
+    this.rounds = rounds;
+    this.prestige = prestige.clone();
+  }
+
+  /**
+   * Returns the seed of the game. {@link GameSimulator#playGame(long)} replays the game with it.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return this.seed;
+  }
+
+  public boolean isFinished() {
+    return this.winner >= 0;
+  }
+
+  public int getWinner() {
+    return this.winner;
+  }
+
+  public int getMoves() {
+    return this.moves;
+  }
+
+  public int getRounds() {
+    return this.rounds;
+  }
+
+  public int getPrestige(int seat) {
+    return this.prestige[seat];
+  }
+
+  public int getSeatCount() {
+    return this.prestige.length;
+  }
+}
@@ -0,0 +1,398 @@
+package de.spl12.domain.simulation;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.AiPlayer;
+import de.spl12.domain.Card;
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.GameState;
+import de.spl12.domain.StoneType;
+import de.spl12.domain.UndoRecord;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.HeuristicWeights;
+import de.spl12.domain.moves.MoveGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Plays complete games between {@link AiPlayer}s without client, server or user interface.
+ *
+ * <p>Every turn the current player decides a move on the shared {@link GameState}, which is then
+ * applied with {@link GameState#apply(de.spl12.domain.moves.AbstractMove)}: tokens are taken and
+ * returned, reserved and bought cards are replaced from their stack, a qualifying noble visits and
+ * the turn passes on. A game ends as soon as a player reaches {@link #WINNING_PRESTIGE}, like in
+ * the client; the player with the most prestige wins, ties go to the player with fewer cards.
+ *
+ * <p>Many games can be run in parallel with {@link #run(int, int)}. With {@link
+ * #setCheckRules(boolean)} the simulator additionally verifies after every move that no token or
+ * card was created or lost, which makes it usable as a regression test for the rules.
+ *
+ * <p>Unlike the client, which always deals the setup for four players, the simulator deals the
+ * stones and nobles for the number of seats, see {@link GameState#adaptSetupToPlayers()}.
+ *
+ * <p>Every game is played from a seed that determines the setup and the decisions of all players,
+ * see {@link GameResult#getSeed()}. The seeds of a run are derived from {@link #setSeed(long)} and
+ * the index of the game, so a run is reproducible no matter how the games are spread over the
+ * threads. EXPERT players are only reproducible with an iteration budget.
+ *
+ * @author luott
+ */
+public class GameSimulator {
+
+  public static final int WINNING_PRESTIGE = 15;
+  public static final int DEFAULT_MAX_MOVES = 500;
+  public static final SearchBudget DEFAULT_EXPERT_BUDGET = SearchBudget.ofIterations(2_000);
+
+  private static final int MAX_TOKENS = 10;
+  private static final int MAX_RESERVED = 3;
+
+  private final List<AiDifficulty> seats;
+  private final HeuristicWeights[] weights;
+  private int maxMoves = DEFAULT_MAX_MOVES;
+  private SearchBudget expertBudget = DEFAULT_EXPERT_BUDGET;
+  private boolean checkRules;
+  private long seed = ThreadLocalRandom.current().nextLong();
+
+  /**
+   * Creates a simulator for games between AI players of the given difficulties.
+   *
+   * @param seats the difficulty of every seat in turn order, 2 to 4 seats
+   */
+  public GameSimulator(List<AiDifficulty> seats) {
+    if (seats.size() < 2 || seats.size() > 4) {
+      throw new IllegalArgumentException("A game needs 2 to 4 players, got " + seats.size());
+    }
+    this.seats = List.copyOf(seats);
+    this.weights = new HeuristicWeights[seats.size()];
+    Arrays.fill(this.weights, HeuristicWeights.DEFAULT);
+  }
+
+  /**
+   * Plays one complete game from a random seed.
+   *
+   * @return the result of the game
+   * @see #playGame(long)
+   */
+  public GameResult playGame() {
+    return this.playGame(ThreadLocalRandom.current().nextLong());
+  }
+
+  /**
+   * Plays one complete game.
+   *
+   * @param gameSeed the seed of the setup and of the decisions of all players
+   * @return the result of the game; unfinished if no player could move anymore or the move limit
+   *     was reached
+   * @throws IllegalStateException if rule checks are enabled and a move broke a rule
+   */
+  public GameResult playGame(long gameSeed) {
+    return this.playGame(gameSeed, null);
+  }
+
+  /**
+   * Plays one complete game and reports every move to an observer.
+   *
+   * @param gameSeed the seed of the setup and of the decisions of all players
+   * @param observer the observer of the game, or null
+   * @return the result of the game; unfinished if no player could move anymore or the move limit
+   *     was reached
+   * @throws IllegalStateException if rule checks are enabled and a move broke a rule
+   */
+  public GameResult playGame(long gameSeed, GameObserver observer) {
+    SplittableRandom random = new SplittableRandom(gameSeed);
+    GameState gameState = new GameState(random.nextLong());
+    List<AiPlayer> players = new ArrayList<>();
+    for (int seat = 0; seat < this.seats.size(); seat++) {
+      AiPlayer player = new AiPlayer(seat, this.seats.get(seat), random.nextLong());
+      player.setName("AI " + seat + " (" + this.seats.get(seat) + ")");
+      player.setWeights(this.weights[seat]);
+      players.add(player);
+    }
+    // seat 0 starts; GameState#startGame picks the youngest human player
+    gameState.setPlayers(new ArrayList<>(players));
+    gameState.adaptSetupToPlayers();
+    Map<StoneType, Integer> tokenTotals = this.checkRules ? countTokens(gameState) : null;
+
+    int moves = 0;
+    boolean finished = false;
+    while (moves < this.maxMoves) {
+      AiPlayer player = players.get(gameState.getPlayersTurn());
+      if (MoveGenerator.generateAllPossibleMoves(gameState).isEmpty()) {
+        break;
+      }
+      AbstractMove move =
+          player.getDifficulty() == AiDifficulty.EXPERT
+              ? player.decideMoveExpert(gameState, this.expertBudget)
+              : player.decideMove(gameState);
+      if (observer != null) {
+        observer.beforeMove(gameState, move);
+      }
+      UndoRecord record = gameState.apply(move);
+      if (observer != null) {
+        observer.afterMove(gameState, record);
+      }
+      moves++;
+      if (this.checkRules) {
+        checkInvariants(gameState, tokenTotals, moves);
+      }
+      if (player.getPrestige() >= WINNING_PRESTIGE) {
+        finished = true;
+        break;
+      }
+    }
+
+    int[] prestige = new int[players.size()];
+    for (int seat = 0; seat < prestige.length; seat++) {
+      prestige[seat] = players.get(seat).getPrestige();
+    }
+    int winner = finished ? leader(players) : -1;
+    GameResult result =
+        new GameResult(gameSeed, winner, moves, gameState.getTurnNumber(), prestige);
+    if (observer != null) {
+      observer.gameFinished(gameState, result);
+    }
+    return result;
+  }
+
+  /**
+   * Plays games on a pool of the given parallelism and collects their results.
+   *
+   * @param games the number of games
+   * @param parallelism the number of threads
+   * @return the report over all games
+   */
+  public SimulationReport run(int games, int parallelism) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    long start = System.nanoTime();
+    try {
+      SimulationReport report =
+          pool.submit(
+                  () ->
+                      IntStream.range(0, games)
+                          .parallel()
+                          .mapToObj(i -> this.playGame(this.gameSeed(i)))
+                          .collect(
+                              Collector.of(
+                                  () -> new SimulationReport(this.seats),
+                                  SimulationReport::add,
+                                  SimulationReport::merge)))
+              .get();
+      report.setElapsedNanos(System.nanoTime() - start);
+      return report;
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Simulated game failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Simulation was interrupted", e);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Derives the seed of the game with the given index in a run.
+   *
+   * @param index the index of the game
+   * @return the seed of the game
+   */
+  public long gameSeed(int index) {
+    return new SplittableRandom(this.seed + index).nextLong();
+  }
+
+  private static int leader(List<AiPlayer> players) {
+    int leader = 0;
+    for (int seat = 1; seat < players.size(); seat++) {
+      AbstractPlayer player = players.get(seat);
+      AbstractPlayer best = players.get(leader);
+      if (player.getPrestige() > best.getPrestige()
+          || player.getPrestige() == best.getPrestige()
+              && player.getOwnedCards().size() < best.getOwnedCards().size()) {
+        leader = seat;
+      }
+    }
+    return leader;
+  }
+
+  private static Map<StoneType, Integer> countTokens(GameState gameState) {
+    Map<StoneType, Integer> totals = new EnumMap<>(gameState.getStonePool());
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      for (Map.Entry<StoneType, Integer> entry : player.getStoneInventory().entrySet()) {
+        totals.merge(entry.getKey(), entry.getValue(), Integer::sum);
+      }
+    }
+    return totals;
+  }
+
+  /**
+   * Checks that tokens and cards are conserved and every player is within the limits of the game.
+   */
+  private static void checkInvariants(
+      GameState gameState, Map<StoneType, Integer> tokenTotals, int moves) {
+    if (!countTokens(gameState).equals(tokenTotals)) {
+      throw new IllegalStateException("Tokens not conserved after move " + moves);
+    }
+    for (int count : gameState.getStonePool().values()) {
+      if (count < 0) {
+        throw new IllegalStateException("Negative token pool after move " + moves);
+      }
+    }
+
+    int cards =
+        gameState.getFirstCardStack().size()
+            + gameState.getSecondCardStack().size()
+            + gameState.getThirdCardStack().size();
+    for (List<Card> deck :
+        List.of(
+            gameState.getFirstCardDeck(),
+            gameState.getSecondCardDeck(),
+            gameState.getThirdCardDeck())) {
+      for (Card card : deck) {
+        cards += card == null ? 0 : 1;
+      }
+    }
+    for (AbstractPlayer player : gameState.getPlayers()) {
+      String name = player.getName();
+      if (player.getTotalStones() > MAX_TOKENS) {
+        throw new IllegalStateException(name + " holds too many tokens after move " + moves);
+      }
+      if (player.getReservedCards().size() > MAX_RESERVED) {
+        throw new IllegalStateException(name + " reserved too many cards after move " + moves);
+      }
+      for (int count : player.getStoneInventory().values()) {
+        if (count < 0) {
+          throw new IllegalStateException(name + " has negative tokens after move " + moves);
+        }
+      }
+      cards += player.getReservedCards().size() + player.getOwnedCards().size();
+    }
+    if (cards != CardCatalog.CARD_COUNT) {
+      throw new IllegalStateException("Cards not conserved after move " + moves);
+    }
+  }
+
+  /**
+   * Sets the number of moves after which a game is stopped unfinished.
+   *
+   * @param maxMoves the move limit, at least 1
+   */
+  public void setMaxMoves(int maxMoves) {
+    if (maxMoves < 1) {
+      throw new IllegalArgumentException("Move limit has to be at least 1");
+    }
+    this.maxMoves = maxMoves;
+  }
+
+  public int getMaxMoves() {
+    return this.maxMoves;
+  }
+
+  /**
+   * Sets the search budget of EXPERT players. The interactive budget of {@link
+   * AiPlayer#EXPERT_BUDGET} is far too slow for mass simulation.
+   *
+   * @param expertBudget the budget per move
+   */
+  public void setExpertBudget(SearchBudget expertBudget) {
+    this.expertBudget = expertBudget;
+  }
+
+  public SearchBudget getExpertBudget() {
+    return this.expertBudget;
+  }
+
+  /**
+   * Sets the seed the games of {@link #run(int, int)} derive their seeds from. Two runs with the
+   * same seed and settings play the same games.
+   *
+   * @param seed the seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Sets the heuristic weights of the player of a seat, e.g. to match tuned against default
+   * weights.
+   *
+   * @param seat the seat
+   * @param weights the weights
+   */
+  public void setWeights(int seat, HeuristicWeights weights) {
+    this.weights[seat] = weights;
+  }
+
+  public HeuristicWeights getWeights(int seat) {
+    return this.weights[seat];
+  }
+
+  public void setCheckRules(boolean checkRules) {
+    this.checkRules = checkRules;
+  }
+
+  public boolean isCheckRules() {
+    return this.checkRules;
+  }
+
+  public List<AiDifficulty> getSeats() {
+    return this.seats;
+  }
+
+  /**
+   * Runs a simulation from the command line and prints the report.
+   *
+   * <p>Usage: {@code GameSimulator [games] [threads] [difficulty...] [--check] [--seed=n]}, e.g.
+   * {@code GameSimulator 1000 8 HARD MEDIUM EASY EASY}. Defaults to 100 games on all processors between
+   * four HARD players.
+   *
+   * @param args the command line arguments
+   */
+  public static void main(String[] args) {
+    int games = 100;
+    int threads = Runtime.getRuntime().availableProcessors();
+    List<AiDifficulty> seats = new ArrayList<>();
+    boolean check = false;
+    Long seed = null;
+    int position = 0;
+    for (String arg : args) {
+      if (arg.equals("--check")) {
+        check = true;
+      } else if (arg.startsWith("--seed=")) {
+        seed = Long.parseLong(arg.substring("--seed=".length()));
+      } else if (position == 0) {
+        games = Integer.parseInt(arg);
+        position++;
+      } else if (position == 1) {
+        threads = Integer.parseInt(arg);
+        position++;
+      } else {
+        seats.add(AiDifficulty.valueOf(arg.toUpperCase(Locale.ROOT)));
+      }
+    }
+    if (seats.isEmpty()) {
+      seats = List.of(AiDifficulty.HARD, AiDifficulty.HARD, AiDifficulty.HARD, AiDifficulty.HARD);
+    }
+
+    GameSimulator simulator = new GameSimulator(seats);
+    simulator.setCheckRules(check);
+    if (seed != null) {
+      simulator.setSeed(seed);
+    }
+    System.out.println("Seed " + simulator.getSeed());
+    System.out.print(simulator.run(games, threads));
+  }
+}
@@ -0,0 +1,154 @@
+package de.spl12.domain.simulation;
+
+import java.util.Locale;
+
+/**
+ * Wins, losses and draws of a candidate in a match against a baseline, with the Elo difference
+ * they imply. Unfinished games count as draws.
+ *
+ * <p>The confidence interval is the normal approximation of the mean score over the games,
+ * transformed to Elo; it is not symmetric around the estimate.
+ *
+ * @author luott
+ */
+public final class MatchResult {
+
+  /** Standard normal quantile of a two-sided 95 % confidence interval. */
+  public static final double Z_95 = 1.959964;
+
+  private long wins;
+  private long losses;
+  private long draws;
+
+  public MatchResult() {}
+
+  /**
+   * Creates a result from counted games.
+   *
+   * @param wins the games the candidate won
+   * @param losses the games the candidate lost
+   * @param draws the games without winner
+   */
+  public MatchResult(long wins, long losses, long draws) {
+    this.wins = wins;
+    this.losses = losses;
+    this.draws = draws;
+  }
+
+  /**
+   * Adds the games of a simulation in which the candidate played some of the seats.
+   *
+   * @param report the report of the simulation
+   * @param candidateSeats whether the candidate played a seat, per seat
+   * @return this result
+   */
+  public MatchResult add(SimulationReport report, boolean[] candidateSeats) {
+    long candidateWins = 0;
+    for (int seat = 0; seat < candidateSeats.length; seat++) {
+      if (candidateSeats[seat]) {
+        candidateWins += report.getWins(seat);
+      }
+    }
+    this.wins += candidateWins;
+    this.losses += report.getFinishedGames() - candidateWins;
+    this.draws += report.getGames() - report.getFinishedGames();
+    return this;
+  }
+
+  public long getWins() {
+    return this.wins;
+  }
+
+  public long getLosses() {
+    return this.losses;
+  }
+
+  public long getDraws() {
+    return this.draws;
+  }
+
+  public long getGames() {
+    return this.wins + this.losses + this.draws;
+  }
+
+  /**
+   * Returns the mean score of the candidate, a win counting 1 and a draw 0.5.
+   *
+   * @return the score between 0 and 1, 0.5 without games
+   */
+  public double getScore() {
+    long games = this.getGames();
+    return games == 0 ? 0.5 : (this.wins + 0.5 * this.draws) / games;
+  }
+
+  /**
+   * Returns the Elo difference of the candidate to the baseline.
+   *
+   * @return the difference, infinite if the candidate won or lost every game
+   */
+  public double getElo() {
+    return elo(this.getScore());
+  }
+
+  /**
+   * Returns the lower bound of the 95 % confidence interval of the Elo difference.
+   *
+   * @return the lower bound
+   */
+  public double getEloLower() {
+    return elo(this.getScore() - Z_95 * this.getScoreError());
+  }
+
+  /**
+   * Returns the upper bound of the 95 % confidence interval of the Elo difference.
+   *
+   * @return the upper bound
+   */
+  public double getEloUpper() {
+    return elo(this.getScore() + Z_95 * this.getScoreError());
+  }
+
+  /** Returns the standard error of the mean score. */
+  private double getScoreError() {
+    long games = this.getGames();
+    if (games == 0) {
+      return 0.5;
+    }
+    double score = this.getScore();
+    double variance =
+        (this.wins * (1 - score) * (1 - score)
+                + this.losses * score * score
+                + this.draws * (0.5 - score) * (0.5 - score))
+            / games;
+    return Math.sqrt(variance / games);
+  }
+
+  /**
+   * Converts a score to an Elo difference.
+   *
+   * @param score the expected score between 0 and 1
+   * @return the difference, infinite for a score of 0 or 1 or beyond
+   */
+  public static double elo(double score) {
+    if (score <= 0) {
+      return Double.NEGATIVE_INFINITY;
+    } else if (score >= 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return -400 * Math.log10(1 / score - 1);
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        Locale.ROOT,
+        "%+.1f Elo [%+.1f, %+.1f] (%d wins, %d losses, %d draws, score %.3f)",
+        this.getElo(),
+        this.getEloLower(),
+        this.getEloUpper(),
+        this.wins,
+        this.losses,
+        this.draws,
+        this.getScore());
+  }
+}
@@ -0,0 +1,143 @@
+package de.spl12.domain.simulation;
+
+import de.spl12.domain.AiDifficulty;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Aggregated results and throughput of a batch of simulated games. Reports of batches that ran in
+ * parallel are combined with {@link #merge(SimulationReport)}.
+ *
+ * @author luott
+ */
+public final class SimulationReport {
+
+  private final List<AiDifficulty> seats;
+  private final long[] wins;
+  private final long[] prestige;
+  private long games;
+  private long finishedGames;
+  private long moves;
+  private long rounds;
+  private long elapsedNanos;
+
+  /**
+   * Creates an empty report.
+   *
+   * @param seats the difficulty of every seat
+   */
+  public SimulationReport(List<AiDifficulty> seats) {
+    this.seats = List.copyOf(seats);
+    this.wins = new long[seats.size()];
+    this.prestige = new long[seats.size()];
+  }
+
+  /**
+   * Adds the result of one game.
+   *
+   * @param result the game result
+   */
+  public void add(GameResult result) {
+    this.games++;
+    this.moves += result.getMoves();
+    this.rounds += result.getRounds();
+    for (int seat = 0; seat < this.prestige.length; seat++) {
+      this.prestige[seat] += result.getPrestige(seat);
+    }
+    if (result.isFinished()) {
+      this.finishedGames++;
+      this.wins[result.getWinner()]++;
+    }
+  }
+
+  /**
+   * Adds all games of another report.
+   *
+   * @param other the report to merge
+   * @return this report
+   */
+  public SimulationReport merge(SimulationReport other) {
+    this.games += other.games;
+    this.finishedGames += other.finishedGames;
+    this.moves += other.moves;
+    this.rounds += other.rounds;
+    for (int seat = 0; seat < this.wins.length; seat++) {
+      this.wins[seat] += other.wins[seat];
+      this.prestige[seat] += other.prestige[seat];
+    }
+    return this;
+  }
+
+  void setElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public List<AiDifficulty> getSeats() {
+    return this.seats;
+  }
+
+  public long getGames() {
+    return this.games;
+  }
+
+  public long getFinishedGames() {
+    return this.finishedGames;
+  }
+
+  public long getMoves() {
+    return this.moves;
+  }
+
+  public long getWins(int seat) {
+    return this.wins[seat];
+  }
+
+  public double getWinRate(int seat) {
+    return this.finishedGames == 0 ? 0 : (double) this.wins[seat] / this.finishedGames;
+  }
+
+  public double getAveragePrestige(int seat) {
+    return this.games == 0 ? 0 : (double) this.prestige[seat] / this.games;
+  }
+
+  public double getElapsedSeconds() {
+    return this.elapsedNanos / 1e9;
+  }
+
+  public double getGamesPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.games / this.getElapsedSeconds();
+  }
+
+  public double getMovesPerSecond() {
+    return this.elapsedNanos == 0 ? 0 : this.moves / this.getElapsedSeconds();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+            Locale.ROOT,
+            "%d games (%d finished) in %.2f s: %.1f games/s, %.0f moves/s, %.1f moves and %.1f"
+                + " rounds per game%n",
+            this.games,
+            this.finishedGames,
+            this.getElapsedSeconds(),
+            this.getGamesPerSecond(),
+            this.getMovesPerSecond(),
+            this.games == 0 ? 0 : (double) this.moves / this.games,
+            this.games == 0 ? 0 : (double) this.rounds / this.games));
+    for (int seat = 0; seat < this.wins.length; seat++) {
+      sb.append(
+          String.format(
+              Locale.ROOT,
+              "  seat %d %-6s  wins %6d  win rate %5.1f %%  avg prestige %4.1f%n",
+              seat,
+              this.seats.get(seat),
+              this.wins[seat],
+              100 * this.getWinRate(seat),
+              this.getAveragePrestige(seat)));
+    }
+    return sb.toString();
+  }
+}
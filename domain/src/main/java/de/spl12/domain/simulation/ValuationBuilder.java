@@ -0,0 +1,320 @@
+package de.spl12.domain.simulation;
+
+import de.spl12.domain.AbstractPlayer;
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.Card;
+import de.spl12.domain.CardCatalog;
+import de.spl12.domain.GameState;
+import de.spl12.domain.UndoRecord;
+import de.spl12.domain.ai.ValuationTable;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collector;
+import java.util.stream.IntStream;
+
+/**
+ * Offline pipeline that learns a {@link ValuationTable} from self-play.
+ *
+ * <p>Many games are played in parallel by a {@link GameSimulator}. For every purchase the builder
+ * records the card, the phase of the buyer and the own turns since the card was first seen on the
+ * table or in a reserve; for every noble visit the noble and the phase of the visited player. Once
+ * a game is finished, every record counts as a win or a loss of its player; unfinished games are
+ * ignored. The win-rate delta of a card in a phase is its win rate minus the win rate of all
+ * purchases in that phase. To keep rarely bought cards from getting extreme values, the win rate
+ * is shrunk towards the average by {@link #PRIOR_SAMPLES} virtual purchases at the average rate.
+ *
+ * <p>The games of a build are reproducible from the seed of the simulator, see {@link
+ * GameSimulator#setSeed(long)}. The table is not read by the AI yet; the players of the simulator
+ * decide with their built-in heuristics, so a build does not depend on the previous table.
+ *
+ * @author luott
+ */
+public class ValuationBuilder {
+
+  /** Virtual purchases at the average win rate added to every card, noble and phase. */
+  public static final int PRIOR_SAMPLES = 20;
+
+  private static final int PHASES = ValuationTable.PHASES;
+
+  private final GameSimulator simulator;
+
+  /**
+   * Creates a builder playing the games of the given simulator.
+   *
+   * @param simulator the simulator, with the seats and seed of the games
+   */
+  public ValuationBuilder(GameSimulator simulator) {
+    this.simulator = simulator;
+  }
+
+  /**
+   * Plays games on a pool of the given parallelism and computes the table from them.
+   *
+   * @param games the number of games
+   * @param parallelism the number of threads
+   * @return the table
+   */
+  public ValuationTable build(int games, int parallelism) {
+    return this.collect(games, parallelism).toTable();
+  }
+
+  /**
+   * Plays games on a pool of the given parallelism and collects their purchases and visits.
+   *
+   * @param games the number of games
+   * @param parallelism the number of threads
+   * @return the statistics of all games
+   */
+  Statistics collect(int games, int parallelism) {
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      return pool.submit(
+              () ->
+                  IntStream.range(0, games)
+                      .parallel()
+                      .mapToObj(this::playGame)
+                      .collect(
+                          Collector.of(
+                              Statistics::new, Statistics::add, Statistics::merge)))
+          .get();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Simulated game failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Simulation was interrupted", e);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private Recorder playGame(int index) {
+    Recorder recorder = new Recorder();
+    this.simulator.playGame(this.simulator.gameSeed(index), recorder);
+    return recorder;
+  }
+
+  /** Records the purchases and noble visits of one game. */
+  private static final class Recorder implements GameObserver {
+
+    private final int[] revealedAt = new int[CardCatalog.CARD_COUNT];
+    private final List<int[]> purchases = new ArrayList<>();
+    private final List<int[]> visits = new ArrayList<>();
+    private int moves;
+    private int phase;
+    private int winner = -1;
+
+    Recorder() {
+      Arrays.fill(this.revealedAt, -1);
+    }
+
+    @Override
+    public void beforeMove(GameState gameState, AbstractMove move) {
+      if (this.moves == 0) {
+        this.reveal(gameState);
+      }
+      int seat = gameState.getPlayersTurn();
+      this.phase = ValuationTable.phaseOf(gameState.getPlayers().get(seat).getPrestige());
+      if (move instanceof BuyMove buyMove && buyMove.getCard().getId() >= 0) {
+        int id = buyMove.getCard().getId();
+        int players = gameState.getPlayers().size();
+        int turns = this.revealedAt[id] < 0 ? 0 : (this.moves - this.revealedAt[id]) / players;
+        this.purchases.add(new int[] {seat, id, this.phase, turns});
+      }
+    }
+
+    @Override
+    public void afterMove(GameState gameState, UndoRecord record) {
+      this.moves++;
+      if (record.getNoble() != null && record.getNoble().getId() >= 0) {
+        this.visits.add(new int[] {record.getPlayerIndex(), record.getNoble().getId(), this.phase});
+      }
+      this.reveal(gameState);
+    }
+
+    @Override
+    public void gameFinished(GameState gameState, GameResult result) {
+      this.winner = result.getWinner();
+    }
+
+    private void reveal(GameState gameState) {
+      for (List<Card> deck :
+          List.of(
+              gameState.getFirstCardDeck(),
+              gameState.getSecondCardDeck(),
+              gameState.getThirdCardDeck())) {
+        this.reveal(deck);
+      }
+      for (AbstractPlayer player : gameState.getPlayers()) {
+        this.reveal(player.getReservedCards());
+      }
+    }
+
+    private void reveal(List<Card> cards) {
+      for (Card card : cards) {
+        if (card != null && card.getId() >= 0 && this.revealedAt[card.getId()] < 0) {
+          this.revealedAt[card.getId()] = this.moves;
+        }
+      }
+    }
+  }
+
+  /** Purchases, visits and wins per card, noble and phase, summed over many games. */
+  static final class Statistics {
+
+    final long[] cardSamples = new long[CardCatalog.CARD_COUNT * PHASES];
+    final long[] cardWins = new long[CardCatalog.CARD_COUNT * PHASES];
+    final long[] cardTurns = new long[CardCatalog.CARD_COUNT * PHASES];
+    final long[] nobleSamples = new long[CardCatalog.NOBLE_COUNT * PHASES];
+    final long[] nobleWins = new long[CardCatalog.NOBLE_COUNT * PHASES];
+    long games;
+    long finishedGames;
+
+    void add(Recorder recorder) {
+      this.games++;
+      if (recorder.winner < 0) {
+        return;
+      }
+      this.finishedGames++;
+      for (int[] purchase : recorder.purchases) {
+        int index = purchase[1] * PHASES + purchase[2];
+        this.cardSamples[index]++;
+        this.cardWins[index] += purchase[0] == recorder.winner ? 1 : 0;
+        this.cardTurns[index] += purchase[3];
+      }
+      for (int[] visit : recorder.visits) {
+        int index = visit[1] * PHASES + visit[2];
+        this.nobleSamples[index]++;
+        this.nobleWins[index] += visit[0] == recorder.winner ? 1 : 0;
+      }
+    }
+
+    Statistics merge(Statistics other) {
+      this.games += other.games;
+      this.finishedGames += other.finishedGames;
+      addAll(this.cardSamples, other.cardSamples);
+      addAll(this.cardWins, other.cardWins);
+      addAll(this.cardTurns, other.cardTurns);
+      addAll(this.nobleSamples, other.nobleSamples);
+      addAll(this.nobleWins, other.nobleWins);
+      return this;
+    }
+
+    private static void addAll(long[] target, long[] values) {
+      for (int i = 0; i < target.length; i++) {
+        target[i] += values[i];
+      }
+    }
+
+    ValuationTable toTable() {
+      float[] cardTurnAverages = new float[this.cardTurns.length];
+      for (int i = 0; i < cardTurnAverages.length; i++) {
+        if (this.cardSamples[i] > 0) {
+          cardTurnAverages[i] = (float) this.cardTurns[i] / this.cardSamples[i];
+        }
+      }
+      return new ValuationTable(
+          winRateDeltas(this.cardSamples, this.cardWins, CardCatalog.CARD_COUNT),
+          cardTurnAverages,
+          winRateDeltas(this.nobleSamples, this.nobleWins, CardCatalog.NOBLE_COUNT),
+          toInts(this.cardSamples),
+          toInts(this.nobleSamples));
+    }
+
+    private static float[] winRateDeltas(long[] samples, long[] wins, int count) {
+      float[] deltas = new float[samples.length];
+      for (int phase = 0; phase < PHASES; phase++) {
+        long phaseSamples = 0;
+        long phaseWins = 0;
+        for (int id = 0; id < count; id++) {
+          phaseSamples += samples[id * PHASES + phase];
+          phaseWins += wins[id * PHASES + phase];
+        }
+        if (phaseSamples == 0) {
+          continue;
+        }
+        double average = (double) phaseWins / phaseSamples;
+        for (int id = 0; id < count; id++) {
+          int index = id * PHASES + phase;
+          double rate = (wins[index] + PRIOR_SAMPLES * average) / (samples[index] + PRIOR_SAMPLES);
+          deltas[index] = (float) (rate - average);
+        }
+      }
+      return deltas;
+    }
+
+    private static int[] toInts(long[] values) {
+      int[] ints = new int[values.length];
+      for (int i = 0; i < ints.length; i++) {
+        ints[i] = (int) Math.min(values[i], Integer.MAX_VALUE);
+      }
+      return ints;
+    }
+  }
+
+  /**
+   * Builds a table from the command line and writes it to a file.
+   *
+   * <p>Usage: {@code ValuationBuilder [games] [threads] [file] [difficulty...] [--seed=n]}, e.g.
+   * {@code ValuationBuilder 20000 8 valuation.bin HARD HARD HARD HARD}. Defaults to 1000 games on
+   * all processors between four HARD players, written to {@value ValuationTable#RESOURCE}.
+   *
+   * @param args the command line arguments
+   * @throws IOException if the file cannot be written
+   */
+  public static void main(String[] args) throws IOException {
+    int games = 1000;
+    int threads = Runtime.getRuntime().availableProcessors();
+    Path file = Path.of(ValuationTable.RESOURCE);
+    List<AiDifficulty> seats = new ArrayList<>();
+    Long seed = null;
+    int position = 0;
+    for (String arg : args) {
+      if (arg.startsWith("--seed=")) {
+        seed = Long.parseLong(arg.substring("--seed=".length()));
+      } else if (position == 0) {
+        games = Integer.parseInt(arg);
+        position++;
+      } else if (position == 1) {
+        threads = Integer.parseInt(arg);
+        position++;
+      } else if (position == 2) {
+        file = Path.of(arg);
+        position++;
+      } else {
+        seats.add(AiDifficulty.valueOf(arg.toUpperCase(Locale.ROOT)));
+      }
+    }
+    if (seats.isEmpty()) {
+      seats = List.of(AiDifficulty.HARD, AiDifficulty.HARD, AiDifficulty.HARD, AiDifficulty.HARD);
+    }
+
+    GameSimulator simulator = new GameSimulator(seats);
+    if (seed != null) {
+      simulator.setSeed(seed);
+    }
+    System.out.println("Seed " + simulator.getSeed());
+    long start = System.nanoTime();
+    Statistics statistics = new ValuationBuilder(simulator).collect(games, threads);
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+      statistics.toTable().write(out);
+    }
+    System.out.printf(
+        Locale.ROOT,
+        "%d games, %d finished, %.1f s, written to %s%n",
+        statistics.games,
+        statistics.finishedGames,
+        (System.nanoTime() - start) / 1e9,
+        file);
+  }
+}
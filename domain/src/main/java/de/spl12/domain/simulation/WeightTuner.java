@@ -0,0 +1,358 @@
+package de.spl12.domain.simulation;
+
+import de.spl12.domain.AiDifficulty;
+import de.spl12.domain.moves.HeuristicWeights;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.logging.Logger;
+
+/**
+ * Tunes {@link HeuristicWeights} by self-play with simultaneous perturbation stochastic
+ * approximation (SPSA).
+ *
+ * <p>Every iteration perturbs all weights at once by a random sign times a step, plays a match
+ * between the two perturbed vectors and moves the weights towards the winner, in proportion to its
+ * score. Weights are tuned relative to their {@link HeuristicWeights#DEFAULT} values, so the step
+ * is a fraction of every weight, and never become negative. Step and learning rate shrink with the
+ * iterations following the usual SPSA schedule, whose constants are fixed when the tuner is
+ * created, not by the number of iterations of a run. Match games are played in pairs: every deal is
+ * played a second time with the seats of the two vectors swapped, which cancels most of the luck of
+ * the deal and the advantage of the first seat.
+ *
+ * <p>After every iteration the weights and the schedule are saved to a checkpoint file. A tuner
+ * started with an existing checkpoint continues from there; as the perturbations and deals of an
+ * iteration are derived from the seed and the iteration number, an interrupted run ends with the
+ * same weights as an uninterrupted one. Finally, {@link #match(HeuristicWeights, HeuristicWeights,
+ * int)} measures the Elo difference of the tuned to the default weights.
+ *
+ * @author luott
+ */
+public class WeightTuner {
+
+  public static final double DEFAULT_STEP = 0.2;
+  public static final double DEFAULT_LEARNING_RATE = 0.5;
+  public static final double DEFAULT_STABILITY = 5;
+
+  private static final double STEP_DECAY = 0.101;
+  private static final double LEARNING_RATE_DECAY = 0.602;
+
+  private static final Logger LOGGER = Logger.getLogger(WeightTuner.class.getName());
+
+  private final AiDifficulty difficulty;
+  private final int players;
+  private final int gamesPerIteration;
+  private final int parallelism;
+  private final Path checkpoint;
+  private final double[] scale = HeuristicWeights.DEFAULT.toArray();
+  private double step = DEFAULT_STEP;
+  private double learningRate = DEFAULT_LEARNING_RATE;
+  private double stability = DEFAULT_STABILITY;
+  private long seed;
+
+  private double[] theta;
+  private int iteration;
+
+  /**
+   * Creates a tuner starting from the default weights, or from the checkpoint if it exists.
+   *
+   * @param difficulty the difficulty of all players, MEDIUM or HARD
+   * @param players the number of players of a game, 2 or 4, half of them play each vector
+   * @param gamesPerIteration the games of a match, rounded up to an even number
+   * @param parallelism the number of threads
+   * @param checkpoint the checkpoint file, or null to tune without checkpoints
+   * @param seed the seed of the perturbations and deals, ignored when resuming like the schedule
+   * @throws IOException if the checkpoint exists but cannot be read
+   */
+  public WeightTuner(
+      AiDifficulty difficulty,
+      int players,
+      int gamesPerIteration,
+      int parallelism,
+      Path checkpoint,
+      long seed)
+      throws IOException {
+    if (players != 2 && players != 4) {
+      throw new IllegalArgumentException("Tuning needs 2 or 4 players, got " + players);
+    }
+    this.difficulty = difficulty;
+    this.players = players;
+    this.gamesPerIteration = gamesPerIteration + gamesPerIteration % 2;
+    this.parallelism = parallelism;
+    this.checkpoint = checkpoint;
+    this.seed = seed;
+    this.theta = new double[HeuristicWeights.SIZE];
+    Arrays.fill(this.theta, 1);
+    if (checkpoint != null && Files.exists(checkpoint)) {
+      this.load();
+    }
+  }
+
+  /**
+   * Runs iterations until the given total number is reached, saving a checkpoint after each.
+   *
+   * @param iterations the total number of iterations, including those of a resumed run
+   * @return the tuned weights
+   * @throws IOException if the checkpoint cannot be written
+   */
+  public HeuristicWeights tune(int iterations) throws IOException {
+    while (this.iteration < iterations) {
+      int k = this.iteration;
+      double stepSize = this.step / Math.pow(k + 1, STEP_DECAY);
+      double rate = this.learningRate / Math.pow(k + 1 + this.stability, LEARNING_RATE_DECAY);
+      SplittableRandom random = new SplittableRandom(this.seed + k);
+      double[] delta = new double[this.theta.length];
+      double[] plus = new double[this.theta.length];
+      double[] minus = new double[this.theta.length];
+      for (int i = 0; i < delta.length; i++) {
+        delta[i] = random.nextBoolean() ? 1 : -1;
+        plus[i] = Math.max(0, this.theta[i] + stepSize * delta[i]);
+        minus[i] = Math.max(0, this.theta[i] - stepSize * delta[i]);
+      }
+
+      MatchResult result =
+          this.playMatch(
+              this.toWeights(plus),
+              this.toWeights(minus),
+              random.nextLong(),
+              this.gamesPerIteration / 2);
+      double gradient = (2 * result.getScore() - 1) / (2 * stepSize);
+      for (int i = 0; i < this.theta.length; i++) {
+        this.theta[i] = Math.max(0, this.theta[i] + rate * gradient * delta[i]);
+      }
+      this.iteration++;
+      this.save();
+      LOGGER.info(
+          String.format(
+              Locale.ROOT,
+              "Iteration %d: plus vs minus %.3f, %s",
+              this.iteration,
+              result.getScore(),
+              this.getWeights()));
+    }
+    return this.getWeights();
+  }
+
+  /**
+   * Plays a match of paired games between two weight vectors.
+   *
+   * @param candidate the weights whose result is reported
+   * @param baseline the weights of the opponents
+   * @param games the number of games, rounded up to an even number
+   * @return the result of the candidate
+   */
+  public MatchResult match(HeuristicWeights candidate, HeuristicWeights baseline, int games) {
+    int pairs = (games + 1) / 2;
+    return this.playMatch(candidate, baseline, new SplittableRandom(this.seed).nextLong(), pairs);
+  }
+
+  private MatchResult playMatch(
+      HeuristicWeights candidate, HeuristicWeights baseline, long dealSeed, int pairs) {
+    MatchResult result = new MatchResult();
+    for (int side = 0; side < 2; side++) {
+      GameSimulator simulator =
+          new GameSimulator(Collections.nCopies(this.players, this.difficulty));
+      simulator.setSeed(dealSeed);
+      boolean[] candidateSeats = new boolean[this.players];
+      for (int seat = 0; seat < this.players; seat++) {
+        candidateSeats[seat] = seat % 2 == side;
+        simulator.setWeights(seat, candidateSeats[seat] ? candidate : baseline);
+      }
+      result.add(simulator.run(pairs, this.parallelism), candidateSeats);
+    }
+    return result;
+  }
+
+  private HeuristicWeights toWeights(double[] relative) {
+    double[] values = new double[relative.length];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = relative[i] * this.scale[i];
+    }
+    return HeuristicWeights.of(values);
+  }
+
+  /**
+   * Returns the current weights.
+   *
+   * @return the weights
+   */
+  public HeuristicWeights getWeights() {
+    return this.toWeights(this.theta);
+  }
+
+  /**
+   * Returns the number of completed iterations, including those of a resumed run.
+   *
+   * @return the iterations
+   */
+  public int getIteration() {
+    return this.iteration;
+  }
+
+  public long getSeed() {
+    return this.seed;
+  }
+
+  /**
+   * Sets the initial perturbation of every weight, as a fraction of its default value.
+   *
+   * @param step the step, greater than 0
+   */
+  public void setStep(double step) {
+    this.checkNotStarted();
+    if (step <= 0) {
+      throw new IllegalArgumentException("Step has to be greater than 0");
+    }
+    this.step = step;
+  }
+
+  public double getStep() {
+    return this.step;
+  }
+
+  /**
+   * Sets the initial learning rate of the weights, as a fraction of their default values.
+   *
+   * @param learningRate the learning rate, greater than 0
+   */
+  public void setLearningRate(double learningRate) {
+    this.checkNotStarted();
+    if (learningRate <= 0) {
+      throw new IllegalArgumentException("Learning rate has to be greater than 0");
+    }
+    this.learningRate = learningRate;
+  }
+
+  public double getLearningRate() {
+    return this.learningRate;
+  }
+
+  /**
+   * Sets the number of iterations by which the learning rate is delayed, so that it starts
+   * smaller than its initial value and decays more slowly in the first iterations.
+   *
+   * @param stability the stability constant, at least 0
+   */
+  public void setStability(double stability) {
+    this.checkNotStarted();
+    if (stability < 0) {
+      throw new IllegalArgumentException("Stability must not be negative");
+    }
+    this.stability = stability;
+  }
+
+  public double getStability() {
+    return this.stability;
+  }
+
+  /** The schedule of a run must not change once iterations were played with it. */
+  private void checkNotStarted() {
+    if (this.iteration > 0) {
+      throw new IllegalStateException("The schedule of a started run cannot be changed");
+    }
+  }
+
+  /** Writes the checkpoint to a temporary file first, so that an interruption cannot corrupt it. */
+  private void save() throws IOException {
+    if (this.checkpoint == null) {
+      return;
+    }
+    Properties properties = new Properties();
+    properties.setProperty("seed", Long.toString(this.seed));
+    properties.setProperty("iteration", Integer.toString(this.iteration));
+    properties.setProperty("step", Double.toString(this.step));
+    properties.setProperty("learningRate", Double.toString(this.learningRate));
+    properties.setProperty("stability", Double.toString(this.stability));
+    for (int i = 0; i < this.theta.length; i++) {
+      properties.setProperty(HeuristicWeights.NAMES.get(i), Double.toString(this.theta[i]));
+    }
+    Path directory = this.checkpoint.toAbsolutePath().getParent();
+    Path temporary = Files.createTempFile(directory, "tuning", ".tmp");
+    try (OutputStream out = Files.newOutputStream(temporary)) {
+      properties.store(out, "Relative heuristic weights of " + this.difficulty);
+    }
+    Files.move(
+        temporary,
+        this.checkpoint,
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void load() throws IOException {
+    Properties properties = new Properties();
+    try (InputStream in = Files.newInputStream(this.checkpoint)) {
+      properties.load(in);
+    }
+    try {
+      this.seed = Long.parseLong(properties.getProperty("seed"));
+      this.iteration = Integer.parseInt(properties.getProperty("iteration"));
+      this.step = Double.parseDouble(properties.getProperty("step"));
+      this.learningRate = Double.parseDouble(properties.getProperty("learningRate"));
+      this.stability = Double.parseDouble(properties.getProperty("stability"));
+      for (int i = 0; i < this.theta.length; i++) {
+        this.theta[i] = Double.parseDouble(properties.getProperty(HeuristicWeights.NAMES.get(i)));
+      }
+    } catch (NullPointerException | NumberFormatException e) {
+      throw new IOException("Invalid checkpoint " + this.checkpoint, e);
+    }
+  }
+
+  /**
+   * Tunes the weights from the command line and compares the result with the default weights.
+   *
+   * <p>Usage: {@code WeightTuner [iterations] [games] [threads] [checkpoint] [difficulty]
+   * [--players=n] [--seed=n]}, e.g. {@code WeightTuner 100 200 8 tuning.properties HARD}. Defaults
+   * to 50 iterations of 200 games on all processors between two HARD players, checkpointed to
+   * {@code tuning.properties}. The final match plays four times the games of an iteration.
+   *
+   * @param args the command line arguments
+   * @throws IOException if the checkpoint cannot be read or written
+   */
+  public static void main(String[] args) throws IOException {
+    int iterations = 50;
+    int games = 200;
+    int threads = Runtime.getRuntime().availableProcessors();
+    Path checkpoint = Path.of("tuning.properties");
+    AiDifficulty difficulty = AiDifficulty.HARD;
+    int players = 2;
+    long seed = new SplittableRandom().nextLong();
+    List<String> positional = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--players=")) {
+        players = Integer.parseInt(arg.substring("--players=".length()));
+      } else if (arg.startsWith("--seed=")) {
+        seed = Long.parseLong(arg.substring("--seed=".length()));
+      } else {
+        positional.add(arg);
+      }
+    }
+    for (int i = 0; i < positional.size(); i++) {
+      String arg = positional.get(i);
+      switch (i) {
+        case 0 -> iterations = Integer.parseInt(arg);
+        case 1 -> games = Integer.parseInt(arg);
+        case 2 -> threads = Integer.parseInt(arg);
+        case 3 -> checkpoint = Path.of(arg);
+        default -> difficulty = AiDifficulty.valueOf(arg.toUpperCase(Locale.ROOT));
+      }
+    }
+
+    WeightTuner tuner = new WeightTuner(difficulty, players, games, threads, checkpoint, seed);
+    System.out.println("Seed " + tuner.getSeed() + ", iteration " + tuner.getIteration());
+    HeuristicWeights tuned = tuner.tune(iterations);
+    System.out.println("Tuned:   " + tuned);
+    System.out.println("Default: " + HeuristicWeights.DEFAULT);
+    MatchResult result = tuner.match(tuned, HeuristicWeights.DEFAULT, 4 * games);
+    System.out.println("Tuned vs default: " + result);
+  }
+}
@@ -0,0 +1,112 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.AffordabilityKernel;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.PositionAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the packed affordability checks of the {@link AffordabilityKernel} against the scalar
+ * reference.
+ */
+public class AffordabilityKernelTest {
+
+    private static long randomWallet(Random random, int max) {
+        Map<StoneType, Integer> stones = new EnumMap<>(StoneType.class);
+        for (StoneType type : StoneType.values()) {
+            stones.put(type, random.nextInt(max + 1));
+        }
+        return AffordabilityKernel.pack(stones);
+    }
+
+    @Test
+    public void testShortfallMatchesScalar() {
+        Random random = new Random(17);
+        for (int i = 0; i < 100_000; i++) {
+            long cost = AffordabilityKernel.cardCost(random.nextInt(CardCatalog.CARD_COUNT));
+            long bonuses = randomWallet(random, random.nextBoolean() ? 3 : 20);
+            long tokens = randomWallet(random, 10);
+            assertEquals(AffordabilityKernel.shortfallScalar(cost, bonuses, tokens),
+                    AffordabilityKernel.shortfall(cost, bonuses, tokens));
+        }
+    }
+
+    @Test
+    public void testShortfall() {
+        Card card = CardCatalog.getCard(CardCatalog.CARD_COUNT - 1);
+        long cost = AffordabilityKernel.cardCost(card.getId());
+        assertEquals(card.getTotalCost(), AffordabilityKernel.shortfall(cost, 0, 0));
+
+        Map<StoneType, Integer> stones = new EnumMap<>(StoneType.class);
+        for (StoneType type : StoneType.values()) {
+            stones.put(type, card.getCostOf(type));
+        }
+        long exact = AffordabilityKernel.pack(stones);
+        assertEquals(0, AffordabilityKernel.shortfall(cost, exact, 0));
+        assertEquals(0, AffordabilityKernel.shortfall(cost, 0, exact));
+        assertEquals(0, AffordabilityKernel.shortfall(cost, exact, exact));
+    }
+
+    @Test
+    public void testAffordableMasks() {
+        long[] costs = new long[CardCatalog.CARD_COUNT];
+        for (int id = 0; id < 15; id++) {
+            costs[id] = AffordabilityKernel.cardCost(id * 6);
+        }
+        Random random = new Random(4);
+        long[] bonuses = new long[4];
+        long[] tokens = new long[4];
+        int[] gold = new int[4];
+        for (int p = 0; p < 4; p++) {
+            bonuses[p] = randomWallet(random, 2);
+            tokens[p] = randomWallet(random, 3);
+            gold[p] = random.nextInt(3);
+        }
+        int[] masks = new int[4];
+        int[] shortfalls = new int[15];
+        AffordabilityKernel.affordableMasks(costs, 15, bonuses, tokens, gold, 4, masks);
+        for (int p = 0; p < 4; p++) {
+            assertEquals(masks[p], AffordabilityKernel.affordableMask(costs, 15, bonuses[p],
+                    tokens[p], gold[p], shortfalls));
+            for (int i = 0; i < 15; i++) {
+                int expected = AffordabilityKernel.shortfallScalar(costs[i], bonuses[p], tokens[p]);
+                assertEquals(expected, shortfalls[i]);
+                assertEquals(expected <= gold[p], (masks[p] & 1 << i) != 0);
+            }
+        }
+    }
+
+    @Test
+    public void testCardsOutsideCatalog() {
+        Map<StoneType, Integer> cost = Map.of(StoneType.RED, 2, StoneType.WHITE, 1);
+        Card custom = new Card(cost, StoneType.BLUE, 5, 3);
+        assertEquals(AffordabilityKernel.pack(cost), AffordabilityKernel.cardCost(custom));
+
+        GameState gs = new GameState(14);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new HumanPlayer(0, new User(1, "alice", "pw", 30)));
+        players.add(new HumanPlayer(1, new User(2, "bob", "pw", 40)));
+        gs.setPlayers(players);
+        gs.startGame();
+        gs.getThirdCardDeck().set(0, custom);
+        for (AbstractPlayer player : players) {
+            player.getStoneInventory().put(StoneType.RED, 2);
+            player.getStoneInventory().put(StoneType.WHITE, 1);
+            player.recalculateTotals();
+        }
+        List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+        assertTrue(moves.stream()
+                .anyMatch(m -> m instanceof BuyMove buy && buy.getCard() == custom));
+        assertSame(custom, PositionAnalysis.of(gs).getThreatCard());
+    }
+}
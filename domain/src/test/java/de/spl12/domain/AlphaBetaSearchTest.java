@@ -0,0 +1,191 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.AlphaBetaSearch;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.ai.TranspositionTable;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.ReserveMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link AlphaBetaSearch}.
+ */
+public class AlphaBetaSearchTest {
+
+    private GameState createGameState(int players) {
+        GameState gs = new GameState(21);
+        List<AbstractPlayer> list = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            list.add(new AiPlayer(i, AiDifficulty.HARD, i));
+        }
+        gs.setPlayers(list);
+        for (int turn = 0; turn < 8; turn++) {
+            AiPlayer player = (AiPlayer) gs.getPlayers().get(gs.getPlayersTurn());
+            gs.apply(player.decideMove(gs));
+        }
+        return gs;
+    }
+
+    private static int encode(AbstractMove move, GameState gs) {
+        return PackedMove.encode(move, CompactGameState.of(gs));
+    }
+
+    @Test
+    public void testDeterministicWithNodeBudget() {
+        for (int players = 2; players <= 4; players++) {
+            GameState gs = createGameState(players);
+            CompactGameState before = CompactGameState.of(gs);
+            AlphaBetaSearch first = new AlphaBetaSearch(SearchBudget.ofIterations(3_000));
+            AlphaBetaSearch second = new AlphaBetaSearch(SearchBudget.ofIterations(3_000));
+            AbstractMove move = first.search(gs);
+            assertEquals(before.getHash(), CompactGameState.of(gs).getHash());
+            assertEquals(encode(move, gs), encode(second.search(gs), gs));
+            assertTrue(first.getLastDepth() >= 1, "players " + players);
+            assertEquals(first.getLastNodes(), second.getLastNodes());
+
+            List<Integer> legal = new ArrayList<>();
+            for (AbstractMove candidate : MoveGenerator.generateAllPossibleMoves(gs)) {
+                legal.add(encode(candidate, gs));
+            }
+            assertTrue(legal.contains(encode(move, gs)));
+        }
+    }
+
+    @Test
+    public void testFindsWinningMove() {
+        GameState gs = createGameState(3);
+        AbstractPlayer player = gs.getPlayers().get(gs.getPlayersTurn());
+        Card target = null;
+        for (Card card : gs.getThirdCardDeck()) {
+            if (card != null && (target == null
+                    || card.getPrestigePoints() > target.getPrestigePoints())) {
+                target = card;
+            }
+        }
+        assertNotNull(target);
+        // owned cards worth just below the finish, from the top of the level-3 stack
+        for (Card card : gs.getThirdCardStack()) {
+            if (player.getPrestige() + card.getPrestigePoints() + target.getPrestigePoints() < 15) {
+                player.getOwnedCards().add(card);
+                player.recalculateTotals();
+            }
+        }
+        int missing = 15 - player.getPrestige() - target.getPrestigePoints();
+        for (Card card : gs.getFirstCardStack()) {
+            if (missing > 0 && card.getPrestigePoints() == 1) {
+                player.getOwnedCards().add(card);
+                missing--;
+            }
+        }
+        player.recalculateTotals();
+        assertEquals(15, player.getPrestige() + target.getPrestigePoints());
+        for (StoneType type : StoneType.values()) {
+            player.getStoneInventory().put(type, target.getCost().getOrDefault(type, 0));
+        }
+        player.recalculateTotals();
+
+        AlphaBetaSearch search = new AlphaBetaSearch(SearchBudget.ofIterations(50_000));
+        AbstractMove move = search.search(gs);
+        BuyMove buy = assertInstanceOf(BuyMove.class, move);
+        assertTrue(player.getPrestige() + buy.getCard().getPrestigePoints() >= 15);
+        assertTrue(search.getLastValue() >= AlphaBetaSearch.WIN - 1);
+        assertEquals(1, search.getLastDepth());
+    }
+
+    private static int netCost(AbstractPlayer player, Card card, StoneType type) {
+        return Math.max(0, card.getCost().getOrDefault(type, 0) - player.getBonusForType(type));
+    }
+
+    @Test
+    public void testWinDistanceThroughTable() {
+        GameState gs = new GameState(21);
+        gs.setPlayers(new ArrayList<>(List.of(new AiPlayer(0, AiDifficulty.HARD, 0),
+                new AiPlayer(1, AiDifficulty.HARD, 1))));
+        gs.getNobleDeck().clear();
+        AbstractPlayer player = gs.getPlayers().get(0);
+        // two targets that both finish the game, so the opponent cannot block the win
+        List<Card> targets = List.of(gs.getSecondCardDeck().get(0), gs.getSecondCardDeck().get(2));
+        int points = Math.min(targets.get(0).getPrestigePoints(),
+                targets.get(1).getPrestigePoints());
+        int missing = 15 - points;
+        List<Card> stacks = new ArrayList<>(gs.getThirdCardStack());
+        stacks.addAll(gs.getSecondCardStack());
+        stacks.addAll(gs.getFirstCardStack());
+        for (Card card : stacks) {
+            if (card.getPrestigePoints() > 0 && card.getPrestigePoints() <= missing) {
+                player.getOwnedCards().add(card);
+                missing -= card.getPrestigePoints();
+            }
+        }
+        player.recalculateTotals();
+        assertEquals(15 - points, player.getPrestige());
+        // every target is short of one token, which the gold of a reserve makes up for
+        for (StoneType type : StoneType.values()) {
+            int tokens = 0;
+            for (Card target : targets) {
+                tokens = Math.max(tokens, netCost(player, target, type));
+            }
+            player.getStoneInventory().put(type, tokens);
+        }
+        for (Card target : targets) {
+            for (StoneType type : StoneType.values()) {
+                if (player.canAffordCard(target) && netCost(player, target, type) > 0
+                        && player.getStoneInventory().get(type) == netCost(player, target, type)) {
+                    player.getStoneInventory().merge(type, -1, Integer::sum);
+                }
+            }
+        }
+        player.recalculateTotals();
+        assertFalse(player.canAffordCard(targets.get(0)) || player.canAffordCard(targets.get(1)));
+
+        AlphaBetaSearch fresh = new AlphaBetaSearch(SearchBudget.ofIterations(200_000));
+        fresh.search(gs);
+        assertEquals(AlphaBetaSearch.WIN - 3, fresh.getLastValue());
+
+        // the wins after a reserve and any reply are found by earlier searches at their root
+        TranspositionTable table = new TranspositionTable(AlphaBetaSearch.DEFAULT_TABLE_BITS);
+        AbstractMove reserve = null;
+        for (AbstractMove move : MoveGenerator.generateAllPossibleMoves(gs)) {
+            if (move instanceof ReserveMove r && r.gotGoldCoin()
+                    && !targets.contains(r.getCard())) {
+                reserve = move;
+                break;
+            }
+        }
+        assertNotNull(reserve);
+        GameState reserved = gs.copy(false);
+        reserved.apply(reserve);
+        for (AbstractMove reply : MoveGenerator.generateAllPossibleMoves(reserved)) {
+            GameState next = reserved.copy(false);
+            next.apply(reply);
+            AlphaBetaSearch search =
+                    new AlphaBetaSearch(SearchBudget.ofIterations(200_000), table);
+            search.search(next);
+            assertEquals(AlphaBetaSearch.WIN - 1, search.getLastValue());
+        }
+
+        AlphaBetaSearch shared = new AlphaBetaSearch(SearchBudget.ofIterations(200_000), table);
+        shared.search(gs);
+        assertEquals(AlphaBetaSearch.WIN - 3, shared.getLastValue());
+        assertEquals(3, shared.getLastDepth());
+    }
+
+    @Test
+    public void testTimeLimit() {
+        GameState gs = createGameState(4);
+        AlphaBetaSearch search = new AlphaBetaSearch(SearchBudget.ofMillis(100));
+        long start = System.nanoTime();
+        AbstractMove move = search.search(gs);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        assertNotNull(move);
+        assertTrue(millis < 1_000, "took " + millis + " ms");
+    }
+}
@@ -0,0 +1,75 @@
+package de.spl12.domain;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the ids and the canonical instances of the {@link CardCatalog}.
+ */
+public class CardCatalogTest {
+
+    @Test
+    public void testDenseIds() {
+        assertEquals(90, CardCatalog.CARD_COUNT);
+        assertEquals(10, CardCatalog.NOBLE_COUNT);
+        for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+            assertEquals(id, CardCatalog.getCard(id).getId());
+        }
+        for (int id = 0; id < CardCatalog.NOBLE_COUNT; id++) {
+            assertEquals(id, CardCatalog.getNoble(id).getId());
+        }
+        assertEquals(40, CardCatalog.getCardsOfLevel(1).size());
+        assertEquals(30, CardCatalog.getCardsOfLevel(2).size());
+        assertEquals(20, CardCatalog.getCardsOfLevel(3).size());
+        assertEquals(-1, new Card("1,white", 1).getId());
+    }
+
+    @Test
+    public void testImmutable() {
+        Card card = CardCatalog.getCard(0);
+        assertThrows(UnsupportedOperationException.class,
+                () -> card.getCost().put(StoneType.GOLD, 1));
+        assertThrows(UnsupportedOperationException.class,
+                () -> CardCatalog.getCardsOfLevel(1).remove(0));
+        assertThrows(UnsupportedOperationException.class,
+                () -> CardCatalog.getNobles().remove(0));
+    }
+
+    @Test
+    public void testCostVector() {
+        for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+            Card card = CardCatalog.getCard(id);
+            int total = 0;
+            for (StoneType type : StoneType.values()) {
+                assertEquals(card.getCost().getOrDefault(type, 0), card.getCostOf(type));
+                total += card.getCostOf(type);
+            }
+            assertEquals(total, card.getTotalCost());
+        }
+    }
+
+    @Test
+    public void testGameStateUsesCanonicalCards() throws Exception {
+        GameState gs = new GameState();
+        Card card = gs.getFirstCardDeck().getFirst();
+        assertSame(CardCatalog.getCard(card.getId()), card);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(gs);
+        }
+        GameState copy;
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (GameState) in.readObject();
+        }
+        assertSame(card, copy.getFirstCardDeck().getFirst());
+        assertSame(gs.getNobleDeck().getFirst(), copy.getNobleDeck().getFirst());
+    }
+}
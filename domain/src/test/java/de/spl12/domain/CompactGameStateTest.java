@@ -0,0 +1,171 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.PackedMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the conversion between {@link GameState} and {@link CompactGameState}.
+ */
+public class CompactGameStateTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState();
+        for (int i = 0; i < 4; i++) {
+            gs.getPlayers().add(new HumanPlayer(i, new User(i, "player" + i, "1234", 20 + i)));
+        }
+        return gs;
+    }
+
+    /**
+     * Plays a few actions on the game state so that every part of the compact representation
+     * holds a non-trivial value.
+     */
+    private void playSomeActions(GameState gs) throws Exception {
+        AbstractPlayer first = gs.getPlayers().get(0);
+        for (StoneType type : List.of(StoneType.GREEN, StoneType.BLUE, StoneType.RED)) {
+            gs.takeStone(type);
+            first.takeStone(type);
+        }
+        Card reserved = gs.getSecondCardDeck().get(1);
+        first.reserveCard(reserved);
+        gs.replaceCard(reserved);
+        gs.takeStone(StoneType.GOLD);
+        first.takeStone(StoneType.GOLD);
+
+        AbstractPlayer second = gs.getPlayers().get(1);
+        Card bought = gs.getFirstCardDeck().getFirst();
+        for (StoneType type : bought.getCost().keySet()) {
+            second.getStoneInventory().put(type, bought.getCost().get(type));
+        }
+        second.recalculateTotals();
+        second.buyCard(bought);
+        gs.replaceCard(bought);
+        Noble noble = gs.getNobleDeck().get(2);
+        second.obtainNoble(noble);
+        gs.removeNoble(noble);
+        gs.nextTurn();
+    }
+
+    @Test
+    public void testConversion() throws Exception {
+        GameState gs = createGameState();
+        playSomeActions(gs);
+        CompactGameState compact = CompactGameState.of(gs);
+
+        assertEquals(4, compact.getPlayerCount());
+        assertEquals(gs.getPlayersTurn(), compact.getPlayersTurn());
+        assertEquals(6, compact.getPool(StoneType.GREEN.ordinal()));
+        assertEquals(4, compact.getPool(StoneType.GOLD.ordinal()));
+        assertEquals(35, compact.getStackSize(0));
+        assertEquals(25, compact.getStackSize(1));
+        assertEquals(16, compact.getStackSize(2));
+
+        assertEquals(4, compact.getTokenTotal(0));
+        assertEquals(1, compact.getTokens(0, StoneType.GOLD.ordinal()));
+        assertEquals(1, compact.getReservedCount(0));
+        assertSame(gs.getPlayers().get(0).getReservedCards().getFirst(),
+                compact.card(compact.getReservedCard(0, 0)));
+
+        assertEquals(1, compact.getOwnedCount(1));
+        Card bought = gs.getPlayers().get(1).getOwnedCards().getFirst();
+        assertEquals(1, compact.getBonus(1, bought.getBonus().ordinal()));
+        assertEquals(0, compact.getTokenTotal(1));
+        assertEquals(gs.getPlayers().get(1).getPrestige(), compact.getPrestige(1));
+        assertEquals(CompactGameState.EMPTY, compact.getNobleOnTable(2));
+
+        for (int slot = 0; slot < CompactGameState.SLOTS_PER_LEVEL; slot++) {
+            assertSame(gs.getThirdCardDeck().get(slot),
+                    compact.card(compact.getVisibleCard(2 * CompactGameState.SLOTS_PER_LEVEL + slot)));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        GameState gs = createGameState();
+        playSomeActions(gs);
+        CompactGameState compact = CompactGameState.of(gs);
+
+        GameState target = createGameState();
+        compact.applyTo(target);
+
+        assertEquals(gs.getStonePool(), target.getStonePool());
+        assertEquals(gs.getPlayersTurn(), target.getPlayersTurn());
+        assertEquals(gs.getTurnNumber(), target.getTurnNumber());
+        assertEquals(gs.getFirstCardDeck(), target.getFirstCardDeck());
+        assertEquals(gs.getSecondCardDeck(), target.getSecondCardDeck());
+        assertEquals(gs.getThirdCardDeck(), target.getThirdCardDeck());
+        assertEquals(gs.getFirstCardStack(), target.getFirstCardStack());
+        assertEquals(gs.getSecondCardStack(), target.getSecondCardStack());
+        assertEquals(gs.getThirdCardStack(), target.getThirdCardStack());
+        assertEquals(gs.getNobleDeck(), target.getNobleDeck());
+        for (int i = 0; i < 4; i++) {
+            AbstractPlayer expected = gs.getPlayers().get(i);
+            AbstractPlayer actual = target.getPlayers().get(i);
+            assertEquals(expected.getStoneInventory(), actual.getStoneInventory());
+            assertEquals(expected.getReservedCards(), actual.getReservedCards());
+            assertEquals(expected.getOwnedCards(), actual.getOwnedCards());
+            assertEquals(expected.getNobles(), actual.getNobles());
+        }
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        GameState gs = createGameState();
+        playSomeActions(gs);
+        CompactGameState compact = CompactGameState.of(gs);
+        CompactGameState copy = compact.copy();
+
+        copy.copyFrom(compact);
+        assertEquals(compact.getTokenTotal(0), copy.getTokenTotal(0));
+        assertEquals(compact.getVisibleCard(5), copy.getVisibleCard(5));
+
+        CompactGameState other = CompactGameState.of(createGameState());
+        copy.copyFrom(other);
+        assertEquals(0, copy.getTokenTotal(0));
+        assertEquals(other.getVisibleCard(5), copy.getVisibleCard(5));
+        assertEquals(1, compact.getReservedCount(0));
+    }
+
+    @Test
+    public void testHashOfTransposedMoveOrders() {
+        CompactGameState first = CompactGameState.of(createGameState());
+        CompactGameState second = first.copy();
+        long start = first.getHash();
+        assertEquals(first.computeHash(), start);
+        int whiteBlueGreen = PackedMove.takeThree(0, 1, 2);
+        int whiteRedBlack = PackedMove.takeThree(0, 3, 4);
+        int others = PackedMove.takeThree(1, 2, 3);
+
+        // the first player takes the same tokens in the opposite order
+        for (int move : new int[] {whiteBlueGreen, whiteRedBlack}) {
+            first.play(move);
+            for (int p = 1; p < 4; p++) {
+                first.play(others);
+            }
+        }
+        for (int move : new int[] {whiteRedBlack, whiteBlueGreen}) {
+            second.play(move);
+            for (int p = 1; p < 4; p++) {
+                second.play(others);
+            }
+        }
+        assertEquals(first.getHash(), second.getHash());
+        assertEquals(first.computeHash(), first.getHash());
+        assertNotEquals(start, first.getHash());
+
+        second.unplay(others, 0);
+        assertNotEquals(first.getHash(), second.getHash());
+        assertEquals(second.computeHash(), second.getHash());
+    }
+
+    @Test
+    public void testRejectsCardsOutsideCatalog() {
+        GameState gs = createGameState();
+        gs.getFirstCardDeck().set(0, new Card("1,white", 1));
+        assertThrows(IllegalArgumentException.class, () -> CompactGameState.of(gs));
+    }
+}
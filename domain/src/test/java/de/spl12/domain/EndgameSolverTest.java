@@ -0,0 +1,134 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.EndgameSolver;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.TakeMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link EndgameSolver} and its use by the {@link AiPlayer}.
+ */
+public class EndgameSolverTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState(31);
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            players.add(new AiPlayer(i, AiDifficulty.HARD, i));
+        }
+        gs.setPlayers(players);
+        return gs;
+    }
+
+    /** Returns the cheapest level-3 table card, which can be bought with at most 10 tokens. */
+    private static Card cheapLevel3Card(GameState gs) {
+        Card cheapest = null;
+        for (Card card : gs.getThirdCardDeck()) {
+            if (card != null && (cheapest == null
+                    || card.getTotalCost() < cheapest.getTotalCost())) {
+                cheapest = card;
+            }
+        }
+        assertTrue(cheapest.getTotalCost() <= 10);
+        return cheapest;
+    }
+
+    /**
+     * Gives the player nobles from outside the table and level-1 cards up to the given prestige,
+     * with as few bonuses as possible, and exactly the tokens to buy the target card.
+     */
+    private static void prepare(GameState gs, AbstractPlayer player, int prestige, Card target) {
+        for (Noble noble : CardCatalog.getNobles()) {
+            if (!gs.getNobleDeck().contains(noble)
+                    && player.getPrestige() + noble.getPrestigePoints() <= prestige) {
+                player.getNobles().add(noble);
+                player.recalculateTotals();
+            }
+        }
+        for (Card card : gs.getFirstCardStack()) {
+            if (card.getPrestigePoints() > 0
+                    && player.getPrestige() + card.getPrestigePoints() <= prestige) {
+                player.getOwnedCards().add(card);
+                player.recalculateTotals();
+            }
+        }
+        assertEquals(prestige, player.getPrestige());
+        for (StoneType type : StoneType.values()) {
+            player.getStoneInventory().put(type, target.getCost().getOrDefault(type, 0));
+        }
+        player.recalculateTotals();
+    }
+
+    @Test
+    public void testFindsWinInOne() {
+        GameState gs = createGameState();
+        Card target = cheapLevel3Card(gs);
+        AbstractPlayer player = gs.getPlayers().get(gs.getPlayersTurn());
+        prepare(gs, player, 15 - target.getPrestigePoints(), target);
+
+        CompactGameState state = CompactGameState.of(gs);
+        assertTrue(EndgameSolver.isEndgame(state, 10));
+        EndgameSolver solver = new EndgameSolver(SearchBudget.ofIterations(100_000));
+        assertEquals(EndgameSolver.WIN, solver.solve(state));
+        assertEquals(1, solver.getLastDepth());
+        int move = solver.getBestMove();
+        assertEquals(PackedMove.BUY, PackedMove.type(move));
+        assertTrue(player.getPrestige()
+                + CardCatalog.getCard(PackedMove.card(move)).getPrestigePoints() >= 15);
+
+        AbstractMove decided = ((AiPlayer) player).decideMove(gs);
+        BuyMove buy = assertInstanceOf(BuyMove.class, decided);
+        assertTrue(player.getPrestige() + buy.getCard().getPrestigePoints() >= 15);
+    }
+
+    @Test
+    public void testBlocksOpponentWin() {
+        GameState gs = createGameState();
+        Card target = cheapLevel3Card(gs);
+        int root = gs.getPlayersTurn();
+        AbstractPlayer opponent = gs.getPlayers().get(1 - root);
+        prepare(gs, opponent, 15 - target.getPrestigePoints(), target);
+
+        CompactGameState state = CompactGameState.of(gs);
+        EndgameSolver solver = new EndgameSolver(SearchBudget.ofIterations(200_000));
+        solver.setHorizon(2);
+        int result = solver.solve(state);
+        assertNotEquals(EndgameSolver.LOSS, result);
+        int block = solver.getBestMove();
+        assertNotEquals(PackedMove.TAKE, PackedMove.type(block));
+        assertEquals(target.getId(), PackedMove.card(block));
+
+        AbstractMove take = null;
+        for (AbstractMove move : de.spl12.domain.moves.MoveGenerator.generateTakeMoves(gs)) {
+            take = move;
+        }
+        assertInstanceOf(TakeMove.class, take);
+        assertEquals(EndgameSolver.LOSS, solver.getValue(PackedMove.encode(take, state)));
+
+        AbstractMove decided = ((AiPlayer) gs.getPlayers().get(root)).decideMove(gs);
+        assertEquals(target.getId(), PackedMove.card(PackedMove.encode(decided, state)));
+        assertNotEquals(PackedMove.TAKE, PackedMove.type(PackedMove.encode(decided, state)));
+    }
+
+    @Test
+    public void testQuietPosition() {
+        GameState gs = createGameState();
+        CompactGameState state = CompactGameState.of(gs);
+        assertFalse(EndgameSolver.isEndgame(state, 10));
+        EndgameSolver solver = new EndgameSolver(SearchBudget.ofIterations(10_000));
+        solver.setHorizon(2);
+        assertEquals(EndgameSolver.UNKNOWN, solver.solve(state));
+        // no player can reach 15 prestige within the horizon, so every line stops right away
+        int rootMoves = de.spl12.domain.moves.MoveGenerator.generateAllPossibleMoves(gs).size();
+        assertEquals(2L * rootMoves, solver.getLastNodes());
+        assertEquals(2, solver.getLastDepth());
+    }
+}
@@ -0,0 +1,82 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.simulation.GameResult;
+import de.spl12.domain.simulation.GameSimulator;
+import de.spl12.domain.simulation.SimulationReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests running complete AI games with the headless {@link GameSimulator}.
+ */
+public class GameSimulatorTest {
+
+    @Test
+    public void testGameFollowsRules() {
+        GameSimulator simulator = new GameSimulator(List.of(AiDifficulty.HARD, AiDifficulty.MEDIUM,
+                AiDifficulty.EASY, AiDifficulty.HARD));
+        simulator.setCheckRules(true);
+        for (int i = 0; i < 3; i++) {
+            GameResult result = simulator.playGame();
+            assertTrue(result.getMoves() > 0);
+            if (result.isFinished()) {
+                assertTrue(result.getPrestige(result.getWinner()) >= GameSimulator.WINNING_PRESTIGE);
+            }
+        }
+    }
+
+    @Test
+    public void testReportCountsAllGames() {
+        GameSimulator simulator = new GameSimulator(List.of(AiDifficulty.HARD, AiDifficulty.EASY));
+        simulator.setCheckRules(true);
+        SimulationReport report = simulator.run(6, 2);
+        assertEquals(6, report.getGames());
+        long wins = report.getWins(0) + report.getWins(1);
+        assertEquals(report.getFinishedGames(), wins);
+        assertTrue(report.getMoves() > 0);
+        assertTrue(report.getMovesPerSecond() > 0);
+        assertTrue(report.toString().contains("games/s"));
+    }
+
+    @Test
+    public void testSeededRunsAreReproducible() {
+        GameSimulator simulator = new GameSimulator(List.of(AiDifficulty.EASY, AiDifficulty.MEDIUM,
+                AiDifficulty.HARD));
+        GameResult first = simulator.playGame(7);
+        GameResult second = simulator.playGame(7);
+        assertEquals(7, first.getSeed());
+        assertEquals(first.getMoves(), second.getMoves());
+        assertEquals(first.getWinner(), second.getWinner());
+        for (int seat = 0; seat < 3; seat++) {
+            assertEquals(first.getPrestige(seat), second.getPrestige(seat));
+        }
+
+        simulator.setSeed(99);
+        SimulationReport sequential = simulator.run(4, 1);
+        SimulationReport parallel = simulator.run(4, 3);
+        assertEquals(sequential.getMoves(), parallel.getMoves());
+        for (int seat = 0; seat < 3; seat++) {
+            assertEquals(sequential.getWins(seat), parallel.getWins(seat));
+        }
+    }
+
+    @Test
+    public void testExpertSeat() {
+        GameSimulator simulator = new GameSimulator(List.of(AiDifficulty.EXPERT, AiDifficulty.EASY));
+        simulator.setExpertBudget(SearchBudget.ofIterations(50));
+        simulator.setMaxMoves(40);
+        GameResult result = simulator.playGame();
+        assertTrue(result.getMoves() <= 40);
+        assertEquals(2, result.getSeatCount());
+    }
+
+    @Test
+    public void testInvalidSeatCount() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new GameSimulator(List.of(AiDifficulty.EASY)));
+    }
+}
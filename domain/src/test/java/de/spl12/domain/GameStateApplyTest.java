@@ -0,0 +1,178 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests applying and undoing moves in place with {@link GameState#apply(AbstractMove)} and
+ * {@link GameState#undo(UndoRecord)}.
+ */
+public class GameStateApplyTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState();
+        for (int i = 0; i < 4; i++) {
+            gs.getPlayers().add(new HumanPlayer(i, new User(i, "player" + i, "1234", 20 + i)));
+        }
+        return gs;
+    }
+
+    private static String ids(List<Card> cards) {
+        StringBuilder sb = new StringBuilder("[");
+        for (Card card : cards) {
+            sb.append(card == null ? "-" : card.getId()).append(' ');
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String nobleIds(List<Noble> nobles) {
+        StringBuilder sb = new StringBuilder("[");
+        for (Noble noble : nobles) {
+            sb.append(noble == null ? "-" : noble.getId()).append(' ');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * Creates a textual snapshot of everything a move can change.
+     */
+    private static String snapshot(GameState gs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(new EnumMap<>(gs.getStonePool()))
+                .append(ids(gs.getFirstCardDeck())).append(ids(gs.getSecondCardDeck()))
+                .append(ids(gs.getThirdCardDeck())).append(ids(gs.getFirstCardStack()))
+                .append(ids(gs.getSecondCardStack())).append(ids(gs.getThirdCardStack()))
+                .append(nobleIds(gs.getNobleDeck()))
+                .append(gs.getPlayersTurn()).append('/').append(gs.getTurnNumber());
+        for (AbstractPlayer player : gs.getPlayers()) {
+            sb.append('|').append(new EnumMap<>(player.getStoneInventory()))
+                    .append(ids(player.getReservedCards())).append(ids(player.getOwnedCards()))
+                    .append(nobleIds(player.getNobles()));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testApplyUndoEveryMove() {
+        Random random = new Random(42);
+        GameState gs = createGameState();
+        for (int turn = 0; turn < 120; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            String before = snapshot(gs);
+            for (AbstractMove move : moves) {
+                UndoRecord record = gs.apply(move);
+                assertNotEquals(before, snapshot(gs));
+                gs.undo(record);
+                assertEquals(before, snapshot(gs));
+            }
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Test
+    public void testUndoSequence() {
+        Random random = new Random(7);
+        GameState gs = createGameState();
+        List<String> snapshots = new ArrayList<>();
+        List<UndoRecord> records = new ArrayList<>();
+        for (int turn = 0; turn < 60; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            snapshots.add(snapshot(gs));
+            records.add(gs.apply(moves.get(random.nextInt(moves.size()))));
+        }
+        for (int i = records.size() - 1; i >= 0; i--) {
+            gs.undo(records.get(i));
+            assertEquals(snapshots.get(i), snapshot(gs));
+        }
+    }
+
+    @Test
+    public void testTakeAndReserve() {
+        GameState gs = createGameState();
+        AbstractPlayer player = gs.getPlayers().getFirst();
+        gs.apply(new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1, StoneType.GREEN, 1), 0));
+        assertEquals(1, player.getStoneInventory().get(StoneType.RED));
+        assertEquals(6, gs.getStonePool().get(StoneType.RED));
+        assertEquals(1, gs.getPlayersTurn());
+
+        Card card = gs.getSecondCardDeck().get(2);
+        Card next = gs.getSecondCardStack().getFirst();
+        AbstractPlayer second = gs.getPlayers().get(1);
+        UndoRecord record = gs.apply(new ReserveMove(card, true, 0));
+        assertSame(card, second.getReservedCards().getFirst());
+        assertSame(next, gs.getSecondCardDeck().get(2));
+        assertEquals(4, gs.getStonePool().get(StoneType.GOLD));
+        assertEquals(1, second.getStoneInventory().get(StoneType.GOLD));
+
+        gs.undo(record);
+        assertSame(card, gs.getSecondCardDeck().get(2));
+        assertSame(next, gs.getSecondCardStack().getFirst());
+        assertTrue(second.getReservedCards().isEmpty());
+        assertEquals(1, gs.getPlayersTurn());
+    }
+
+    @Test
+    public void testBuyReservedCardWithNobleVisit() {
+        GameState gs = createGameState();
+        AbstractPlayer player = gs.getPlayers().getFirst();
+        Noble noble = gs.getNobleDeck().get(3);
+        Card reserved = null;
+        for (StoneType type : StoneType.values()) {
+            int required = noble.getRequirements().getOrDefault(type, 0);
+            for (Card card : CardCatalog.getCardsOfLevel(1)) {
+                if (required == 0) {
+                    break;
+                }
+                if (card.getBonus() == type && !gs.getFirstCardDeck().contains(card)) {
+                    gs.getFirstCardStack().remove(card);
+                    player.getOwnedCards().add(card);
+                    required--;
+                }
+            }
+        }
+        for (Card card : gs.getThirdCardStack()) {
+            reserved = card;
+        }
+        gs.getThirdCardStack().remove(reserved);
+        player.getReservedCards().add(reserved);
+        player.getReservedCards().add(gs.getThirdCardStack().removeFirst());
+        for (StoneType type : StoneType.values()) {
+            player.getStoneInventory().put(type, 7);
+        }
+        player.recalculateTotals();
+        // the player already owns enough bonuses, so the noble visits after any move
+        Map<StoneType, Integer> payment = player.getPaymentForCard(reserved);
+        String before = snapshot(gs);
+        BuyMove buy = new BuyMove(payment, reserved);
+        buy.setVisitingNoble(noble);
+        UndoRecord record = gs.apply(buy);
+
+        assertSame(noble, record.getNoble());
+        assertNull(gs.getNobleDeck().get(3));
+        assertTrue(player.getNobles().contains(noble));
+        assertSame(reserved, player.getOwnedCards().getLast());
+        assertEquals(1, player.getReservedCards().size());
+
+        gs.undo(record);
+        assertEquals(before, snapshot(gs));
+        assertSame(reserved, player.getReservedCards().getFirst());
+    }
+}
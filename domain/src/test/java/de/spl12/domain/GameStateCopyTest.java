@@ -0,0 +1,99 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.MoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the deep copies of {@link GameState#copy(boolean)}.
+ */
+public class GameStateCopyTest {
+
+    private GameState createPlayedGameState() {
+        GameState gs = new GameState(5);
+        gs.getPlayers().add(new HumanPlayer(0, new User(0, "player0", "1234", 20)));
+        for (int i = 1; i < 4; i++) {
+            gs.getPlayers().add(new AiPlayer(i, AiDifficulty.HARD, i));
+        }
+        gs.getChat().writeMessage(new ChatMessage("player0", "hello"));
+        Random random = new Random(5);
+        for (int turn = 0; turn < 24; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+        return gs;
+    }
+
+    @Test
+    public void testCopyEqualsOriginal() {
+        GameState gs = createPlayedGameState();
+        GameState copy = gs.copy();
+
+        assertEquals(CompactGameState.of(gs).getHash(), CompactGameState.of(copy).getHash());
+        assertEquals(gs.getStonePool(), copy.getStonePool());
+        assertEquals(gs.getFirstCardStack(), copy.getFirstCardStack());
+        assertEquals(gs.getNobleDeck(), copy.getNobleDeck());
+        assertEquals(gs.getTurnNumber(), copy.getTurnNumber());
+        assertEquals(gs.getSeed(), copy.getSeed());
+        for (int i = 0; i < 4; i++) {
+            AbstractPlayer player = gs.getPlayers().get(i);
+            AbstractPlayer copied = copy.getPlayers().get(i);
+            assertNotSame(player, copied);
+            assertEquals(player.getClass(), copied.getClass());
+            assertEquals(player.getName(), copied.getName());
+            assertEquals(player.getStoneInventory(), copied.getStoneInventory());
+            assertEquals(player.getPrestige(), copied.getPrestige());
+            assertEquals(player.getTotalStones(), copied.getTotalStones());
+            for (StoneType type : StoneType.values()) {
+                assertEquals(player.getBonusForType(type), copied.getBonusForType(type));
+            }
+            for (int c = 0; c < player.getOwnedCards().size(); c++) {
+                assertSame(player.getOwnedCards().get(c), copied.getOwnedCards().get(c));
+            }
+        }
+        assertSame(((HumanPlayer) gs.getPlayers().get(0)).getUser(),
+                ((HumanPlayer) copy.getPlayers().get(0)).getUser());
+        assertEquals(AiDifficulty.HARD, ((AiPlayer) copy.getPlayers().get(1)).getDifficulty());
+        assertEquals(1, copy.getChat().getMessageList().size());
+    }
+
+    @Test
+    public void testCopyIsIndependent() {
+        GameState gs = createPlayedGameState();
+        long hash = CompactGameState.of(gs).getHash();
+        GameState copy = gs.copy();
+
+        Random random = new Random(9);
+        for (int turn = 0; turn < 4; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(copy);
+            if (moves.isEmpty()) {
+                break;
+            }
+            copy.apply(moves.get(random.nextInt(moves.size())));
+        }
+        copy.getPlayers().getFirst().getStoneInventory().put(StoneType.GOLD, 3);
+        copy.getNobleDeck().set(0, null);
+        copy.getChat().writeMessage(new ChatMessage("player1", "hi"));
+
+        assertEquals(hash, CompactGameState.of(gs).getHash());
+        assertEquals(1, gs.getChat().getMessageList().size());
+        assertNotNull(gs.getNobleDeck().getFirst());
+        assertNotEquals(hash, CompactGameState.of(copy).getHash());
+    }
+
+    @Test
+    public void testCopyWithoutChat() {
+        GameState gs = createPlayedGameState();
+        GameState copy = gs.copy(false);
+        assertTrue(copy.getChat().getMessageList().isEmpty());
+        assertEquals(CompactGameState.of(gs).getHash(), CompactGameState.of(copy).getHash());
+    }
+}
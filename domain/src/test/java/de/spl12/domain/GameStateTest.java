@@ -1,7 +1,15 @@
 package de.spl12.domain;
 
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
+import de.spl12.domain.messages.PackageCodec;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.moves.HeuristicWeights;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -20,4 +28,100 @@ public class GameStateTest {
         assertEquals(26, gs.getSecondCardStack().size());
         assertEquals(16, gs.getThirdCardStack().size());
     }
+
+    @Test
+    public void testSeededSetup() {
+        GameState first = new GameState(42);
+        GameState second = new GameState(42);
+
+        assertEquals(first.getFirstCardDeck(), second.getFirstCardDeck());
+        assertEquals(first.getSecondCardStack(), second.getSecondCardStack());
+        assertEquals(first.getThirdCardStack(), second.getThirdCardStack());
+        assertEquals(first.getNobleDeck(), second.getNobleDeck());
+        assertEquals(42, first.getSeed());
+
+        first.reset();
+        second.reset();
+        assertEquals(first.getFirstCardStack(), second.getFirstCardStack());
+        assertEquals(first.getNobleDeck(), second.getNobleDeck());
+
+        assertNotEquals(new GameState(1).getFirstCardStack(), new GameState(2).getFirstCardStack());
+    }
+
+    @Test
+    public void testResetDealsNewGame() throws IOException {
+        GameState gs = new GameState(42);
+        List<Card> dealt = new ArrayList<>(gs.getFirstCardStack());
+        for (int i = 0; i < 3; i++) {
+            // a client resets the state it received, whose random source starts at the seed
+            GameState received = ((PlayerActionPackage) PackageCodec.decode(PackageCodec.encode(
+                    new PlayerActionPackage(null, 1, gs)))).getGameState();
+            received.reset();
+            assertNotEquals(gs.getSeed(), received.getSeed());
+            assertNotEquals(dealt, received.getFirstCardStack());
+            dealt = new ArrayList<>(received.getFirstCardStack());
+            gs = received;
+        }
+    }
+
+    @Test
+    public void testEmptyHasNoSetup() {
+        GameState gs = GameState.empty(42);
+        assertEquals(42, gs.getSeed());
+        assertTrue(gs.getFirstCardDeck().isEmpty());
+        assertTrue(gs.getThirdCardStack().isEmpty());
+        assertTrue(gs.getNobleDeck().isEmpty());
+        assertTrue(gs.getStonePool().isEmpty());
+
+        gs.reset();
+        assertEquals(4, gs.getFirstCardDeck().size());
+        assertEquals(5, gs.getNobleDeck().size());
+    }
+
+    @Test
+    public void testResetKeepsAiSettings() {
+        GameState gs = new GameState(42);
+        gs.getPlayers().add(new HumanPlayer(0, new User(1, "alice", "pw", 30)));
+        AiPlayer ai = new AiPlayer(1, AiDifficulty.EXPERT, 7);
+        ai.setName("Bot");
+        ai.setFakeUser(new User(2, "Bot", "pwd", 99));
+        ai.setSearchParallelism(3);
+        ai.setSearchMode(ParallelMonteCarloTreeSearch.Mode.TREE);
+        ai.setWeights(HeuristicWeights.of(1, 2, 3, 4, 5, 6));
+        ai.getOwnedCards().add(gs.getFirstCardDeck().getFirst());
+        gs.getPlayers().add(ai);
+
+        gs.reset();
+        AiPlayer reset = (AiPlayer) gs.getPlayers().get(1);
+        assertNotSame(ai, reset);
+        assertEquals(1, reset.getSessionPlayerNumber());
+        assertEquals(AiDifficulty.EXPERT, reset.getDifficulty());
+        assertEquals("Bot", reset.getName());
+        assertSame(ai.getFakeUser(), reset.getFakeUser());
+        assertEquals(3, reset.getSearchParallelism());
+        assertEquals(ParallelMonteCarloTreeSearch.Mode.TREE, reset.getSearchMode());
+        assertEquals(ai.getWeights(), reset.getWeights());
+        assertTrue(reset.getOwnedCards().isEmpty());
+    }
+
+    @Test
+    public void testSetupAdaptsToPlayers() {
+        for (int players = 2; players <= 4; players++) {
+            GameState gs = new GameState(42);
+            List<AbstractPlayer> seats = new ArrayList<>();
+            for (int seat = 0; seat < players; seat++) {
+                seats.add(new AiPlayer(seat, AiDifficulty.EASY, seat));
+            }
+            gs.setPlayers(new ArrayList<>(seats));
+            gs.adaptSetupToPlayers();
+
+            int stones = players == 4 ? 7 : players + 2;
+            assertEquals(stones, gs.getStonePool().get(StoneType.RED));
+            assertEquals(stones, gs.getStonePool().get(StoneType.BLACK));
+            assertEquals(5, gs.getStonePool().get(StoneType.GOLD));
+            assertEquals(players + 1, gs.getNobleDeck().size());
+            assertEquals(new GameState(42).getNobleDeck().subList(0, players + 1), gs.getNobleDeck());
+        }
+        assertThrows(IllegalStateException.class, () -> new GameState(42).adaptSetupToPlayers());
+    }
 }
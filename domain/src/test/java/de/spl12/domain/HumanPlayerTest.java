@@ -4,6 +4,10 @@ import de.spl12.domain.Exceptions.CantAffordItemException;
 import de.spl12.domain.Exceptions.DepletedResourceException;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -441,4 +445,34 @@ public class HumanPlayerTest {
         player.obtainNoble(noble2);
         assertEquals(13, player.getPrestige());
     }
+
+    /**
+     * Tests that the cached bonus, prestige and stone totals are restored after the player is
+     * serialized and deserialized.
+     */
+    @Test
+    public void testTotalsAfterDeserialization() throws Exception {
+        HumanPlayer player = new HumanPlayer(0, new User(0, "test_user", "1234", 21));
+        HashMap<StoneType, Integer> cost = new HashMap<>();
+        player.buyCard(new Card(cost, StoneType.RED, 2, 2));
+        player.buyCard(new Card(cost, StoneType.RED, 1, 1));
+        player.obtainNoble(new Noble(cost, 3));
+        player.takeStone(StoneType.GREEN);
+        player.takeStone(StoneType.GOLD);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(player);
+        }
+        HumanPlayer copy;
+        try (ObjectInputStream in =
+                new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (HumanPlayer) in.readObject();
+        }
+
+        assertEquals(2, copy.getBonusForType(StoneType.RED));
+        assertEquals(0, copy.getBonusForType(StoneType.GREEN));
+        assertEquals(6, copy.getPrestige());
+        assertEquals(2, copy.getTotalStones());
+    }
 }
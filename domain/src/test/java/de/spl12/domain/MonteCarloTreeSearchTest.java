@@ -0,0 +1,136 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.MonteCarloTreeSearch;
+import de.spl12.domain.ai.ParallelMonteCarloTreeSearch;
+import de.spl12.domain.ai.PlayoutPolicy;
+import de.spl12.domain.ai.SearchBudget;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveBuffer;
+import de.spl12.domain.moves.PackedMoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the {@link MonteCarloTreeSearch}, the {@link ParallelMonteCarloTreeSearch} and the EXPERT
+ * difficulty of the {@link AiPlayer}.
+ */
+public class MonteCarloTreeSearchTest {
+
+    private static boolean isLegal(CompactGameState state, int move) {
+        MoveBuffer buffer = new MoveBuffer();
+        new PackedMoveGenerator().generateAllPossibleMoves(state, buffer);
+        for (int i = 0; i < buffer.size(); i++) {
+            if (buffer.get(i) == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private GameState createGameState() {
+        GameState gs = new GameState();
+        for (int i = 0; i < 4; i++) {
+            gs.getPlayers().add(new HumanPlayer(i, new User(i, "player" + i, "1234", 20 + i)));
+        }
+        return gs;
+    }
+
+    @Test
+    public void testReturnsLegalMoveWithinIterations() {
+        CompactGameState state = CompactGameState.of(createGameState());
+        MonteCarloTreeSearch search =
+                new MonteCarloTreeSearch(SearchBudget.ofIterations(300), PlayoutPolicy.RANDOM,
+                        new Random(1));
+        int move = search.search(state);
+
+        assertTrue(isLegal(state, move));
+        assertEquals(300, search.getLastIterations());
+    }
+
+    @Test
+    public void testFindsWinningMove() {
+        GameState gs = createGameState();
+        AbstractPlayer player = gs.getPlayers().getFirst();
+        // 14 prestige from cards that are not on the table
+        int prestige = 0;
+        for (List<Card> stack : List.of(gs.getThirdCardStack(), gs.getSecondCardStack(),
+                gs.getFirstCardStack())) {
+            for (Card card : stack.reversed()) {
+                if (card.getPrestigePoints() > 0 && prestige + card.getPrestigePoints() <= 14) {
+                    player.getOwnedCards().add(card);
+                    prestige += card.getPrestigePoints();
+                }
+            }
+            stack.removeAll(player.getOwnedCards());
+        }
+        for (StoneType type : StoneType.values()) {
+            player.getStoneInventory().put(type, 1);
+        }
+        player.getStoneInventory().put(StoneType.GOLD, 5);
+        player.recalculateTotals();
+        assertEquals(14, player.getPrestige());
+
+        MonteCarloTreeSearch search =
+                new MonteCarloTreeSearch(SearchBudget.of(5000, 3000), PlayoutPolicy.HEURISTIC,
+                        new Random(2));
+        AbstractMove move = search.search(gs);
+
+        BuyMove buy = assertInstanceOf(BuyMove.class, move);
+        assertTrue(buy.getCard().getPrestigePoints() > 0);
+    }
+
+    @Test
+    public void testParallelModes() {
+        CompactGameState state = CompactGameState.of(createGameState());
+        for (ParallelMonteCarloTreeSearch.Mode mode : ParallelMonteCarloTreeSearch.Mode.values()) {
+            try (ParallelMonteCarloTreeSearch search = new ParallelMonteCarloTreeSearch(
+                    SearchBudget.ofIterations(2000), PlayoutPolicy.RANDOM, mode, 4)) {
+                int move = search.search(state);
+                assertTrue(isLegal(state, move), mode.name());
+                assertTrue(search.getLastIterations() >= 2000, mode.name());
+                assertTrue(search.getLastIterations() < 2000 + 4, mode.name());
+            }
+        }
+    }
+
+    @Test
+    public void testExpertDifficulty() {
+        GameState gs = createGameState();
+        AiPlayer ai = new AiPlayer(0, AiDifficulty.EXPERT);
+        gs.getPlayers().set(0, ai);
+        long start = System.nanoTime();
+        AbstractMove move = ai.decideMoveExpert(gs, SearchBudget.ofMillis(200));
+        assertNotNull(move);
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+
+        ai.setSearchParallelism(2);
+        ai.setSearchMode(ParallelMonteCarloTreeSearch.Mode.TREE);
+        assertNotNull(ai.decideMoveExpert(gs, SearchBudget.ofMillis(200)));
+    }
+
+    @Test
+    public void testSharedSearchPool() {
+        GameState gs = createGameState();
+        AiPlayer ai = new AiPlayer(0, AiDifficulty.EXPERT, 0);
+        gs.getPlayers().set(0, ai);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            ai.setSearchPool(pool);
+            assertEquals(2, ai.getSearchParallelism());
+            assertNotNull(ai.decideMoveExpert(gs, SearchBudget.ofIterations(200)));
+
+            // a different parallelism gets a pool of the player, the shared one stays usable
+            ai.setSearchParallelism(3);
+            assertNotNull(ai.decideMoveExpert(gs, SearchBudget.ofIterations(200)));
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
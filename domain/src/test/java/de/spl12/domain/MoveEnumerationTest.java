@@ -0,0 +1,98 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveCategory;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the lazy move enumeration of {@link MoveGenerator#forEachMove} and
+ * {@link MoveGenerator#findFirst}.
+ */
+public class MoveEnumerationTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState(8);
+        for (int i = 0; i < 4; i++) {
+            gs.getPlayers().add(new HumanPlayer(i, new User(i, "player" + i, "1234", 20 + i)));
+        }
+        return gs;
+    }
+
+    private static int tokenCount(AbstractMove move) {
+        return ((TakeMove) move).getTokens().values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Test
+    public void testCategoriesCoverAllMoves() {
+        GameState gs = createGameState();
+        Random random = new Random(8);
+        for (int turn = 0; turn < 60; turn++) {
+            List<AbstractMove> all = MoveGenerator.generateAllPossibleMoves(gs);
+            int total = 0;
+            for (MoveCategory category : MoveCategory.values()) {
+                List<AbstractMove> moves = MoveGenerator.collect(gs, EnumSet.of(category));
+                total += moves.size();
+                for (AbstractMove move : moves) {
+                    switch (category) {
+                        case TAKE_THREE -> assertEquals(3, tokenCount(move));
+                        case TAKE_TWO -> assertEquals(2, tokenCount(move));
+                        case RESERVE -> assertInstanceOf(ReserveMove.class, move);
+                        case BUY -> assertTrue(gs.getPlayers().get(gs.getPlayersTurn())
+                                .canAffordCard(((BuyMove) move).getCard()));
+                    }
+                }
+            }
+            assertEquals(all.size(), total, "turn " + turn);
+            if (all.isEmpty()) {
+                break;
+            }
+            gs.apply(all.get(random.nextInt(all.size())));
+        }
+    }
+
+    @Test
+    public void testEnumerationStopsEarly() {
+        GameState gs = createGameState();
+        int[] visited = new int[1];
+        boolean completed = MoveGenerator.forEachMove(gs, MoveCategory.ALL, move -> ++visited[0] < 3);
+        assertFalse(completed);
+        assertEquals(3, visited[0]);
+
+        visited[0] = 0;
+        assertTrue(MoveGenerator.forEachMove(gs, MoveCategory.ALL, move -> ++visited[0] > 0));
+        assertEquals(MoveGenerator.generateAllPossibleMoves(gs).size(), visited[0]);
+    }
+
+    @Test
+    public void testFindFirst() {
+        GameState gs = createGameState();
+        Card card = gs.getSecondCardDeck().get(2);
+        Optional<AbstractMove> reserve = MoveGenerator.findFirst(gs,
+                EnumSet.of(MoveCategory.RESERVE), move -> ((ReserveMove) move).getCard() == card);
+        assertTrue(reserve.isPresent());
+        assertSame(card, ((ReserveMove) reserve.get()).getCard());
+
+        assertTrue(MoveGenerator.findFirst(gs, EnumSet.of(MoveCategory.BUY), move -> true)
+                .isEmpty());
+        TakeMove first = (TakeMove) MoveGenerator.generateAllPossibleMoves(gs).getFirst();
+        TakeMove found = (TakeMove) MoveGenerator.findFirst(gs, MoveCategory.ALL, move -> true)
+                .orElseThrow();
+        assertEquals(first.getTokens(), found.getTokens());
+
+        assertThrows(UnsupportedOperationException.class,
+                () -> MoveCategory.ALL.remove(MoveCategory.BUY));
+        assertThrows(UnsupportedOperationException.class,
+                () -> MoveCategory.TAKE.add(MoveCategory.BUY));
+    }
+}
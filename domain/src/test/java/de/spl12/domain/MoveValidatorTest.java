@@ -0,0 +1,151 @@
+package de.spl12.domain;
+
+import de.spl12.domain.Exceptions.ActionNotPossibleException;
+import de.spl12.domain.Exceptions.IllegalMoveCombinationException;
+import de.spl12.domain.Exceptions.NotYourTurnException;
+import de.spl12.domain.messages.MovePackage;
+import de.spl12.domain.messages.PackageCodec;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.MoveValidator;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
+import de.spl12.domain.moves.TurnStep;
+import de.spl12.domain.moves.TurnTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the validation of submitted moves on the server and their wire format.
+ */
+public class MoveValidatorTest {
+
+    private static GameState createGameState() {
+        GameState gs = new GameState(23);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new HumanPlayer(0, new User(1, "alice", "pw", 30)));
+        players.add(new HumanPlayer(1, new User(2, "bob", "pw", 40)));
+        gs.setPlayers(players);
+        gs.startGame();
+        return gs;
+    }
+
+    private static byte[] encode(GameState gameState) {
+        ByteBuffer buffer = PackageCodec.encode(new PlayerActionPackage(null, 1, gameState));
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testGeneratedMovesAreValidAfterTransfer() throws Exception {
+        GameState gs = createGameState();
+        Random random = new Random(23);
+        for (int turn = 0; turn < 80; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            AbstractMove move = moves.get(random.nextInt(moves.size()));
+            ByteBuffer encoded = PackageCodec.encode(new MovePackage(7, gs.getPlayersTurn(),
+                    TurnTransaction.of(move).getSteps()));
+            assertTrue(encoded.remaining() < 24, encoded.remaining() + " bytes for " + move);
+            MovePackage received = (MovePackage) PackageCodec.decode(encoded);
+            assertEquals(7, received.getSessionId());
+            assertEquals(gs.getPlayersTurn(), received.getSeat());
+
+            AbstractMove receivedMove = new TurnTransaction(received.getSteps()).toMove(gs);
+            MoveValidator.validate(gs, received.getSeat(), receivedMove);
+            GameState expected = gs.copy();
+            expected.apply(move);
+            gs.apply(receivedMove);
+            assertArrayEquals(encode(expected), encode(gs));
+        }
+    }
+
+    @Test
+    public void testRejectsIllegalMoves() {
+        GameState gs = createGameState();
+        int seat = gs.getPlayersTurn();
+        TakeMove three = new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1,
+                StoneType.GREEN, 1), 0);
+        assertDoesNotThrow(() -> MoveValidator.validate(gs, seat, three));
+        assertThrows(NotYourTurnException.class, () -> MoveValidator.validate(gs, 1 - seat, three));
+
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new TakeMove(Map.of(StoneType.RED, 3), 0)));
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1), 0)));
+        gs.getStonePool().put(StoneType.WHITE, 3);
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new TakeMove(Map.of(StoneType.WHITE, 2), 0)));
+
+        Card stacked = gs.getFirstCardStack().get(1);
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new ReserveMove(stacked, true, 0)));
+        Card top = gs.getFirstCardStack().getFirst();
+        assertDoesNotThrow(() -> MoveValidator.validate(gs, seat, new ReserveMove(top, true, 0)));
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new ReserveMove(top, false, 0)));
+        Card visible = gs.getFirstCardDeck().getFirst();
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new ReserveMove(visible, false, 0)));
+        assertDoesNotThrow(() -> MoveValidator.validate(gs, seat, new ReserveMove(visible, true, 0)));
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new BuyMove(Map.of(), visible)));
+    }
+
+    @Test
+    public void testReturnsAndRemainingColors() throws ActionNotPossibleException {
+        GameState gs = createGameState();
+        int seat = gs.getPlayersTurn();
+        AbstractPlayer player = gs.getPlayers().get(seat);
+        player.getStoneInventory().put(StoneType.BLACK, 4);
+        player.getStoneInventory().put(StoneType.WHITE, 5);
+        player.recalculateTotals();
+
+        TakeMove noReturn = new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1,
+                StoneType.GREEN, 1), 2);
+        assertThrows(IllegalMoveCombinationException.class,
+                () -> MoveValidator.validate(gs, seat, noReturn));
+        TakeMove foreignReturn = new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1,
+                StoneType.GREEN, 1), 2);
+        foreignReturn.setTokensToReturn(new ArrayList<>(List.of(StoneType.GOLD, StoneType.BLACK)));
+        assertThrows(IllegalMoveCombinationException.class,
+                () -> MoveValidator.validate(gs, seat, foreignReturn));
+        TakeMove returned = new TakeMove(Map.of(StoneType.RED, 1, StoneType.BLUE, 1,
+                StoneType.GREEN, 1), 2);
+        returned.setTokensToReturn(new ArrayList<>(List.of(StoneType.RED, StoneType.WHITE)));
+        MoveValidator.validate(gs, seat, returned);
+
+        player.getStoneInventory().put(StoneType.BLACK, 0);
+        player.getStoneInventory().put(StoneType.WHITE, 0);
+        player.recalculateTotals();
+        for (StoneType type : List.of(StoneType.RED, StoneType.GREEN, StoneType.BLACK)) {
+            gs.getStonePool().put(type, 0);
+        }
+        MoveValidator.validate(gs, seat, new TakeMove(Map.of(StoneType.BLUE, 1,
+                StoneType.WHITE, 1), 0));
+        assertThrows(IllegalMoveCombinationException.class, () -> MoveValidator.validate(gs, seat,
+                new TakeMove(Map.of(StoneType.BLUE, 1), 0)));
+    }
+
+    @Test
+    public void testRejectsTruncatedMove() {
+        GameState gs = createGameState();
+        ByteBuffer encoded = PackageCodec.encode(new MovePackage(1, 0,
+                List.of(TurnStep.reserve(gs.getSecondCardDeck().get(2)))));
+        encoded.limit(encoded.limit() - 1);
+        assertThrows(IOException.class, () -> PackageCodec.decode(encoded));
+    }
+}
@@ -0,0 +1,179 @@
+package de.spl12.domain;
+
+import de.spl12.domain.messages.AbstractPackage;
+import de.spl12.domain.messages.BinaryPackageDecoder;
+import de.spl12.domain.messages.BinaryPackageEncoder;
+import de.spl12.domain.messages.CreateSessionPackage;
+import de.spl12.domain.messages.GameOverPackage;
+import de.spl12.domain.messages.JoinSessionPackage;
+import de.spl12.domain.messages.LeaveSessionPackage;
+import de.spl12.domain.messages.PackageCodec;
+import de.spl12.domain.messages.PackageEncoder;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.HeuristicWeights;
+import de.spl12.domain.moves.MoveGenerator;
+import jakarta.websocket.DecodeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the binary wire format of {@link PackageCodec}.
+ */
+public class PackageCodecTest {
+
+    private static GameState createPlayedGameState() {
+        GameState gs = new GameState(21);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new HumanPlayer(0, new User(7, "alice", "secret", 30)));
+        AiPlayer ai = new AiPlayer(1, AiDifficulty.HARD, 1);
+        ai.setName("Bot");
+        ai.setFakeUser(new User(8, "bot", "pw", 99));
+        ai.setWeights(HeuristicWeights.of(1, 2, 3, 4, 5, 6));
+        players.add(ai);
+        players.add(new AiPlayer(2, AiDifficulty.EXPERT, 2));
+        gs.setPlayers(players);
+        gs.startGame();
+        Random random = new Random(21);
+        for (int turn = 0; turn < 40; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+        gs.getChat().writeMessage(new ChatMessage("alice", "Grüße 👋"));
+        return gs;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static AbstractPackage roundTrip(AbstractPackage abstractPackage) throws IOException {
+        byte[] encoded = bytes(PackageCodec.encode(abstractPackage));
+        AbstractPackage decoded = PackageCodec.decode(ByteBuffer.wrap(encoded));
+        assertSame(abstractPackage.getClass(), decoded.getClass());
+        assertArrayEquals(encoded, bytes(PackageCodec.encode(decoded)));
+        return decoded;
+    }
+
+    private static void assertSamePlayer(AbstractPlayer expected, AbstractPlayer actual) {
+        assertSame(expected.getClass(), actual.getClass());
+        assertEquals(expected.getSessionPlayerNumber(), actual.getSessionPlayerNumber());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getStoneInventory(), actual.getStoneInventory());
+        // cards that are not in the catalog are decoded as equal copies
+        assertEquals(expected.getOwnedCards().toString(), actual.getOwnedCards().toString());
+        assertEquals(expected.getReservedCards(), actual.getReservedCards());
+        assertEquals(expected.getNobles(), actual.getNobles());
+        assertEquals(expected.getPrestige(), actual.getPrestige());
+        assertEquals(expected.getTotalStones(), actual.getTotalStones());
+    }
+
+    @Test
+    public void testPlayerActionRoundTrip() throws IOException {
+        GameState gs = createPlayedGameState();
+        AbstractPlayer sender = gs.getPlayers().get(1);
+        PlayerActionPackage decoded =
+                (PlayerActionPackage) roundTrip(new PlayerActionPackage(sender, 42, gs));
+        GameState copy = decoded.getGameState();
+
+        assertEquals(42, decoded.getSessionId());
+        assertSame(copy.getPlayers().get(1), decoded.getPlayer());
+        assertEquals(gs.getSeed(), copy.getSeed());
+        assertEquals(gs.isRunning(), copy.isRunning());
+        assertEquals(gs.getPlayersTurn(), copy.getPlayersTurn());
+        assertEquals(gs.getStartingPlayer(), copy.getStartingPlayer());
+        assertEquals(gs.getTurnNumber(), copy.getTurnNumber());
+        assertEquals(gs.getFirstCardDeck(), copy.getFirstCardDeck());
+        assertEquals(gs.getFirstCardStack(), copy.getFirstCardStack());
+        assertEquals(gs.getSecondCardStack(), copy.getSecondCardStack());
+        assertEquals(gs.getThirdCardDeck(), copy.getThirdCardDeck());
+        assertEquals(gs.getNobleDeck(), copy.getNobleDeck());
+        assertEquals(gs.getStonePool(), copy.getStonePool());
+        assertEquals("Grüße 👋", copy.getChat().getMessageList().getLast().getMessage());
+        for (int i = 0; i < gs.getPlayers().size(); i++) {
+            assertSamePlayer(gs.getPlayers().get(i), copy.getPlayers().get(i));
+        }
+        assertEquals(30, ((HumanPlayer) copy.getPlayers().get(0)).getUser().getAge());
+        AiPlayer ai = (AiPlayer) copy.getPlayers().get(1);
+        assertEquals(AiDifficulty.HARD, ai.getDifficulty());
+        assertEquals("pw", ai.getFakeUser().getPassword());
+        assertEquals(HeuristicWeights.of(1, 2, 3, 4, 5, 6), ai.getWeights());
+        assertEquals(HeuristicWeights.DEFAULT,
+                ((AiPlayer) copy.getPlayers().get(2)).getWeights());
+        assertEquals(CompactGameState.of(gs).getHash(), CompactGameState.of(copy).getHash());
+    }
+
+    @Test
+    public void testSessionPackagesRoundTrip() throws IOException {
+        HumanPlayer player = new HumanPlayer(3, new User(-1, "bob", null, 12));
+        player.getOwnedCards().add(new Card(Map.of(StoneType.RED, 3), StoneType.BLUE, 2, 1));
+        player.getNobles().add(CardCatalog.getNoble(4));
+        player.recalculateTotals();
+
+        CreateSessionPackage create = new CreateSessionPackage(true);
+        create.setServerIP("10.0.0.1");
+        CreateSessionPackage createCopy = (CreateSessionPackage) roundTrip(create);
+        assertEquals(-1, createCopy.getCreatedSessionId());
+        assertEquals("10.0.0.1", createCopy.getServerIP());
+        assertTrue(createCopy.isMultiplayer());
+
+        JoinSessionPackage join =
+                new JoinSessionPackage(player, 5, JoinSessionPackage.JoinStatus.SESSION_FULL);
+        JoinSessionPackage joinCopy = (JoinSessionPackage) roundTrip(join);
+        assertSamePlayer(player, joinCopy.getPlayer());
+        assertNull(((HumanPlayer) joinCopy.getPlayer()).getUser().getPassword());
+        assertEquals(JoinSessionPackage.JoinStatus.SESSION_FULL, joinCopy.getJoinStatus());
+        assertNull(joinCopy.getServerIP());
+        Card inline = joinCopy.getPlayer().getOwnedCards().getFirst();
+        assertEquals(-1, inline.getId());
+        assertEquals(3, inline.getCostOf(StoneType.RED.ordinal()));
+        assertEquals(2, inline.getPrestigePoints());
+
+        LeaveSessionPackage leave = (LeaveSessionPackage) roundTrip(new LeaveSessionPackage(null, 5));
+        assertNull(leave.getPlayer());
+        GameOverPackage over = (GameOverPackage) roundTrip(new GameOverPackage(player, 6));
+        assertEquals(6, over.getSessionId());
+        assertSamePlayer(player, over.getPlayer());
+    }
+
+    @Test
+    public void testSmallerThanSerialization() throws Exception {
+        GameState gs = createPlayedGameState();
+        PlayerActionPackage action = new PlayerActionPackage(gs.getPlayers().get(0), 1, gs);
+        int binary = new BinaryPackageEncoder().encode(action).remaining();
+        int text = new PackageEncoder().encode(action).length();
+        assertTrue(binary * 10 < text, binary + " bytes against " + text);
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        GameState gs = createPlayedGameState();
+        byte[] encoded = bytes(PackageCodec.encode(new PlayerActionPackage(null, 1, gs)));
+        BinaryPackageDecoder decoder = new BinaryPackageDecoder();
+        for (int length = 0; length < encoded.length; length += 7) {
+            ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(encoded, length));
+            assertThrows(DecodeException.class, () -> decoder.decode(truncated));
+        }
+        byte[] unknownType = encoded.clone();
+        unknownType[1] = 99;
+        assertThrows(DecodeException.class, () -> decoder.decode(ByteBuffer.wrap(unknownType)));
+        byte[] trailing = Arrays.copyOf(encoded, encoded.length + 1);
+        assertThrows(DecodeException.class, () -> decoder.decode(ByteBuffer.wrap(trailing)));
+        assertFalse(decoder.willDecode(ByteBuffer.wrap(new byte[] {(byte) 0xAC, (byte) 0xED})));
+        assertTrue(decoder.willDecode(ByteBuffer.wrap(encoded)));
+    }
+}
@@ -0,0 +1,177 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.MoveBuffer;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.PackedMove;
+import de.spl12.domain.moves.PackedMoveGenerator;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TokenReturnTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link PackedMoveGenerator} and {@link CompactGameState#play(int)} agree with the
+ * {@link MoveGenerator} and {@link GameState#apply(AbstractMove)}.
+ */
+public class PackedMoveGeneratorTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState();
+        for (int i = 0; i < 4; i++) {
+            gs.getPlayers().add(new HumanPlayer(i, new User(i, "player" + i, "1234", 20 + i)));
+        }
+        return gs;
+    }
+
+    /**
+     * Describes every rule relevant value of a compact state.
+     */
+    private static String describe(CompactGameState state) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(state.getPlayersTurn()).append('/').append(state.getTurnNumber()).append(' ');
+        for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+            sb.append(state.getPool(type)).append(',');
+        }
+        for (int slot = 0; slot < CompactGameState.VISIBLE_SLOTS; slot++) {
+            sb.append(state.getVisibleCard(slot)).append(',');
+        }
+        for (int level = 0; level < CompactGameState.LEVELS; level++) {
+            for (int i = 0; i < state.getStackSize(level); i++) {
+                sb.append(state.getStackCard(level, i)).append(';');
+            }
+        }
+        for (int slot = 0; slot < state.getNobleSlotCount(); slot++) {
+            sb.append(state.getNobleOnTable(slot)).append(',');
+        }
+        for (int p = 0; p < state.getPlayerCount(); p++) {
+            sb.append('|');
+            for (int type = 0; type < CompactGameState.STONE_TYPES; type++) {
+                sb.append(state.getTokens(p, type)).append(',');
+            }
+            for (int color = 0; color < CompactGameState.COLORS; color++) {
+                sb.append(state.getBonus(p, color)).append(',');
+            }
+            sb.append(state.getTokenTotal(p)).append(' ').append(state.getPrestige(p)).append(' ');
+            for (int i = 0; i < state.getReservedCount(p); i++) {
+                sb.append(state.getReservedCard(p, i)).append(';');
+            }
+            for (int i = 0; i < state.getOwnedCount(p); i++) {
+                sb.append(state.getOwnedCard(p, i)).append(';');
+            }
+            for (int i = 0; i < state.getOwnedNobleCount(p); i++) {
+                sb.append(state.getOwnedNoble(p, i)).append(';');
+            }
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testSameMovesAsMoveGenerator() {
+        Random random = new Random(3);
+        PackedMoveGenerator generator = new PackedMoveGenerator();
+        MoveBuffer buffer = new MoveBuffer(8);
+        GameState gs = createGameState();
+        for (int turn = 0; turn < 150; turn++) {
+            CompactGameState compact = CompactGameState.of(gs);
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            int[] expected = new int[moves.size()];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = PackedMove.encode(moves.get(i), compact);
+            }
+            generator.generateAllPossibleMoves(compact, buffer);
+            int[] actual = buffer.toArray();
+            Arrays.sort(expected);
+            Arrays.sort(actual);
+            assertArrayEquals(expected, actual, "turn " + turn);
+            if (moves.isEmpty()) {
+                break;
+            }
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    @Test
+    public void testPlayMatchesApply() {
+        Random random = new Random(11);
+        PackedMoveGenerator generator = new PackedMoveGenerator();
+        MoveBuffer buffer = new MoveBuffer();
+        GameState gs = createGameState();
+        for (int turn = 0; turn < 150; turn++) {
+            CompactGameState compact = CompactGameState.of(gs);
+            String before = describe(compact);
+            long beforeHash = compact.getHash();
+            if (generator.generateAllPossibleMoves(compact, buffer) == 0) {
+                break;
+            }
+            for (int i = 0; i < buffer.size(); i++) {
+                int move = buffer.get(i);
+                AbstractMove decoded = PackedMove.decode(move, compact);
+                assertEquals(move, PackedMove.encode(decoded, compact), PackedMove.toString(move));
+
+                long undo = compact.play(move);
+                UndoRecord record = gs.apply(decoded);
+                assertEquals(describe(CompactGameState.of(gs)), describe(compact),
+                        PackedMove.toString(move));
+                assertEquals(CompactGameState.of(gs).getHash(), compact.getHash(),
+                        PackedMove.toString(move));
+                gs.undo(record);
+                compact.unplay(move, undo);
+                assertEquals(before, describe(compact), PackedMove.toString(move));
+                assertEquals(beforeHash, compact.getHash(), PackedMove.toString(move));
+            }
+            gs.apply(PackedMove.decode(buffer.get(random.nextInt(buffer.size())), compact));
+        }
+    }
+
+    @Test
+    public void testEncoding() {
+        int move = PackedMove.withReturns(PackedMove.reserve(89, true),
+                PackedMove.returnBits(new int[] {1, 0, 0, 0, 0, 2}));
+        assertEquals(PackedMove.RESERVE, PackedMove.type(move));
+        assertEquals(89, PackedMove.card(move));
+        assertTrue(PackedMove.takesGold(move));
+        assertFalse(PackedMove.fromReserved(move));
+        assertEquals(1, PackedMove.returnCount(move, StoneType.WHITE.ordinal()));
+        assertEquals(2, PackedMove.returnCount(move, StoneType.GOLD.ordinal()));
+        assertEquals(3, PackedMove.returnTotal(move));
+
+        int take = PackedMove.takeTwo(StoneType.BLACK.ordinal());
+        assertEquals(PackedMove.TAKE, PackedMove.type(take));
+        assertEquals(2, PackedMove.takeCount(take, StoneType.BLACK.ordinal()));
+        assertFalse(PackedMove.hasReturns(take));
+    }
+
+    @Test
+    public void testBlindReserveIsRejected() {
+        GameState gs = createGameState();
+        Card top = gs.getSecondCardStack().getFirst();
+        CompactGameState state = CompactGameState.of(gs);
+        assertThrows(IllegalArgumentException.class,
+                () -> PackedMove.encode(new ReserveMove(top, true, 0), state));
+        assertThrows(IllegalArgumentException.class,
+                () -> state.play(PackedMove.reserve(top.getId(), true)));
+    }
+
+    @Test
+    public void testTokenReturnTable() {
+        assertEquals(56, TokenReturnTable.lookup(new int[] {5, 3, 4, 7, 3, 3}, 3).length);
+        assertEquals(1, TokenReturnTable.lookup(new int[] {0, 0, 1, 0, 0, 0}, 1).length);
+        assertEquals(0, TokenReturnTable.lookup(new int[] {0, 0, 1, 0, 0, 0}, 2).length);
+        assertSame(TokenReturnTable.lookup(new int[] {4, 1, 0, 2, 2, 1}, 2),
+                TokenReturnTable.lookup(new int[] {9, 1, 0, 2, 2, 1}, 2));
+
+        for (int returnBits : TokenReturnTable.lookup(new int[] {2, 0, 1, 0, 3, 1}, 3)) {
+            int move = PackedMove.withReturns(PackedMove.takeTwo(0), returnBits);
+            assertEquals(3, PackedMove.returnTotal(move));
+            assertTrue(PackedMove.returnCount(move, StoneType.WHITE.ordinal()) <= 2);
+            assertEquals(0, PackedMove.returnCount(move, StoneType.BLUE.ordinal()));
+            assertTrue(PackedMove.returnCount(move, StoneType.GOLD.ordinal()) <= 1);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveCalculationHelper;
+import de.spl12.domain.moves.MoveGenerator;
+import de.spl12.domain.moves.PositionAnalysis;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the {@link PositionAnalysis} based heuristics of {@link MoveCalculationHelper} agree
+ * with the ones computing their features from the game state.
+ */
+public class PositionAnalysisTest {
+
+    private GameState createGameState() {
+        GameState gs = new GameState(16);
+        List<AbstractPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            players.add(new AiPlayer(i, AiDifficulty.HARD, i));
+        }
+        gs.setPlayers(players);
+        return gs;
+    }
+
+    @Test
+    public void testSameFeaturesAsHelper() {
+        GameState gs = createGameState();
+        Random random = new Random(16);
+        for (int turn = 0; turn < 80; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            PositionAnalysis analysis = PositionAnalysis.of(gs);
+            AiPlayer player = (AiPlayer) gs.getPlayers().get(gs.getPlayersTurn());
+            Map<StoneType, Integer>[] stats =
+                    MoveCalculationHelper.calculateImportantStonesTotalSum(gs);
+            for (StoneType type : StoneType.values()) {
+                assertEquals(stats[0].getOrDefault(type, 0), analysis.getDemand(type));
+                assertEquals(stats[1].getOrDefault(type, 0), analysis.getFrequency(type));
+            }
+            assertEquals(MoveCalculationHelper.calculateReserveToBuyLevel3WithGold(gs, player),
+                    analysis.isReserveLevel3Worthwhile(), "turn " + turn);
+            assertEquals(MoveCalculationHelper.calculateReserveToBuyLevel2WithGold(gs, player,
+                            new ArrayList<>(analysis.getGoodSecondDeckCards())),
+                    analysis.isReserveLevel2Worthwhile(), "turn " + turn);
+
+            List<AbstractMove> buyMoves = MoveGenerator.generateBuyMoves(gs);
+            List<BuyMove> expectedBuys = MoveCalculationHelper.calculateBestBuyMovesSorted(
+                    buyMoves, stats[0], player.getPrestige());
+            assertEquals(expectedBuys,
+                    MoveCalculationHelper.calculateBestBuyMovesSorted(buyMoves, analysis));
+
+            List<AbstractMove> takeMoves = MoveGenerator.generateTakeMoves(gs);
+            assertSame(MoveCalculationHelper.calculateBestTakeMove(takeMoves, stats[0],
+                            player.getStoneInventory(), player, gs.getPlayers(),
+                            gs.getStonePool()),
+                    MoveCalculationHelper.calculateBestTakeMove(takeMoves, analysis),
+                    "turn " + turn);
+
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+    }
+
+    /**
+     * Finds the first card worth more than 3 prestige an opponent can afford, like the original
+     * blocking heuristic.
+     */
+    private static Card findThreat(GameState gs) {
+        for (int i = 0; i < gs.getPlayers().size(); i++) {
+            if (i == gs.getPlayersTurn()) {
+                continue;
+            }
+            AbstractPlayer opponent = gs.getPlayers().get(i);
+            for (List<Card> deck : List.of(gs.getFirstCardDeck(), gs.getSecondCardDeck(),
+                    gs.getThirdCardDeck())) {
+                for (Card card : deck) {
+                    if (card != null && card.getPrestigePoints() > 3
+                            && opponent.canAffordCard(card)) {
+                        return card;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testThreatCard() {
+        GameState gs = createGameState();
+        Random random = new Random(17);
+        for (int turn = 0; turn < 120; turn++) {
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(gs);
+            if (moves.isEmpty()) {
+                break;
+            }
+            assertSame(findThreat(gs), PositionAnalysis.of(gs).getThreatCard(), "turn " + turn);
+            gs.apply(moves.get(random.nextInt(moves.size())));
+        }
+
+        int opponent = (gs.getPlayersTurn() + 2) % 4;
+        for (StoneType type : StoneType.values()) {
+            gs.getPlayers().get(opponent).getStoneInventory().put(type, 7);
+        }
+        Card threat = findThreat(gs);
+        assertNotNull(threat);
+        assertSame(threat, PositionAnalysis.of(gs).getThreatCard());
+    }
+
+    @Test
+    public void testEvaluate() {
+        GameState gs = createGameState();
+        PositionAnalysis start = PositionAnalysis.of(gs);
+        for (int seat = 1; seat < 4; seat++) {
+            assertEquals(start.evaluate(0), start.evaluate(seat), 1e-9);
+        }
+        assertEquals(0, start.evaluateRelative(0), 1e-9);
+
+        AbstractPlayer player = gs.getPlayers().get(1);
+        player.getOwnedCards().add(CardCatalog.getCard(CardCatalog.CARD_COUNT - 1));
+        player.recalculateTotals();
+        PositionAnalysis later = PositionAnalysis.of(gs);
+        assertTrue(later.evaluate(1) > later.evaluate(0));
+        assertTrue(later.evaluateRelative(1) > 0);
+        assertTrue(later.evaluateRelative(0) < 0);
+    }
+}
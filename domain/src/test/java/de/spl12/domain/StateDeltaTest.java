@@ -0,0 +1,148 @@
+package de.spl12.domain;
+
+import de.spl12.domain.messages.ChatPackage;
+import de.spl12.domain.messages.GameStateReplica;
+import de.spl12.domain.messages.PackageCodec;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.messages.StateDelta;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.MoveGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the state deltas of the server and their application on the clients.
+ */
+public class StateDeltaTest {
+
+    private static GameState createGameState() {
+        GameState gs = new GameState(22);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new HumanPlayer(0, new User(1, "alice", "pw", 30)));
+        for (int i = 1; i < 4; i++) {
+            AiPlayer ai = new AiPlayer(i, AiDifficulty.MEDIUM, i);
+            ai.setName("Bot " + i);
+            players.add(ai);
+        }
+        gs.setPlayers(players);
+        gs.startGame();
+        return gs;
+    }
+
+    private static byte[] encode(GameState gameState) {
+        ByteBuffer buffer = PackageCodec.encode(new PlayerActionPackage(null, 1, gameState));
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static StateDeltaPackage roundTrip(StateDeltaPackage update) throws IOException {
+        return (StateDeltaPackage) PackageCodec.decode(PackageCodec.encode(update));
+    }
+
+    private static PlayerActionPackage snapshot(GameState gameState, int sequence) {
+        PlayerActionPackage snapshot = new PlayerActionPackage(null, 1, gameState);
+        snapshot.setSequence(sequence);
+        return snapshot;
+    }
+
+    @Test
+    public void testReplicaFollowsServer() throws IOException {
+        GameState server = createGameState();
+        GameStateReplica replica = new GameStateReplica();
+        replica.reset(snapshot(server, 0));
+        Random random = new Random(22);
+        int deltaBytes = 0;
+        int snapshotBytes = 0;
+        for (int sequence = 1; sequence <= 60; sequence++) {
+            GameState before = server.copy();
+            List<AbstractMove> moves = MoveGenerator.generateAllPossibleMoves(server);
+            if (moves.isEmpty()) {
+                break;
+            }
+            server.apply(moves.get(random.nextInt(moves.size())));
+            if (sequence % 10 == 0) {
+                server.getChat().writeMessage(new ChatMessage("alice", "turn " + sequence));
+            }
+            StateDelta delta = StateDelta.between(before, server);
+            assertNotNull(delta);
+            StateDeltaPackage update = new StateDeltaPackage(1, sequence, delta);
+            deltaBytes += PackageCodec.encode(update).remaining();
+            snapshotBytes += encode(server).length;
+
+            Optional<GameState> replicated = replica.apply(roundTrip(update));
+            assertTrue(replicated.isPresent());
+            assertArrayEquals(encode(server), encode(replicated.get()));
+        }
+        assertEquals(60, replica.getSequence());
+        assertTrue(deltaBytes * 5 < snapshotBytes, deltaBytes + " against " + snapshotBytes);
+    }
+
+    @Test
+    public void testMissedUpdateRequestsResync() {
+        GameState server = createGameState();
+        GameStateReplica replica = new GameStateReplica();
+        replica.reset(snapshot(server, 4));
+        GameState before = server.copy();
+        server.nextTurn();
+        StateDelta delta = StateDelta.between(before, server);
+        assertTrue(delta.isEmpty());
+
+        assertTrue(replica.apply(new StateDeltaPackage(1, 6, delta)).isEmpty());
+        assertTrue(replica.shouldRequestResync());
+        assertFalse(replica.shouldRequestResync());
+        assertTrue(replica.apply(new StateDeltaPackage(1, 5, delta)).isEmpty());
+
+        replica.reset(snapshot(server, 6));
+        assertFalse(replica.shouldRequestResync());
+        GameState next = server.copy();
+        next.nextTurn();
+        GameState replicated = replica.apply(
+                new StateDeltaPackage(1, 7, StateDelta.between(server, next))).orElseThrow();
+        assertEquals(next.getPlayersTurn(), replicated.getPlayersTurn());
+        assertEquals(next.getTurnNumber(), replicated.getTurnNumber());
+    }
+
+    @Test
+    public void testChangedPlayersNeedSnapshot() {
+        GameState lobby = createGameState();
+        GameState joined = lobby.copy();
+        joined.getPlayers().add(new HumanPlayer(4, new User(2, "bob", "pw", 20)));
+        assertNull(StateDelta.between(lobby, joined));
+
+        GameState renamed = lobby.copy();
+        ((AiPlayer) renamed.getPlayers().get(2)).setName("Other");
+        assertNull(StateDelta.between(lobby, renamed));
+
+        GameState otherGame = new GameState(23);
+        otherGame.setPlayers(lobby.copy().getPlayers());
+        assertNull(StateDelta.between(lobby, otherGame));
+    }
+
+    @Test
+    public void testChatMessageIsAppended() throws IOException {
+        ChatPackage chat = (ChatPackage) PackageCodec.decode(
+                PackageCodec.encode(new ChatPackage(1, 2, "hello")));
+        assertEquals(1, chat.getSessionId());
+        assertEquals(2, chat.getSeat());
+        assertEquals("hello", chat.getText());
+
+        GameState server = createGameState();
+        GameStateReplica replica = new GameStateReplica();
+        replica.reset(snapshot(server, 3));
+        ChatMessage message = new ChatMessage("Bot 2", chat.getText());
+        server.getChat().writeMessage(message);
+        GameState replicated = replica.apply(roundTrip(new StateDeltaPackage(1, 4,
+                StateDelta.ofChatMessage(server, message)))).orElseThrow();
+        assertArrayEquals(encode(server), encode(replicated));
+    }
+}
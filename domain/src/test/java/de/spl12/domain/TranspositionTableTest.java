@@ -0,0 +1,91 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.TranspositionTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the lock-free {@link TranspositionTable}.
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(4);
+        assertEquals(16, table.capacity());
+        assertEquals(TranspositionTable.MISSING, table.probe(42L));
+
+        table.store(42L, 0xABCDE, 5, TranspositionTable.LOWER, 0.75f);
+        long entry = table.probe(42L);
+        assertEquals(0xABCDE, TranspositionTable.move(entry));
+        assertEquals(5, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+        assertEquals(0.75f, TranspositionTable.value(entry));
+        // same slot, other position
+        assertEquals(TranspositionTable.MISSING, table.probe(42L + (1L << 40)));
+
+        table.store(0L, 0, 0, TranspositionTable.EXACT, 0f);
+        assertNotEquals(TranspositionTable.MISSING, table.probe(0L));
+        assertEquals(0f, TranspositionTable.value(table.probe(0L)), 0f);
+    }
+
+    @Test
+    public void testReplacement() {
+        TranspositionTable table = new TranspositionTable(2);
+        table.store(7L, 1, 6, TranspositionTable.EXACT, 1f);
+        table.store(7L, 2, 3, TranspositionTable.EXACT, 2f);
+        assertEquals(1, TranspositionTable.move(table.probe(7L)));
+        table.store(7L, 3, 6, TranspositionTable.UPPER, 3f);
+        assertEquals(3, TranspositionTable.move(table.probe(7L)));
+
+        long other = 7L + (1L << 40);
+        table.store(other, 4, 0, TranspositionTable.EXACT, 4f);
+        assertEquals(TranspositionTable.MISSING, table.probe(7L));
+        assertEquals(4, TranspositionTable.move(table.probe(other)));
+
+        table.clear();
+        assertEquals(TranspositionTable.MISSING, table.probe(other));
+    }
+
+    @Test
+    public void testConcurrentAccessNeverReturnsTornEntries() throws Exception {
+        TranspositionTable table = new TranspositionTable(6);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long hash = random.nextLong(1024);
+                    // the move is derived from the hash, so every accepted entry can be checked
+                    int move = (int) (hash * 31) & 0xFFFFFF;
+                    if (random.nextBoolean()) {
+                        table.store(hash, move, random.nextInt(10), TranspositionTable.EXACT,
+                                hash);
+                    } else {
+                        long entry = table.probe(hash);
+                        if (entry != TranspositionTable.MISSING
+                                && (TranspositionTable.move(entry) != move
+                                        || TranspositionTable.value(entry) != hash)) {
+                            synchronized (failures) {
+                                failures.add(new AssertionError("Torn entry for " + hash));
+                            }
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.isEmpty(), failures.toString());
+    }
+}
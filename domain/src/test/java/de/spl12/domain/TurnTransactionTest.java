@@ -0,0 +1,123 @@
+package de.spl12.domain;
+
+import de.spl12.domain.Exceptions.IllegalMoveCombinationException;
+import de.spl12.domain.messages.PackageCodec;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.messages.StateDelta;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.BuyMove;
+import de.spl12.domain.moves.MoveValidator;
+import de.spl12.domain.moves.ReserveMove;
+import de.spl12.domain.moves.TakeMove;
+import de.spl12.domain.moves.TurnStep;
+import de.spl12.domain.moves.TurnTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the batching of turn steps and their conversion into moves on the server.
+ */
+public class TurnTransactionTest {
+
+    private static GameState createGameState() {
+        GameState gs = new GameState(25);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new HumanPlayer(0, new User(1, "alice", "pw", 30)));
+        players.add(new HumanPlayer(1, new User(2, "bob", "pw", 40)));
+        gs.setPlayers(players);
+        gs.startGame();
+        return gs;
+    }
+
+    private static byte[] encode(GameState gameState) {
+        ByteBuffer buffer = PackageCodec.encode(new PlayerActionPackage(null, 1, gameState));
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void testStepsBecomeOneMove() throws Exception {
+        GameState gs = createGameState();
+        AbstractPlayer player = gs.getPlayers().get(gs.getPlayersTurn());
+        player.getStoneInventory().put(StoneType.BLACK, 9);
+        player.recalculateTotals();
+
+        TurnTransaction turn = new TurnTransaction();
+        turn.add(TurnStep.take(StoneType.RED));
+        turn.add(TurnStep.take(StoneType.BLUE));
+        turn.add(TurnStep.take(StoneType.RED));
+        turn.add(TurnStep.returnStone(StoneType.BLACK));
+        turn.add(TurnStep.returnStone(StoneType.BLACK));
+        TakeMove move = (TakeMove) turn.toMove(gs);
+        assertEquals(2, move.getTokens().get(StoneType.RED));
+        assertEquals(1, move.getTokens().get(StoneType.BLUE));
+        assertEquals(List.of(StoneType.BLACK, StoneType.BLACK), move.getTokensToReturn());
+        assertEquals(2, move.getRequiredReturn());
+
+        Card card = gs.getFirstCardDeck().getFirst();
+        AbstractMove reserve = new TurnTransaction(List.of(TurnStep.reserve(card))).toMove(gs);
+        assertTrue(((ReserveMove) reserve).gotGoldCoin());
+        gs.getStonePool().put(StoneType.GOLD, 0);
+        reserve = new TurnTransaction(List.of(TurnStep.reserve(card))).toMove(gs);
+        assertFalse(((ReserveMove) reserve).gotGoldCoin());
+
+        BuyMove buy = (BuyMove) new TurnTransaction(List.of(TurnStep.buy(card))).toMove(gs);
+        assertSame(card, buy.getCard());
+        assertEquals(player.getPaymentForCard(card), buy.getTokens());
+
+        assertThrows(IllegalMoveCombinationException.class,
+                () -> new TurnTransaction().toMove(gs));
+        assertThrows(IllegalMoveCombinationException.class, () -> new TurnTransaction(List.of(
+                TurnStep.take(StoneType.RED), TurnStep.buy(card))).toMove(gs));
+        Noble noble = gs.getNobleDeck().getFirst();
+        assertThrows(IllegalMoveCombinationException.class, () -> new TurnTransaction(List.of(
+                TurnStep.take(StoneType.RED), TurnStep.claimNoble(noble),
+                TurnStep.claimNoble(noble))).toMove(gs));
+    }
+
+    @Test
+    public void testBlindReserveAndUndo() throws Exception {
+        GameState gs = createGameState();
+        byte[] before = encode(gs);
+        Card top = gs.getSecondCardStack().getFirst();
+        AbstractMove move = new TurnTransaction(List.of(TurnStep.reserve(top))).toMove(gs);
+        MoveValidator.validate(gs, gs.getPlayersTurn(), move);
+
+        int seat = gs.getPlayersTurn();
+        UndoRecord record = gs.apply(move);
+        assertNotSame(top, gs.getSecondCardStack().getFirst());
+        assertTrue(gs.getPlayers().get(seat).getReservedCards().contains(top));
+        assertEquals(1, gs.getPlayers().get(seat).getStoneInventory().get(StoneType.GOLD));
+
+        gs.undo(record);
+        assertArrayEquals(before, encode(gs));
+    }
+
+    @Test
+    public void testUpdateCarriesSteps() throws Exception {
+        GameState gs = createGameState();
+        GameState before = gs.copy();
+        List<TurnStep> steps = TurnTransaction.of(new TakeMove(Map.of(StoneType.GREEN, 1,
+                StoneType.WHITE, 1, StoneType.BLACK, 1), 0)).getSteps();
+        gs.apply(new TurnTransaction(steps).toMove(gs));
+
+        StateDeltaPackage update = new StateDeltaPackage(4, 9, StateDelta.between(before, gs),
+                steps);
+        StateDeltaPackage received = (StateDeltaPackage) PackageCodec.decode(
+                PackageCodec.encode(update));
+        assertEquals(steps, received.getSteps());
+        assertEquals(9, received.getSequence());
+
+        StateDeltaPackage plain = (StateDeltaPackage) PackageCodec.decode(PackageCodec.encode(
+                new StateDeltaPackage(4, 10, StateDelta.between(gs, gs))));
+        assertTrue(plain.getSteps().isEmpty());
+    }
+}
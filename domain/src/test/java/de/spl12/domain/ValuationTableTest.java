@@ -0,0 +1,93 @@
+package de.spl12.domain;
+
+import de.spl12.domain.ai.ValuationTable;
+import de.spl12.domain.simulation.GameSimulator;
+import de.spl12.domain.simulation.ValuationBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests building the {@link ValuationTable} from self-play and its binary format.
+ */
+public class ValuationTableTest {
+
+    private static ValuationTable build() {
+        GameSimulator simulator = new GameSimulator(List.of(AiDifficulty.MEDIUM, AiDifficulty.EASY));
+        simulator.setSeed(19);
+        return new ValuationBuilder(simulator).build(8, 2);
+    }
+
+    @Test
+    public void testBuildFromSelfPlay() {
+        ValuationTable table = build();
+        int purchases = 0;
+        for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+            for (int phase = 0; phase < ValuationTable.PHASES; phase++) {
+                int samples = table.getCardSamples(id, phase);
+                purchases += samples;
+                assertTrue(Math.abs(table.getCardValue(id, phase)) < 1);
+                assertTrue(table.getTurnsToAfford(id, phase) >= 0);
+                if (samples == 0) {
+                    assertEquals(0, table.getCardValue(id, phase));
+                    assertEquals(0, table.getTurnsToAfford(id, phase));
+                }
+            }
+        }
+        assertTrue(purchases > 8 * 5);
+
+        int visits = 0;
+        for (int id = 0; id < CardCatalog.NOBLE_COUNT; id++) {
+            for (int phase = 0; phase < ValuationTable.PHASES; phase++) {
+                visits += table.getNobleSamples(id, phase);
+                assertTrue(Math.abs(table.getNobleValue(CardCatalog.getNoble(id), phase)) < 1);
+            }
+        }
+        assertTrue(visits >= 0);
+
+        assertEquals(ValuationTable.EARLY, ValuationTable.phaseOf(4));
+        assertEquals(ValuationTable.MID, ValuationTable.phaseOf(5));
+        assertEquals(ValuationTable.LATE, ValuationTable.phaseOf(10));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        ValuationTable table = build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.write(out);
+        ValuationTable read = ValuationTable.read(new ByteArrayInputStream(out.toByteArray()));
+        for (int id = 0; id < CardCatalog.CARD_COUNT; id++) {
+            for (int phase = 0; phase < ValuationTable.PHASES; phase++) {
+                assertEquals(table.getCardValue(id, phase), read.getCardValue(id, phase));
+                assertEquals(table.getTurnsToAfford(id, phase), read.getTurnsToAfford(id, phase));
+                assertEquals(table.getCardSamples(id, phase), read.getCardSamples(id, phase));
+            }
+        }
+        for (Noble noble : CardCatalog.getNobles()) {
+            for (int phase = 0; phase < ValuationTable.PHASES; phase++) {
+                assertEquals(table.getNobleValue(noble, phase), read.getNobleValue(noble, phase));
+            }
+        }
+
+        byte[] corrupt = out.toByteArray();
+        corrupt[0] ^= 1;
+        assertThrows(IOException.class,
+                () -> ValuationTable.read(new ByteArrayInputStream(corrupt)));
+        assertThrows(IOException.class,
+                () -> ValuationTable.read(new ByteArrayInputStream(new byte[12])));
+    }
+
+    @Test
+    public void testDefaultTable() {
+        ValuationTable table = ValuationTable.getDefault();
+        assertSame(table, ValuationTable.getDefault());
+        Card card = new Card(Map.of(StoneType.RED, 3), StoneType.BLUE, 1, 1);
+        assertEquals(0, table.getCardValue(card, ValuationTable.EARLY));
+    }
+}
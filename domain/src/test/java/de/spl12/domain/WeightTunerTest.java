@@ -0,0 +1,77 @@
+package de.spl12.domain;
+
+import de.spl12.domain.moves.HeuristicWeights;
+import de.spl12.domain.simulation.MatchResult;
+import de.spl12.domain.simulation.WeightTuner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the self-play tuning of {@link HeuristicWeights} and the Elo estimate of matches.
+ */
+public class WeightTunerTest {
+
+    @Test
+    public void testElo() {
+        MatchResult even = new MatchResult(40, 40, 20);
+        assertEquals(0.5, even.getScore(), 1e-9);
+        assertEquals(0, even.getElo(), 1e-9);
+        assertEquals(-even.getEloLower(), even.getEloUpper(), 1e-9);
+
+        MatchResult better = new MatchResult(60, 30, 10);
+        assertEquals(0.65, better.getScore(), 1e-9);
+        assertEquals(107.5, better.getElo(), 0.1);
+        assertTrue(better.getEloLower() > 0);
+        assertTrue(better.getEloLower() < better.getElo());
+        assertTrue(better.getEloUpper() > better.getElo());
+
+        MatchResult more = new MatchResult(600, 300, 100);
+        assertEquals(better.getElo(), more.getElo(), 1e-9);
+        assertTrue(more.getEloUpper() - more.getEloLower()
+                < better.getEloUpper() - better.getEloLower());
+        assertEquals(Double.POSITIVE_INFINITY, new MatchResult(3, 0, 0).getElo());
+    }
+
+    @Test
+    public void testResumeFromCheckpoint(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("tuning.properties");
+        WeightTuner interrupted = new WeightTuner(AiDifficulty.MEDIUM, 2, 40, 2, checkpoint, 20);
+        interrupted.setStability(2);
+        interrupted.tune(2);
+        assertTrue(Files.exists(checkpoint));
+        assertNotEquals(HeuristicWeights.DEFAULT, interrupted.getWeights());
+        assertThrows(IllegalStateException.class, () -> interrupted.setStability(5));
+
+        WeightTuner resumed = new WeightTuner(AiDifficulty.MEDIUM, 2, 40, 2, checkpoint, 99);
+        assertEquals(2, resumed.getIteration());
+        assertEquals(20, resumed.getSeed());
+        assertEquals(2, resumed.getStability());
+        assertEquals(interrupted.getWeights(), resumed.getWeights());
+        HeuristicWeights tuned = resumed.tune(3);
+        assertEquals(3, resumed.getIteration());
+        assertNotEquals(interrupted.getWeights(), tuned);
+
+        WeightTuner uninterrupted = new WeightTuner(AiDifficulty.MEDIUM, 2, 40, 2, null, 20);
+        uninterrupted.setStability(2);
+        assertEquals(HeuristicWeights.DEFAULT, uninterrupted.getWeights());
+        assertEquals(tuned, uninterrupted.tune(3));
+        for (double weight : tuned.toArray()) {
+            assertTrue(weight >= 0);
+        }
+    }
+
+    @Test
+    public void testMatchIsPaired() throws IOException {
+        WeightTuner tuner = new WeightTuner(AiDifficulty.HARD, 2, 4, 2, null, 21);
+        MatchResult result = tuner.match(HeuristicWeights.DEFAULT, HeuristicWeights.DEFAULT, 6);
+        assertEquals(6, result.getGames());
+        // the same weights on both sides win every deal from both seats equally often
+        assertEquals(result.getWins(), result.getLosses());
+    }
+}
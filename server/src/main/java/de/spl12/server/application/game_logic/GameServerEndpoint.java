@@ -4,15 +4,20 @@ import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionAlreadyFullEx
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionAlreadyStartedException;
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionNotFoundException;
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SinglePlayerSessionException;
-import de.spl12.domain.GameState;
+import de.spl12.domain.Exceptions.ActionNotPossibleException;
 import de.spl12.domain.messages.AbstractPackage;
+import de.spl12.domain.messages.ChatPackage;
 import de.spl12.domain.messages.CreateSessionPackage;
 import de.spl12.domain.messages.JoinSessionPackage;
 import de.spl12.domain.messages.LeaveSessionPackage;
+import de.spl12.domain.messages.MovePackage;
+import de.spl12.domain.messages.PackageCodec;
 import de.spl12.domain.messages.PlayerActionPackage;
 import de.spl12.domain.messages.GameOverPackage;
-import de.spl12.domain.messages.PackageDecoder;
-import de.spl12.domain.messages.PackageEncoder;
+import de.spl12.domain.messages.ResyncRequestPackage;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.messages.BinaryPackageDecoder;
+import de.spl12.domain.messages.BinaryPackageEncoder;
 import jakarta.websocket.server.ServerEndpoint;
 import jakarta.websocket.OnOpen;
 import jakarta.websocket.OnMessage;
@@ -25,10 +30,13 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.NetworkInterface;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Enumeration;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 /**
@@ -39,7 +47,8 @@ import java.util.logging.Logger;
  * sessions, updating game states, and broadcasting updates to all clients connected to a game
  * session.
  *
- * <p>Encodes and decodes custom packages using {@link PackageEncoder} and {@link PackageDecoder}.
+ * <p>Encodes and decodes custom packages using {@link BinaryPackageEncoder} and {@link
+ * BinaryPackageDecoder}.
  *
  * <p>Endpoint path: {@code /game}
  *
@@ -47,7 +56,10 @@ import java.util.logging.Logger;
  *
  * @author ennauman
  */
-@ServerEndpoint(value = "/game", decoders = PackageDecoder.class, encoders = PackageEncoder.class)
+@ServerEndpoint(
+    value = "/game",
+    decoders = BinaryPackageDecoder.class,
+    encoders = BinaryPackageEncoder.class)
 public class GameServerEndpoint {
 
   /**
@@ -89,7 +101,10 @@ public class GameServerEndpoint {
    * Handles incoming WebSocket messages from clients. Processes different types of packages: -
    * {@link CreateSessionPackage}: Starts a new game session. - {@link JoinSessionPackage}: Adds a
    * player to an existing session. - {@link LeaveSessionPackage}: Notifies all players and closes
-   * the game session. - {@link PlayerActionPackage}: Updates game state and broadcasts changes. -
+   * the game session. - {@link PlayerActionPackage}: Starts or resets the game for the host. -
+   * {@link MovePackage}: Validates and applies a turn and broadcasts the changes with its steps. -
+   * {@link ChatPackage}: Appends a chat message and broadcasts it. - {@link
+   * ResyncRequestPackage}: Sends the full game state to a player that missed a change. -
    * {@link GameOverPackage}: Sent if a game is over.
    *
    * @param msgPackage the incoming message package
@@ -123,6 +138,8 @@ public class GameServerEndpoint {
           gameSession =
               GameSessionManager.getInstance().handleJoin(msg.getPlayer(), msg.getSessionId());
           int sessionId = gameSession.getSessionId();
+          AbstractPackage snapshot =
+              GameSessionManager.getInstance().handleResync(msg.getPlayer(), sessionId);
           synchronized (SESSIONS) {
             if (SESSIONS.containsKey(sessionId)) {
               SESSIONS.get(sessionId).put(msg.getPlayer().getName(), session);
@@ -138,11 +155,8 @@ public class GameServerEndpoint {
                     msg.getPlayer(), sessionId, JoinSessionPackage.JoinStatus.SUCCESS);
             joinSessionPackage.setServerIP(SERVER_IP);
             session.getAsyncRemote().sendObject(joinSessionPackage);
-            PlayerActionPackage msgWithNewGameState =
-                new PlayerActionPackage(
-                    msg.getPlayer(), msg.getSessionId(), gameSession.getGameState());
-            for (Session s : SESSIONS.get(sessionId).values()) {
-              s.getAsyncRemote().sendObject(msgWithNewGameState);
+            if (snapshot != null) {
+              broadcast(sessionId, snapshot);
             }
           }
         } catch (SessionNotFoundException e) {
@@ -171,39 +185,77 @@ public class GameServerEndpoint {
             || gameSession.getPlayerCount() == 0
             || msg.getPlayer().getSessionPlayerNumber() == 0) {
           synchronized (SESSIONS) {
-            for (Session s : SESSIONS.get(sessionId).values()) {
-              s.getAsyncRemote().sendObject(msg);
-            }
+            broadcast(sessionId, msg);
             SESSIONS.remove(sessionId);
           }
           LOGGER.info("Close session created under the Id: " + sessionId);
         } else {
           // if the game is not running (players are in the lobby), the game will not be terminated,
           // the new lobby/ game state will be distributed
-          PlayerActionPackage msgWithNewGameState =
-              new PlayerActionPackage(
-                  msg.getPlayer(), msg.getSessionId(), gameSession.getGameState());
+          AbstractPackage msgWithNewGameState =
+              GameSessionManager.getInstance().handleResync(msg.getPlayer(), sessionId);
           synchronized (SESSIONS) {
             SESSIONS.get(sessionId).remove(msg.getPlayer().getName());
-            for (Session s : SESSIONS.get(sessionId).values()) {
-              s.getAsyncRemote().sendObject(msgWithNewGameState);
+            if (msgWithNewGameState != null) {
+              broadcast(sessionId, msgWithNewGameState);
             }
           }
         }
       }
       case PlayerActionPackage msg -> {
         int sessionId = msg.getSessionId();
-        GameState gameState =
-            GameSessionManager.getInstance()
-                .handlePlayerAction(msg.getSessionId(), msg.getGameState());
-        PlayerActionPackage msgWithNewGameState =
-            new PlayerActionPackage(msg.getPlayer(), msg.getSessionId(), gameState);
-        synchronized (SESSIONS) {
-          for (Session s : SESSIONS.get(sessionId).values()) {
-            s.getAsyncRemote().sendObject(msgWithNewGameState);
+        try {
+          // only the host starts and resets the game, the other players get the new game from here
+          if (!isSeatOf(session, sessionId, 0)) {
+            throw new ActionNotPossibleException("Game state of a player other than the host");
+          }
+          // the players get only the changes to the state, or the full state of a new game
+          AbstractPackage update =
+              GameSessionManager.getInstance()
+                  .handlePlayerAction(msg.getPlayer(), sessionId, msg.getGameState());
+          broadcast(sessionId, update);
+        } catch (ActionNotPossibleException e) {
+          LOGGER.info("Rejected game state in session " + sessionId + ": " + e.getMessage());
+        }
+      }
+      case MovePackage msg -> {
+        int sessionId = msg.getSessionId();
+        GameSessionManager manager = GameSessionManager.getInstance();
+        try {
+          if (!isSeatOf(session, sessionId, msg.getSeat())) {
+            throw new ActionNotPossibleException("Move for a foreign seat " + msg.getSeat());
+          }
+          StateDeltaPackage update = manager.handleMove(sessionId, msg.getSeat(), msg.getSteps());
+          broadcast(sessionId, update);
+        } catch (ActionNotPossibleException e) {
+          // the player gets the valid state back, which discards the rejected move
+          LOGGER.info("Rejected move in session " + sessionId + ": " + e.getMessage());
+          AbstractPackage snapshot = manager.handleResync(null, sessionId);
+          if (snapshot != null) {
+            send(session, snapshot);
           }
         }
       }
+      case ChatPackage msg -> {
+        int sessionId = msg.getSessionId();
+        if (!isSeatOf(session, sessionId, msg.getSeat())) {
+          LOGGER.info("Rejected chat message for a foreign seat " + msg.getSeat());
+          return;
+        }
+        StateDeltaPackage update =
+            GameSessionManager.getInstance().handleChat(sessionId, msg.getSeat(), msg.getText());
+        if (update != null) {
+          broadcast(sessionId, update);
+        }
+      }
+      case ResyncRequestPackage msg -> {
+        AbstractPackage snapshot =
+            GameSessionManager.getInstance().handleResync(msg.getPlayer(), msg.getSessionId());
+        if (snapshot != null) {
+          send(session, snapshot);
+          LOGGER.info("Sent the full game state of session " + msg.getSessionId());
+        }
+      }
       case GameOverPackage msg -> {
         // this package only gets sent by the host
         GameSessionManager.getInstance().handleGameOver(msg.getSessionId());
@@ -214,6 +266,68 @@ public class GameServerEndpoint {
     }
   }
 
+  /**
+   * Checks that a connection is the one that joined a session on a seat, as only this connection
+   * may act for the player on the seat.
+   *
+   * @param session   the connection of the sender
+   * @param sessionId the ID of the session
+   * @param seat      the session player number
+   * @return true if the player on the seat joined with this connection
+   */
+  private static boolean isSeatOf(Session session, int sessionId, int seat) {
+    String name = GameSessionManager.getInstance().getPlayerName(sessionId, seat);
+    Map<String, Session> sessions = SESSIONS.get(sessionId);
+    return name != null && sessions != null && sessions.get(name) == session;
+  }
+
+  /**
+   * Sends a package with the game state to a single player. Like a broadcast it is encoded right
+   * away, so the state can change afterwards without affecting the queued bytes.
+   *
+   * @param session    the session of the player
+   * @param msgPackage the package to send
+   */
+  private static void send(Session session, AbstractPackage msgPackage) {
+    session.getAsyncRemote().sendBinary(PackageCodec.encode(msgPackage));
+  }
+
+  /**
+   * Sends the same package to every player of a session. The package is encoded only once and all
+   * players get the same bytes, see {@link #broadcast(int, Function)}.
+   *
+   * @param sessionId  the ID of the session
+   * @param msgPackage the package to send
+   */
+  private static void broadcast(int sessionId, AbstractPackage msgPackage) {
+    broadcast(sessionId, name -> msgPackage);
+  }
+
+  /**
+   * Sends a package to every player of a session, which can differ per player. Every distinct
+   * package is encoded only once into a read-only buffer, so a 4-player session does not run the
+   * encoder four times for the same package, and queued packages are not affected by later changes
+   * of the game state. Each player gets its own view of the buffer, as the asynchronous sends
+   * consume it independently.
+   *
+   * @param sessionId   the ID of the session
+   * @param packageFor  the package for each player, by player name
+   */
+  private static void broadcast(int sessionId, Function<String, AbstractPackage> packageFor) {
+    Map<AbstractPackage, ByteBuffer> encoded = new IdentityHashMap<>();
+    synchronized (SESSIONS) {
+      Map<String, Session> sessions = SESSIONS.get(sessionId);
+      if (sessions == null) {
+        return;
+      }
+      for (Map.Entry<String, Session> entry : sessions.entrySet()) {
+        AbstractPackage msgPackage = packageFor.apply(entry.getKey());
+        ByteBuffer bytes = encoded.computeIfAbsent(msgPackage, PackageCodec::encode);
+        entry.getValue().getAsyncRemote().sendBinary(bytes.duplicate());
+      }
+    }
+  }
+
   /**
    * Called when a WebSocket error occurs.
    *
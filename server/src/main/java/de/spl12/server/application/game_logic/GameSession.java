@@ -2,8 +2,18 @@ package de.spl12.server.application.game_logic;
 
 import de.spl12.domain.AbstractPlayer;
 import de.spl12.domain.AiPlayer;
+import de.spl12.domain.ChatMessage;
+import de.spl12.domain.Exceptions.ActionNotPossibleException;
+import de.spl12.domain.Exceptions.NotYourTurnException;
 import de.spl12.domain.GameState;
+import de.spl12.domain.messages.PlayerActionPackage;
+import de.spl12.domain.messages.StateDelta;
+import de.spl12.domain.moves.AbstractMove;
+import de.spl12.domain.moves.MoveValidator;
+import de.spl12.domain.moves.TurnStep;
+import de.spl12.domain.moves.TurnTransaction;
 import java.util.ArrayList;
+import java.util.List;
 
 import static de.spl12.server.application.AiNameHelper.getRandomName;
 
@@ -13,7 +23,9 @@ import static de.spl12.server.application.AiNameHelper.getRandomName;
  * <p>A session contains a unique ID, a list of players, and the current game state. It is
  * responsible for managing player participation and the lifecycle of the game.
  *
- * <p>Each session can be started and its game state can be updated or retrieved.
+ * <p>Each session can be started and its game state can be updated or retrieved. Every change of
+ * the state increments the sequence number of the session, which the players use to detect missed
+ * updates.
  *
  * <p>This class is typically managed by {@link GameSessionManager}.
  *
@@ -21,6 +33,9 @@ import static de.spl12.server.application.AiNameHelper.getRandomName;
  */
 public class GameSession {
 
+  /** The prestige with which a player wins and the game is over. */
+  private static final int WINNING_PRESTIGE = 15;
+
   /** The unique identifier for this game session. */
   private final int SESSION_ID;
 
@@ -29,6 +44,9 @@ public class GameSession {
 
   private boolean isMultiplayer;
 
+  /** The sequence number of the current game state. */
+  private int sequence;
+
   /**
    * Constructs a new {@code GameSession} with the specified ID and initial game state.
    *
@@ -86,6 +104,7 @@ public class GameSession {
     }
     System.out.println("Player name: " + player.getName());
     this.gameState.getPlayers().add(player);
+    this.sequence++;
   }
 
   /**
@@ -101,15 +120,101 @@ public class GameSession {
         p.setSessionPlayerNumber(p.getSessionPlayerNumber() - 1);
       }
     }
+    this.sequence++;
+  }
+
+  /**
+   * Starts the game from the lobby or resets a finished game, as requested by the host with the
+   * state after the action. The action is performed on the state of the session, so nothing else of
+   * the uploaded state is taken over. A game in progress can neither be started nor reset.
+   *
+   * @param requested the state of the host after starting or resetting the game
+   * @return the changes to the previous state, or null if they need a full snapshot
+   * @throws ActionNotPossibleException if a game is in progress, or already finished and not reset
+   */
+  public StateDelta applyLobbyAction(GameState requested) throws ActionNotPossibleException {
+    if (this.gameState.isRunning() && !this.isGameOver()) {
+      throw new ActionNotPossibleException(
+          "The game of session " + this.SESSION_ID + " is running");
+    }
+    GameState before = this.gameState.copy();
+    if (!requested.isRunning()) {
+      this.gameState.reset();
+    } else if (!this.gameState.isRunning()) {
+      this.gameState.startGame();
+    } else {
+      throw new ActionNotPossibleException("The game of session " + this.SESSION_ID + " is over");
+    }
+    this.sequence++;
+    return StateDelta.between(before, this.gameState);
+  }
+
+  /** A running game is over as soon as a player reached the winning prestige. */
+  private boolean isGameOver() {
+    for (AbstractPlayer player : this.gameState.getPlayers()) {
+      if (player.getPrestige() >= WINNING_PRESTIGE) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Validates a complete turn of a player against the current game state and applies it.
+   *
+   * @param seat the session player number of the player
+   * @param steps the steps of the turn of the player
+   * @return the changes to the previous state
+   * @throws ActionNotPossibleException if it is not the turn of the player or the move is illegal
+   */
+  public StateDelta applyMove(int seat, List<TurnStep> steps) throws ActionNotPossibleException {
+    if (!this.gameState.isRunning() || this.gameState.getPlayersTurn() != seat) {
+      throw new NotYourTurnException();
+    }
+    AbstractMove move = new TurnTransaction(steps).toMove(this.gameState);
+    MoveValidator.validate(this.gameState, seat, move);
+    GameState before = this.gameState.copy();
+    this.gameState.apply(move);
+    this.sequence++;
+    return StateDelta.between(before, this.gameState);
+  }
+
+  /**
+   * Appends a chat message of a player to the chat of the current game state.
+   *
+   * @param seat the session player number of the writing player
+   * @param text the text of the message
+   * @return the changes to the previous state, only the new message
+   */
+  public StateDelta addChatMessage(int seat, String text) {
+    ChatMessage message = new ChatMessage(this.gameState.getPlayers().get(seat).getName(), text);
+    this.gameState.getChat().writeMessage(message);
+    this.sequence++;
+    return StateDelta.ofChatMessage(this.gameState, message);
+  }
+
+  /**
+   * Returns the sequence number of the current game state.
+   *
+   * @return the sequence number
+   */
+  public int getSequence() {
+    return this.sequence;
   }
 
   /**
-   * Replaces the current game state with a new one.
+   * Creates a package with a copy of the current game state and its sequence number. As the state
+   * is copied, the package can be encoded after the lock of the {@link GameSessionManager} was
+   * released, while other actions change the state of the session.
    *
-   * @param newGameState the updated game state
+   * @param player the player whose action or request caused the snapshot
+   * @return the snapshot
    */
-  public void updateGameState(GameState newGameState) {
-    this.gameState = newGameState;
+  public PlayerActionPackage createSnapshot(AbstractPlayer player) {
+    PlayerActionPackage snapshot =
+        new PlayerActionPackage(player, this.SESSION_ID, this.gameState.copy());
+    snapshot.setSequence(this.sequence);
+    return snapshot;
   }
 
   public boolean isMultiplayer() {
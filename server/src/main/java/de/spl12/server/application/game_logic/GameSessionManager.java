@@ -11,6 +11,7 @@ import de.spl12.domain.HumanPlayer;
 import de.spl12.domain.AiPlayer;
 import de.spl12.domain.GameState;
 import de.spl12.domain.StoneType;
+import de.spl12.domain.Exceptions.ActionNotPossibleException;
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionAlreadyFullException;
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionAlreadyStartedException;
 import de.spl12.domain.Exceptions.SessionHandlingExceptions.SessionNotFoundException;
@@ -18,6 +19,10 @@ import de.spl12.domain.Exceptions.SessionHandlingExceptions.SinglePlayerSessionE
 import de.spl12.server.application.user_management.UserHandler;
 import de.spl12.server.application.user_management.UserStatsHandler;
 import de.spl12.server.application.User;
+import de.spl12.domain.messages.AbstractPackage;
+import de.spl12.domain.messages.StateDelta;
+import de.spl12.domain.messages.StateDeltaPackage;
+import de.spl12.domain.moves.TurnStep;
 
 /**
  * Singleton class responsible for managing all active {@link GameSession} instances.
@@ -187,17 +192,105 @@ public class GameSessionManager {
   }
 
   /**
-   * Updates the game state of the session in response to a player's in-game action.
+   * Starts or resets the game of a session on request of the host, see {@link
+   * GameSession#applyLobbyAction(GameState)}. Moves and chat messages have their own packages.
    *
+   * @param player       the host
    * @param sessionId    the ID of the session to update
-   * @param newGameState the new game state after the action
-   * @return the new {@link GameState}
+   * @param newGameState the game state of the host after the action
+   * @return the package to broadcast: a {@link StateDeltaPackage}, or the full state if the
+   *     players or the game changed
+   * @throws ActionNotPossibleException if the session does not exist or a game is in progress
    */
-  public GameState handlePlayerAction(int sessionId, GameState newGameState) {
+  public AbstractPackage handlePlayerAction(
+      AbstractPlayer player, int sessionId, GameState newGameState)
+      throws ActionNotPossibleException {
     synchronized (GAME_SESSIONS) {
       GameSession gameSession = GAME_SESSIONS.get(sessionId);
-      gameSession.updateGameState(newGameState);
-      return gameSession.getGameState();
+      if (gameSession == null) {
+        throw new ActionNotPossibleException("Session " + sessionId + " does not exist");
+      }
+      StateDelta delta = gameSession.applyLobbyAction(newGameState);
+      if (delta == null) {
+        return gameSession.createSnapshot(player);
+      }
+      return new StateDeltaPackage(sessionId, gameSession.getSequence(), delta);
+    }
+  }
+
+  /**
+   * Validates and applies a complete turn submitted by a player. The session state is only changed
+   * if the move is legal.
+   *
+   * @param sessionId the ID of the session
+   * @param seat      the session player number of the player
+   * @param steps     the steps of the turn of the player
+   * @return the {@link StateDeltaPackage} with the steps to broadcast
+   * @throws ActionNotPossibleException if the session does not exist, it is not the turn of the
+   *     player or the move breaks the rules
+   */
+  public StateDeltaPackage handleMove(int sessionId, int seat, List<TurnStep> steps)
+      throws ActionNotPossibleException {
+    synchronized (GAME_SESSIONS) {
+      GameSession gameSession = GAME_SESSIONS.get(sessionId);
+      if (gameSession == null) {
+        throw new ActionNotPossibleException("Session " + sessionId + " does not exist");
+      }
+      StateDelta delta = gameSession.applyMove(seat, steps);
+      return new StateDeltaPackage(sessionId, gameSession.getSequence(), delta, steps);
+    }
+  }
+
+  /**
+   * Appends a chat message of a player to the game state of a session.
+   *
+   * @param sessionId the ID of the session
+   * @param seat      the session player number of the writing player
+   * @param text      the text of the message
+   * @return the {@link StateDeltaPackage} with the message to broadcast, or null if the session or
+   *     the seat does not exist anymore
+   */
+  public StateDeltaPackage handleChat(int sessionId, int seat, String text) {
+    synchronized (GAME_SESSIONS) {
+      GameSession gameSession = GAME_SESSIONS.get(sessionId);
+      if (gameSession == null || seat < 0 || seat >= gameSession.getPlayerCount()) {
+        return null;
+      }
+      StateDelta delta = gameSession.addChatMessage(seat, text);
+      return new StateDeltaPackage(sessionId, gameSession.getSequence(), delta);
+    }
+  }
+
+  /**
+   * Returns the name of the player on a seat of a session.
+   *
+   * @param sessionId the ID of the session
+   * @param seat      the session player number
+   * @return the name, or null if the session or the seat does not exist
+   */
+  public String getPlayerName(int sessionId, int seat) {
+    synchronized (GAME_SESSIONS) {
+      GameSession gameSession = GAME_SESSIONS.get(sessionId);
+      if (gameSession == null || seat < 0 || seat >= gameSession.getPlayerCount()) {
+        return null;
+      }
+      return gameSession.getGameState().getPlayers().get(seat).getName();
+    }
+  }
+
+  /**
+   * Returns the full game state of a session, for a player that joined, left or missed an update.
+   * The snapshot is taken while holding the lock of the sessions, see {@link
+   * GameSession#createSnapshot(AbstractPlayer)}.
+   *
+   * @param player    the player whose action or request caused the snapshot
+   * @param sessionId the ID of the session
+   * @return the snapshot, or null if the session does not exist anymore
+   */
+  public AbstractPackage handleResync(AbstractPlayer player, int sessionId) {
+    synchronized (GAME_SESSIONS) {
+      GameSession gameSession = GAME_SESSIONS.get(sessionId);
+      return gameSession == null ? null : gameSession.createSnapshot(player);
     }
   }
 